@@ -45,6 +45,8 @@ public class Cache
 		options.addOption(null, "npcs", true, "directory to dump npcs to");
 		options.addOption(null, "objects", true, "directory to dump objects to");
 		options.addOption(null, "sprites", true, "directory to dump sprites to");
+		options.addOption(null, "ndjson", false, "dump items, npcs or objects to a single newline delimited json file instead of a directory");
+		options.addOption(null, "gzip", false, "gzip the newline delimited json file");
 
 		CommandLineParser parser = new DefaultParser();
 		CommandLine cmd;
@@ -62,6 +64,8 @@ public class Cache
 		String cache = cmd.getOptionValue("cache");
 
 		Store store = loadStore(cache);
+		boolean ndjson = cmd.hasOption("ndjson");
+		boolean gzip = cmd.hasOption("gzip");
 
 		if (cmd.hasOption("items"))
 		{
@@ -74,7 +78,7 @@ public class Cache
 			}
 
 			System.out.println("Dumping items to " + itemdir);
-			dumpItems(store, new File(itemdir));
+			dumpItems(store, new File(itemdir), ndjson, gzip);
 		}
 		else if (cmd.hasOption("npcs"))
 		{
@@ -87,7 +91,7 @@ public class Cache
 			}
 
 			System.out.println("Dumping npcs to " + npcdir);
-			dumpNpcs(store, new File(npcdir));
+			dumpNpcs(store, new File(npcdir), ndjson, gzip);
 		}
 		else if (cmd.hasOption("objects"))
 		{
@@ -100,7 +104,7 @@ public class Cache
 			}
 
 			System.out.println("Dumping objects to " + objectdir);
-			dumpObjects(store, new File(objectdir));
+			dumpObjects(store, new File(objectdir), ndjson, gzip);
 		}
 		else if (cmd.hasOption("sprites"))
 		{
@@ -128,26 +132,41 @@ public class Cache
 		return store;
 	}
 
-	private static void dumpItems(Store store, File itemdir) throws IOException
+	private static void dumpItems(Store store, File itemdir, boolean ndjson, boolean gzip) throws IOException
 	{
 		ItemManager dumper = new ItemManager(store);
 		dumper.load();
+		if (ndjson)
+		{
+			dumper.exportNdjson(itemdir, gzip);
+			return;
+		}
 		dumper.export(itemdir);
 		dumper.java(itemdir);
 	}
 
-	private static void dumpNpcs(Store store, File npcdir) throws IOException
+	private static void dumpNpcs(Store store, File npcdir, boolean ndjson, boolean gzip) throws IOException
 	{
 		NpcManager dumper = new NpcManager(store);
 		dumper.load();
+		if (ndjson)
+		{
+			dumper.exportNdjson(npcdir, gzip);
+			return;
+		}
 		dumper.dump(npcdir);
 		dumper.java(npcdir);
 	}
 
-	private static void dumpObjects(Store store, File objectdir) throws IOException
+	private static void dumpObjects(Store store, File objectdir, boolean ndjson, boolean gzip) throws IOException
 	{
 		ObjectManager dumper = new ObjectManager(store);
 		dumper.load();
+		if (ndjson)
+		{
+			dumper.exportNdjson(objectdir, gzip);
+			return;
+		}
 		dumper.dump(objectdir);
 		dumper.java(objectdir);
 	}
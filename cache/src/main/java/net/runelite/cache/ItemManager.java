@@ -28,30 +28,34 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.stream.Collectors;
 import net.runelite.cache.definitions.ItemDefinition;
-import net.runelite.cache.definitions.exporters.ItemExporter;
+import net.runelite.cache.definitions.exporters.JsonExporter;
 import net.runelite.cache.definitions.loaders.ItemLoader;
 import net.runelite.cache.definitions.providers.ItemProvider;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.util.DefinitionCache;
 import net.runelite.cache.util.IDClass;
 
 public class ItemManager implements ItemProvider
 {
 	private final Store store;
-	private final Map<Integer, ItemDefinition> items = new HashMap<>();
+	private DefinitionCache<ItemDefinition> items;
+	private volatile boolean linked;
 
 	public ItemManager(Store store)
 	{
 		this.store = store;
 	}
 
+	/**
+	 * Load the item archive. Items are decoded when they are first requested.
+	 */
 	public void load() throws IOException
 	{
 		ItemLoader loader = new ItemLoader();
@@ -63,19 +67,25 @@ public class ItemManager implements ItemProvider
 		byte[] archiveData = storage.loadArchive(archive);
 		ArchiveFiles files = archive.getFiles(archiveData);
 
-		for (FSFile f : files.getFiles())
+		items = DefinitionCache.of(files, (id, data) ->
 		{
-			ItemDefinition def = loader.load(f.getFileId(), f.getContents());
-			items.put(f.getFileId(), def);
-		}
+			ItemDefinition def = loader.load(id, data);
+			if (linked)
+			{
+				link(def);
+			}
+			return def;
+		});
 	}
 
+	/**
+	 * Link noted, bought and placeholder items to their templates. Items are
+	 * linked as they are decoded, so this drops any items decoded before.
+	 */
 	public void link()
 	{
-		for (ItemDefinition oc : items.values())
-		{
-			link(oc);
-		}
+		linked = true;
+		items.invalidateAll();
 	}
 
 	private void link(ItemDefinition item)
@@ -94,9 +104,15 @@ public class ItemManager implements ItemProvider
 		}
 	}
 
+	/**
+	 * Decode every item, in id order. The definitions are decoded afresh on each call
+	 * and are not the cached instances returned by {@link #getItem(int)}, so changes made
+	 * to them are not kept.
+	 */
 	public Collection<ItemDefinition> getItems()
 	{
-		return Collections.unmodifiableCollection(items.values());
+		List<ItemDefinition> list = items.stream().collect(Collectors.toList());
+		return Collections.unmodifiableCollection(list);
 	}
 
 	public ItemDefinition getItem(int itemId)
@@ -106,15 +122,17 @@ public class ItemManager implements ItemProvider
 
 	public void export(File out) throws IOException
 	{
-		out.mkdirs();
-
-		for (ItemDefinition def : items.values())
-		{
-			ItemExporter exporter = new ItemExporter(def);
+		JsonExporter.exportFiles(getItems(), def -> def.id, out);
+	}
 
-			File targ = new File(out, def.id + ".json");
-			exporter.exportTo(targ);
-		}
+	/**
+	 * Write every item to a single file of newline delimited json, in id order
+	 *
+	 * @param gzip whether to gzip the file
+	 */
+	public void exportNdjson(File out, boolean gzip) throws IOException
+	{
+		JsonExporter.exportNdjson(getItems(), out, gzip);
 	}
 
 	public void java(File java) throws IOException
@@ -123,7 +141,7 @@ public class ItemManager implements ItemProvider
 		try (IDClass ids = IDClass.create(java, "ItemID");
 			IDClass nulls = IDClass.create(java, "NullItemID"))
 		{
-			for (ItemDefinition def : items.values())
+			for (ItemDefinition def : getItems())
 			{
 				if (def.name.equalsIgnoreCase("NULL"))
 				{
@@ -28,29 +28,32 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.stream.Collectors;
 import net.runelite.cache.definitions.NpcDefinition;
-import net.runelite.cache.definitions.exporters.NpcExporter;
+import net.runelite.cache.definitions.exporters.JsonExporter;
 import net.runelite.cache.definitions.loaders.NpcLoader;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.util.DefinitionCache;
 import net.runelite.cache.util.IDClass;
 
 public class NpcManager
 {
 	private final Store store;
-	private final Map<Integer, NpcDefinition> npcs = new HashMap<>();
+	private DefinitionCache<NpcDefinition> npcs;
 
 	public NpcManager(Store store)
 	{
 		this.store = store;
 	}
 
+	/**
+	 * Load the npc archive. Npcs are decoded when they are first requested.
+	 */
 	public void load() throws IOException
 	{
 		NpcLoader loader = new NpcLoader();
@@ -62,16 +65,18 @@ public class NpcManager
 		byte[] archiveData = storage.loadArchive(archive);
 		ArchiveFiles files = archive.getFiles(archiveData);
 
-		for (FSFile f : files.getFiles())
-		{
-			NpcDefinition npc = loader.load(f.getFileId(), f.getContents());
-			npcs.put(f.getFileId(), npc);
-		}
+		npcs = DefinitionCache.of(files, loader::load);
 	}
 
+	/**
+	 * Decode every npc, in id order. The definitions are decoded afresh on each call
+	 * and are not the cached instances returned by {@link #get(int)}, so changes made
+	 * to them are not kept.
+	 */
 	public Collection<NpcDefinition> getNpcs()
 	{
-		return Collections.unmodifiableCollection(npcs.values());
+		List<NpcDefinition> list = npcs.stream().collect(Collectors.toList());
+		return Collections.unmodifiableCollection(list);
 	}
 
 	public NpcDefinition get(int npcId)
@@ -81,15 +86,17 @@ public class NpcManager
 
 	public void dump(File out) throws IOException
 	{
-		out.mkdirs();
-
-		for (NpcDefinition def : npcs.values())
-		{
-			NpcExporter exporter = new NpcExporter(def);
+		JsonExporter.exportFiles(getNpcs(), def -> def.id, out);
+	}
 
-			File targ = new File(out, def.id + ".json");
-			exporter.exportTo(targ);
-		}
+	/**
+	 * Write every npc to a single file of newline delimited json, in id order
+	 *
+	 * @param gzip whether to gzip the file
+	 */
+	public void exportNdjson(File out, boolean gzip) throws IOException
+	{
+		JsonExporter.exportNdjson(getNpcs(), out, gzip);
 	}
 
 	public void java(File java) throws IOException
@@ -98,7 +105,7 @@ public class NpcManager
 		try (IDClass ids = IDClass.create(java, "NpcID");
 			IDClass nulls = IDClass.create(java, "NullNpcID"))
 		{
-			for (NpcDefinition def : npcs.values())
+			for (NpcDefinition def : getNpcs())
 			{
 				if (def.name.equalsIgnoreCase("NULL"))
 				{
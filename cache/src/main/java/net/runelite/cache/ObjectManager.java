@@ -28,29 +28,32 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.stream.Collectors;
 import net.runelite.cache.definitions.ObjectDefinition;
-import net.runelite.cache.definitions.exporters.ObjectExporter;
+import net.runelite.cache.definitions.exporters.JsonExporter;
 import net.runelite.cache.definitions.loaders.ObjectLoader;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.util.DefinitionCache;
 import net.runelite.cache.util.IDClass;
 
 public class ObjectManager
 {
 	private final Store store;
-	private final Map<Integer, ObjectDefinition> objects = new HashMap<>();
+	private DefinitionCache<ObjectDefinition> objects;
 
 	public ObjectManager(Store store)
 	{
 		this.store = store;
 	}
 
+	/**
+	 * Load the object archive. Objects are decoded when they are first requested.
+	 */
 	public void load() throws IOException
 	{
 		ObjectLoader loader = new ObjectLoader();
@@ -62,16 +65,18 @@ public class ObjectManager
 		byte[] archiveData = storage.loadArchive(archive);
 		ArchiveFiles files = archive.getFiles(archiveData);
 
-		for (FSFile f : files.getFiles())
-		{
-			ObjectDefinition def = loader.load(f.getFileId(), f.getContents());
-			objects.put(f.getFileId(), def);
-		}
+		objects = DefinitionCache.of(files, loader::load);
 	}
 
+	/**
+	 * Decode every object, in id order. The definitions are decoded afresh on each call
+	 * and are not the cached instances returned by {@link #getObject(int)}, so changes made
+	 * to them are not kept.
+	 */
 	public Collection<ObjectDefinition> getObjects()
 	{
-		return Collections.unmodifiableCollection(objects.values());
+		List<ObjectDefinition> list = objects.stream().collect(Collectors.toList());
+		return Collections.unmodifiableCollection(list);
 	}
 
 	public ObjectDefinition getObject(int id)
@@ -81,15 +86,17 @@ public class ObjectManager
 
 	public void dump(File out) throws IOException
 	{
-		out.mkdirs();
-
-		for (ObjectDefinition def : objects.values())
-		{
-			ObjectExporter exporter = new ObjectExporter(def);
+		JsonExporter.exportFiles(getObjects(), ObjectDefinition::getId, out);
+	}
 
-			File targ = new File(out, def.getId() + ".json");
-			exporter.exportTo(targ);
-		}
+	/**
+	 * Write every object to a single file of newline delimited json, in id order
+	 *
+	 * @param gzip whether to gzip the file
+	 */
+	public void exportNdjson(File out, boolean gzip) throws IOException
+	{
+		JsonExporter.exportNdjson(getObjects(), out, gzip);
 	}
 
 	public void java(File java) throws IOException
@@ -98,7 +105,7 @@ public class ObjectManager
 		try (IDClass ids = IDClass.create(java, "ObjectID");
 			IDClass nulls = IDClass.create(java, "NullObjectID"))
 		{
-			for (ObjectDefinition def : objects.values())
+			for (ObjectDefinition def : getObjects())
 			{
 				if ("null".equals(def.getName()))
 				{
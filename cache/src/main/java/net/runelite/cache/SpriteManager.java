@@ -24,13 +24,16 @@
  */
 package net.runelite.cache;
 
-import com.google.common.collect.LinkedListMultimap;
-import com.google.common.collect.Multimap;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 import net.runelite.cache.definitions.SpriteDefinition;
 import net.runelite.cache.definitions.exporters.SpriteExporter;
 import net.runelite.cache.definitions.loaders.SpriteLoader;
@@ -39,44 +42,73 @@ import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.util.DefinitionCache;
 
 public class SpriteManager implements SpriteProvider
 {
 	private final Store store;
-	private final Multimap<Integer, SpriteDefinition> sprites = LinkedListMultimap.create();
+	// the frames of each sprite, keyed by sprite id
+	private DefinitionCache<SpriteDefinition[]> sprites;
 
 	public SpriteManager(Store store)
 	{
 		this.store = store;
 	}
 
+	/**
+	 * Load the sprite archives. Sprites are decompressed and decoded when they
+	 * are first requested.
+	 */
 	public void load() throws IOException
 	{
 		Storage storage = store.getStorage();
 		Index index = store.getIndex(IndexType.SPRITES);
+		List<Archive> archives = index.getArchives();
 
-		for (Archive a : index.getArchives())
+		int[] ids = new int[archives.size()];
+		ByteBuffer[] data = new ByteBuffer[archives.size()];
+		for (int i = 0; i < ids.length; ++i)
 		{
-			byte[] contents = a.decompress(storage.loadArchive(a));
-
-			SpriteLoader loader = new SpriteLoader();
-			SpriteDefinition[] defs = loader.load(a.getArchiveId(), contents);
+			Archive a = archives.get(i);
+			ids[i] = a.getArchiveId();
+			data[i] = ByteBuffer.wrap(storage.loadArchive(a));
+		}
 
-			for (SpriteDefinition sprite : defs)
+		SpriteLoader loader = new SpriteLoader();
+		sprites = new DefinitionCache<>(ids, data, (id, compressed) ->
+		{
+			try
 			{
-				sprites.put(sprite.getId(), sprite);
+				byte[] contents = index.getArchive(id).decompress(compressed.array());
+				return loader.load(id, contents);
 			}
-		}
+			catch (IOException ex)
+			{
+				throw new UncheckedIOException(ex);
+			}
+		});
 	}
 
+	/**
+	 * Decode every sprite, in id order
+	 */
 	public Collection<SpriteDefinition> getSprites()
 	{
-		return Collections.unmodifiableCollection(sprites.values());
+		List<SpriteDefinition> list = sprites.stream()
+			.flatMap(Arrays::stream)
+			.collect(Collectors.toList());
+		return Collections.unmodifiableCollection(list);
 	}
 
 	public SpriteDefinition findSprite(int spriteId, int frameId)
 	{
-		for (SpriteDefinition sprite : sprites.get(spriteId))
+		SpriteDefinition[] frames = sprites.get(spriteId);
+		if (frames == null)
+		{
+			return null;
+		}
+
+		for (SpriteDefinition sprite : frames)
 		{
 			if (sprite.getFrame() == frameId)
 			{
@@ -95,7 +127,7 @@ public class SpriteManager implements SpriteProvider
 
 	public void export(File outDir) throws IOException
 	{
-		for (SpriteDefinition sprite : sprites.values())
+		for (SpriteDefinition sprite : getSprites())
 		{
 			// I don't know why this happens
 			if (sprite.getHeight() <= 0 || sprite.getWidth() <= 0)
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.runelite.cache.DBRowManager;
+import net.runelite.cache.DBTableIndexManager;
+import net.runelite.cache.DBTableManager;
+import net.runelite.cache.definitions.DBRowDefinition;
+import net.runelite.cache.definitions.DBTableDefinition;
+import net.runelite.cache.definitions.DBTableIndex;
+
+/**
+ * Lookups of db rows by column value. Lookups use the column indexes of the
+ * cache where they exist, and otherwise scan the columns of the table.
+ */
+public class DBQueryEngine
+{
+	private static final int[] EMPTY = new int[0];
+
+	private final Map<Integer, DBTable> tables = new HashMap<>();
+	// table id << 16 | column id -> per tuple element, value -> sorted row ids
+	private final Map<Integer, List<Map<Object, int[]>>> indexes = new HashMap<>();
+
+	public DBQueryEngine(DBTableManager tableManager, DBRowManager rowManager, DBTableIndexManager indexManager)
+	{
+		this(tableManager.getTables(), rowManager.getRows(), indexManager.getIndexes());
+	}
+
+	public DBQueryEngine(Collection<DBTableDefinition> tables, Collection<DBRowDefinition> rows, Collection<DBTableIndex> indexes)
+	{
+		Map<Integer, List<DBRowDefinition>> tableRows = new HashMap<>();
+		for (DBRowDefinition row : rows)
+		{
+			tableRows.computeIfAbsent(row.getTableId(), k -> new ArrayList<>()).add(row);
+		}
+
+		for (DBTableDefinition table : tables)
+		{
+			List<DBRowDefinition> r = tableRows.getOrDefault(table.getId(), new ArrayList<>());
+			this.tables.put(table.getId(), new DBTable(table, r));
+		}
+
+		for (DBTableIndex index : indexes)
+		{
+			// the master index of a table has column -1, and lists the rows of the table
+			if (index.getColumnId() < 0 || index.getTupleIndexes() == null)
+			{
+				continue;
+			}
+
+			List<Map<Object, int[]>> tuples = new ArrayList<>(index.getTupleIndexes().size());
+			for (Map<Object, List<Integer>> tupleIndex : index.getTupleIndexes())
+			{
+				Map<Object, int[]> valueRows = new HashMap<>(tupleIndex.size());
+				for (Map.Entry<Object, List<Integer>> entry : tupleIndex.entrySet())
+				{
+					int[] rowIds = entry.getValue().stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+					valueRows.put(entry.getKey(), rowIds);
+				}
+				tuples.add(valueRows);
+			}
+			this.indexes.put(index.getTableId() << 16 | index.getColumnId(), tuples);
+		}
+	}
+
+	public DBTable getTable(int tableId)
+	{
+		return tables.get(tableId);
+	}
+
+	public Collection<DBTable> getTables()
+	{
+		return tables.values();
+	}
+
+	public boolean isIndexed(int tableId, int column)
+	{
+		return indexes.containsKey(tableId << 16 | column);
+	}
+
+	/**
+	 * Find the rows of a table with a field of a column equal to a value
+	 *
+	 * @see #find(int, int, int, Object)
+	 */
+	public int[] find(int tableId, int column, Object value)
+	{
+		return find(tableId, column, 0, value);
+	}
+
+	/**
+	 * Find the rows of a table with a field of a column whose tuple element
+	 * equals a value.
+	 *
+	 * @param value an {@link Integer} or {@link String}, depending on the column type
+	 * @return the ids of the matching rows, in ascending order
+	 */
+	public int[] find(int tableId, int column, int tuple, Object value)
+	{
+		List<Map<Object, int[]>> index = indexes.get(tableId << 16 | column);
+		if (index != null && tuple < index.size())
+		{
+			int[] rowIds = index.get(tuple).get(value);
+			return rowIds != null ? rowIds.clone() : EMPTY;
+		}
+
+		DBTable table = tables.get(tableId);
+		return table != null ? table.scan(column, tuple, value) : EMPTY;
+	}
+
+	/**
+	 * Find the rows of one table with a field equal to any value of a column of
+	 * some rows of another table. For example, with a column of the left table
+	 * holding ids of the right table's rows, this finds the rows of the right
+	 * table which refer back to them.
+	 *
+	 * @param leftRows ids of the rows of the left table to take values from
+	 * @return the ids of the matching rows of the right table, in ascending order
+	 */
+	public int[] join(int leftTableId, int[] leftRows, int leftColumn, int leftTuple,
+		int rightTableId, int rightColumn, int rightTuple)
+	{
+		DBTable left = tables.get(leftTableId);
+		if (left == null)
+		{
+			return EMPTY;
+		}
+
+		Set<Object> values = new HashSet<>();
+		for (int rowId : leftRows)
+		{
+			int row = left.indexOf(rowId);
+			if (row == -1)
+			{
+				continue;
+			}
+
+			int fields = left.getFieldCount(row, leftColumn);
+			for (int field = 0; field < fields; ++field)
+			{
+				values.add(left.getValue(row, leftColumn, field, leftTuple));
+			}
+		}
+
+		int[] result = EMPTY;
+		for (Object value : values)
+		{
+			result = union(result, find(rightTableId, rightColumn, rightTuple, value));
+		}
+		return result;
+	}
+
+	private static int[] union(int[] a, int[] b)
+	{
+		if (a.length == 0)
+		{
+			return b;
+		}
+		if (b.length == 0)
+		{
+			return a;
+		}
+
+		int[] out = new int[a.length + b.length];
+		int i = 0, j = 0, n = 0;
+		while (i < a.length && j < b.length)
+		{
+			if (a[i] < b[j])
+			{
+				out[n++] = a[i++];
+			}
+			else if (a[i] > b[j])
+			{
+				out[n++] = b[j++];
+			}
+			else
+			{
+				out[n++] = a[i++];
+				++j;
+			}
+		}
+		while (i < a.length)
+		{
+			out[n++] = a[i++];
+		}
+		while (j < b.length)
+		{
+			out[n++] = b[j++];
+		}
+		return Arrays.copyOf(out, n);
+	}
+}
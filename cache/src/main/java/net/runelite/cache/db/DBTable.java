@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.db;
+
+import java.util.Arrays;
+import java.util.List;
+import lombok.Getter;
+import net.runelite.cache.definitions.DBRowDefinition;
+import net.runelite.cache.definitions.DBTableDefinition;
+import net.runelite.cache.util.ScriptVarType;
+
+/**
+ * The rows of a db table, stored by column. Each column of a row holds a number
+ * of fields, and each field is a tuple of values of the column types. The values
+ * of each tuple element are stored in a single array across all rows, with
+ * string types in a {@code String[]} and every other type in an {@code int[]}.
+ */
+public class DBTable
+{
+	private static final int[] EMPTY = new int[0];
+
+	@Getter
+	private final int tableId;
+	@Getter
+	private final ScriptVarType[][] types;
+	// sorted row ids
+	private final int[] rowIds;
+	// [column][row] index of the first field of the row, with a final entry for the end
+	private final int[][] fieldStart;
+	// [column][tuple] either int[] or String[], indexed by field
+	private final Object[][] values;
+
+	DBTable(DBTableDefinition table, List<DBRowDefinition> rows)
+	{
+		this.tableId = table.getId();
+		this.types = table.getTypes() != null ? table.getTypes() : new ScriptVarType[0][];
+
+		DBRowDefinition[] sorted = rows.toArray(new DBRowDefinition[0]);
+		Arrays.sort(sorted, (a, b) -> Integer.compare(a.getId(), b.getId()));
+
+		rowIds = new int[sorted.length];
+		for (int i = 0; i < sorted.length; ++i)
+		{
+			rowIds[i] = sorted[i].getId();
+		}
+
+		fieldStart = new int[types.length][];
+		values = new Object[types.length][];
+		for (int column = 0; column < types.length; ++column)
+		{
+			ScriptVarType[] columnTypes = types[column];
+			if (columnTypes == null)
+			{
+				continue;
+			}
+
+			Object[] defaults = null;
+			if (table.getDefaultColumnValues() != null)
+			{
+				defaults = (Object[]) table.getDefaultColumnValues()[column];
+			}
+
+			int[] start = new int[sorted.length + 1];
+			int fields = 0;
+			for (int row = 0; row < sorted.length; ++row)
+			{
+				start[row] = fields;
+				Object[] rowValues = columnValues(sorted[row], column, defaults);
+				if (rowValues != null)
+				{
+					fields += rowValues.length / columnTypes.length;
+				}
+			}
+			start[sorted.length] = fields;
+
+			Object[] tuples = new Object[columnTypes.length];
+			for (int tuple = 0; tuple < columnTypes.length; ++tuple)
+			{
+				tuples[tuple] = columnTypes[tuple] == ScriptVarType.STRING ? new String[fields] : new int[fields];
+			}
+
+			for (int row = 0; row < sorted.length; ++row)
+			{
+				Object[] rowValues = columnValues(sorted[row], column, defaults);
+				if (rowValues == null)
+				{
+					continue;
+				}
+
+				for (int i = 0; i < rowValues.length; ++i)
+				{
+					int field = start[row] + i / columnTypes.length;
+					Object array = tuples[i % columnTypes.length];
+					if (array instanceof String[])
+					{
+						((String[]) array)[field] = (String) rowValues[i];
+					}
+					else
+					{
+						((int[]) array)[field] = (Integer) rowValues[i];
+					}
+				}
+			}
+
+			fieldStart[column] = start;
+			values[column] = tuples;
+		}
+	}
+
+	private static Object[] columnValues(DBRowDefinition row, int column, Object[] defaults)
+	{
+		Object[][] columnValues = row.getColumnValues();
+		if (columnValues != null && column < columnValues.length && columnValues[column] != null)
+		{
+			return columnValues[column];
+		}
+		return defaults;
+	}
+
+	public int getRowCount()
+	{
+		return rowIds.length;
+	}
+
+	/**
+	 * The ids of the rows, in ascending order
+	 */
+	public int[] getRowIds()
+	{
+		return rowIds.clone();
+	}
+
+	/**
+	 * Get the position of a row in the table
+	 *
+	 * @return the row position, or -1 if the row is not in the table
+	 */
+	public int indexOf(int rowId)
+	{
+		int idx = Arrays.binarySearch(rowIds, rowId);
+		return idx < 0 ? -1 : idx;
+	}
+
+	public int getFieldCount(int row, int column)
+	{
+		int[] start = fieldStart[column];
+		return start == null ? 0 : start[row + 1] - start[row];
+	}
+
+	public int getInt(int row, int column, int field, int tuple)
+	{
+		return ((int[]) values[column][tuple])[fieldIndex(row, column, field)];
+	}
+
+	public String getString(int row, int column, int field, int tuple)
+	{
+		return ((String[]) values[column][tuple])[fieldIndex(row, column, field)];
+	}
+
+	/**
+	 * Get a value as an {@link Integer} or {@link String}, depending on its type
+	 */
+	public Object getValue(int row, int column, int field, int tuple)
+	{
+		Object array = values[column][tuple];
+		int idx = fieldIndex(row, column, field);
+		return array instanceof String[] ? ((String[]) array)[idx] : (Object) ((int[]) array)[idx];
+	}
+
+	private int fieldIndex(int row, int column, int field)
+	{
+		if (field < 0 || field >= getFieldCount(row, column))
+		{
+			throw new IndexOutOfBoundsException("field " + field + " of column " + column + " of row " + rowIds[row]);
+		}
+		return fieldStart[column][row] + field;
+	}
+
+	/**
+	 * Find the rows with a field of a column whose tuple element equals a value,
+	 * by checking every row
+	 *
+	 * @return the ids of the matching rows, in ascending order
+	 */
+	public int[] scan(int column, int tuple, Object value)
+	{
+		if (column < 0 || column >= values.length || values[column] == null
+			|| tuple < 0 || tuple >= values[column].length)
+		{
+			return EMPTY;
+		}
+
+		int[] start = fieldStart[column];
+		Object array = values[column][tuple];
+		int[] result = new int[rowIds.length];
+		int count = 0;
+
+		if (array instanceof String[])
+		{
+			if (!(value instanceof String))
+			{
+				return EMPTY;
+			}
+
+			String[] strings = (String[]) array;
+			for (int row = 0; row < rowIds.length; ++row)
+			{
+				for (int i = start[row]; i < start[row + 1]; ++i)
+				{
+					if (value.equals(strings[i]))
+					{
+						result[count++] = rowIds[row];
+						break;
+					}
+				}
+			}
+		}
+		else
+		{
+			if (!(value instanceof Integer))
+			{
+				return EMPTY;
+			}
+
+			int v = (Integer) value;
+			int[] ints = (int[]) array;
+			for (int row = 0; row < rowIds.length; ++row)
+			{
+				for (int i = start[row]; i < start[row + 1]; ++i)
+				{
+					if (ints[i] == v)
+					{
+						result[count++] = rowIds[row];
+						break;
+					}
+				}
+			}
+		}
+
+		return Arrays.copyOf(result, count);
+	}
+}
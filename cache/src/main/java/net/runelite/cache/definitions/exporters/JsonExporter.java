@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.definitions.exporters;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes definitions as json, either as one file per definition or as a single
+ * file of newline delimited json. Definitions are encoded in parallel.
+ */
+public class JsonExporter
+{
+	/**
+	 * Gson instances are thread safe, so one is shared by every exporter
+	 */
+	static final Gson GSON = new GsonBuilder()
+		.setPrettyPrinting()
+		.create();
+
+	private static final Gson COMPACT_GSON = new Gson();
+
+	// number of definitions encoded at a time for newline delimited json
+	private static final int BATCH_SIZE = 1024;
+
+	/**
+	 * Write an object to a file as pretty printed json
+	 */
+	public static void write(Object object, File file) throws IOException
+	{
+		try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))
+		{
+			GSON.toJson(object, writer);
+		}
+	}
+
+	/**
+	 * Write each definition to {@code <id>.json} in a directory
+	 */
+	public static <T> void exportFiles(Collection<T> definitions, ToIntFunction<T> id, File dir) throws IOException
+	{
+		dir.mkdirs();
+
+		try
+		{
+			definitions.parallelStream().forEach(def ->
+			{
+				try
+				{
+					write(def, new File(dir, id.applyAsInt(def) + ".json"));
+				}
+				catch (IOException ex)
+				{
+					throw new UncheckedIOException(ex);
+				}
+			});
+		}
+		catch (UncheckedIOException ex)
+		{
+			throw ex.getCause();
+		}
+	}
+
+	/**
+	 * Write the definitions to a single file, one json object per line, in
+	 * the order of the collection
+	 *
+	 * @param gzip whether to gzip the file
+	 */
+	public static <T> void exportNdjson(Collection<T> definitions, File file, boolean gzip) throws IOException
+	{
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+		if (gzip)
+		{
+			out = new GZIPOutputStream(out);
+		}
+
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)))
+		{
+			List<T> batch = new ArrayList<>(BATCH_SIZE);
+			for (T def : definitions)
+			{
+				batch.add(def);
+				if (batch.size() == BATCH_SIZE)
+				{
+					writeBatch(batch, writer);
+					batch.clear();
+				}
+			}
+			writeBatch(batch, writer);
+		}
+	}
+
+	private static <T> void writeBatch(List<T> batch, Writer writer) throws IOException
+	{
+		// encode in parallel, then write in order
+		String[] lines = batch.parallelStream()
+			.map(COMPACT_GSON::toJson)
+			.toArray(String[]::new);
+
+		for (String line : lines)
+		{
+			writer.write(line);
+			writer.write('\n');
+		}
+	}
+}
@@ -25,6 +25,7 @@
 
 package net.runelite.cache.definitions.loaders;
 
+import java.nio.ByteBuffer;
 import net.runelite.cache.definitions.ItemDefinition;
 import net.runelite.cache.io.InputStream;
 import org.slf4j.Logger;
@@ -37,6 +38,11 @@ public class ItemLoader
 	private static final Logger logger = LoggerFactory.getLogger(ItemLoader.class);
 
 	public ItemDefinition load(int id, byte[] b)
+	{
+		return load(id, ByteBuffer.wrap(b));
+	}
+
+	public ItemDefinition load(int id, ByteBuffer b)
 	{
 		ItemDefinition def = new ItemDefinition(id);
 		InputStream is = new InputStream(b);
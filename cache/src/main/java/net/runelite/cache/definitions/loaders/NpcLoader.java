@@ -24,6 +24,7 @@
  */
 package net.runelite.cache.definitions.loaders;
 
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import net.runelite.cache.definitions.NpcDefinition;
 import net.runelite.cache.io.InputStream;
@@ -35,6 +36,11 @@ public class NpcLoader
 	private static final Logger logger = LoggerFactory.getLogger(NpcLoader.class);
 
 	public NpcDefinition load(int id, byte[] b)
+	{
+		return load(id, ByteBuffer.wrap(b));
+	}
+
+	public NpcDefinition load(int id, ByteBuffer b)
 	{
 		NpcDefinition def = new NpcDefinition(id);
 		InputStream is = new InputStream(b);
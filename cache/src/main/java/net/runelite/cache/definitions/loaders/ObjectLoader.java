@@ -24,6 +24,7 @@
  */
 package net.runelite.cache.definitions.loaders;
 
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 import net.runelite.cache.definitions.ObjectDefinition;
@@ -36,6 +37,11 @@ public class ObjectLoader
 	private static final Logger logger = LoggerFactory.getLogger(ObjectLoader.class);
 
 	public ObjectDefinition load(int id, byte[] b)
+	{
+		return load(id, ByteBuffer.wrap(b));
+	}
+
+	public ObjectDefinition load(int id, ByteBuffer b)
 	{
 		ObjectDefinition def = new ObjectDefinition();
 		InputStream is = new InputStream(b);
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.diff;
+
+import java.util.List;
+import lombok.Value;
+import net.runelite.cache.ConfigType;
+
+/**
+ * The differences between two cache revisions
+ */
+@Value
+public class ChangeSet
+{
+	public enum Type
+	{
+		ADDED,
+		REMOVED,
+		MODIFIED
+	}
+
+	@Value
+	public static class ArchiveChange
+	{
+		int indexId;
+		int archiveId;
+		Type type;
+		/**
+		 * The changed files of a modified archive, or empty if the archive
+		 * contents could not be compared
+		 */
+		List<FileChange> files;
+	}
+
+	@Value
+	public static class FileChange
+	{
+		int fileId;
+		Type type;
+	}
+
+	@Value
+	public static class DefinitionChange
+	{
+		ConfigType configType;
+		int id;
+		Type type;
+		/**
+		 * The changed fields of a modified definition
+		 */
+		List<FieldChange> fields;
+	}
+
+	@Value
+	public static class FieldChange
+	{
+		String field;
+		Object oldValue;
+		Object newValue;
+	}
+
+	/**
+	 * Changed archives, ordered by index and archive id
+	 */
+	List<ArchiveChange> archives;
+	/**
+	 * Changed item, npc and object definitions, ordered by config type and id
+	 */
+	List<DefinitionChange> definitions;
+
+	public boolean isEmpty()
+	{
+		return archives.isEmpty();
+	}
+}
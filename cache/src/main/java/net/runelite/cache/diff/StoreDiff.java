@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.diff;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.cache.ConfigType;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.definitions.loaders.ItemLoader;
+import net.runelite.cache.definitions.loaders.NpcLoader;
+import net.runelite.cache.definitions.loaders.ObjectLoader;
+import net.runelite.cache.diff.ChangeSet.ArchiveChange;
+import net.runelite.cache.diff.ChangeSet.DefinitionChange;
+import net.runelite.cache.diff.ChangeSet.FieldChange;
+import net.runelite.cache.diff.ChangeSet.FileChange;
+import net.runelite.cache.diff.ChangeSet.Type;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.index.ArchiveData;
+import net.runelite.cache.index.FileData;
+import net.runelite.cache.index.IndexData;
+
+/**
+ * Compares two cache revisions. Archives are first compared by crc and revision,
+ * and only the archives which differ are loaded and have their files compared.
+ * Changed item, npc and object definitions are decoded and compared field by field.
+ */
+@Slf4j
+public class StoreDiff
+{
+	private static final int CONFIGS = IndexType.CONFIGS.getNumber();
+
+	private static final Comparator<DefinitionChange> DEFINITION_ORDER = Comparator
+		.comparing(DefinitionChange::getConfigType)
+		.thenComparingInt(DefinitionChange::getId);
+
+	/**
+	 * Compare two stores. Changed archives are loaded and compared in parallel.
+	 */
+	public static ChangeSet diff(Store from, Store to) throws IOException
+	{
+		SortedSet<Integer> indexIds = new TreeSet<>();
+		from.getIndexes().forEach(i -> indexIds.add(i.getId()));
+		to.getIndexes().forEach(i -> indexIds.add(i.getId()));
+
+		List<ArchiveChange> changes = new ArrayList<>();
+		List<Archive[]> modified = new ArrayList<>();
+
+		for (int indexId : indexIds)
+		{
+			SortedMap<Integer, Archive> oldArchives = archives(from.findIndex(indexId));
+			SortedMap<Integer, Archive> newArchives = archives(to.findIndex(indexId));
+
+			for (Archive archive : oldArchives.values())
+			{
+				Archive newArchive = newArchives.get(archive.getArchiveId());
+				if (newArchive == null)
+				{
+					changes.add(new ArchiveChange(indexId, archive.getArchiveId(), Type.REMOVED, Collections.emptyList()));
+				}
+				else if (archive.getCrc() != newArchive.getCrc() || archive.getRevision() != newArchive.getRevision())
+				{
+					modified.add(new Archive[]{archive, newArchive});
+				}
+			}
+
+			for (Archive archive : newArchives.values())
+			{
+				if (!oldArchives.containsKey(archive.getArchiveId()))
+				{
+					changes.add(new ArchiveChange(indexId, archive.getArchiveId(), Type.ADDED, Collections.emptyList()));
+				}
+			}
+		}
+
+		Queue<DefinitionChange> definitions = new ConcurrentLinkedQueue<>();
+		List<ArchiveChange> modifiedChanges;
+		try
+		{
+			modifiedChanges = modified.parallelStream()
+				.map(pair ->
+				{
+					try
+					{
+						return diffArchive(from, to, pair[0], pair[1], definitions);
+					}
+					catch (IOException ex)
+					{
+						throw new UncheckedIOException(ex);
+					}
+				})
+				.collect(Collectors.toList());
+		}
+		catch (UncheckedIOException ex)
+		{
+			throw ex.getCause();
+		}
+		changes.addAll(modifiedChanges);
+
+		changes.sort(Comparator.comparingInt(ArchiveChange::getIndexId)
+			.thenComparingInt(ArchiveChange::getArchiveId));
+
+		List<DefinitionChange> sortedDefinitions = new ArrayList<>(definitions);
+		sortedDefinitions.sort(DEFINITION_ORDER);
+		return new ChangeSet(changes, sortedDefinitions);
+	}
+
+	/**
+	 * Compare reference tables, keyed by index id, against a store. As the contents
+	 * of the reference archives are not known, modified archives list only their
+	 * added and removed files, and no definitions are compared.
+	 */
+	public static ChangeSet diff(Map<Integer, IndexData> from, Store to)
+	{
+		SortedSet<Integer> indexIds = new TreeSet<>(from.keySet());
+		to.getIndexes().forEach(i -> indexIds.add(i.getId()));
+
+		List<ArchiveChange> changes = new ArrayList<>();
+		for (int indexId : indexIds)
+		{
+			SortedMap<Integer, ArchiveData> oldArchives = new TreeMap<>();
+			IndexData indexData = from.get(indexId);
+			if (indexData != null)
+			{
+				for (ArchiveData ad : indexData.getArchives())
+				{
+					oldArchives.put(ad.getId(), ad);
+				}
+			}
+			SortedMap<Integer, Archive> newArchives = archives(to.findIndex(indexId));
+
+			for (ArchiveData ad : oldArchives.values())
+			{
+				Archive archive = newArchives.get(ad.getId());
+				if (archive == null)
+				{
+					changes.add(new ArchiveChange(indexId, ad.getId(), Type.REMOVED, Collections.emptyList()));
+				}
+				else if (ad.getCrc() != archive.getCrc() || ad.getRevision() != archive.getRevision())
+				{
+					List<FileChange> files = diffFileIds(ad.getFiles(), archive.getFileData());
+					changes.add(new ArchiveChange(indexId, ad.getId(), Type.MODIFIED, files));
+				}
+			}
+
+			for (Archive archive : newArchives.values())
+			{
+				if (!oldArchives.containsKey(archive.getArchiveId()))
+				{
+					changes.add(new ArchiveChange(indexId, archive.getArchiveId(), Type.ADDED, Collections.emptyList()));
+				}
+			}
+		}
+
+		return new ChangeSet(changes, Collections.emptyList());
+	}
+
+	private static SortedMap<Integer, Archive> archives(Index index)
+	{
+		SortedMap<Integer, Archive> archives = new TreeMap<>();
+		if (index != null)
+		{
+			for (Archive archive : index.getArchives())
+			{
+				archives.put(archive.getArchiveId(), archive);
+			}
+		}
+		return archives;
+	}
+
+	private static ArchiveChange diffArchive(Store from, Store to, Archive oldArchive, Archive newArchive,
+		Queue<DefinitionChange> definitions) throws IOException
+	{
+		int indexId = oldArchive.getIndex().getId();
+		int archiveId = oldArchive.getArchiveId();
+
+		byte[] oldData = from.getStorage().loadArchive(oldArchive);
+		byte[] newData = to.getStorage().loadArchive(newArchive);
+		if (oldData == null || newData == null)
+		{
+			return new ArchiveChange(indexId, archiveId, Type.MODIFIED, Collections.emptyList());
+		}
+
+		ArchiveFiles oldFiles, newFiles;
+		try
+		{
+			oldFiles = oldArchive.getFiles(oldData);
+			newFiles = newArchive.getFiles(newData);
+		}
+		catch (IOException ex)
+		{
+			// encrypted archives can't be read without their keys
+			log.debug("unable to read files of archive {} in index {}", archiveId, indexId, ex);
+			return new ArchiveChange(indexId, archiveId, Type.MODIFIED, Collections.emptyList());
+		}
+
+		ConfigType configType = definitionType(indexId, archiveId);
+		List<FileChange> files = new ArrayList<>();
+
+		for (FSFile file : oldFiles.getFiles())
+		{
+			FSFile newFile = newFiles.findFile(file.getFileId());
+			if (newFile == null)
+			{
+				files.add(new FileChange(file.getFileId(), Type.REMOVED));
+				if (configType != null)
+				{
+					definitions.add(new DefinitionChange(configType, file.getFileId(), Type.REMOVED, Collections.emptyList()));
+				}
+			}
+			else if (!file.getView().equals(newFile.getView()))
+			{
+				files.add(new FileChange(file.getFileId(), Type.MODIFIED));
+				if (configType != null)
+				{
+					Object oldDef = decode(configType, file.getFileId(), file.getView());
+					Object newDef = decode(configType, file.getFileId(), newFile.getView());
+					List<FieldChange> fields = diffFields(oldDef, newDef);
+					if (!fields.isEmpty())
+					{
+						definitions.add(new DefinitionChange(configType, file.getFileId(), Type.MODIFIED, fields));
+					}
+				}
+			}
+		}
+
+		for (FSFile file : newFiles.getFiles())
+		{
+			if (oldFiles.findFile(file.getFileId()) == null)
+			{
+				files.add(new FileChange(file.getFileId(), Type.ADDED));
+				if (configType != null)
+				{
+					definitions.add(new DefinitionChange(configType, file.getFileId(), Type.ADDED, Collections.emptyList()));
+				}
+			}
+		}
+
+		files.sort(Comparator.comparingInt(FileChange::getFileId));
+		return new ArchiveChange(indexId, archiveId, Type.MODIFIED, files);
+	}
+
+	private static List<FileChange> diffFileIds(FileData[] oldFiles, FileData[] newFiles)
+	{
+		SortedSet<Integer> oldIds = new TreeSet<>();
+		SortedSet<Integer> newIds = new TreeSet<>();
+		for (FileData fd : oldFiles)
+		{
+			oldIds.add(fd.getId());
+		}
+		for (FileData fd : newFiles)
+		{
+			newIds.add(fd.getId());
+		}
+
+		List<FileChange> files = new ArrayList<>();
+		for (int id : oldIds)
+		{
+			if (!newIds.contains(id))
+			{
+				files.add(new FileChange(id, Type.REMOVED));
+			}
+		}
+		for (int id : newIds)
+		{
+			if (!oldIds.contains(id))
+			{
+				files.add(new FileChange(id, Type.ADDED));
+			}
+		}
+		files.sort(Comparator.comparingInt(FileChange::getFileId));
+		return files;
+	}
+
+	private static ConfigType definitionType(int indexId, int archiveId)
+	{
+		if (indexId != CONFIGS)
+		{
+			return null;
+		}
+
+		if (archiveId == ConfigType.ITEM.getId())
+		{
+			return ConfigType.ITEM;
+		}
+		else if (archiveId == ConfigType.NPC.getId())
+		{
+			return ConfigType.NPC;
+		}
+		else if (archiveId == ConfigType.OBJECT.getId())
+		{
+			return ConfigType.OBJECT;
+		}
+		return null;
+	}
+
+	private static Object decode(ConfigType configType, int id, ByteBuffer data)
+	{
+		switch (configType)
+		{
+			case ITEM:
+				return new ItemLoader().load(id, data);
+			case NPC:
+				return new NpcLoader().load(id, data);
+			case OBJECT:
+				return new ObjectLoader().load(id, data);
+			default:
+				throw new IllegalArgumentException(configType.toString());
+		}
+	}
+
+	/**
+	 * Compare the instance fields of two objects of the same class
+	 */
+	static List<FieldChange> diffFields(Object oldObject, Object newObject)
+	{
+		List<FieldChange> changes = new ArrayList<>();
+		for (Class<?> clazz = oldObject.getClass(); clazz != Object.class; clazz = clazz.getSuperclass())
+		{
+			for (Field field : clazz.getDeclaredFields())
+			{
+				int modifiers = field.getModifiers();
+				if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic())
+				{
+					continue;
+				}
+
+				field.setAccessible(true);
+				try
+				{
+					Object oldValue = field.get(oldObject);
+					Object newValue = field.get(newObject);
+					if (!Objects.deepEquals(oldValue, newValue))
+					{
+						changes.add(new FieldChange(field.getName(), oldValue, newValue));
+					}
+				}
+				catch (IllegalAccessException ex)
+				{
+					throw new IllegalStateException(ex);
+				}
+			}
+		}
+		return changes;
+	}
+}
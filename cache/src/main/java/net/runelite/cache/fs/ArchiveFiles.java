@@ -137,6 +137,20 @@ public class ArchiveFiles
 			}
 		}
 
+		if (chunks == 1)
+		{
+			// each file is a single range of the data, so share it rather than copying
+			int offset = 0;
+			for (int i = 0; i < filesCount; ++i)
+			{
+				FSFile f = this.getFiles().get(i);
+				f.setContents(data, offset, filesSize[i]);
+				offset += filesSize[i];
+			}
+			return;
+		}
+
+		// files split across chunks are copied back together
 		byte[][] fileContents = new byte[filesCount][];
 		int[] fileOffsets = new int[filesCount];
 
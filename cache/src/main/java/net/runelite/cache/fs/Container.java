@@ -27,6 +27,7 @@ package net.runelite.cache.fs;
 import static com.google.common.primitives.Bytes.concat;
 import com.google.common.primitives.Ints;
 import java.io.IOException;
+import java.util.Arrays;
 import net.runelite.cache.fs.jagex.CompressionType;
 import net.runelite.cache.io.InputStream;
 import net.runelite.cache.io.OutputStream;
@@ -41,6 +42,9 @@ public class Container
 {
 	private static final Logger logger = LoggerFactory.getLogger(Container.class);
 
+	// sanity limit on the decompressed length read from the container
+	private static final int MAX_DECOMPRESSED_LENGTH = 64 * 1024 * 1024;
+
 	public byte[] data;
 	public int compression; // compression
 	public int revision;
@@ -127,58 +131,51 @@ public class Container
 				break;
 			}
 			case CompressionType.BZ2:
+			case CompressionType.GZ:
 			{
-				byte[] encryptedData = new byte[compressedLength + 4];
-				stream.readBytes(encryptedData);
-
-				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
-
-				if (stream.remaining() >= 2)
+				// the decompressed length followed by the compressed data, which are
+				// read in place unless they have to be decrypted
+				final int encryptedLength = compressedLength + 4;
+				final int start = stream.getOffset();
+				if (stream.remaining() < encryptedLength)
 				{
-					revision = stream.readUnsignedShort();
-					assert revision != -1;
+					throw new IOException("Container is truncated");
 				}
+				stream.skip(encryptedLength);
 
-				stream = new InputStream(decryptedData);
-
-				int decompressedLength = stream.readInt();
-				data = BZip2.decompress(stream.getRemaining(), compressedLength);
+				crc32.update(b, start, encryptedLength);
 
-				if (data == null)
+				byte[] decryptedData = b;
+				int offset = start;
+				if (keys != null)
 				{
-					return null;
+					decryptedData = decrypt(Arrays.copyOfRange(b, start, start + encryptedLength), encryptedLength, keys);
+					offset = 0;
 				}
 
-				assert data.length == decompressedLength;
-
-				break;
-			}
-			case CompressionType.GZ:
-			{
-				byte[] encryptedData = new byte[compressedLength + 4];
-				stream.readBytes(encryptedData);
-
-				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
-
 				if (stream.remaining() >= 2)
 				{
 					revision = stream.readUnsignedShort();
 					assert revision != -1;
 				}
 
-				stream = new InputStream(decryptedData);
-
-				int decompressedLength = stream.readInt();
-				data = GZip.decompress(stream.getRemaining(), compressedLength);
-
-				if (data == null)
+				int decompressedLength = Ints.fromBytes(decryptedData[offset], decryptedData[offset + 1],
+					decryptedData[offset + 2], decryptedData[offset + 3]);
+				if (decompressedLength < 0 || decompressedLength > MAX_DECOMPRESSED_LENGTH)
 				{
-					return null;
+					// most likely the wrong keys
+					throw new IOException("Invalid decompressed length " + decompressedLength);
 				}
 
-				assert data.length == decompressedLength;
+				data = new byte[decompressedLength];
+				if (compression == CompressionType.BZ2)
+				{
+					BZip2.decompress(decryptedData, offset + 4, compressedLength, data, 0, decompressedLength);
+				}
+				else
+				{
+					GZip.decompress(decryptedData, offset + 4, compressedLength, data, 0, decompressedLength);
+				}
 
 				break;
 			}
@@ -199,8 +196,10 @@ public class Container
 			return data;
 		}
 
+		// data is always a copy here, so it can be decrypted in place
 		Xtea xtea = new Xtea(keys);
-		return xtea.decrypt(data, length);
+		xtea.decrypt(data, 0, length);
+		return data;
 	}
 
 	private static byte[] encrypt(byte[] data, int length, int[] keys)
@@ -25,6 +25,7 @@
 
 package net.runelite.cache.fs;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 public class FSFile
@@ -32,6 +33,10 @@ public class FSFile
 	private final int fileId;
 	private int nameHash;
 	private byte[] contents;
+	// the contents, as a range of the archive data, when not yet copied out
+	private byte[] data;
+	private int offset;
+	private int length;
 
 	public FSFile(int fileId)
 	{
@@ -44,7 +49,7 @@ public class FSFile
 		int hash = 7;
 		hash = 97 * hash + this.fileId;
 		hash = 97 * hash + this.nameHash;
-		hash = 97 * hash + Arrays.hashCode(this.contents);
+		hash = 97 * hash + Arrays.hashCode(getContents());
 		return hash;
 	}
 
@@ -68,7 +73,7 @@ public class FSFile
 		{
 			return false;
 		}
-		if (!Arrays.equals(this.contents, other.contents))
+		if (!Arrays.equals(getContents(), other.getContents()))
 		{
 			return false;
 		}
@@ -92,16 +97,49 @@ public class FSFile
 
 	public byte[] getContents()
 	{
+		if (contents == null && data != null)
+		{
+			contents = Arrays.copyOfRange(data, offset, offset + length);
+		}
 		return contents;
 	}
 
 	public void setContents(byte[] contents)
 	{
 		this.contents = contents;
+		this.data = null;
 	}
-	
+
+	/**
+	 * Set the contents to a range of a larger buffer, which is not copied
+	 * until {@link #getContents()} is called
+	 */
+	public void setContents(byte[] data, int offset, int length)
+	{
+		this.contents = null;
+		this.data = data;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/**
+	 * Get a read only view of the contents, which does not copy them
+	 */
+	public ByteBuffer getView()
+	{
+		if (contents != null)
+		{
+			return ByteBuffer.wrap(contents).asReadOnlyBuffer();
+		}
+		if (data != null)
+		{
+			return ByteBuffer.wrap(data, offset, length).slice().asReadOnlyBuffer();
+		}
+		return null;
+	}
+
 	public int getSize()
 	{
-		return contents.length;
+		return contents != null ? contents.length : length;
 	}
 }
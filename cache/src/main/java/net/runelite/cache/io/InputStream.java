@@ -46,6 +46,15 @@ public class InputStream extends java.io.InputStream
 		this.buffer = ByteBuffer.wrap(buffer);
 	}
 
+	/**
+	 * Read the remaining bytes of a buffer, without copying them. The position
+	 * of the given buffer is not changed.
+	 */
+	public InputStream(ByteBuffer buffer)
+	{
+		this.buffer = buffer.slice();
+	}
+
 	public byte[] getArray()
 	{
 		assert buffer.hasArray();
@@ -25,7 +25,15 @@
 package net.runelite.cache.item;
 
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import javax.imageio.ImageIO;
 import net.runelite.cache.definitions.ItemDefinition;
 import net.runelite.cache.definitions.ModelDefinition;
 import net.runelite.cache.definitions.providers.ItemProvider;
@@ -33,23 +41,113 @@ import net.runelite.cache.definitions.providers.ModelProvider;
 import net.runelite.cache.definitions.providers.SpriteProvider;
 import net.runelite.cache.definitions.providers.TextureProvider;
 import net.runelite.cache.models.FaceNormal;
-import net.runelite.cache.models.JagexColor;
 import net.runelite.cache.models.VertexNormal;
 
 public class ItemSpriteFactory
 {
+	@FunctionalInterface
+	private interface SpriteConsumer
+	{
+		void accept(int itemId, BufferedImage sprite) throws IOException;
+	}
+
 	public static final BufferedImage createSprite(ItemProvider itemProvider, ModelProvider modelProvider,
 		SpriteProvider spriteProvider, TextureProvider textureProvider,
 		int itemId, int quantity, int border, int shadowColor,
 		boolean noted) throws IOException
 	{
-		SpritePixels spritePixels = createSpritePixels(itemProvider, modelProvider, spriteProvider, textureProvider,
+		RasterizerContext context = new RasterizerContext(textureProvider, spriteProvider);
+		SpritePixels spritePixels = createSpritePixels(context, itemProvider, modelProvider,
 			itemId, quantity, border, shadowColor, noted);
 		return spritePixels == null ? null : spritePixels.toBufferedImage();
 	}
 
-	private static final SpritePixels createSpritePixels(ItemProvider itemProvider, ModelProvider modelProvider,
+	/**
+	 * Render the sprites of many items in parallel, with a rasterizer context per
+	 * thread. The providers must be thread safe, and the model provider must
+	 * return a new model definition for each call.
+	 *
+	 * @return the sprites in the order of the item ids, leaving out items without a model
+	 */
+	public static Map<Integer, BufferedImage> createSprites(ItemProvider itemProvider, ModelProvider modelProvider,
+		SpriteProvider spriteProvider, TextureProvider textureProvider,
+		int[] itemIds, int quantity, int border, int shadowColor,
+		boolean noted) throws IOException
+	{
+		Map<Integer, BufferedImage> rendered = new ConcurrentHashMap<>();
+		renderAll(itemProvider, modelProvider, spriteProvider, textureProvider,
+			itemIds, quantity, border, shadowColor, noted, rendered::put);
+
+		Map<Integer, BufferedImage> sprites = new LinkedHashMap<>();
+		for (int itemId : itemIds)
+		{
+			BufferedImage sprite = rendered.get(itemId);
+			if (sprite != null)
+			{
+				sprites.put(itemId, sprite);
+			}
+		}
+		return sprites;
+	}
+
+	/**
+	 * Render the sprites of many items in parallel, writing each to {@code <id>.png}
+	 * in a directory
+	 *
+	 * @return the number of sprites written
+	 * @see #createSprites
+	 */
+	public static int exportSprites(ItemProvider itemProvider, ModelProvider modelProvider,
 		SpriteProvider spriteProvider, TextureProvider textureProvider,
+		int[] itemIds, int quantity, int border, int shadowColor,
+		boolean noted, File outDir) throws IOException
+	{
+		outDir.mkdirs();
+
+		AtomicInteger count = new AtomicInteger();
+		renderAll(itemProvider, modelProvider, spriteProvider, textureProvider,
+			itemIds, quantity, border, shadowColor, noted, (itemId, sprite) ->
+			{
+				ImageIO.write(sprite, "PNG", new File(outDir, itemId + ".png"));
+				count.incrementAndGet();
+			});
+		return count.get();
+	}
+
+	private static void renderAll(ItemProvider itemProvider, ModelProvider modelProvider,
+		SpriteProvider spriteProvider, TextureProvider textureProvider,
+		int[] itemIds, int quantity, int border, int shadowColor,
+		boolean noted, SpriteConsumer consumer) throws IOException
+	{
+		ThreadLocal<RasterizerContext> contexts = ThreadLocal.withInitial(() -> new RasterizerContext(textureProvider, spriteProvider));
+
+		try
+		{
+			IntStream.of(itemIds).parallel().forEach(itemId ->
+			{
+				try
+				{
+					SpritePixels spritePixels = createSpritePixels(contexts.get(), itemProvider, modelProvider,
+						itemId, quantity, border, shadowColor, noted);
+					if (spritePixels != null)
+					{
+						consumer.accept(itemId, spritePixels.toBufferedImage());
+					}
+				}
+				catch (IOException ex)
+				{
+					throw new UncheckedIOException(ex);
+				}
+			});
+		}
+		catch (UncheckedIOException ex)
+		{
+			throw ex.getCause();
+		}
+	}
+
+	private static final SpritePixels createSpritePixels(RasterizerContext context,
+		ItemProvider itemProvider, ModelProvider modelProvider,
 		int itemId, int quantity, int border, int shadowColor,
 		boolean noted) throws IOException
 	{
@@ -73,7 +171,7 @@ public class ItemSpriteFactory
 			}
 		}
 
-		Model itemModel = getModel(modelProvider, item);
+		Model itemModel = getModel(context, modelProvider, item);
 		if (itemModel == null)
 		{
 			return null;
@@ -82,7 +180,7 @@ public class ItemSpriteFactory
 		SpritePixels auxSpritePixels = null;
 		if (item.notedTemplate != -1)
 		{
-			auxSpritePixels = createSpritePixels(itemProvider, modelProvider, spriteProvider, textureProvider,
+			auxSpritePixels = createSpritePixels(context, itemProvider, modelProvider,
 				item.notedID, 10, 1, 0, true);
 			if (auxSpritePixels == null)
 			{
@@ -91,7 +189,7 @@ public class ItemSpriteFactory
 		}
 		else if (item.boughtTemplateId != -1)
 		{
-			auxSpritePixels = createSpritePixels(itemProvider, modelProvider, spriteProvider, textureProvider,
+			auxSpritePixels = createSpritePixels(context, itemProvider, modelProvider,
 				item.boughtId, quantity, border, 0, false);
 			if (auxSpritePixels == null)
 			{
@@ -100,7 +198,7 @@ public class ItemSpriteFactory
 		}
 		else if (item.placeholderTemplateId != -1)
 		{
-			auxSpritePixels = createSpritePixels(itemProvider, modelProvider, spriteProvider, textureProvider,
+			auxSpritePixels = createSpritePixels(context, itemProvider, modelProvider,
 				item.placeholderId, quantity, 0, 0, false);
 			if (auxSpritePixels == null)
 			{
@@ -108,11 +206,8 @@ public class ItemSpriteFactory
 			}
 		}
 
-		RSTextureProvider rsTextureProvider = new RSTextureProvider(textureProvider, spriteProvider);
-
 		SpritePixels spritePixels = new SpritePixels(36, 32);
-		Graphics3D graphics = new Graphics3D(rsTextureProvider);
-		graphics.setBrightness(JagexColor.BRIGHTNESS_MAX);
+		Graphics3D graphics = context.graphics;
 		graphics.setRasterBuffer(spritePixels.pixels, 36, 32);
 		graphics.reset();
 		graphics.setRasterClipping();
@@ -179,7 +274,7 @@ public class ItemSpriteFactory
 		return spritePixels;
 	}
 
-	private static Model getModel(ModelProvider modelProvider, ItemDefinition item) throws IOException
+	private static Model getModel(RasterizerContext context, ModelProvider modelProvider, ItemDefinition item) throws IOException
 	{
 		Model itemModel;
 		ModelDefinition inventoryModel = modelProvider.provide(item.inventoryModel);
@@ -209,17 +304,17 @@ public class ItemSpriteFactory
 			}
 		}
 
-		itemModel = light(inventoryModel, item.ambient + 64, item.contrast + 768, -50, -10, -50);
+		itemModel = light(context, inventoryModel, item.ambient + 64, item.contrast + 768, -50, -10, -50);
 		itemModel.isItemModel = true;
 		return itemModel;
 	}
 
-	private static Model light(ModelDefinition def, int ambient, int contrast, int x, int y, int z)
+	private static Model light(RasterizerContext context, ModelDefinition def, int ambient, int contrast, int x, int y, int z)
 	{
 		def.computeNormals();
 		int somethingMagnitude = (int) Math.sqrt((double) (z * z + x * x + y * y));
 		int var7 = somethingMagnitude * contrast >> 8;
-		Model litModel = new Model();
+		Model litModel = new Model(context.modelBuffers);
 		litModel.field1856 = new int[def.faceCount];
 		litModel.field1854 = new int[def.faceCount];
 		litModel.field1823 = new int[def.faceCount];
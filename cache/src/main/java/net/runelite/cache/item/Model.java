@@ -26,27 +26,27 @@ package net.runelite.cache.item;
 
 class Model extends Renderable
 {
-	boolean[] field1887 = new boolean[4700];
-	boolean[] field1885 = new boolean[4700];
-	int[] modelViewportYs = new int[4700];
-	int[] modelViewportXs = new int[4700];
-	int[] modelViewportZs = new int[4700];
-	int[] yViewportBuffer = new int[4700];
-	int[] field1839 = new int[4700];
-	int[] field1869 = new int[4700];
-	int[] field1871 = new int[1600];
-	int[][] field1868 = new int[1600][512];
-	int[] field1872 = new int[12];
-	int[][] field1874 = new int[12][2000];
-	int[] field1857 = new int[2000];
-	int[] field1863 = new int[2000];
-	int[] field1877 = new int[12];
-	int[] field1831 = new int[10];
-	int[] field1837 = new int[10];
-	int[] xViewportBuffer = new int[10];
-	static int[] Model_sine;
-	static int[] Model_cosine;
-	static int[] field1890;
+	final boolean[] field1887;
+	final boolean[] field1885;
+	final int[] modelViewportYs;
+	final int[] modelViewportXs;
+	final int[] modelViewportZs;
+	final int[] yViewportBuffer;
+	final int[] field1839;
+	final int[] field1869;
+	final int[] field1871;
+	final int[][] field1868;
+	final int[] field1872;
+	final int[][] field1874;
+	final int[] field1857;
+	final int[] field1863;
+	final int[] field1877;
+	final int[] field1831;
+	final int[] field1837;
+	final int[] xViewportBuffer;
+	static final int[] Model_sine;
+	static final int[] Model_cosine;
+	static final int[] field1890;
 	int verticesCount;
 	int[] verticesX;
 	int[] verticesY;
@@ -84,8 +84,57 @@ class Model extends Renderable
 		field1890 = Graphics3D.field1933;
 	}
 
+	/**
+	 * Scratch buffers used while drawing a model. Models drawn one after another
+	 * on the same thread can share them.
+	 */
+	static final class Buffers
+	{
+		final boolean[] field1887 = new boolean[4700];
+		final boolean[] field1885 = new boolean[4700];
+		final int[] modelViewportYs = new int[4700];
+		final int[] modelViewportXs = new int[4700];
+		final int[] modelViewportZs = new int[4700];
+		final int[] yViewportBuffer = new int[4700];
+		final int[] field1839 = new int[4700];
+		final int[] field1869 = new int[4700];
+		final int[] field1871 = new int[1600];
+		final int[][] field1868 = new int[1600][512];
+		final int[] field1872 = new int[12];
+		final int[][] field1874 = new int[12][2000];
+		final int[] field1857 = new int[2000];
+		final int[] field1863 = new int[2000];
+		final int[] field1877 = new int[12];
+		final int[] field1831 = new int[10];
+		final int[] field1837 = new int[10];
+		final int[] xViewportBuffer = new int[10];
+	}
+
 	Model()
 	{
+		this(new Buffers());
+	}
+
+	Model(Buffers buffers)
+	{
+		this.field1887 = buffers.field1887;
+		this.field1885 = buffers.field1885;
+		this.modelViewportYs = buffers.modelViewportYs;
+		this.modelViewportXs = buffers.modelViewportXs;
+		this.modelViewportZs = buffers.modelViewportZs;
+		this.yViewportBuffer = buffers.yViewportBuffer;
+		this.field1839 = buffers.field1839;
+		this.field1869 = buffers.field1869;
+		this.field1871 = buffers.field1871;
+		this.field1868 = buffers.field1868;
+		this.field1872 = buffers.field1872;
+		this.field1874 = buffers.field1874;
+		this.field1857 = buffers.field1857;
+		this.field1863 = buffers.field1863;
+		this.field1877 = buffers.field1877;
+		this.field1831 = buffers.field1831;
+		this.field1837 = buffers.field1837;
+		this.xViewportBuffer = buffers.xViewportBuffer;
 		this.verticesCount = 0;
 		this.indicesCount = 0;
 		this.field1842 = 0;
@@ -25,9 +25,13 @@
 package net.runelite.cache.region;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.definitions.LocationsDefinition;
@@ -38,6 +42,7 @@ import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.util.Djb2;
 import net.runelite.cache.util.KeyProvider;
 
 @Slf4j
@@ -53,6 +58,12 @@ public class RegionLoader
 	private Region lowestX = null, lowestY = null;
 	private Region highestX = null, highestY = null;
 
+	// map index archives by name hash, built on first use
+	private Map<Integer, Archive> archivesByName;
+	// regions which have no archives or could not be loaded
+	private final BitSet missing = new BitSet(MAX_REGION);
+	private boolean loadedAll;
+
 	public RegionLoader(Store store, KeyProvider keyProvider)
 	{
 		this.store = store;
@@ -60,34 +71,105 @@ public class RegionLoader
 		this.keyProvider = keyProvider;
 	}
 
+	/**
+	 * Load every region. The archives are read in order, and then decrypted and
+	 * decoded in parallel.
+	 */
 	public void loadRegions() throws IOException
 	{
-		if (!this.regions.isEmpty())
+		if (loadedAll)
 		{
 			return;
 		}
 
+		List<RegionData> pending = new ArrayList<>();
 		for (int i = 0; i < MAX_REGION; ++i)
 		{
-			try
+			if (regions.containsKey(i) || missing.get(i))
 			{
-				this.loadRegionFromArchive(i);
+				continue;
 			}
-			catch (IOException ex)
+
+			RegionData data = readRegion(i);
+			if (data == null)
 			{
-				log.debug("Can't decrypt region " + i, ex);
+				missing.set(i);
+				continue;
 			}
+
+			pending.add(data);
 		}
+
+		List<Region> loaded = pending.parallelStream()
+			.map(data ->
+			{
+				try
+				{
+					return decodeRegion(data);
+				}
+				catch (IOException ex)
+				{
+					log.debug("Can't decrypt region " + data.id, ex);
+					return null;
+				}
+			})
+			.collect(Collectors.toList());
+
+		for (int i = 0; i < pending.size(); ++i)
+		{
+			Region region = loaded.get(i);
+			if (region == null)
+			{
+				missing.set(pending.get(i).id);
+				continue;
+			}
+
+			regions.put(region.getRegionID(), region);
+		}
+
+		loadedAll = true;
 	}
 
 	public Region loadRegionFromArchive(int i) throws IOException
+	{
+		RegionData data = readRegion(i);
+		if (data == null)
+		{
+			return null;
+		}
+
+		Region region = decodeRegion(data);
+		regions.put(i, region);
+		return region;
+	}
+
+	/**
+	 * Drop a loaded region, it will be loaded again the next time it is looked up
+	 */
+	public void unloadRegion(int id)
+	{
+		if (regions.remove(id) != null)
+		{
+			loadedAll = false;
+		}
+	}
+
+	/**
+	 * Drop all loaded regions, they will be loaded again as they are looked up
+	 */
+	public void unloadRegions()
+	{
+		regions.clear();
+		loadedAll = false;
+	}
+
+	private RegionData readRegion(int i) throws IOException
 	{
 		int x = i >> 8;
 		int y = i & 0xFF;
 
-		Storage storage = store.getStorage();
-		Archive map = index.findArchiveByName("m" + x + "_" + y);
-		Archive land = index.findArchiveByName("l" + x + "_" + y);
+		Archive map = findArchive("m" + x + "_" + y);
+		Archive land = findArchive("l" + x + "_" + y);
 
 		assert (map == null) == (land == null);
 
@@ -96,26 +178,99 @@ public class RegionLoader
 			return null;
 		}
 
-		byte[] data = map.decompress(storage.loadArchive(map));
+		Storage storage = store.getStorage();
+		RegionData data = new RegionData(i, map, land);
+		data.mapData = storage.loadArchive(map);
+
+		data.keys = keyProvider.getKey(i);
+		if (data.keys != null)
+		{
+			data.landData = storage.loadArchive(land);
+		}
+		return data;
+	}
+
+	private static Region decodeRegion(RegionData data) throws IOException
+	{
+		int x = data.id >> 8;
+		int y = data.id & 0xFF;
+
+		byte[] mapData = data.map.decompress(data.mapData);
 
-		MapDefinition mapDef = new MapLoader().load(x, y, data);
+		MapDefinition mapDef = new MapLoader().load(x, y, mapData);
 
-		Region region = new Region(i);
+		Region region = new Region(data.id);
 		region.loadTerrain(mapDef);
 
-		int[] keys = keyProvider.getKey(i);
-		if (keys != null)
+		if (data.keys != null)
 		{
-			data = land.decompress(storage.loadArchive(land), keys);
-			LocationsDefinition locDef = new LocationsLoader().load(x, y, data);
+			byte[] landData = data.land.decompress(data.landData, data.keys);
+			LocationsDefinition locDef = new LocationsLoader().load(x, y, landData);
 			region.loadLocations(locDef);
 		}
 
-		regions.put(i, region);
+		return region;
+	}
 
+	private Archive findArchive(String name)
+	{
+		if (archivesByName == null)
+		{
+			archivesByName = new HashMap<>();
+			for (Archive archive : index.getArchives())
+			{
+				// the first archive wins, as with Index.findArchiveByName
+				archivesByName.putIfAbsent(archive.getNameHash(), archive);
+			}
+		}
+
+		return archivesByName.get(Djb2.hash(name));
+	}
+
+	/**
+	 * Get a region, loading it if it has not been loaded yet
+	 */
+	private Region getRegion(int id)
+	{
+		Region region = regions.get(id);
+		if (region != null || loadedAll || id < 0 || id >= MAX_REGION || missing.get(id))
+		{
+			return region;
+		}
+
+		try
+		{
+			region = loadRegionFromArchive(id);
+		}
+		catch (IOException ex)
+		{
+			log.debug("Can't decrypt region " + id, ex);
+		}
+
+		if (region == null)
+		{
+			missing.set(id);
+		}
 		return region;
 	}
 
+	private static class RegionData
+	{
+		private final int id;
+		private final Archive map;
+		private final Archive land;
+		private byte[] mapData;
+		private byte[] landData;
+		private int[] keys;
+
+		private RegionData(int id, Archive map, Archive land)
+		{
+			this.id = id;
+			this.map = map;
+			this.land = land;
+		}
+	}
+
 	public Region loadRegion(int id, MapDefinition map, LocationsDefinition locs)
 	{
 		Region r = new Region(id);
@@ -163,12 +318,12 @@ public class RegionLoader
 	{
 		x >>>= 6;
 		y >>>= 6;
-		return regions.get((x << 8) | y);
+		return getRegion((x << 8) | y);
 	}
 
 	public Region findRegionForRegionCoordinates(int x, int y)
 	{
-		return regions.get((x << 8) | y);
+		return getRegion((x << 8) | y);
 	}
 
 	public Region getLowestX()
@@ -29,6 +29,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.util.Arrays;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
@@ -68,19 +69,48 @@ public class BZip2
 
 	public static byte[] decompress(byte[] bytes, int len) throws IOException
 	{
-		byte[] data = new byte[len + BZIP_HEADER.length];
-
-		// add header
-		System.arraycopy(BZIP_HEADER, 0, data, 0, BZIP_HEADER.length);
-		System.arraycopy(bytes, 0, data, BZIP_HEADER.length, len);
-
 		ByteArrayOutputStream os = new ByteArrayOutputStream();
 
-		try (InputStream is = new BZip2CompressorInputStream(new ByteArrayInputStream(data)))
+		try (InputStream is = new BZip2CompressorInputStream(withHeader(bytes, 0, len)))
 		{
 			IOUtils.copy(is, os);
 		}
 
 		return os.toByteArray();
 	}
+
+	/**
+	 * Decompress headerless bzip2 data of a known decompressed size into the given buffer
+	 *
+	 * @param in        bzip2 data, without its header
+	 * @param offset    offset of the data in in
+	 * @param length    length of the data
+	 * @param out       buffer to decompress into
+	 * @param outOffset offset in out to decompress to
+	 * @param outLength decompressed length
+	 * @throws IOException if the data does not decompress to exactly outLength bytes
+	 */
+	public static void decompress(byte[] in, int offset, int length, byte[] out, int outOffset, int outLength) throws IOException
+	{
+		try (InputStream is = new BZip2CompressorInputStream(withHeader(in, offset, length)))
+		{
+			if (IOUtils.readFully(is, out, outOffset, outLength) != outLength)
+			{
+				throw new IOException("Unexpected end of bzip2 data");
+			}
+
+			if (is.read() != -1)
+			{
+				throw new IOException("bzip2 data is longer than expected");
+			}
+		}
+	}
+
+	/**
+	 * The data with the header which is stripped from it prepended, without copying it
+	 */
+	private static InputStream withHeader(byte[] bytes, int offset, int len)
+	{
+		return new SequenceInputStream(new ByteArrayInputStream(BZIP_HEADER), new ByteArrayInputStream(bytes, offset, len));
+	}
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.FSFile;
+
+/**
+ * Definitions decoded from their encoded data the first time they are requested.
+ * The encoded data is kept for every definition, and decoded definitions are held
+ * in a cache of soft references. The cache is sized to hold every definition, so
+ * a definition is only decoded again if memory runs low, in which case it may not
+ * be the same instance.
+ * <p>
+ * This is safe to use from multiple threads, provided the decoder is.
+ *
+ * @param <T> definition type
+ */
+public class DefinitionCache<T>
+{
+	@FunctionalInterface
+	public interface Decoder<T>
+	{
+		T decode(int id, ByteBuffer data);
+	}
+
+	// sorted ids, and the data of each
+	private final int[] ids;
+	private final ByteBuffer[] data;
+	private final Decoder<T> decoder;
+	private final Cache<Integer, T> decoded;
+
+	public DefinitionCache(int[] ids, ByteBuffer[] data, Decoder<T> decoder)
+	{
+		this(ids, data, decoder, ids.length);
+	}
+
+	/**
+	 * @param maximumSize number of decoded definitions to keep
+	 */
+	public DefinitionCache(int[] ids, ByteBuffer[] data, Decoder<T> decoder, int maximumSize)
+	{
+		if (ids.length != data.length)
+		{
+			throw new IllegalArgumentException("ids and data have different lengths");
+		}
+
+		// sort the ids, keeping their data alongside
+		Integer[] order = new Integer[ids.length];
+		for (int i = 0; i < order.length; ++i)
+		{
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Integer.compare(ids[a], ids[b]));
+
+		this.ids = new int[ids.length];
+		this.data = new ByteBuffer[ids.length];
+		for (int i = 0; i < order.length; ++i)
+		{
+			this.ids[i] = ids[order[i]];
+			this.data[i] = data[order[i]];
+		}
+
+		this.decoder = decoder;
+		this.decoded = CacheBuilder.newBuilder()
+			.softValues()
+			.maximumSize(maximumSize)
+			.build();
+	}
+
+	/**
+	 * Definitions of the files of an archive, keyed by file id. The files are
+	 * decoded from views of the archive data, which are not copied.
+	 */
+	public static <T> DefinitionCache<T> of(ArchiveFiles files, Decoder<T> decoder)
+	{
+		int[] ids = new int[files.getFiles().size()];
+		ByteBuffer[] data = new ByteBuffer[ids.length];
+		int i = 0;
+		for (FSFile file : files.getFiles())
+		{
+			ids[i] = file.getFileId();
+			data[i] = file.getView();
+			++i;
+		}
+		return new DefinitionCache<>(ids, data, decoder);
+	}
+
+	public int size()
+	{
+		return ids.length;
+	}
+
+	public boolean contains(int id)
+	{
+		return Arrays.binarySearch(ids, id) >= 0;
+	}
+
+	/**
+	 * Get a definition, decoding it if it is not cached
+	 *
+	 * @return the definition, or null if there is none with the id
+	 */
+	public T get(int id)
+	{
+		T def = decoded.getIfPresent(id);
+		if (def != null)
+		{
+			return def;
+		}
+
+		int idx = Arrays.binarySearch(ids, id);
+		if (idx < 0)
+		{
+			return null;
+		}
+
+		def = decoder.decode(id, data[idx].duplicate());
+		decoded.put(id, def);
+		return def;
+	}
+
+	/**
+	 * The ids of the definitions, in ascending order
+	 */
+	public IntStream ids()
+	{
+		return Arrays.stream(ids);
+	}
+
+	/**
+	 * Every definition in id order, decoded in parallel. The definitions are decoded
+	 * again and are not added to the cache, so they are never the instances returned
+	 * by {@link #get(int)}, and changes made to them are not kept.
+	 */
+	public Stream<T> stream()
+	{
+		return IntStream.range(0, ids.length)
+			.parallel()
+			.mapToObj(idx -> decoder.decode(ids[idx], data[idx].duplicate()));
+	}
+
+	/**
+	 * Drop every decoded definition
+	 */
+	public void invalidateAll()
+	{
+		decoded.invalidateAll();
+	}
+}
@@ -30,8 +30,12 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
 import org.apache.commons.compress.utils.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +44,17 @@ public class GZip
 {
 	private static final Logger logger = LoggerFactory.getLogger(GZip.class);
 
+	private static final int HEADER_LENGTH = 10;
+	private static final int TRAILER_LENGTH = 8;
+
+	private static final int FHCRC = 2;
+	private static final int FEXTRA = 4;
+	private static final int FNAME = 8;
+	private static final int FCOMMENT = 16;
+
+	// raw inflaters, reused by each thread
+	private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
 	public static byte[] compress(byte[] bytes) throws IOException
 	{
 		InputStream is = new ByteArrayInputStream(bytes);
@@ -64,4 +79,110 @@ public class GZip
 
 		return os.toByteArray();
 	}
+
+	/**
+	 * Decompress gzip data of a known decompressed size into the given buffer
+	 *
+	 * @param in        gzip data
+	 * @param offset    offset of the gzip data in in
+	 * @param length    length of the gzip data
+	 * @param out       buffer to decompress into
+	 * @param outOffset offset in out to decompress to
+	 * @param outLength decompressed length
+	 * @throws IOException if the data is not gzip, or does not decompress to exactly outLength bytes
+	 */
+	public static void decompress(byte[] in, int offset, int length, byte[] out, int outOffset, int outLength) throws IOException
+	{
+		final int end = offset + length;
+		final int start = skipHeader(in, offset, end);
+
+		final Inflater inflater = INFLATER.get();
+		inflater.reset();
+		inflater.setInput(in, start, end - start);
+
+		try
+		{
+			int n = 0;
+			while (n < outLength)
+			{
+				int r = inflater.inflate(out, outOffset + n, outLength - n);
+				if (r == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+				{
+					throw new IOException("Unexpected end of gzip data");
+				}
+				n += r;
+			}
+
+			// the end of the deflate stream may not have been read yet
+			if (!inflater.finished() && (inflater.inflate(new byte[1]) != 0 || !inflater.finished()))
+			{
+				throw new IOException("gzip data is longer than expected");
+			}
+		}
+		catch (DataFormatException ex)
+		{
+			throw new IOException(ex);
+		}
+
+		final int trailer = end - inflater.getRemaining();
+		if (end - trailer < TRAILER_LENGTH)
+		{
+			throw new IOException("Unexpected end of gzip data");
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(out, outOffset, outLength);
+		if (readIntLE(in, trailer) != (int) crc.getValue() || readIntLE(in, trailer + 4) != outLength)
+		{
+			throw new IOException("Corrupt gzip trailer");
+		}
+	}
+
+	private static int skipHeader(byte[] in, int pos, int end) throws IOException
+	{
+		if (end - pos < HEADER_LENGTH + TRAILER_LENGTH
+			|| in[pos] != (byte) 0x1f || in[pos + 1] != (byte) 0x8b || in[pos + 2] != Deflater.DEFLATED)
+		{
+			throw new IOException("Not in gzip format");
+		}
+
+		final int flags = in[pos + 3] & 0xff;
+		pos += HEADER_LENGTH;
+
+		if ((flags & FEXTRA) != 0)
+		{
+			if (end - pos < 2)
+			{
+				throw new IOException("Unexpected end of gzip data");
+			}
+			pos += 2 + ((in[pos] & 0xff) | (in[pos + 1] & 0xff) << 8);
+		}
+		if ((flags & FNAME) != 0)
+		{
+			while (pos < end && in[pos++] != 0)
+			{
+			}
+		}
+		if ((flags & FCOMMENT) != 0)
+		{
+			while (pos < end && in[pos++] != 0)
+			{
+			}
+		}
+		if ((flags & FHCRC) != 0)
+		{
+			pos += 2;
+		}
+
+		if (pos > end)
+		{
+			throw new IOException("Unexpected end of gzip data");
+		}
+		return pos;
+	}
+
+	private static int readIntLE(byte[] b, int pos)
+	{
+		return (b[pos] & 0xff) | (b[pos + 1] & 0xff) << 8 | (b[pos + 2] & 0xff) << 16 | (b[pos + 3] & 0xff) << 24;
+	}
 }
@@ -24,8 +24,8 @@
  */
 package net.runelite.cache.util;
 
-import net.runelite.cache.io.InputStream;
-import net.runelite.cache.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 public class Xtea
 {
@@ -33,56 +33,191 @@ public class Xtea
 
 	private static final int ROUNDS = 32;
 
-	private final int[] key;
+	// sum + key word for the first and second half of each round, in encryption order
+	private final int[] roundKey0 = new int[ROUNDS];
+	private final int[] roundKey1 = new int[ROUNDS];
 
 	public Xtea(int[] key)
 	{
-		this.key = key;
+		int sum = 0;
+		for (int i = 0; i < ROUNDS; ++i)
+		{
+			roundKey0[i] = sum + key[sum & 3];
+			sum += GOLDEN_RATIO;
+			roundKey1[i] = sum + key[(sum >>> 11) & 3];
+		}
 	}
 
+	/**
+	 * Encrypt a copy of the data
+	 *
+	 * @param data data to encrypt
+	 * @param len  length of the data to encrypt, any partial block at the end is left as is
+	 * @return a copy of data, with its first len bytes encrypted
+	 */
 	public byte[] encrypt(byte[] data, int len)
 	{
-		InputStream in = new InputStream(data);
-		OutputStream out = new OutputStream(len);
-		int numBlocks = len / 8;
-		for (int block = 0; block < numBlocks; ++block)
+		byte[] out = data.clone();
+		encrypt(out, 0, len);
+		return out;
+	}
+
+	/**
+	 * Decrypt a copy of the data
+	 *
+	 * @param data data to decrypt
+	 * @param len  length of the data to decrypt, any partial block at the end is left as is
+	 * @return a copy of data, with its first len bytes decrypted
+	 */
+	public byte[] decrypt(byte[] data, int len)
+	{
+		byte[] out = data.clone();
+		decrypt(out, 0, len);
+		return out;
+	}
+
+	/**
+	 * Encrypt len bytes of data starting at offset, in place
+	 */
+	public void encrypt(byte[] data, int offset, int len)
+	{
+		final int end = offset + (len & ~7);
+		int pos = offset;
+
+		// two blocks at a time, their rounds are independent and can be interleaved
+		for (; pos + 16 <= end; pos += 16)
+		{
+			int a0 = getInt(data, pos);
+			int a1 = getInt(data, pos + 4);
+			int b0 = getInt(data, pos + 8);
+			int b1 = getInt(data, pos + 12);
+			for (int i = 0; i < ROUNDS; ++i)
+			{
+				final int k0 = roundKey0[i];
+				final int k1 = roundKey1[i];
+				a0 += (((a1 << 4) ^ (a1 >>> 5)) + a1) ^ k0;
+				b0 += (((b1 << 4) ^ (b1 >>> 5)) + b1) ^ k0;
+				a1 += (((a0 << 4) ^ (a0 >>> 5)) + a0) ^ k1;
+				b1 += (((b0 << 4) ^ (b0 >>> 5)) + b0) ^ k1;
+			}
+			putInt(data, pos, a0);
+			putInt(data, pos + 4, a1);
+			putInt(data, pos + 8, b0);
+			putInt(data, pos + 12, b1);
+		}
+
+		if (pos < end)
 		{
-			int v0 = in.readInt();
-			int v1 = in.readInt();
-			int sum = 0;
+			int v0 = getInt(data, pos);
+			int v1 = getInt(data, pos + 4);
 			for (int i = 0; i < ROUNDS; ++i)
 			{
-				v0 += (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ (sum + key[sum & 3]);
-				sum += GOLDEN_RATIO;
-				v1 += (((v0 << 4) ^ (v0 >>> 5)) + v0) ^ (sum + key[(sum >>> 11) & 3]);
+				v0 += (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ roundKey0[i];
+				v1 += (((v0 << 4) ^ (v0 >>> 5)) + v0) ^ roundKey1[i];
 			}
-			out.writeInt(v0);
-			out.writeInt(v1);
+			putInt(data, pos, v0);
+			putInt(data, pos + 4, v1);
 		}
-		out.writeBytes(in.getRemaining());
-		return out.flip();
 	}
 
-	public byte[] decrypt(byte[] data, int len)
+	/**
+	 * Decrypt len bytes of data starting at offset, in place
+	 */
+	public void decrypt(byte[] data, int offset, int len)
 	{
-		InputStream in = new InputStream(data);
-		OutputStream out = new OutputStream(len);
-		int numBlocks = len / 8;
-		for (int block = 0; block < numBlocks; ++block)
+		final int end = offset + (len & ~7);
+		int pos = offset;
+
+		// two blocks at a time, their rounds are independent and can be interleaved
+		for (; pos + 16 <= end; pos += 16)
 		{
-			int v0 = in.readInt();
-			int v1 = in.readInt();
-			int sum = GOLDEN_RATIO * ROUNDS;
+			int a0 = getInt(data, pos);
+			int a1 = getInt(data, pos + 4);
+			int b0 = getInt(data, pos + 8);
+			int b1 = getInt(data, pos + 12);
+			for (int i = ROUNDS - 1; i >= 0; --i)
+			{
+				final int k0 = roundKey0[i];
+				final int k1 = roundKey1[i];
+				a1 -= (((a0 << 4) ^ (a0 >>> 5)) + a0) ^ k1;
+				b1 -= (((b0 << 4) ^ (b0 >>> 5)) + b0) ^ k1;
+				a0 -= (((a1 << 4) ^ (a1 >>> 5)) + a1) ^ k0;
+				b0 -= (((b1 << 4) ^ (b1 >>> 5)) + b1) ^ k0;
+			}
+			putInt(data, pos, a0);
+			putInt(data, pos + 4, a1);
+			putInt(data, pos + 8, b0);
+			putInt(data, pos + 12, b1);
+		}
+
+		if (pos < end)
+		{
+			int v0 = getInt(data, pos);
+			int v1 = getInt(data, pos + 4);
+			for (int i = ROUNDS - 1; i >= 0; --i)
+			{
+				v1 -= (((v0 << 4) ^ (v0 >>> 5)) + v0) ^ roundKey1[i];
+				v0 -= (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ roundKey0[i];
+			}
+			putInt(data, pos, v0);
+			putInt(data, pos + 4, v1);
+		}
+	}
+
+	/**
+	 * Encrypt len bytes of the buffer starting at the absolute offset, in place.
+	 * The position, limit and byte order of the buffer are left unchanged.
+	 */
+	public void encrypt(ByteBuffer buffer, int offset, int len)
+	{
+		final ByteBuffer buf = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		final int end = offset + (len & ~7);
+		for (int pos = offset; pos < end; pos += 8)
+		{
+			int v0 = buf.getInt(pos);
+			int v1 = buf.getInt(pos + 4);
 			for (int i = 0; i < ROUNDS; ++i)
 			{
-				v1 -= (((v0 << 4) ^ (v0 >>> 5)) + v0) ^ (sum + key[(sum >>> 11) & 3]);
-				sum -= GOLDEN_RATIO;
-				v0 -= (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ (sum + key[sum & 3]);
+				v0 += (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ roundKey0[i];
+				v1 += (((v0 << 4) ^ (v0 >>> 5)) + v0) ^ roundKey1[i];
 			}
-			out.writeInt(v0);
-			out.writeInt(v1);
+			buf.putInt(pos, v0);
+			buf.putInt(pos + 4, v1);
 		}
-		out.writeBytes(in.getRemaining());
-		return out.flip();
+	}
+
+	/**
+	 * Decrypt len bytes of the buffer starting at the absolute offset, in place.
+	 * The position, limit and byte order of the buffer are left unchanged.
+	 */
+	public void decrypt(ByteBuffer buffer, int offset, int len)
+	{
+		final ByteBuffer buf = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		final int end = offset + (len & ~7);
+		for (int pos = offset; pos < end; pos += 8)
+		{
+			int v0 = buf.getInt(pos);
+			int v1 = buf.getInt(pos + 4);
+			for (int i = ROUNDS - 1; i >= 0; --i)
+			{
+				v1 -= (((v0 << 4) ^ (v0 >>> 5)) + v0) ^ roundKey1[i];
+				v0 -= (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ roundKey0[i];
+			}
+			buf.putInt(pos, v0);
+			buf.putInt(pos + 4, v1);
+		}
+	}
+
+	private static int getInt(byte[] b, int pos)
+	{
+		return b[pos] << 24 | (b[pos + 1] & 0xff) << 16 | (b[pos + 2] & 0xff) << 8 | (b[pos + 3] & 0xff);
+	}
+
+	private static void putInt(byte[] b, int pos, int v)
+	{
+		b[pos] = (byte) (v >>> 24);
+		b[pos + 1] = (byte) (v >>> 16);
+		b[pos + 2] = (byte) (v >>> 8);
+		b[pos + 3] = (byte) v;
 	}
 }
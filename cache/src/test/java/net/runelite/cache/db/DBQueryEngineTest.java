@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+import net.runelite.cache.definitions.DBRowDefinition;
+import net.runelite.cache.definitions.DBTableDefinition;
+import net.runelite.cache.definitions.DBTableIndex;
+import net.runelite.cache.util.BaseVarType;
+import net.runelite.cache.util.ScriptVarType;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class DBQueryEngineTest
+{
+	private static final Logger logger = LoggerFactory.getLogger(DBQueryEngineTest.class);
+
+	private static final int ITEMS = 1;
+	private static final int CATEGORIES = 2;
+	private static final int ROWS = 5000;
+
+	// items: 0 = name, 1 = (obj, count) pairs, 2 = category row
+	private static final ScriptVarType[][] ITEM_TYPES = {
+		{ScriptVarType.STRING},
+		{ScriptVarType.OBJ, ScriptVarType.INTEGER},
+		{ScriptVarType.DBROW},
+	};
+
+	private final List<DBRowDefinition> rows = new ArrayList<>();
+	private DBQueryEngine engine;
+
+	@Before
+	public void before()
+	{
+		DBTableDefinition items = new DBTableDefinition(ITEMS);
+		items.setTypes(ITEM_TYPES);
+		// rows without a category default to category row 0
+		items.setDefaultColumnValues(new Object[]{null, null, new Object[]{0}});
+
+		DBTableDefinition categories = new DBTableDefinition(CATEGORIES);
+		// categories: 0 = name, 1 = number
+		categories.setTypes(new ScriptVarType[][]{{ScriptVarType.STRING}, {ScriptVarType.INTEGER}});
+
+		Random random = new Random(42L);
+		for (int id = 0; id < ROWS; ++id)
+		{
+			DBRowDefinition row = new DBRowDefinition(id + 100);
+			row.setTableId(ITEMS);
+			row.setColumnTypes(ITEM_TYPES);
+
+			int pairs = random.nextInt(4);
+			Object[] objs = new Object[pairs * 2];
+			for (int i = 0; i < pairs; ++i)
+			{
+				objs[i * 2] = random.nextInt(1000);
+				objs[i * 2 + 1] = random.nextInt(10);
+			}
+
+			Object[] category = id % 7 == 0 ? null : new Object[]{random.nextInt(10)};
+			row.setColumnValues(new Object[][]{{"item " + (id % 100)}, objs, category});
+			rows.add(row);
+		}
+
+		for (int id = 0; id < 10; ++id)
+		{
+			DBRowDefinition row = new DBRowDefinition(id);
+			row.setTableId(CATEGORIES);
+			row.setColumnValues(new Object[][]{{"category " + id}, {id}});
+			rows.add(row);
+		}
+
+		engine = new DBQueryEngine(Arrays.asList(items, categories), rows,
+			Collections.singletonList(index(ITEMS, 1, ITEM_TYPES[1].length)));
+	}
+
+	private DBTableIndex index(int tableId, int column, int tupleSize)
+	{
+		BaseVarType[] types = new BaseVarType[tupleSize];
+		Arrays.fill(types, BaseVarType.INTEGER);
+
+		List<Map<Object, List<Integer>>> tuples = new ArrayList<>();
+		for (int tuple = 0; tuple < tupleSize; ++tuple)
+		{
+			Map<Object, List<Integer>> valueRows = new HashMap<>();
+			for (DBRowDefinition row : rows)
+			{
+				Object[] values = row.getTableId() == tableId ? row.getColumnValues()[column] : null;
+				if (values == null)
+				{
+					continue;
+				}
+
+				for (int i = tuple; i < values.length; i += tupleSize)
+				{
+					List<Integer> ids = valueRows.computeIfAbsent(values[i], k -> new ArrayList<>());
+					if (!ids.contains(row.getId()))
+					{
+						ids.add(row.getId());
+					}
+				}
+			}
+			tuples.add(valueRows);
+		}
+
+		DBTableIndex index = new DBTableIndex(tableId, column);
+		index.setTupleTypes(types);
+		index.setTupleIndexes(tuples);
+		return index;
+	}
+
+	@Test
+	public void testColumns()
+	{
+		DBTable table = engine.getTable(ITEMS);
+		assertEquals(ROWS, table.getRowCount());
+		assertEquals(-1, table.indexOf(5));
+
+		for (DBRowDefinition def : rows)
+		{
+			if (def.getTableId() != ITEMS)
+			{
+				continue;
+			}
+
+			int row = table.indexOf(def.getId());
+			assertEquals(def.getColumnValues()[0][0], table.getString(row, 0, 0, 0));
+
+			Object[] objs = def.getColumnValues()[1];
+			assertEquals(objs.length / 2, table.getFieldCount(row, 1));
+			for (int field = 0; field < objs.length / 2; ++field)
+			{
+				assertEquals(objs[field * 2], table.getInt(row, 1, field, 0));
+				assertEquals(objs[field * 2 + 1], table.getValue(row, 1, field, 1));
+			}
+
+			Object[] category = def.getColumnValues()[2];
+			assertEquals(1, table.getFieldCount(row, 2));
+			assertEquals(category != null ? category[0] : 0, table.getInt(row, 2, 0, 0));
+		}
+	}
+
+	@Test
+	public void testIndexedMatchesScan()
+	{
+		assertTrue(engine.isIndexed(ITEMS, 1));
+		assertFalse(engine.isIndexed(ITEMS, 2));
+
+		DBTable table = engine.getTable(ITEMS);
+		for (int obj = 0; obj < 1000; ++obj)
+		{
+			assertArrayEquals(table.scan(1, 0, obj), engine.find(ITEMS, 1, obj));
+		}
+		for (int count = 0; count < 10; ++count)
+		{
+			assertArrayEquals(table.scan(1, 1, count), engine.find(ITEMS, 1, 1, count));
+		}
+
+		assertEquals(ROWS / 100, engine.find(ITEMS, 0, "item 42").length);
+		assertEquals(0, engine.find(ITEMS, 0, 42).length);
+		assertEquals(0, engine.find(ITEMS, 1, "item 42").length);
+	}
+
+	@Test
+	public void testJoin()
+	{
+		int[] category = engine.find(CATEGORIES, 0, "category 3");
+		assertArrayEquals(new int[]{3}, category);
+
+		// every item in the category
+		int[] items = engine.join(CATEGORIES, category, 1, 0, ITEMS, 2, 0);
+		assertTrue(items.length > 0);
+		assertArrayEquals(engine.find(ITEMS, 2, 3), items);
+
+		// and back to the category of those items
+		assertArrayEquals(category, engine.join(ITEMS, items, 2, 0, CATEGORIES, 1, 0));
+
+		// items sharing an obj with the first two items, through the index
+		int[] first = {100, 101};
+		int[] expected = new int[0];
+		DBTable table = engine.getTable(ITEMS);
+		for (int rowId : first)
+		{
+			int row = table.indexOf(rowId);
+			for (int field = 0; field < table.getFieldCount(row, 1); ++field)
+			{
+				int[] found = table.scan(1, 0, table.getInt(row, 1, field, 0));
+				expected = IntStream.concat(Arrays.stream(expected), Arrays.stream(found))
+					.sorted().distinct().toArray();
+			}
+		}
+		assertArrayEquals(expected, engine.join(ITEMS, first, 1, 0, ITEMS, 1, 0));
+	}
+
+	/**
+	 * Times indexed lookups against scanning the table
+	 */
+	@Test
+	@Ignore
+	public void testIndexedLookupSpeed()
+	{
+		DBTable table = engine.getTable(ITEMS);
+		int lookups = 10000;
+		int found = 0;
+
+		long start = System.nanoTime();
+		for (int i = 0; i < lookups; ++i)
+		{
+			found += table.scan(1, 0, i % 1000).length;
+		}
+		long scanNanos = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < lookups; ++i)
+		{
+			found -= engine.find(ITEMS, 1, i % 1000).length;
+		}
+		long indexNanos = System.nanoTime() - start;
+
+		assertEquals(0, found);
+		logger.info("{} lookups over {} rows: scan {} us/lookup, index {} us/lookup", lookups, ROWS,
+			scanNanos / 1000.0 / lookups, indexNanos / 1000.0 / lookups);
+	}
+}
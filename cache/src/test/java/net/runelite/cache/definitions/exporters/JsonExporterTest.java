@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.definitions.exporters;
+
+import com.google.gson.Gson;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import net.runelite.cache.definitions.ItemDefinition;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JsonExporterTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static List<ItemDefinition> items(int count)
+	{
+		List<ItemDefinition> items = new ArrayList<>(count);
+		for (int id = 0; id < count; ++id)
+		{
+			ItemDefinition item = new ItemDefinition(id);
+			item.name = "item " + id;
+			items.add(item);
+		}
+		return items;
+	}
+
+	@Test
+	public void testExportFiles() throws IOException
+	{
+		List<ItemDefinition> items = items(50);
+		File dir = new File(folder.getRoot(), "items");
+		JsonExporter.exportFiles(items, def -> def.id, dir);
+
+		assertEquals(50, dir.list().length);
+		for (ItemDefinition item : items)
+		{
+			String json = new String(Files.readAllBytes(new File(dir, item.id + ".json").toPath()), StandardCharsets.UTF_8);
+			assertEquals(new ItemExporter(item).export(), json);
+		}
+	}
+
+	@Test
+	public void testExportNdjson() throws IOException
+	{
+		// more than one batch
+		List<ItemDefinition> items = items(2500);
+		File file = folder.newFile("items.json.gz");
+		JsonExporter.exportNdjson(items, file, true);
+
+		Gson gson = new Gson();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+			new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8)))
+		{
+			for (ItemDefinition item : items)
+			{
+				ItemDefinition read = gson.fromJson(reader.readLine(), ItemDefinition.class);
+				assertEquals(item.id, read.id);
+				assertEquals(item.name, read.name);
+			}
+			assertNull(reader.readLine());
+		}
+	}
+}
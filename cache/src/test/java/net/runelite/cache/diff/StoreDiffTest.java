@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.diff;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import net.runelite.cache.ConfigType;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.NpcDefinition;
+import net.runelite.cache.definitions.savers.ItemSaver;
+import net.runelite.cache.definitions.savers.NpcSaver;
+import net.runelite.cache.diff.ChangeSet.ArchiveChange;
+import net.runelite.cache.diff.ChangeSet.DefinitionChange;
+import net.runelite.cache.diff.ChangeSet.FieldChange;
+import net.runelite.cache.diff.ChangeSet.FileChange;
+import net.runelite.cache.diff.ChangeSet.Type;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.index.FileData;
+import net.runelite.cache.index.IndexData;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class StoreDiffTest
+{
+	private static final int CONFIGS = IndexType.CONFIGS.getNumber();
+	private static final int SPRITES = IndexType.SPRITES.getNumber();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Store from;
+	private Store to;
+
+	@Before
+	public void before() throws IOException
+	{
+		from = new Store(folder.newFolder());
+		Index configs = from.addIndex(CONFIGS);
+		addArchive(from, configs, ConfigType.ITEM.getId(), items(item(0, "axe", 1), item(1, "bow", 5), item(2, "cape", 2)));
+		addArchive(from, configs, ConfigType.NPC.getId(), npcs(npc(0, "guard")));
+		Index sprites = from.addIndex(SPRITES);
+		addArchive(from, sprites, 0, new byte[]{1, 2, 3});
+		addArchive(from, sprites, 1, new byte[]{4, 5, 6});
+
+		to = new Store(folder.newFolder());
+		configs = to.addIndex(CONFIGS);
+		addArchive(to, configs, ConfigType.ITEM.getId(), items(item(0, "axe", 1), item(1, "longbow", 10), item(3, "dagger", 3)));
+		addArchive(to, configs, ConfigType.NPC.getId(), npcs(npc(0, "guard")));
+		sprites = to.addIndex(SPRITES);
+		addArchive(to, sprites, 0, new byte[]{1, 2, 3});
+		addArchive(to, sprites, 2, new byte[]{7, 8, 9});
+	}
+
+	@After
+	public void after() throws IOException
+	{
+		from.close();
+		to.close();
+	}
+
+	@Test
+	public void testDiffStores() throws IOException
+	{
+		ChangeSet changes = StoreDiff.diff(from, to);
+
+		assertEquals(Arrays.asList(
+			new ArchiveChange(CONFIGS, ConfigType.ITEM.getId(), Type.MODIFIED, Arrays.asList(
+				new FileChange(1, Type.MODIFIED),
+				new FileChange(2, Type.REMOVED),
+				new FileChange(3, Type.ADDED))),
+			new ArchiveChange(SPRITES, 1, Type.REMOVED, Collections.emptyList()),
+			new ArchiveChange(SPRITES, 2, Type.ADDED, Collections.emptyList())
+		), changes.getArchives());
+
+		List<DefinitionChange> definitions = changes.getDefinitions();
+		assertEquals(3, definitions.size());
+		assertEquals(new DefinitionChange(ConfigType.ITEM, 2, Type.REMOVED, Collections.emptyList()), definitions.get(1));
+		assertEquals(new DefinitionChange(ConfigType.ITEM, 3, Type.ADDED, Collections.emptyList()), definitions.get(2));
+
+		DefinitionChange bow = definitions.get(0);
+		assertEquals(1, bow.getId());
+		assertEquals(Type.MODIFIED, bow.getType());
+		Map<String, FieldChange> fields = bow.getFields().stream()
+			.collect(Collectors.toMap(FieldChange::getField, f -> f));
+		assertEquals(2, fields.size());
+		assertEquals(new FieldChange("name", "bow", "longbow"), fields.get("name"));
+		assertEquals(new FieldChange("cost", 5, 10), fields.get("cost"));
+
+		assertTrue(StoreDiff.diff(from, from).isEmpty());
+	}
+
+	@Test
+	public void testDiffReferenceTables() throws IOException
+	{
+		Map<Integer, IndexData> reference = new HashMap<>();
+		for (Index index : from.getIndexes())
+		{
+			reference.put(index.getId(), index.toIndexData());
+		}
+
+		ChangeSet changes = StoreDiff.diff(reference, to);
+		assertEquals(Arrays.asList(
+			new ArchiveChange(CONFIGS, ConfigType.ITEM.getId(), Type.MODIFIED, Arrays.asList(
+				new FileChange(2, Type.REMOVED),
+				new FileChange(3, Type.ADDED))),
+			new ArchiveChange(SPRITES, 1, Type.REMOVED, Collections.emptyList()),
+			new ArchiveChange(SPRITES, 2, Type.ADDED, Collections.emptyList())
+		), changes.getArchives());
+		assertTrue(changes.getDefinitions().isEmpty());
+	}
+
+	private static ItemDefinition item(int id, String name, int cost)
+	{
+		ItemDefinition item = new ItemDefinition(id);
+		item.name = name;
+		item.cost = cost;
+		return item;
+	}
+
+	private static NpcDefinition npc(int id, String name)
+	{
+		NpcDefinition npc = new NpcDefinition(id);
+		npc.name = name;
+		return npc;
+	}
+
+	private static ArchiveFiles items(ItemDefinition... items)
+	{
+		ArchiveFiles files = new ArchiveFiles();
+		ItemSaver saver = new ItemSaver();
+		for (ItemDefinition item : items)
+		{
+			FSFile file = new FSFile(item.id);
+			file.setContents(saver.save(item));
+			files.addFile(file);
+		}
+		return files;
+	}
+
+	private static ArchiveFiles npcs(NpcDefinition... npcs)
+	{
+		ArchiveFiles files = new ArchiveFiles();
+		NpcSaver saver = new NpcSaver();
+		for (NpcDefinition npc : npcs)
+		{
+			FSFile file = new FSFile(npc.id);
+			file.setContents(saver.save(npc));
+			files.addFile(file);
+		}
+		return files;
+	}
+
+	private static void addArchive(Store store, Index index, int archiveId, ArchiveFiles files) throws IOException
+	{
+		Archive archive = index.addArchive(archiveId);
+		FileData[] fileData = new FileData[files.getFiles().size()];
+		for (int i = 0; i < fileData.length; ++i)
+		{
+			fileData[i] = new FileData();
+			fileData[i].setId(files.getFiles().get(i).getFileId());
+		}
+		archive.setFileData(fileData);
+		save(store, archive, files.saveContents());
+	}
+
+	private static void addArchive(Store store, Index index, int archiveId, byte[] data) throws IOException
+	{
+		Archive archive = index.addArchive(archiveId);
+		archive.setFileData(new FileData[]{new FileData()});
+		save(store, archive, data);
+	}
+
+	private static void save(Store store, Archive archive, byte[] data) throws IOException
+	{
+		Container container = new Container(CompressionType.GZ, -1);
+		container.compress(data, null);
+		store.getStorage().saveArchive(archive, container.data);
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import java.nio.ByteBuffer;
+import net.runelite.cache.io.OutputStream;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ArchiveFilesTest
+{
+	@Test
+	public void testLoadContents()
+	{
+		ArchiveFiles files = new ArchiveFiles();
+		for (int i = 0; i < 3; ++i)
+		{
+			FSFile file = new FSFile(i);
+			file.setContents(new byte[]{(byte) i, (byte) (i + 1), (byte) (i + 2)});
+			files.addFile(file);
+		}
+		byte[] data = files.saveContents();
+
+		ArchiveFiles loaded = new ArchiveFiles();
+		for (int i = 0; i < 3; ++i)
+		{
+			loaded.addFile(new FSFile(i));
+		}
+		loaded.loadContents(data);
+
+		for (int i = 0; i < 3; ++i)
+		{
+			FSFile file = loaded.findFile(i);
+			assertEquals(3, file.getSize());
+
+			ByteBuffer view = file.getView();
+			assertTrue(view.isReadOnly());
+			assertEquals(0, view.position());
+			assertEquals(3, view.remaining());
+			assertEquals((byte) (i + 1), view.get(1));
+		}
+
+		assertEquals(files, loaded);
+		assertArrayEquals(data, loaded.saveContents());
+	}
+
+	@Test
+	public void testLoadChunkedContents()
+	{
+		OutputStream out = new OutputStream();
+		// chunk 0
+		out.writeBytes(new byte[]{1, 2});
+		out.writeBytes(new byte[]{4});
+		// chunk 1
+		out.writeBytes(new byte[]{3});
+		out.writeBytes(new byte[]{5, 6});
+		// chunk sizes, as deltas from the previous file in the chunk
+		out.writeInt(2);
+		out.writeInt(-1);
+		out.writeInt(1);
+		out.writeInt(1);
+		out.writeByte(2);
+
+		ArchiveFiles files = new ArchiveFiles();
+		files.addFile(new FSFile(0));
+		files.addFile(new FSFile(1));
+		files.loadContents(out.flip());
+
+		assertArrayEquals(new byte[]{1, 2, 3}, files.findFile(0).getContents());
+		assertArrayEquals(new byte[]{4, 5, 6}, files.findFile(1).getContents());
+		assertEquals(3, files.findFile(1).getView().remaining());
+	}
+}
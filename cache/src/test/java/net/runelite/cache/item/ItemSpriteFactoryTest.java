@@ -27,6 +27,10 @@ package net.runelite.cache.item;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
 import javax.imageio.ImageIO;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.IndexType;
@@ -36,11 +40,18 @@ import net.runelite.cache.StoreLocation;
 import net.runelite.cache.TextureManager;
 import net.runelite.cache.definitions.ItemDefinition;
 import net.runelite.cache.definitions.ModelDefinition;
+import net.runelite.cache.definitions.TextureDefinition;
 import net.runelite.cache.definitions.loaders.ModelLoader;
 import net.runelite.cache.definitions.providers.ModelProvider;
+import net.runelite.cache.definitions.providers.SpriteProvider;
+import net.runelite.cache.definitions.providers.TextureProvider;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Store;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
@@ -116,4 +127,83 @@ public class ItemSpriteFactoryTest
 
 		log.info("Dumped {} item images to {}", count, outDir);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testCreateSpritesMatchesCreateSprite() throws IOException
+	{
+		Map<Integer, ItemDefinition> items = new HashMap<>();
+		Random random = new Random(42L);
+		for (int id = 0; id < 64; ++id)
+		{
+			ItemDefinition item = new ItemDefinition(id);
+			item.inventoryModel = id;
+			item.zoom2d = 1000 + random.nextInt(1500);
+			item.xan2d = random.nextInt(2048);
+			item.yan2d = random.nextInt(2048);
+			item.zan2d = random.nextInt(2048);
+			item.xOffset2d = random.nextInt(20) - 10;
+			item.yOffset2d = random.nextInt(20) - 10;
+			items.put(id, item);
+		}
+
+		// a noted item, drawn on a note of another model
+		ItemDefinition noted = new ItemDefinition(64);
+		noted.linkNote(items.get(63), items.get(5));
+		noted.notedTemplate = 63;
+		noted.notedID = 5;
+		items.put(64, noted);
+
+		// models are modified while rendering, so each call returns a new one
+		ModelProvider modelProvider = modelId -> model(modelId);
+		SpriteProvider spriteProvider = (spriteId, frameId) -> null;
+		TextureProvider textureProvider = () -> new TextureDefinition[0];
+
+		int[] itemIds = items.keySet().stream().mapToInt(Integer::intValue).toArray();
+		Map<Integer, BufferedImage> sprites = ItemSpriteFactory.createSprites(items::get, modelProvider,
+			spriteProvider, textureProvider, itemIds, 1, 1, 3153952, false);
+		assertEquals(itemIds.length, sprites.size());
+
+		for (int itemId : itemIds)
+		{
+			BufferedImage expected = ItemSpriteFactory.createSprite(items::get, modelProvider,
+				spriteProvider, textureProvider, itemId, 1, 1, 3153952, false);
+			BufferedImage actual = sprites.get(itemId);
+			assertNotNull(actual);
+
+			int[] expectedPixels = expected.getRGB(0, 0, 36, 32, null, 0, 36);
+			assertTrue("item " + itemId + " is blank", Arrays.stream(expectedPixels).anyMatch(p -> p != 0));
+			assertArrayEquals("item " + itemId, expectedPixels, actual.getRGB(0, 0, 36, 32, null, 0, 36));
+		}
+	}
+
+	private static ModelDefinition model(int modelId)
+	{
+		Random random = new Random(modelId);
+		ModelDefinition model = new ModelDefinition();
+		model.id = modelId;
+		model.vertexCount = 40;
+		model.vertexX = new int[model.vertexCount];
+		model.vertexY = new int[model.vertexCount];
+		model.vertexZ = new int[model.vertexCount];
+		for (int i = 0; i < model.vertexCount; ++i)
+		{
+			model.vertexX[i] = random.nextInt(200) - 100;
+			model.vertexY[i] = random.nextInt(200) - 100;
+			model.vertexZ[i] = random.nextInt(200) - 100;
+		}
+
+		model.faceCount = 60;
+		model.faceIndices1 = new int[model.faceCount];
+		model.faceIndices2 = new int[model.faceCount];
+		model.faceIndices3 = new int[model.faceCount];
+		model.faceColors = new short[model.faceCount];
+		for (int i = 0; i < model.faceCount; ++i)
+		{
+			model.faceIndices1[i] = random.nextInt(model.vertexCount);
+			model.faceIndices2[i] = random.nextInt(model.vertexCount);
+			model.faceIndices3[i] = random.nextInt(model.vertexCount);
+			model.faceColors[i] = (short) random.nextInt(65536);
+		}
+		return model;
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.region;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.definitions.LocationsDefinition;
+import net.runelite.cache.definitions.MapDefinition;
+import net.runelite.cache.definitions.savers.LocationSaver;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.index.FileData;
+import net.runelite.cache.util.Djb2;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RegionLoaderTest
+{
+	private static final int[] KEYS = {1, 2, 3, 4};
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Store store;
+	private final Map<Integer, int[]> keys = new HashMap<>();
+
+	@Before
+	public void before() throws IOException
+	{
+		store = new Store(folder.getRoot());
+		Index index = store.addIndex(IndexType.MAPS.getNumber());
+
+		addRegion(index, 50, 50, true);
+		addRegion(index, 50, 51, false);
+		addRegion(index, 12, 200, true);
+	}
+
+	@After
+	public void after() throws IOException
+	{
+		store.close();
+	}
+
+	@Test
+	public void testLoadRegions() throws IOException
+	{
+		RegionLoader regionLoader = new RegionLoader(store, keys::get);
+		regionLoader.loadRegions();
+
+		assertEquals(3, regionLoader.getRegions().size());
+
+		Region region = regionLoader.findRegionForRegionCoordinates(50, 50);
+		assertNotNull(region);
+		assertEquals(1, region.getLocations().size());
+		assertEquals(1234, region.getLocations().get(0).getId());
+
+		region = regionLoader.findRegionForRegionCoordinates(50, 51);
+		assertNotNull(region);
+		assertEquals(0, region.getLocations().size());
+
+		assertNotNull(regionLoader.findRegionForWorldCoordinates(12 << 6, (200 << 6) + 63));
+		assertNull(regionLoader.findRegionForRegionCoordinates(51, 50));
+
+		regionLoader.calculateBounds();
+		assertEquals(12, regionLoader.getLowestX().getRegionX());
+		assertEquals(200, regionLoader.getHighestY().getRegionY());
+	}
+
+	@Test
+	public void testLoadOnLookup()
+	{
+		RegionLoader regionLoader = new RegionLoader(store, keys::get);
+
+		Region region = regionLoader.findRegionForWorldCoordinates((50 << 6) + 5, (50 << 6) + 5);
+		assertNotNull(region);
+		assertEquals((50 << 8) | 50, region.getRegionID());
+		assertEquals(1, region.getLocations().size());
+		assertEquals(1, regionLoader.getRegions().size());
+		assertSame(region, regionLoader.findRegionForRegionCoordinates(50, 50));
+
+		assertNull(regionLoader.findRegionForRegionCoordinates(51, 50));
+		assertNull(regionLoader.findRegionForWorldCoordinates(-1, -1));
+		assertEquals(1, regionLoader.getRegions().size());
+
+		regionLoader.unloadRegion(region.getRegionID());
+		assertEquals(0, regionLoader.getRegions().size());
+
+		Region reloaded = regionLoader.findRegionForRegionCoordinates(50, 50);
+		assertNotNull(reloaded);
+		assertEquals(1, reloaded.getLocations().size());
+	}
+
+	private void addRegion(Index index, int x, int y, boolean withKeys) throws IOException
+	{
+		// every tile is a single 0, ending its attributes
+		byte[] mapData = new byte[MapDefinition.Z * MapDefinition.X * MapDefinition.Y];
+		addArchive(index, "m" + x + "_" + y, mapData, null);
+
+		LocationsDefinition locs = new LocationsDefinition();
+		locs.getLocations().add(new Location(1234, 10, 2, new Position(3, 4, 0)));
+		byte[] landData = new LocationSaver().save(locs);
+		addArchive(index, "l" + x + "_" + y, landData, withKeys ? KEYS : null);
+
+		if (withKeys)
+		{
+			keys.put(x << 8 | y, KEYS);
+		}
+	}
+
+	private void addArchive(Index index, String name, byte[] data, int[] keys) throws IOException
+	{
+		Archive archive = index.addArchive(index.getArchives().size());
+		archive.setNameHash(Djb2.hash(name));
+		archive.setFileData(new FileData[]{new FileData()});
+
+		Container container = new Container(CompressionType.GZ, -1);
+		container.compress(data, keys);
+		store.getStorage().saveArchive(archive, container.data);
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DefinitionCacheTest
+{
+	private final AtomicInteger decodes = new AtomicInteger();
+	private DefinitionCache<String> cache;
+
+	@Before
+	public void before()
+	{
+		int[] ids = {30, 10, 20};
+		ByteBuffer[] data = {
+			ByteBuffer.wrap(new byte[]{3}),
+			ByteBuffer.wrap(new byte[]{1}),
+			ByteBuffer.wrap(new byte[]{2})
+		};
+		cache = new DefinitionCache<>(ids, data, (id, b) ->
+		{
+			decodes.incrementAndGet();
+			return id + ":" + b.get(0);
+		});
+	}
+
+	@Test
+	public void testGet()
+	{
+		assertEquals(0, decodes.get());
+
+		String def = cache.get(20);
+		assertEquals("20:2", def);
+		assertEquals(1, decodes.get());
+		assertSame(def, cache.get(20));
+		assertEquals(1, decodes.get());
+
+		assertNull(cache.get(15));
+		assertTrue(cache.contains(30));
+		assertFalse(cache.contains(15));
+		assertEquals(3, cache.size());
+
+		cache.invalidateAll();
+		assertEquals("20:2", cache.get(20));
+		assertEquals(2, decodes.get());
+	}
+
+	@Test
+	public void testStream()
+	{
+		String cached = cache.get(10);
+
+		List<String> defs = cache.stream().collect(Collectors.toList());
+		assertEquals(3, defs.size());
+		assertNotSame(cached, defs.get(0));
+		assertEquals(cached, defs.get(0));
+		assertEquals("20:2", defs.get(1));
+		assertEquals("30:3", defs.get(2));
+		assertArrayEquals(new int[]{10, 20, 30}, cache.ids().toArray());
+
+		// streamed definitions are always decoded, and are not cached
+		assertEquals(4, decodes.get());
+		cache.get(30);
+		assertEquals(5, decodes.get());
+	}
+
+	@Test
+	public void testEviction()
+	{
+		int[] ids = IntStream.range(0, 100).toArray();
+		ByteBuffer[] data = new ByteBuffer[100];
+		Arrays.fill(data, ByteBuffer.allocate(1));
+		DefinitionCache<String> small = new DefinitionCache<>(ids, data, (id, b) ->
+		{
+			decodes.incrementAndGet();
+			return Integer.toString(id);
+		}, 10);
+
+		for (int id : ids)
+		{
+			assertEquals(Integer.toString(id), small.get(id));
+		}
+		assertEquals(100, decodes.get());
+
+		// the first definitions have been evicted, and are decoded again
+		small.get(0);
+		assertEquals(101, decodes.get());
+	}
+}
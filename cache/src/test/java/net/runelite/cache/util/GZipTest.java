@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.util;
+
+import java.io.IOException;
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class GZipTest
+{
+	@Test
+	public void testDecompressInto() throws IOException
+	{
+		byte[] data = new byte[10000];
+		Random random = new Random(42L);
+		for (int i = 0; i < data.length; ++i)
+		{
+			data[i] = (byte) random.nextInt(16);
+		}
+
+		byte[] compressed = GZip.compress(data);
+		assertArrayEquals(data, GZip.decompress(compressed, compressed.length));
+
+		// compressed data in the middle of a larger array, decompressed into the middle of another
+		byte[] in = new byte[compressed.length + 20];
+		System.arraycopy(compressed, 0, in, 7, compressed.length);
+		byte[] out = new byte[data.length + 3];
+		GZip.decompress(in, 7, compressed.length, out, 3, data.length);
+
+		byte[] expected = new byte[out.length];
+		System.arraycopy(data, 0, expected, 3, data.length);
+		assertArrayEquals(expected, out);
+
+		// and again on the same thread
+		out = new byte[data.length];
+		GZip.decompress(compressed, 0, compressed.length, out, 0, data.length);
+		assertArrayEquals(data, out);
+	}
+
+	@Test(expected = IOException.class)
+	public void testDecompressShorter() throws IOException
+	{
+		byte[] compressed = GZip.compress(new byte[100]);
+		GZip.decompress(compressed, 0, compressed.length, new byte[101], 0, 101);
+	}
+
+	@Test(expected = IOException.class)
+	public void testDecompressLonger() throws IOException
+	{
+		byte[] compressed = GZip.compress(new byte[100]);
+		GZip.decompress(compressed, 0, compressed.length, new byte[99], 0, 99);
+	}
+
+	@Test
+	public void testEmpty() throws IOException
+	{
+		byte[] compressed = GZip.compress(new byte[0]);
+		GZip.decompress(compressed, 0, compressed.length, new byte[0], 0, 0);
+		assertEquals(0, GZip.decompress(compressed, compressed.length).length);
+	}
+}
@@ -24,8 +24,13 @@
  */
 package net.runelite.cache.util;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import org.junit.Test;
 
 public class XteaTest
@@ -53,4 +58,74 @@ public class XteaTest
 
 		assertArrayEquals(data, decData);
 	}
+
+	@Test
+	public void testInPlace()
+	{
+		Random random = new Random(42L);
+		int[] key = {random.nextInt(), random.nextInt(), random.nextInt(), random.nextInt()};
+		Xtea xtea = new Xtea(key);
+
+		for (int len = 0; len <= 70; ++len)
+		{
+			int offset = random.nextInt(8);
+			byte[] data = new byte[offset + len + 5];
+			random.nextBytes(data);
+
+			byte[] expected = data.clone();
+			encrypt(key, expected, offset, len);
+
+			byte[] encrypted = data.clone();
+			xtea.encrypt(encrypted, offset, len);
+			assertArrayEquals(expected, encrypted);
+
+			ByteBuffer buffer = ByteBuffer.allocateDirect(data.length).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.put(data);
+			buffer.position(3);
+			xtea.encrypt(buffer, offset, len);
+			assertEquals(3, buffer.position());
+			assertEquals(ByteOrder.LITTLE_ENDIAN, buffer.order());
+			byte[] bufferData = new byte[data.length];
+			buffer.position(0);
+			buffer.get(bufferData);
+			assertArrayEquals(expected, bufferData);
+
+			xtea.decrypt(encrypted, offset, len);
+			assertArrayEquals(data, encrypted);
+
+			buffer.position(0);
+			xtea.decrypt(buffer, offset, len);
+			buffer.get(bufferData);
+			assertArrayEquals(data, bufferData);
+
+			// the copying methods work from the start of the array, and leave the original alone
+			byte[] copy = Arrays.copyOf(data, data.length);
+			byte[] copyExpected = data.clone();
+			encrypt(key, copyExpected, 0, len);
+			assertArrayEquals(copyExpected, xtea.encrypt(copy, len));
+			assertArrayEquals(data, copy);
+		}
+	}
+
+	/**
+	 * Encrypt one block at a time, as the cache did before encrypting in place
+	 */
+	private static void encrypt(int[] key, byte[] data, int offset, int len)
+	{
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		for (int pos = offset; pos + 8 <= offset + len; pos += 8)
+		{
+			int v0 = buffer.getInt(pos);
+			int v1 = buffer.getInt(pos + 4);
+			int sum = 0;
+			for (int i = 0; i < 32; ++i)
+			{
+				v0 += (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ (sum + key[sum & 3]);
+				sum += 0x9E3779B9;
+				v1 += (((v0 << 4) ^ (v0 >>> 5)) + v0) ^ (sum + key[(sum >>> 11) & 3]);
+			}
+			buffer.putInt(pos, v0);
+			buffer.putInt(pos + 4, v1);
+		}
+	}
 }
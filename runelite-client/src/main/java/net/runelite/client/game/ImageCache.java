@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.game;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.WritableRaster;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.util.AsyncBufferedImage;
+
+/**
+ * Image cache shared by item icons, item outlines and sprites.
+ * <p>
+ * Entries are weighted by the size of their pixel data and share one memory budget.
+ * Images pushed out of it are kept deflated in a smaller second tier, so a cold
+ * icon can be brought back without being rendered again on the client thread.
+ * Evictions happen on whichever thread inserts into the cache, often the client
+ * thread, so evicted images are compressed on a low priority thread of their own instead.
+ * Keys of the different users must be distinct types so they don't collide.
+ */
+@Slf4j
+@Singleton
+public class ImageCache
+{
+	private static final long HOT_BYTES = 16 << 20;
+	private static final long COLD_BYTES = 4 << 20;
+	// rough per entry cost of the image, raster and cache bookkeeping objects
+	private static final int ENTRY_OVERHEAD = 256;
+
+	@Value
+	public static class Stats
+	{
+		long hitCount;
+		long missCount;
+		long evictionCount;
+		long coldHitCount;
+		long coldEvictionCount;
+		long hotBytes;
+		long coldBytes;
+		int coldSize;
+	}
+
+	private final Cache<Object, BufferedImage> hot;
+	private final Executor executor;
+	private final long coldBudget;
+	// access ordered, guarded by itself
+	private final LinkedHashMap<Object, ColdImage> cold = new LinkedHashMap<>(16, .75f, true);
+	private long coldBytes;
+	private long coldHits;
+	private long coldEvictions;
+
+	@Inject
+	private ImageCache()
+	{
+		this(Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+			.setNameFormat("image-cache-compressor")
+			.setDaemon(true)
+			.setPriority(Thread.MIN_PRIORITY)
+			.build()), HOT_BYTES, COLD_BYTES);
+	}
+
+	/**
+	 * @param executor   executor to compress evicted images on
+	 * @param hotBudget  bytes of decoded images to keep
+	 * @param coldBudget bytes of compressed images to keep, 0 to disable the second tier
+	 */
+	@VisibleForTesting
+	ImageCache(Executor executor, long hotBudget, long coldBudget)
+	{
+		this.executor = executor;
+		this.coldBudget = coldBudget;
+		this.hot = CacheBuilder.newBuilder()
+			// the weight limit is split between segments, use one so the whole budget is shared
+			.concurrencyLevel(1)
+			.maximumWeight(hotBudget)
+			.weigher((Object key, BufferedImage image) -> weigh(image))
+			.expireAfterAccess(1, TimeUnit.HOURS)
+			.removalListener(this::demote)
+			.recordStats()
+			.build();
+	}
+
+	/**
+	 * Get an image, loading it if it isn't cached
+	 *
+	 * @return the image, or null if the loader fails
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public <T extends BufferedImage> T get(Object key, Callable<T> loader)
+	{
+		try
+		{
+			return (T) hot.get(key, () ->
+			{
+				BufferedImage image = promote(key);
+				return image != null ? image : loader.call();
+			});
+		}
+		catch (ExecutionException ex)
+		{
+			log.debug("unable to load image {}", key, ex);
+			return null;
+		}
+	}
+
+	@Nullable
+	public BufferedImage getIfPresent(Object key)
+	{
+		BufferedImage image = hot.getIfPresent(key);
+		if (image != null)
+		{
+			return image;
+		}
+
+		image = promote(key);
+		if (image != null)
+		{
+			hot.put(key, image);
+		}
+		return image;
+	}
+
+	public void put(Object key, BufferedImage image)
+	{
+		hot.put(key, image);
+	}
+
+	public Stats getStats()
+	{
+		CacheStats stats = hot.stats();
+		long hotBytes = 0;
+		for (BufferedImage image : hot.asMap().values())
+		{
+			hotBytes += weigh(image);
+		}
+
+		synchronized (cold)
+		{
+			return new Stats(stats.hitCount() + coldHits, stats.missCount() - coldHits, stats.evictionCount(),
+				coldHits, coldEvictions, hotBytes, coldBytes, cold.size());
+		}
+	}
+
+	private static int weigh(BufferedImage image)
+	{
+		DataBuffer buffer = image.getRaster().getDataBuffer();
+		long bytes = (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+		return (int) Math.min(Integer.MAX_VALUE, bytes + ENTRY_OVERHEAD);
+	}
+
+	private void demote(RemovalNotification<Object, BufferedImage> notification)
+	{
+		if (coldBudget <= 0 || !notification.wasEvicted())
+		{
+			return;
+		}
+
+		BufferedImage image = notification.getValue();
+		if (image == null || image.getType() != BufferedImage.TYPE_INT_ARGB
+			|| (image instanceof AsyncBufferedImage && !((AsyncBufferedImage) image).isLoaded()))
+		{
+			return;
+		}
+
+		final Object key = notification.getKey();
+		executor.execute(() ->
+		{
+			// the image may have been loaded again while this was waiting
+			if (!hot.asMap().containsKey(key))
+			{
+				addCold(key, ColdImage.compress(image));
+			}
+		});
+	}
+
+	private void addCold(Object key, ColdImage coldImage)
+	{
+		synchronized (cold)
+		{
+			ColdImage previous = cold.put(key, coldImage);
+			if (previous != null)
+			{
+				coldBytes -= previous.data.length;
+			}
+			coldBytes += coldImage.data.length;
+
+			for (Iterator<ColdImage> it = cold.values().iterator(); coldBytes > coldBudget && it.hasNext(); )
+			{
+				coldBytes -= it.next().data.length;
+				it.remove();
+				++coldEvictions;
+			}
+		}
+	}
+
+	@Nullable
+	private BufferedImage promote(Object key)
+	{
+		if (coldBudget <= 0)
+		{
+			return null;
+		}
+
+		ColdImage coldImage;
+		synchronized (cold)
+		{
+			coldImage = cold.remove(key);
+			if (coldImage == null)
+			{
+				return null;
+			}
+			coldBytes -= coldImage.data.length;
+			++coldHits;
+		}
+
+		return coldImage.decompress();
+	}
+
+	private static class ColdImage
+	{
+		private final int width;
+		private final int height;
+		private final boolean async;
+		private final byte[] data;
+
+		private ColdImage(int width, int height, boolean async, byte[] data)
+		{
+			this.width = width;
+			this.height = height;
+			this.async = async;
+			this.data = data;
+		}
+
+		static ColdImage compress(BufferedImage image)
+		{
+			final int width = image.getWidth();
+			final int height = image.getHeight();
+			// getDataElements copies, so the evicted image keeps its acceleration
+			int[] pixels = (int[]) image.getRaster().getDataElements(0, 0, width, height, null);
+			ByteBuffer raw = ByteBuffer.allocate(pixels.length * 4);
+			raw.asIntBuffer().put(pixels);
+
+			Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+			try
+			{
+				deflater.setInput(raw.array());
+				deflater.finish();
+				byte[] buf = new byte[64 + raw.capacity() / 2];
+				int len = 0;
+				while (!deflater.finished())
+				{
+					if (len == buf.length)
+					{
+						buf = Arrays.copyOf(buf, buf.length * 2);
+					}
+					len += deflater.deflate(buf, len, buf.length - len);
+				}
+				return new ColdImage(width, height, image instanceof AsyncBufferedImage, Arrays.copyOf(buf, len));
+			}
+			finally
+			{
+				deflater.end();
+			}
+		}
+
+		BufferedImage decompress()
+		{
+			byte[] raw = new byte[width * height * 4];
+			Inflater inflater = new Inflater();
+			try
+			{
+				inflater.setInput(data);
+				int len = 0;
+				while (len < raw.length && !inflater.finished())
+				{
+					int n = inflater.inflate(raw, len, raw.length - len);
+					if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					{
+						break;
+					}
+					len += n;
+				}
+			}
+			catch (DataFormatException ex)
+			{
+				throw new IllegalStateException(ex);
+			}
+			finally
+			{
+				inflater.end();
+			}
+
+			int[] pixels = new int[width * height];
+			ByteBuffer.wrap(raw).asIntBuffer().get(pixels);
+
+			BufferedImage image = async
+				? new AsyncBufferedImage(width, height, BufferedImage.TYPE_INT_ARGB)
+				: new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			WritableRaster raster = image.getRaster();
+			raster.setDataElements(0, 0, width, height, pixels);
+			if (async)
+			{
+				((AsyncBufferedImage) image).loaded();
+			}
+			return image;
+		}
+	}
+}
@@ -27,15 +27,19 @@ package net.runelite.client.game;
 import com.google.gson.Gson;
 import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
 import net.runelite.http.api.item.ItemPrice;
 import net.runelite.http.api.item.ItemStats;
 import okhttp3.HttpUrl;
@@ -46,9 +50,21 @@ import okhttp3.Response;
 @Slf4j
 public class ItemClient
 {
+	private static final File SNAPSHOT_DIR = new File(RuneLite.CACHE_DIR, "item");
+	private static final String PRICES_SNAPSHOT = "prices.snapshot";
+	private static final String STATS_SNAPSHOT = "stats.snapshot";
+	private static final int HTTP_NOT_MODIFIED = 304;
+	private static final Type STATS_TYPE = new TypeToken<Map<Integer, ItemStats>>()
+	{
+	}.getType();
+
 	private final OkHttpClient client;
 	private final HttpUrl apiBase, staticBase;
 	private final Gson gson;
+	private final File snapshotDir;
+
+	private final Document<ItemPrice[]> prices = new Document<>();
+	private final Document<Map<Integer, ItemStats>> stats = new Document<>();
 
 	@Inject
 	private ItemClient(OkHttpClient client,
@@ -56,14 +72,42 @@ public class ItemClient
 		@Named("runelite.static.base") HttpUrl staticBase,
 		Gson gson
 	)
+	{
+		this(client, apiBase, staticBase, gson, SNAPSHOT_DIR);
+	}
+
+	ItemClient(OkHttpClient client, HttpUrl apiBase, HttpUrl staticBase, Gson gson, File snapshotDir)
 	{
 		this.client = client;
 		this.apiBase = apiBase;
 		this.staticBase = staticBase;
 		this.gson = gson;
+		this.snapshotDir = snapshotDir;
+	}
+
+	/**
+	 * Get the prices from the last successful download, without going to the network.
+	 *
+	 * @return the prices, or null if there is no usable snapshot
+	 */
+	@Nullable
+	public synchronized ItemPrice[] getCachedPrices()
+	{
+		return loadSnapshot(prices, PRICES_SNAPSHOT, ItemSnapshot::decodePrices);
+	}
+
+	/**
+	 * Get the stats from the last successful download, without going to the network.
+	 *
+	 * @return the stats, or null if there is no usable snapshot
+	 */
+	@Nullable
+	public synchronized Map<Integer, ItemStats> getCachedStats()
+	{
+		return loadSnapshot(stats, STATS_SNAPSHOT, payload -> parseStats(ItemSnapshot.toByteArray(payload)));
 	}
 
-	public ItemPrice[] getPrices() throws IOException
+	public synchronized ItemPrice[] getPrices() throws IOException
 	{
 		HttpUrl.Builder urlBuilder = apiBase.newBuilder()
 			.addPathSegment("item")
@@ -73,28 +117,12 @@ public class ItemClient
 
 		log.debug("Built URI: {}", url);
 
-		Request request = new Request.Builder()
-			.url(url)
-			.build();
-
-		try (Response response = client.newCall(request).execute())
-		{
-			if (!response.isSuccessful())
-			{
-				log.warn("Error looking up prices: {}", response);
-				return null;
-			}
-
-			InputStream in = response.body().byteStream();
-			return gson.fromJson(new InputStreamReader(in, StandardCharsets.UTF_8), ItemPrice[].class);
-		}
-		catch (JsonParseException ex)
-		{
-			throw new IOException(ex);
-		}
+		return fetch(url, "prices", prices, PRICES_SNAPSHOT,
+			body -> gson.fromJson(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8), ItemPrice[].class),
+			(value, body) -> ItemSnapshot.encodePrices(value));
 	}
 
-	public Map<Integer, ItemStats> getStats() throws IOException
+	public synchronized Map<Integer, ItemStats> getStats() throws IOException
 	{
 		HttpUrl.Builder urlBuilder = staticBase.newBuilder()
 			.addPathSegment("item")
@@ -105,27 +133,133 @@ public class ItemClient
 
 		log.debug("Built URI: {}", url);
 
-		Request request = new Request.Builder()
-			.url(url)
-			.build();
+		// stats are kept as the original document, ItemStats is too wide to be worth a binary layout of its own
+		return fetch(url, "item stats", stats, STATS_SNAPSHOT, this::parseStats, (value, body) -> body);
+	}
+
+	private Map<Integer, ItemStats> parseStats(byte[] body)
+	{
+		return gson.fromJson(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8), STATS_TYPE);
+	}
+
+	/**
+	 * Download a document, revalidating the copy we already have if there is one. When the server reports it has not
+	 * changed the copy we have is returned, otherwise the new document is parsed and snapshotted.
+	 */
+	private <T> T fetch(HttpUrl url, String name, Document<T> document, String snapshotName, Parser<T> parser, Encoder<T> encoder) throws IOException
+	{
+		Request.Builder requestBuilder = new Request.Builder()
+			.url(url);
 
-		try (Response response = client.newCall(request).execute())
+		if (document.value != null)
 		{
+			if (document.etag != null)
+			{
+				requestBuilder.header("If-None-Match", document.etag);
+			}
+			if (document.lastModified != null)
+			{
+				requestBuilder.header("If-Modified-Since", document.lastModified);
+			}
+		}
+
+		try (Response response = client.newCall(requestBuilder.build()).execute())
+		{
+			if (response.code() == HTTP_NOT_MODIFIED && document.value != null)
+			{
+				log.debug("{} not modified", name);
+				return document.value;
+			}
+
 			if (!response.isSuccessful())
 			{
-				log.warn("Error looking up item stats: {}", response);
+				log.warn("Error looking up {}: {}", name, response);
+				return null;
+			}
+
+			final byte[] body = response.body().bytes();
+			final T value = parser.parse(body);
+			if (value == null)
+			{
 				return null;
 			}
 
-			InputStream in = response.body().byteStream();
-			final Type typeToken = new TypeToken<Map<Integer, ItemStats>>()
+			document.etag = response.header("ETag");
+			document.lastModified = response.header("Last-Modified");
+			document.value = value;
+
+			try
+			{
+				ItemSnapshot.write(new File(snapshotDir, snapshotName), document.etag, document.lastModified, encoder.encode(value, body));
+			}
+			catch (IOException ex)
 			{
-			}.getType();
-			return gson.fromJson(new InputStreamReader(in, StandardCharsets.UTF_8), typeToken);
+				log.warn("unable to save {} snapshot", name, ex);
+			}
+
+			return value;
 		}
 		catch (JsonParseException ex)
 		{
 			throw new IOException(ex);
 		}
 	}
+
+	private <T> T loadSnapshot(Document<T> document, String snapshotName, Decoder<T> decoder)
+	{
+		if (document.value != null)
+		{
+			return document.value;
+		}
+
+		final File file = new File(snapshotDir, snapshotName);
+		try
+		{
+			final ItemSnapshot snapshot = ItemSnapshot.read(file);
+			if (snapshot == null)
+			{
+				return null;
+			}
+
+			final T value = decoder.decode(snapshot.getPayload());
+			if (value != null)
+			{
+				document.etag = snapshot.getEtag();
+				document.lastModified = snapshot.getLastModified();
+				document.value = value;
+			}
+			return value;
+		}
+		catch (IOException | JsonParseException ex)
+		{
+			log.warn("unable to load item snapshot {}", file, ex);
+			file.delete();
+			return null;
+		}
+	}
+
+	private static class Document<T>
+	{
+		private String etag;
+		private String lastModified;
+		private T value;
+	}
+
+	@FunctionalInterface
+	private interface Parser<T>
+	{
+		T parse(byte[] body) throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface Decoder<T>
+	{
+		T decode(ByteBuffer payload) throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface Encoder<T>
+	{
+		byte[] encode(T value, byte[] body) throws IOException;
+	}
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.game;
+
+import com.google.common.base.Preconditions;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An immutable map from item id to an int, such as another item id, backed by an array indexed by item id.
+ *
+ * @see ItemIdMap
+ */
+public final class ItemIdIntMap
+{
+	private static final int ABSENT = Integer.MIN_VALUE;
+
+	private final int[] table;
+	private final int size;
+
+	private ItemIdIntMap(int[] table, int size)
+	{
+		this.table = table;
+		this.size = size;
+	}
+
+	/**
+	 * Create a map with the same entries as the given map.
+	 *
+	 * @throws IllegalArgumentException if an id is out of range or a value is {@link Integer#MIN_VALUE}
+	 */
+	public static ItemIdIntMap copyOf(Map<Integer, Integer> map)
+	{
+		int max = -1;
+		for (int id : map.keySet())
+		{
+			max = Math.max(max, ItemIdMap.checkId(id));
+		}
+
+		final int[] table = new int[max + 1];
+		Arrays.fill(table, ABSENT);
+		for (Map.Entry<Integer, Integer> entry : map.entrySet())
+		{
+			final int value = entry.getValue();
+			Preconditions.checkArgument(value != ABSENT, "value out of range for item id %s", entry.getKey());
+			table[entry.getKey()] = value;
+		}
+
+		return new ItemIdIntMap(table, map.size());
+	}
+
+	/**
+	 * @return the value for the item id, or {@code defaultValue} if there is none
+	 */
+	public int getOrDefault(int id, int defaultValue)
+	{
+		if (id < 0 || id >= table.length)
+		{
+			return defaultValue;
+		}
+
+		final int value = table[id];
+		return value == ABSENT ? defaultValue : value;
+	}
+
+	public boolean containsKey(int id)
+	{
+		return id >= 0 && id < table.length && table[id] != ABSENT;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.game;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+import javax.annotation.Nullable;
+
+/**
+ * An immutable map from item id to a value, backed by an array indexed by item id.
+ * <p>
+ * Item ids are small and dense, so compared to a {@code Map<Integer, V>} this trades a little memory for lookups
+ * which neither box the id nor hash it. Since it is immutable, a whole table can be swapped in atomically by
+ * assigning a new instance.
+ *
+ * @param <V> the value type
+ */
+public final class ItemIdMap<V>
+{
+	/**
+	 * Ids at or above this are rejected, so a bad id can't allocate an absurdly large table
+	 */
+	static final int MAX_ID = 1 << 20;
+
+	private static final ItemIdMap<?> EMPTY = new ItemIdMap<>(new Object[0], ImmutableList.of());
+
+	private final Object[] table;
+	private final ImmutableList<V> values;
+
+	private ItemIdMap(Object[] table, ImmutableList<V> values)
+	{
+		this.table = table;
+		this.values = values;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <V> ItemIdMap<V> empty()
+	{
+		return (ItemIdMap<V>) EMPTY;
+	}
+
+	/**
+	 * Create a map from the values, keyed by the id each value reports.
+	 *
+	 * @throws IllegalArgumentException if an id is out of range or used more than once
+	 */
+	public static <V> ItemIdMap<V> of(Collection<V> values, ToIntFunction<? super V> idFunction)
+	{
+		int max = -1;
+		for (V value : values)
+		{
+			max = Math.max(max, checkId(idFunction.applyAsInt(value)));
+		}
+
+		final Object[] table = new Object[max + 1];
+		for (V value : values)
+		{
+			final int id = idFunction.applyAsInt(value);
+			Preconditions.checkArgument(table[id] == null, "duplicate item id %s", id);
+			table[id] = Preconditions.checkNotNull(value);
+		}
+
+		return new ItemIdMap<>(table, ImmutableList.copyOf(values));
+	}
+
+	/**
+	 * Create a map with the same entries as the given map.
+	 *
+	 * @throws IllegalArgumentException if an id is out of range
+	 */
+	public static <V> ItemIdMap<V> copyOf(Map<Integer, V> map)
+	{
+		int max = -1;
+		for (int id : map.keySet())
+		{
+			max = Math.max(max, checkId(id));
+		}
+
+		final Object[] table = new Object[max + 1];
+		for (Map.Entry<Integer, V> entry : map.entrySet())
+		{
+			table[entry.getKey()] = Preconditions.checkNotNull(entry.getValue());
+		}
+
+		return new ItemIdMap<>(table, ImmutableList.copyOf(map.values()));
+	}
+
+	static int checkId(int id)
+	{
+		Preconditions.checkArgument(id >= 0 && id < MAX_ID, "item id out of range: %s", id);
+		return id;
+	}
+
+	/**
+	 * @return the value for the item id, or {@code null} if there is none
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public V get(int id)
+	{
+		return id >= 0 && id < table.length ? (V) table[id] : null;
+	}
+
+	public boolean containsKey(int id)
+	{
+		return get(id) != null;
+	}
+
+	public int size()
+	{
+		return values.size();
+	}
+
+	public boolean isEmpty()
+	{
+		return values.isEmpty();
+	}
+
+	/**
+	 * @return all of the values, in the order they were given
+	 */
+	public Collection<V> values()
+	{
+		return values;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ItemIdMap{size=" + values.size() + ", capacity=" + table.length + '}';
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		return o instanceof ItemIdMap && Arrays.equals(table, ((ItemIdMap<?>) o).table);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return Arrays.hashCode(table);
+	}
+}
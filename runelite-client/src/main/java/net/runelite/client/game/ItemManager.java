@@ -24,20 +24,18 @@
  */
 package net.runelite.client.game;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nonnull;
@@ -50,6 +48,7 @@ import net.runelite.api.Client;
 import net.runelite.api.Constants;
 import static net.runelite.api.Constants.CLIENT_DEFAULT_ZOOM;
 import net.runelite.api.GameState;
+import net.runelite.api.Item;
 import net.runelite.api.ItemComposition;
 import static net.runelite.api.ItemID.*;
 import net.runelite.api.SpritePixels;
@@ -93,13 +92,17 @@ public class ItemManager
 	@Named("lowPriceThreshold")
 	private int lowPriceThreshold = 1000;
 
-	private Map<Integer, ItemPrice> itemPrices = Collections.emptyMap();
-	private Map<Integer, ItemStats> itemStats = Collections.emptyMap();
-	private final LoadingCache<ImageKey, AsyncBufferedImage> itemImages;
-	private final LoadingCache<OutlineKey, BufferedImage> itemOutlines;
+	private volatile ItemIdMap<ItemPrice> itemPrices = ItemIdMap.empty();
+	private volatile ItemIdMap<ItemStats> itemStats = ItemIdMap.empty();
+	private volatile ItemNameIndex priceNameIndex = new ItemNameIndex();
+	// index of every item's name, by canonical id; only used on the client thread
+	private ItemNameIndex itemNameIndex;
+	private BitSet indexedItems;
+	private int indexedItemCount;
+	private final ImageCache imageCache;
 
 	// Worn items with weight reducing property have a different worn and inventory ItemID
-	private static final ImmutableMap<Integer, Integer> WORN_ITEMS = ImmutableMap.<Integer, Integer>builder().
+	private static final ItemIdIntMap WORN_ITEMS = ItemIdIntMap.copyOf(ImmutableMap.<Integer, Integer>builder().
 		put(BOOTS_OF_LIGHTNESS_89, BOOTS_OF_LIGHTNESS).
 		put(PENANCE_GLOVES_10554, PENANCE_GLOVES).
 
@@ -171,58 +174,41 @@ public class ItemManager
 
 		put(AGILITY_CAPET_13341, AGILITY_CAPET).
 		put(AGILITY_CAPE_13340, AGILITY_CAPE).
-		build();
+		build());
 
 	@Inject
 	public ItemManager(Client client, ScheduledExecutorService scheduledExecutorService, ClientThread clientThread,
-		ItemClient itemClient, RuneLiteConfig runeLiteConfig)
+		ItemClient itemClient, RuneLiteConfig runeLiteConfig, ImageCache imageCache)
 	{
 		this.client = client;
 		this.clientThread = clientThread;
 		this.itemClient = itemClient;
 		this.runeLiteConfig = runeLiteConfig;
+		this.imageCache = imageCache;
 
 		scheduledExecutorService.scheduleWithFixedDelay(this::loadPrices, 0, 30, TimeUnit.MINUTES);
 		scheduledExecutorService.submit(this::loadStats);
-
-		itemImages = CacheBuilder.newBuilder()
-			.maximumSize(128L)
-			.expireAfterAccess(1, TimeUnit.HOURS)
-			.build(new CacheLoader<ImageKey, AsyncBufferedImage>()
-			{
-				@Override
-				public AsyncBufferedImage load(ImageKey key) throws Exception
-				{
-					return loadImage(key.itemId, key.itemQuantity, key.stackable);
-				}
-			});
-
-		itemOutlines = CacheBuilder.newBuilder()
-			.maximumSize(128L)
-			.expireAfterAccess(1, TimeUnit.HOURS)
-			.build(new CacheLoader<OutlineKey, BufferedImage>()
-			{
-				@Override
-				public BufferedImage load(OutlineKey key) throws Exception
-				{
-					return loadItemOutline(key.itemId, key.itemQuantity, key.outlineColor);
-				}
-			});
 	}
 
 	private void loadPrices()
 	{
+		if (itemPrices.isEmpty())
+		{
+			// use the prices from last time until the new ones are downloaded
+			ItemPrice[] prices = itemClient.getCachedPrices();
+			if (prices != null)
+			{
+				setPrices(prices);
+				log.debug("Loaded {} cached prices", itemPrices.size());
+			}
+		}
+
 		try
 		{
 			ItemPrice[] prices = itemClient.getPrices();
 			if (prices != null)
 			{
-				ImmutableMap.Builder<Integer, ItemPrice> map = ImmutableMap.builderWithExpectedSize(prices.length);
-				for (ItemPrice price : prices)
-				{
-					map.put(price.getId(), price);
-				}
-				itemPrices = map.build();
+				setPrices(prices);
 			}
 
 			log.debug("Loaded {} prices", itemPrices.size());
@@ -233,14 +219,33 @@ public class ItemManager
 		}
 	}
 
+	private void setPrices(ItemPrice[] prices)
+	{
+		final ItemNameIndex index = new ItemNameIndex();
+		for (ItemPrice price : prices)
+		{
+			index.add(price.getId(), price.getName());
+		}
+
+		itemPrices = ItemIdMap.of(Arrays.asList(prices), ItemPrice::getId);
+		priceNameIndex = index;
+	}
+
 	private void loadStats()
 	{
+		final Map<Integer, ItemStats> cachedStats = itemClient.getCachedStats();
+		if (cachedStats != null)
+		{
+			itemStats = ItemIdMap.copyOf(cachedStats);
+			log.debug("Loaded {} cached stats", itemStats.size());
+		}
+
 		try
 		{
 			final Map<Integer, ItemStats> stats = itemClient.getStats();
 			if (stats != null)
 			{
-				itemStats = ImmutableMap.copyOf(stats);
+				itemStats = ItemIdMap.copyOf(stats);
 			}
 
 			log.debug("Loaded {} stats", itemStats.size());
@@ -357,13 +362,14 @@ public class ItemManager
 	 */
 	public List<ItemPrice> search(String itemName)
 	{
-		itemName = itemName.toLowerCase();
+		final ItemIdMap<ItemPrice> prices = itemPrices;
+		final ItemNameIndex index = priceNameIndex;
 
 		List<ItemPrice> result = new ArrayList<>();
-		for (ItemPrice itemPrice : itemPrices.values())
+		for (int id : index.search(itemName, Integer.MAX_VALUE))
 		{
-			final String name = itemPrice.getName();
-			if (name.toLowerCase().contains(itemName))
+			final ItemPrice itemPrice = prices.get(id);
+			if (itemPrice != null)
 			{
 				result.add(itemPrice);
 			}
@@ -371,6 +377,45 @@ public class ItemManager
 		return result;
 	}
 
+	/**
+	 * Search the names of every item in the game. Items are canonicalized, and items without a name are skipped.
+	 * This must be called on the client thread.
+	 *
+	 * @param itemName the text to search for
+	 * @param limit    the maximum number of results
+	 * @return the canonical ids of the matching items, in item id order
+	 */
+	public int[] searchItemNames(String itemName, int limit)
+	{
+		assert client.isClientThread();
+
+		final int itemCount = client.getItemCount();
+		if (itemNameIndex == null || itemCount < indexedItemCount)
+		{
+			itemNameIndex = new ItemNameIndex();
+			indexedItems = new BitSet(itemCount);
+			indexedItemCount = 0;
+		}
+
+		// the index is only extended when new items appear, the existing names are kept
+		for (int i = indexedItemCount; i < itemCount; i++)
+		{
+			final ItemComposition itemComposition = getItemComposition(canonicalize(i));
+			final int id = itemComposition.getId();
+			final String name = itemComposition.getName();
+
+			// The client assigns "null" to item names of items it doesn't know about
+			if (!indexedItems.get(id) && name != null && !name.equalsIgnoreCase("null"))
+			{
+				indexedItems.set(id);
+				itemNameIndex.add(id, name);
+			}
+		}
+		indexedItemCount = itemCount;
+
+		return itemNameIndex.search(itemName, limit);
+	}
+
 	/**
 	 * Look up an item's composition
 	 *
@@ -418,17 +463,69 @@ public class ItemManager
 			{
 				return false;
 			}
-			SpritePixels sprite = client.createItemSprite(itemId, quantity, 1, SpritePixels.DEFAULT_SHADOW_COLOR,
-				stackable ? ItemQuantityMode.ALWAYS : ItemQuantityMode.NEVER, false, CLIENT_DEFAULT_ZOOM);
-			if (sprite == null)
+			return renderImage(itemId, quantity, stackable, img);
+		});
+		return img;
+	}
+
+	private boolean renderImage(int itemId, int quantity, boolean stackable, AsyncBufferedImage img)
+	{
+		SpritePixels sprite = client.createItemSprite(itemId, quantity, 1, SpritePixels.DEFAULT_SHADOW_COLOR,
+			stackable ? ItemQuantityMode.ALWAYS : ItemQuantityMode.NEVER, false, CLIENT_DEFAULT_ZOOM);
+		if (sprite == null)
+		{
+			return false;
+		}
+		sprite.toBufferedImage(img);
+		img.loaded();
+		return true;
+	}
+
+	/**
+	 * Warm the image cache with the sprites of the given items, such as every item in a
+	 * bank container, so that later calls to {@link #getImage(int, int, boolean)} for them
+	 * are hits. Sprites which aren't cached yet are rendered together in one client
+	 * thread task.
+	 *
+	 * @param items     the items, empty slots are skipped
+	 * @param stackable whether the images should show item quantities
+	 */
+	public void prefetchImages(Item[] items, boolean stackable)
+	{
+		final Map<ImageKey, AsyncBufferedImage> pending = new LinkedHashMap<>();
+		for (Item item : items)
+		{
+			if (item.getId() < 0 || item.getQuantity() <= 0)
+			{
+				continue;
+			}
+
+			ImageKey key = new ImageKey(item.getId(), item.getQuantity(), stackable);
+			if (!pending.containsKey(key) && imageCache.getIfPresent(key) == null)
+			{
+				AsyncBufferedImage img = new AsyncBufferedImage(Constants.ITEM_SPRITE_WIDTH, Constants.ITEM_SPRITE_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+				imageCache.put(key, img);
+				pending.put(key, img);
+			}
+		}
+
+		if (pending.isEmpty())
+		{
+			return;
+		}
+
+		log.debug("Prefetching {} item images", pending.size());
+		clientThread.invoke(() ->
+		{
+			if (client.getGameState().ordinal() < GameState.LOGIN_SCREEN.ordinal())
 			{
 				return false;
 			}
-			sprite.toBufferedImage(img);
-			img.loaded();
-			return true;
+
+			// sprites which can't be created yet are retried next tick
+			pending.entrySet().removeIf(e -> renderImage(e.getKey().itemId, e.getKey().itemQuantity, e.getKey().stackable, e.getValue()));
+			return pending.isEmpty();
 		});
-		return img;
 	}
 
 	/**
@@ -459,14 +556,7 @@ public class ItemManager
 	 */
 	public AsyncBufferedImage getImage(int itemId, int quantity, boolean stackable)
 	{
-		try
-		{
-			return itemImages.get(new ImageKey(itemId, quantity, stackable));
-		}
-		catch (ExecutionException ex)
-		{
-			return null;
-		}
+		return imageCache.get(new ImageKey(itemId, quantity, stackable), () -> loadImage(itemId, quantity, stackable));
 	}
 
 	/**
@@ -493,13 +583,6 @@ public class ItemManager
 	 */
 	public BufferedImage getItemOutline(final int itemId, final int itemQuantity, final Color outlineColor)
 	{
-		try
-		{
-			return itemOutlines.get(new OutlineKey(itemId, itemQuantity, outlineColor));
-		}
-		catch (ExecutionException e)
-		{
-			return null;
-		}
+		return imageCache.get(new OutlineKey(itemId, itemQuantity, outlineColor), () -> loadItemOutline(itemId, itemQuantity, outlineColor));
 	}
 }
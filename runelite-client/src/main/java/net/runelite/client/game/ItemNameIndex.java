@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.game;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An index of item names supporting substring and prefix searches.
+ * <p>
+ * Names are normalized and every trigram of every name is indexed, so a search for three or more characters only has
+ * to verify the names which contain the query's rarest trigram. Shorter queries scan the names, which is still cheap
+ * since searches are limited and stop as soon as enough results are found.
+ * <p>
+ * Items can be appended at any time; results are returned in the order items were added. This class is not thread
+ * safe, so either confine it to one thread or stop modifying it before publishing it.
+ */
+public class ItemNameIndex
+{
+	private static final int[] NO_RESULTS = new int[0];
+
+	private int[] ids = new int[256];
+	private String[] names = new String[256];
+	private int size;
+
+	private final Map<Long, Postings> trigrams = new HashMap<>();
+
+	/**
+	 * Normalize an item name or query for matching.
+	 */
+	public static String normalize(String name)
+	{
+		return name.toLowerCase(Locale.ROOT).replace('\u00A0', ' ');
+	}
+
+	/**
+	 * Add an item to the index.
+	 */
+	public void add(int id, String name)
+	{
+		if (size == ids.length)
+		{
+			ids = Arrays.copyOf(ids, size * 2);
+			names = Arrays.copyOf(names, size * 2);
+		}
+
+		final String normalized = normalize(name);
+		final int entry = size++;
+		ids[entry] = id;
+		names[entry] = normalized;
+
+		for (int i = 0; i + 3 <= normalized.length(); i++)
+		{
+			trigrams.computeIfAbsent(trigram(normalized, i), k -> new Postings()).add(entry);
+		}
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Find items whose name contains the query.
+	 *
+	 * @param query the text to search for
+	 * @param limit the maximum number of results
+	 * @return the ids of the matching items, in the order they were added
+	 */
+	public int[] search(String query, int limit)
+	{
+		return search(normalize(query), limit, false);
+	}
+
+	/**
+	 * Find items whose name starts with the query.
+	 *
+	 * @param query the text to search for
+	 * @param limit the maximum number of results
+	 * @return the ids of the matching items, in the order they were added
+	 */
+	public int[] searchPrefix(String query, int limit)
+	{
+		return search(normalize(query), limit, true);
+	}
+
+	private int[] search(String query, int limit, boolean prefix)
+	{
+		if (query.isEmpty() || limit <= 0)
+		{
+			return NO_RESULTS;
+		}
+
+		int[] results = new int[Math.min(limit, 16)];
+		int count = 0;
+
+		if (query.length() < 3)
+		{
+			for (int entry = 0; entry < size && count < limit; entry++)
+			{
+				if (matches(names[entry], query, prefix))
+				{
+					results = append(results, count++, ids[entry]);
+				}
+			}
+			return Arrays.copyOf(results, count);
+		}
+
+		Postings candidates = null;
+		if (prefix)
+		{
+			candidates = trigrams.get(trigram(query, 0));
+		}
+		else
+		{
+			for (int i = 0; i + 3 <= query.length(); i++)
+			{
+				final Postings postings = trigrams.get(trigram(query, i));
+				if (postings == null)
+				{
+					return NO_RESULTS;
+				}
+				if (candidates == null || postings.size < candidates.size)
+				{
+					candidates = postings;
+				}
+			}
+		}
+
+		if (candidates == null)
+		{
+			return NO_RESULTS;
+		}
+
+		for (int i = 0; i < candidates.size && count < limit; i++)
+		{
+			final int entry = candidates.entries[i];
+			if (matches(names[entry], query, prefix))
+			{
+				results = append(results, count++, ids[entry]);
+			}
+		}
+		return Arrays.copyOf(results, count);
+	}
+
+	private static boolean matches(String name, String query, boolean prefix)
+	{
+		return prefix ? name.startsWith(query) : name.contains(query);
+	}
+
+	private static int[] append(int[] results, int index, int id)
+	{
+		if (index == results.length)
+		{
+			results = Arrays.copyOf(results, results.length * 2);
+		}
+		results[index] = id;
+		return results;
+	}
+
+	private static long trigram(String s, int offset)
+	{
+		return ((long) s.charAt(offset) << 32) | ((long) s.charAt(offset + 1) << 16) | s.charAt(offset + 2);
+	}
+
+	private static class Postings
+	{
+		private int[] entries = new int[4];
+		private int size;
+
+		void add(int entry)
+		{
+			// entries are added in order, so a repeated trigram in one name is always the last entry
+			if (size > 0 && entries[size - 1] == entry)
+			{
+				return;
+			}
+
+			if (size == entries.length)
+			{
+				entries = Arrays.copyOf(entries, size * 2);
+			}
+			entries[size++] = entry;
+		}
+	}
+}
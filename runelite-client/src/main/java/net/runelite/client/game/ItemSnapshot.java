@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.game;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import javax.annotation.Nullable;
+import lombok.Value;
+import net.runelite.http.api.item.ItemPrice;
+
+/**
+ * A snapshot of a downloaded item document, so it is available immediately at startup and while offline.
+ * <p>
+ * A snapshot is a fixed header with the HTTP validators of the response it was made from, followed by a payload.
+ * Prices are stored as fixed width columns followed by the names, so they can be read without parsing JSON.
+ */
+@Value
+class ItemSnapshot
+{
+	private static final int MAGIC = 0x524c4953; // RLIS
+	static final int VERSION = 1;
+
+	@Nullable
+	String etag;
+	@Nullable
+	String lastModified;
+	ByteBuffer payload;
+
+	/**
+	 * @return the snapshot in the file, or null if there is no snapshot
+	 * @throws IOException if the file is unreadable, corrupt or from another version
+	 */
+	@Nullable
+	static ItemSnapshot read(File file) throws IOException
+	{
+		final ByteBuffer buf;
+		try
+		{
+			buf = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+		}
+		catch (NoSuchFileException | FileNotFoundException ex)
+		{
+			return null;
+		}
+
+		try
+		{
+			if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+			{
+				throw new IOException("snapshot version mismatch");
+			}
+
+			final String etag = getString(buf);
+			final String lastModified = getString(buf);
+			final int length = buf.getInt();
+			if (length != buf.remaining())
+			{
+				throw new IOException("truncated snapshot");
+			}
+
+			return new ItemSnapshot(etag, lastModified, buf.slice());
+		}
+		catch (BufferUnderflowException ex)
+		{
+			throw new IOException("truncated snapshot", ex);
+		}
+	}
+
+	static void write(File file, @Nullable String etag, @Nullable String lastModified, byte[] payload) throws IOException
+	{
+		final ByteArrayOutputStream bout = new ByteArrayOutputStream(payload.length + 64);
+		final DataOutputStream out = new DataOutputStream(bout);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		putString(out, etag);
+		putString(out, lastModified);
+		out.writeInt(payload.length);
+		out.write(payload);
+
+		file.getParentFile().mkdirs();
+		final File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+		Files.write(tmp.toPath(), bout.toByteArray());
+
+		try
+		{
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException ex)
+		{
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	static byte[] encodePrices(ItemPrice[] prices) throws IOException
+	{
+		final byte[][] names = new byte[prices.length][];
+		for (int i = 0; i < prices.length; i++)
+		{
+			final String name = prices[i].getName();
+			names[i] = name == null ? new byte[0] : name.getBytes(StandardCharsets.UTF_8);
+		}
+
+		final ByteArrayOutputStream bout = new ByteArrayOutputStream(prices.length * 32);
+		final DataOutputStream out = new DataOutputStream(bout);
+		out.writeInt(prices.length);
+		for (ItemPrice price : prices)
+		{
+			out.writeInt(price.getId());
+		}
+		for (ItemPrice price : prices)
+		{
+			out.writeInt(price.getPrice());
+		}
+		for (ItemPrice price : prices)
+		{
+			out.writeInt(price.getWikiPrice());
+		}
+		for (byte[] name : names)
+		{
+			out.writeShort(name.length);
+		}
+		for (byte[] name : names)
+		{
+			out.write(name);
+		}
+		return bout.toByteArray();
+	}
+
+	static ItemPrice[] decodePrices(ByteBuffer payload) throws IOException
+	{
+		try
+		{
+			final ByteBuffer buf = payload.duplicate();
+			final int count = buf.getInt();
+			if (count < 0 || count > buf.remaining() / 14)
+			{
+				throw new IOException("invalid price count " + count);
+			}
+
+			final int ids = buf.position();
+			final int values = ids + count * 4;
+			final int wikiValues = values + count * 4;
+			final int nameLengths = wikiValues + count * 4;
+			int name = nameLengths + count * 2;
+
+			final ItemPrice[] prices = new ItemPrice[count];
+			for (int i = 0; i < count; i++)
+			{
+				final int length = buf.getShort(nameLengths + i * 2) & 0xFFFF;
+				if (name + length > buf.limit())
+				{
+					throw new IOException("truncated price names");
+				}
+
+				final ItemPrice price = new ItemPrice();
+				price.setId(buf.getInt(ids + i * 4));
+				price.setPrice(buf.getInt(values + i * 4));
+				price.setWikiPrice(buf.getInt(wikiValues + i * 4));
+				price.setName(new String(buf.array(), buf.arrayOffset() + name, length, StandardCharsets.UTF_8));
+				prices[i] = price;
+				name += length;
+			}
+			return prices;
+		}
+		catch (IndexOutOfBoundsException | BufferUnderflowException ex)
+		{
+			throw new IOException("corrupt price snapshot", ex);
+		}
+	}
+
+	static byte[] toByteArray(ByteBuffer payload)
+	{
+		final byte[] bytes = new byte[payload.remaining()];
+		payload.duplicate().get(bytes);
+		return bytes;
+	}
+
+	@Nullable
+	private static String getString(ByteBuffer buf)
+	{
+		final int length = buf.getShort() & 0xFFFF;
+		if (length == 0xFFFF)
+		{
+			return null;
+		}
+
+		final byte[] bytes = new byte[length];
+		buf.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void putString(DataOutputStream out, @Nullable String s) throws IOException
+	{
+		if (s == null)
+		{
+			out.writeShort(0xFFFF);
+			return;
+		}
+
+		final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeShort(Math.min(bytes.length, 0xFFFE));
+		out.write(bytes, 0, Math.min(bytes.length, 0xFFFE));
+	}
+}
@@ -44,7 +44,7 @@ import java.util.Map;
  */
 public class ItemVariationMapping
 {
-	private static final Map<Integer, Integer> MAPPINGS;
+	private static final ItemIdIntMap MAPPINGS;
 	private static final Multimap<Integer, Integer> INVERTED_MAPPINGS;
 
 	static
@@ -82,7 +82,7 @@ public class ItemVariationMapping
 		}
 
 		INVERTED_MAPPINGS = invertedBuilder.build();
-		MAPPINGS = builder.build();
+		MAPPINGS = ItemIdIntMap.copyOf(builder.build());
 	}
 
 	/**
@@ -24,11 +24,8 @@
  */
 package net.runelite.client.game;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import java.awt.image.BufferedImage;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -37,6 +34,7 @@ import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.SwingUtilities;
+import lombok.Value;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
 import net.runelite.api.SpritePixels;
@@ -48,21 +46,25 @@ import net.runelite.client.util.ImageUtil;
 @Singleton
 public class SpriteManager
 {
+	@Value
+	private static class SpriteKey
+	{
+		private final int archive;
+		private final int file;
+	}
+
 	private final Client client;
 	private final ClientThread clientThread;
 	private final InfoBoxManager infoBoxManager;
-
-	private final Cache<Long, BufferedImage> cache = CacheBuilder.newBuilder()
-		.maximumSize(128L)
-		.expireAfterAccess(1, TimeUnit.HOURS)
-		.build();
+	private final ImageCache cache;
 
 	@Inject
-	private SpriteManager(Client client, ClientThread clientThread, InfoBoxManager infoBoxManager)
+	private SpriteManager(Client client, ClientThread clientThread, InfoBoxManager infoBoxManager, ImageCache cache)
 	{
 		this.client = client;
 		this.clientThread = clientThread;
 		this.infoBoxManager = infoBoxManager;
+		this.cache = cache;
 	}
 
 	@Nullable
@@ -74,7 +76,7 @@ public class SpriteManager
 			return null;
 		}
 
-		Long key = (long) archive << 32 | file;
+		SpriteKey key = new SpriteKey(archive, file);
 		BufferedImage cached = cache.getIfPresent(key);
 		if (cached != null)
 		{
@@ -95,7 +97,7 @@ public class SpriteManager
 
 	public void getSpriteAsync(int archive, int file, Consumer<BufferedImage> user)
 	{
-		BufferedImage cached = cache.getIfPresent((long) archive << 32 | file);
+		BufferedImage cached = cache.getIfPresent(new SpriteKey(archive, file));
 		if (cached != null)
 		{
 			user.accept(cached);
@@ -305,26 +305,25 @@ public class ChatboxItemSearch extends ChatboxTextInput
 		}
 
 		Set<ItemIcon> itemIcons = new HashSet<>();
-		for (int i = 0; i < client.getItemCount() && results.size() < MAX_RESULTS; i++)
+		for (int itemId : itemManager.searchItemNames(search, Integer.MAX_VALUE))
 		{
-			ItemComposition itemComposition = itemManager.getItemComposition(itemManager.canonicalize(i));
-			String name = itemComposition.getName().toLowerCase();
-
-			// The client assigns "null" to item names of items it doesn't know about
-			// and the item might already be in the results from canonicalize
-			if (!name.equals("null") && name.contains(search) && !results.containsKey(itemComposition.getId()))
+			if (results.size() >= MAX_RESULTS)
 			{
-				// Check if the results already contain the same item image
-				ItemIcon itemIcon = new ItemIcon(itemComposition.getInventoryModel(),
-					itemComposition.getColorToReplaceWith(), itemComposition.getTextureToReplaceWith());
-				if (itemIcons.contains(itemIcon))
-				{
-					continue;
-				}
+				break;
+			}
+
+			ItemComposition itemComposition = itemManager.getItemComposition(itemId);
 
-				itemIcons.add(itemIcon);
-				results.put(itemComposition.getId(), itemComposition);
+			// Check if the results already contain the same item image
+			ItemIcon itemIcon = new ItemIcon(itemComposition.getInventoryModel(),
+				itemComposition.getColorToReplaceWith(), itemComposition.getTextureToReplaceWith());
+			if (itemIcons.contains(itemIcon))
+			{
+				continue;
 			}
+
+			itemIcons.add(itemIcon);
+			results.put(itemComposition.getId(), itemComposition);
 		}
 	}
 
@@ -24,17 +24,52 @@
  */
 package net.runelite.client.hiscore;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+import net.runelite.client.util.ExecutorServiceExceptionLogger;
 import okhttp3.OkHttpClient;
 
+/**
+ * Caching front end for hiscore lookups.
+ * <p>
+ * Concurrent lookups of the same player share a single request, and requests are
+ * paced by a token bucket in which interactive lookups (chat commands, the hiscore
+ * panel) have priority over background ones (overlays). Results are considered fresh
+ * for an hour, after which they are still served while being revalidated, and are
+ * kept in a cache on disk across restarts.
+ */
+@Slf4j
 @Singleton
 public class HiscoreManager
 {
@@ -46,20 +81,68 @@ public class HiscoreManager
 		HiscoreEndpoint type;
 	}
 
-	static final HiscoreResult EMPTY = new HiscoreResult();
-	static final HiscoreResult NONE = new HiscoreResult();
+	/**
+	 * How long a result is returned without going to the network
+	 */
+	static final long FRESH_MILLIS = TimeUnit.HOURS.toMillis(1);
+	/**
+	 * How long a result may be served while it is revalidated, or when revalidating it fails
+	 */
+	static final long STALE_MILLIS = TimeUnit.DAYS.toMillis(1);
+	/**
+	 * How long background lookups wait before retrying a failed lookup
+	 */
+	static final long FAILURE_RETRY_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+	private static final int MAX_CACHED = 128;
+	private static final File CACHE_FILE = new File(RuneLite.CACHE_DIR, "hiscores.json");
+	private static final long SAVE_DELAY_SECONDS = 30;
+
+	// a burst of 5 requests then one a second, background lookups leave 2 for interactive ones
+	private static final int BURST = 5;
+	private static final int BACKGROUND_RESERVE = 2;
+	private static final long REFILL_NANOS = TimeUnit.SECONDS.toNanos(1);
 
-	private final LoadingCache<HiscoreKey, HiscoreResult> hiscoreCache;
 	private final HiscoreClient hiscoreClient;
+	private final ScheduledExecutorService executor;
+	private final Gson gson;
+	@Nullable
+	private final File cacheFile;
+	private final TokenBucket limiter;
+	/**
+	 * Sends requests which have to wait for the rate limit. This is not the shared executor, as
+	 * interactive lookups block on the shared executor while they wait for their request.
+	 */
+	private final ScheduledExecutorService limiterTimer = new ExecutorServiceExceptionLogger(Executors.newSingleThreadScheduledExecutor(
+		new ThreadFactoryBuilder()
+			.setNameFormat("hiscore-limiter")
+			.setDaemon(true)
+			.build()));
+
+	private final Cache<HiscoreKey, Entry> hiscoreCache = CacheBuilder.newBuilder()
+		.maximumSize(MAX_CACHED)
+		.build();
+	private final Map<HiscoreKey, CompletableFuture<HiscoreResult>> inFlight = new HashMap<>();
+	private boolean loaded;
+	private boolean saveScheduled;
 
 	@Inject
-	private HiscoreManager(ScheduledExecutorService executor, OkHttpClient okHttpClient)
+	private HiscoreManager(ScheduledExecutorService executor, OkHttpClient okHttpClient, Gson gson)
 	{
-		hiscoreClient = new HiscoreClient(okHttpClient);
-		hiscoreCache = CacheBuilder.newBuilder()
-			.maximumSize(128L)
-			.expireAfterWrite(1, TimeUnit.HOURS)
-			.build(new HiscoreLoader(executor, hiscoreClient));
+		this(new HiscoreClient(okHttpClient), executor, gson, CACHE_FILE, new TokenBucket(BURST, BACKGROUND_RESERVE, REFILL_NANOS));
+	}
+
+	/**
+	 * @param cacheFile where to persist results, or null to keep them in memory only
+	 */
+	@VisibleForTesting
+	HiscoreManager(HiscoreClient hiscoreClient, ScheduledExecutorService executor, Gson gson, @Nullable File cacheFile, TokenBucket limiter)
+	{
+		this.hiscoreClient = hiscoreClient;
+		this.executor = executor;
+		this.gson = gson;
+		this.cacheFile = cacheFile;
+		this.limiter = limiter;
 	}
 
 	/**
@@ -73,25 +156,64 @@ public class HiscoreManager
 	public HiscoreResult lookup(String username, HiscoreEndpoint endpoint) throws IOException
 	{
 		HiscoreKey hiscoreKey = new HiscoreKey(username, endpoint);
-		HiscoreResult hiscoreResult = hiscoreCache.getIfPresent(hiscoreKey);
-		if (hiscoreResult != null && hiscoreResult != EMPTY)
+		Entry entry = getEntry(hiscoreKey);
+		long now = System.currentTimeMillis();
+		if (entry != null && !entry.failed && entry.isFresh(now))
 		{
-			return hiscoreResult == NONE ? null : hiscoreResult;
+			return entry.result;
 		}
 
-		hiscoreResult = hiscoreClient.lookup(username, endpoint);
-		if (hiscoreResult == null)
+		return await(hiscoreKey, entry, now);
+	}
+
+	/**
+	 * Synchronously look up a players current hiscore from a specified endpoint, for lookups
+	 * which have to reflect the players latest stats. Unlike {@link #lookup(String, HiscoreEndpoint)}
+	 * this always goes to the network, sharing a lookup already in flight and subject to the rate
+	 * limit. A cached result is only returned if the lookup fails.
+	 *
+	 * @param username Players username
+	 * @param endpoint Hiscore endpoint
+	 * @return HiscoreResult or null
+	 * @throws IOException Upon error in fetching hiscore
+	 */
+	public HiscoreResult lookupLatest(String username, HiscoreEndpoint endpoint) throws IOException
+	{
+		HiscoreKey hiscoreKey = new HiscoreKey(username, endpoint);
+		return await(hiscoreKey, getEntry(hiscoreKey), System.currentTimeMillis());
+	}
+
+	/**
+	 * Wait for an interactive lookup, falling back to the cached entry if it is still usable
+	 */
+	private HiscoreResult await(HiscoreKey hiscoreKey, @Nullable Entry entry, long now) throws IOException
+	{
+		try
 		{
-			hiscoreCache.put(hiscoreKey, NONE);
-			return null;
+			return fetch(hiscoreKey, true).get();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
 		}
+		catch (ExecutionException ex)
+		{
+			if (entry != null && entry.isUsable(now))
+			{
+				log.debug("Using stale hiscore for {} after lookup failed", hiscoreKey.getUsername(), ex.getCause());
+				return entry.result;
+			}
 
-		hiscoreCache.put(hiscoreKey, hiscoreResult);
-		return hiscoreResult;
+			Throwables.propagateIfPossible(ex.getCause(), IOException.class);
+			throw new IOException(ex.getCause());
+		}
 	}
 
 	/**
-	 * Asynchronously look up a players hiscore from a specified endpoint
+	 * Asynchronously look up a players hiscore from a specified endpoint. If there is
+	 * no fresh result a background lookup is started, rate permitting, and the stale
+	 * result if any is returned in the meantime.
 	 *
 	 * @param username Players username
 	 * @param endpoint Hiscore endpoint
@@ -100,13 +222,294 @@ public class HiscoreManager
 	public HiscoreResult lookupAsync(String username, HiscoreEndpoint endpoint)
 	{
 		HiscoreKey hiscoreKey = new HiscoreKey(username, endpoint);
-		HiscoreResult hiscoreResult = hiscoreCache.getIfPresent(hiscoreKey);
-		if (hiscoreResult != null && hiscoreResult != EMPTY)
+		Entry entry = getEntry(hiscoreKey);
+		long now = System.currentTimeMillis();
+		if (entry == null || !entry.isFresh(now))
+		{
+			fetch(hiscoreKey, false);
+		}
+
+		return entry != null && entry.isUsable(now) ? entry.result : null;
+	}
+
+	/**
+	 * Look up a players hiscore from the network, ignoring any cached result. A lookup
+	 * of the same player which is already in flight is shared.
+	 *
+	 * @param username Players username
+	 * @param endpoint Hiscore endpoint
+	 * @return a future for the HiscoreResult, which is null if the player wasn't found
+	 */
+	public CompletableFuture<HiscoreResult> refresh(String username, HiscoreEndpoint endpoint)
+	{
+		return fetch(new HiscoreKey(username, endpoint), true);
+	}
+
+	@Nullable
+	private synchronized Entry getEntry(HiscoreKey hiscoreKey)
+	{
+		load();
+		return hiscoreCache.getIfPresent(hiscoreKey);
+	}
+
+	/**
+	 * Start a lookup, or join the one in flight.
+	 *
+	 * @return the lookup, or null for a background lookup which the rate limit doesn't allow yet
+	 */
+	private synchronized CompletableFuture<HiscoreResult> fetch(HiscoreKey hiscoreKey, boolean interactive)
+	{
+		CompletableFuture<HiscoreResult> future = inFlight.get(hiscoreKey);
+		if (future != null)
+		{
+			return future;
+		}
+
+		long wait = limiter.reserve(interactive, System.nanoTime());
+		if (wait < 0)
+		{
+			return null;
+		}
+
+		final CompletableFuture<HiscoreResult> lookup = new CompletableFuture<>();
+		inFlight.put(hiscoreKey, lookup);
+
+		log.debug("Submitting hiscore lookup for {} type {} in {}ms", hiscoreKey.getUsername(), hiscoreKey.getType(),
+			TimeUnit.NANOSECONDS.toMillis(wait));
+
+		Runnable request = () -> hiscoreClient.lookupAsync(hiscoreKey.getUsername(), hiscoreKey.getType())
+			.whenComplete((result, ex) -> complete(hiscoreKey, lookup, result, ex));
+		if (wait == 0)
+		{
+			request.run();
+		}
+		else
+		{
+			limiterTimer.schedule(request, wait, TimeUnit.NANOSECONDS);
+		}
+		return lookup;
+	}
+
+	private void complete(HiscoreKey hiscoreKey, CompletableFuture<HiscoreResult> lookup, HiscoreResult result, Throwable ex)
+	{
+		long now = System.currentTimeMillis();
+		synchronized (this)
+		{
+			inFlight.remove(hiscoreKey);
+
+			if (ex == null)
+			{
+				hiscoreCache.put(hiscoreKey, new Entry(result, now, now, false));
+				if (result != null)
+				{
+					scheduleSave();
+				}
+			}
+			else
+			{
+				log.warn("Unable to look up hiscore!", ex);
+
+				// keep the previous result around to be served stale, but back off background lookups
+				Entry previous = hiscoreCache.getIfPresent(hiscoreKey);
+				hiscoreCache.put(hiscoreKey, previous != null
+					? new Entry(previous.result, previous.fetched, now, true)
+					: new Entry(null, 0, now, true));
+			}
+		}
+
+		if (ex == null)
+		{
+			lookup.complete(result);
+		}
+		else
+		{
+			lookup.completeExceptionally(ex);
+		}
+	}
+
+	private void load()
+	{
+		if (loaded)
+		{
+			return;
+		}
+		loaded = true;
+
+		if (cacheFile == null || !cacheFile.exists())
+		{
+			return;
+		}
+
+		List<PersistedEntry> entries;
+		try (Reader reader = Files.newBufferedReader(cacheFile.toPath(), StandardCharsets.UTF_8))
+		{
+			// CHECKSTYLE:OFF
+			entries = gson.fromJson(reader, new TypeToken<List<PersistedEntry>>(){}.getType());
+			// CHECKSTYLE:ON
+		}
+		catch (IOException | JsonParseException ex)
+		{
+			log.warn("unable to load hiscore cache", ex);
+			return;
+		}
+
+		if (entries == null)
+		{
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		for (PersistedEntry persisted : entries)
+		{
+			if (persisted == null || persisted.username == null || persisted.type == null || persisted.result == null)
+			{
+				continue;
+			}
+
+			Entry entry = new Entry(persisted.result, persisted.fetched, persisted.fetched, false);
+			if (entry.isUsable(now))
+			{
+				hiscoreCache.put(new HiscoreKey(persisted.username, persisted.type), entry);
+			}
+		}
+		log.debug("Loaded {} cached hiscores", hiscoreCache.size());
+	}
+
+	private void scheduleSave()
+	{
+		if (cacheFile != null && !saveScheduled)
+		{
+			saveScheduled = true;
+			executor.schedule(this::save, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+		}
+	}
+
+	@VisibleForTesting
+	void save()
+	{
+		List<PersistedEntry> entries = new ArrayList<>();
+		synchronized (this)
+		{
+			saveScheduled = false;
+			hiscoreCache.asMap().forEach((key, entry) ->
+			{
+				if (entry.result != null)
+				{
+					entries.add(new PersistedEntry(key.getUsername(), key.getType(), entry.fetched, entry.result));
+				}
+			});
+		}
+
+		try
+		{
+			cacheFile.getParentFile().mkdirs();
+			File tmp = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+			try (Writer writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8))
+			{
+				gson.toJson(entries, writer);
+			}
+
+			try
+			{
+				Files.move(tmp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex)
+			{
+				Files.move(tmp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch (IOException ex)
+		{
+			log.warn("unable to save hiscore cache", ex);
+		}
+	}
+
+	@AllArgsConstructor
+	private static class Entry
+	{
+		/**
+		 * The result, null if the player wasn't found or there is no result yet
+		 */
+		private final HiscoreResult result;
+		/**
+		 * When the result was looked up
+		 */
+		private final long fetched;
+		/**
+		 * When the last lookup, successful or not, completed
+		 */
+		private final long checked;
+		/**
+		 * Whether the last lookup failed
+		 */
+		private final boolean failed;
+
+		private boolean isFresh(long now)
+		{
+			return failed ? now - checked < FAILURE_RETRY_MILLIS : now - fetched < FRESH_MILLIS;
+		}
+
+		private boolean isUsable(long now)
+		{
+			return now - fetched < STALE_MILLIS;
+		}
+	}
+
+	@AllArgsConstructor
+	private static class PersistedEntry
+	{
+		private String username;
+		private HiscoreEndpoint type;
+		private long fetched;
+		private HiscoreResult result;
+	}
+
+	/**
+	 * Token bucket with two priorities. Interactive requests always get a slot, waiting
+	 * in turn once the bucket is empty, while background requests are only let through
+	 * when doing so leaves some tokens for interactive ones.
+	 */
+	static class TokenBucket
+	{
+		private final int capacity;
+		private final int backgroundReserve;
+		private final long refillNanos;
+
+		private double tokens;
+		private long lastRefill;
+		private boolean started;
+
+		TokenBucket(int capacity, int backgroundReserve, long refillNanos)
 		{
-			return hiscoreResult == NONE ? null : hiscoreResult;
+			this.capacity = capacity;
+			this.backgroundReserve = backgroundReserve;
+			this.refillNanos = refillNanos;
+			this.tokens = capacity;
 		}
 
-		hiscoreCache.refresh(hiscoreKey);
-		return null;
+		/**
+		 * Reserve a token
+		 *
+		 * @return how many nanoseconds to wait before sending the request, or -1 if a
+		 * background request can't be sent now
+		 */
+		synchronized long reserve(boolean interactive, long now)
+		{
+			if (started)
+			{
+				tokens = Math.min(capacity, tokens + (double) (now - lastRefill) / refillNanos);
+			}
+			started = true;
+			lastRefill = now;
+
+			if (!interactive && tokens < backgroundReserve + 1)
+			{
+				return -1;
+			}
+
+			tokens -= 1;
+			// a negative balance is the queue of interactive requests waiting for tokens
+			return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * refillNanos);
+		}
 	}
 }
@@ -86,8 +86,8 @@ import net.runelite.client.config.RuneLiteConfig;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.ChatInput;
 import net.runelite.client.game.ItemManager;
-import net.runelite.client.hiscore.HiscoreClient;
 import net.runelite.client.hiscore.HiscoreEndpoint;
+import net.runelite.client.hiscore.HiscoreManager;
 import net.runelite.client.hiscore.HiscoreResult;
 import net.runelite.client.hiscore.HiscoreSkill;
 import net.runelite.client.hiscore.Skill;
@@ -100,7 +100,6 @@ import net.runelite.client.util.QuantityFormatter;
 import net.runelite.client.util.Text;
 import net.runelite.http.api.chat.Duels;
 import net.runelite.http.api.item.ItemPrice;
-import okhttp3.OkHttpClient;
 import org.apache.commons.text.WordUtils;
 
 @PluginDescriptor(
@@ -193,7 +192,7 @@ public class ChatCommandsPlugin extends Plugin
 	private ChatKeyboardListener chatKeyboardListener;
 
 	@Inject
-	private HiscoreClient hiscoreClient;
+	private HiscoreManager hiscoreManager;
 
 	@Inject
 	private ChatClient chatClient;
@@ -280,12 +279,6 @@ public class ChatCommandsPlugin extends Plugin
 		return configManager.getConfig(ChatCommandsConfig.class);
 	}
 
-	@Provides
-	HiscoreClient provideHiscoreClient(OkHttpClient okHttpClient)
-	{
-		return new HiscoreClient(okHttpClient);
-	}
-
 	private void setKc(String boss, int killcount)
 	{
 		configManager.setRSProfileConfiguration("killcount", boss.toLowerCase(), killcount);
@@ -1462,7 +1455,7 @@ public class ChatCommandsPlugin extends Plugin
 
 		try
 		{
-			final HiscoreResult result = hiscoreClient.lookup(lookup.getName(), lookup.getEndpoint());
+			final HiscoreResult result = hiscoreManager.lookupLatest(lookup.getName(), lookup.getEndpoint());
 			if (result == null)
 			{
 				log.warn("unable to look up skill {} for {}: not found", skill, search);
@@ -1514,7 +1507,7 @@ public class ChatCommandsPlugin extends Plugin
 
 		try
 		{
-			HiscoreResult playerStats = hiscoreClient.lookup(lookup.getName(), lookup.getEndpoint());
+			HiscoreResult playerStats = hiscoreManager.lookupLatest(lookup.getName(), lookup.getEndpoint());
 
 			if (playerStats == null)
 			{
@@ -1639,7 +1632,7 @@ public class ChatCommandsPlugin extends Plugin
 				HiscoreEndpoint.LEAGUE :
 				lookup.getEndpoint();
 
-			final HiscoreResult result = hiscoreClient.lookup(lookup.getName(), endPoint);
+			final HiscoreResult result = hiscoreManager.lookupLatest(lookup.getName(), endPoint);
 
 			if (result == null)
 			{
@@ -1726,7 +1719,7 @@ public class ChatCommandsPlugin extends Plugin
 		{
 			final Skill hiscoreSkill;
 			final HiscoreLookup lookup = getCorrectLookupFor(chatMessage);
-			final HiscoreResult result = hiscoreClient.lookup(lookup.getName(), lookup.getEndpoint());
+			final HiscoreResult result = hiscoreManager.lookupLatest(lookup.getName(), lookup.getEndpoint());
 
 			if (result == null)
 			{
@@ -40,4 +40,14 @@ public interface ClueScrollConfig extends Config
 	{
 		return true;
 	}
+
+	@ConfigItem(
+		keyName = "hotColdNextCheck",
+		name = "Suggest hot-cold check location",
+		description = "Marks the nearby tile from which the next hot-cold check narrows down the possible locations the most"
+	)
+	default boolean hotColdNextCheck()
+	{
+		return false;
+	}
 }
@@ -193,6 +193,7 @@ public class ClueScrollPlugin extends Plugin
 	private ClueScrollWorldOverlay clueScrollWorldOverlay;
 
 	@Inject
+	@Getter
 	private ClueScrollConfig config;
 
 	@Inject
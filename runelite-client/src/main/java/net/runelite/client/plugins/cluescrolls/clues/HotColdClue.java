@@ -27,6 +27,7 @@ package net.runelite.client.plugins.cluescrolls.clues;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Polygon;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumMap;
@@ -38,6 +39,8 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.NPC;
+import net.runelite.api.Perspective;
+import net.runelite.api.Player;
 import net.runelite.api.coords.LocalPoint;
 import net.runelite.api.coords.WorldPoint;
 import static net.runelite.client.plugins.cluescrolls.ClueScrollOverlay.TITLED_CONTENT_COLOR;
@@ -248,6 +251,11 @@ public class HotColdClue extends ClueScroll implements LocationClueScroll, Locat
 			}
 		}
 
+		if (plugin.getConfig().hotColdNextCheck())
+		{
+			renderNextCheckLocation(graphics, plugin);
+		}
+
 		// once the number of possible dig locations is below 10, show the dig spots
 		final Collection<HotColdLocation> digLocations = hotColdSolver.getPossibleLocations();
 		if (digLocations.size() < 10)
@@ -268,29 +276,41 @@ public class HotColdClue extends ClueScroll implements LocationClueScroll, Locat
 		}
 	}
 
-	public boolean update(final String message, final ClueScrollPlugin plugin)
+	/**
+	 * Mark the nearby tile from which the next check narrows down the possible locations the most
+	 */
+	private void renderNextCheckLocation(Graphics2D graphics, ClueScrollPlugin plugin)
 	{
-		if (hotColdSolver == null)
+		final Set<HotColdTemperature> temperatureSet = getTemperatureSet();
+		final Player localPlayer = plugin.getClient().getLocalPlayer();
+		if (hotColdSolver.getLastWorldPoint() == null || temperatureSet == null || localPlayer == null)
 		{
-			return false;
+			return;
 		}
 
-		final Set<HotColdTemperature> temperatureSet;
-
-		if (this == BEGINNER_CLUE)
+		final WorldPoint playerLocation = WorldPoint.getMirrorPoint(localPlayer.getWorldLocation(), true);
+		final WorldPoint next = playerLocation == null ? null : hotColdSolver.getBestNextPoint(playerLocation, temperatureSet);
+		if (next == null)
 		{
-			temperatureSet = HotColdTemperature.BEGINNER_HOT_COLD_TEMPERATURES;
+			return;
 		}
-		else if (this == MASTER_CLUE)
+
+		final LocalPoint localLocation = LocalPoint.fromWorld(plugin.getClient(), next.getX(), next.getY());
+		final Polygon poly = localLocation == null ? null : Perspective.getCanvasTilePoly(plugin.getClient(), localLocation);
+		if (poly != null)
 		{
-			temperatureSet = HotColdTemperature.MASTER_HOT_COLD_TEMPERATURES;
+			OverlayUtil.renderPolygon(graphics, poly, Color.CYAN);
 		}
-		else
+	}
+
+	public boolean update(final String message, final ClueScrollPlugin plugin)
+	{
+		if (hotColdSolver == null)
 		{
-			temperatureSet = null;
+			return false;
 		}
 
-		final HotColdTemperature temperature = HotColdTemperature.getFromTemperatureSet(temperatureSet, message);
+		final HotColdTemperature temperature = HotColdTemperature.getFromTemperatureSet(getTemperatureSet(), message);
 
 		if (temperature == null)
 		{
@@ -321,6 +341,23 @@ public class HotColdClue extends ClueScroll implements LocationClueScroll, Locat
 		return true;
 	}
 
+	@Nullable
+	private Set<HotColdTemperature> getTemperatureSet()
+	{
+		if (this == BEGINNER_CLUE)
+		{
+			return HotColdTemperature.BEGINNER_HOT_COLD_TEMPERATURES;
+		}
+		else if (this == MASTER_CLUE)
+		{
+			return HotColdTemperature.MASTER_HOT_COLD_TEMPERATURES;
+		}
+		else
+		{
+			return null;
+		}
+	}
+
 	@Override
 	public void reset()
 	{
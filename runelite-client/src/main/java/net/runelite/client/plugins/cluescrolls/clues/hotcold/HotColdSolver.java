@@ -27,9 +27,12 @@ package net.runelite.client.plugins.cluescrolls.clues.hotcold;
 
 import com.google.common.annotations.VisibleForTesting;
 import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Set;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import lombok.AccessLevel;
 import lombok.Getter;
 import net.runelite.api.coords.WorldPoint;
 
@@ -41,17 +44,78 @@ import net.runelite.api.coords.WorldPoint;
  * reach the most warm value to discover the solution point. Hot-cold puzzles in Old School RuneScape are implemented
  * with specific set of solution points, so this solver will filter from a provided set of possible solutions as new
  * signals of temperatures and temperature changes are provided.
+ * <p>
+ * The candidates are kept sorted by x coordinate, so a signal only visits the candidates within range of the checked
+ * point on the x axis, and everything outside of that window is dropped without being tested.
  */
 @Getter
 public class HotColdSolver
 {
+	/**
+	 * How far from the player, in tiles, to look for a better place to check from
+	 */
+	private static final int SUGGESTION_RADIUS = 48;
+	/**
+	 * Spacing between the tiles tested when looking for a better place to check from
+	 */
+	private static final int SUGGESTION_STEP = 4;
+
 	private final Set<HotColdLocation> possibleLocations;
 	@Nullable
 	private WorldPoint lastWorldPoint;
 
+	@Getter(AccessLevel.NONE)
+	private final HotColdLocation[] locations;
+	@Getter(AccessLevel.NONE)
+	private final int[] xs;
+	@Getter(AccessLevel.NONE)
+	private final int[] ys;
+	@Getter(AccessLevel.NONE)
+	private final int[] radii;
+	@Getter(AccessLevel.NONE)
+	private final int maxRadius;
+
+	/**
+	 * Indices of the remaining candidates, ordered by x coordinate
+	 */
+	@Getter(AccessLevel.NONE)
+	private int[] remaining;
+	@Getter(AccessLevel.NONE)
+	private int remainingCount;
+
+	@Getter(AccessLevel.NONE)
+	private int version;
+	@Getter(AccessLevel.NONE)
+	private WorldPoint suggestionFrom;
+	@Getter(AccessLevel.NONE)
+	private int suggestionVersion = -1;
+	@Getter(AccessLevel.NONE)
+	private WorldPoint suggestion;
+
 	public HotColdSolver(Set<HotColdLocation> possibleLocations)
 	{
 		this.possibleLocations = possibleLocations;
+
+		locations = possibleLocations.toArray(new HotColdLocation[0]);
+		Arrays.sort(locations, Comparator.comparingInt((HotColdLocation l) -> l.getWorldPoint().getX()));
+
+		xs = new int[locations.length];
+		ys = new int[locations.length];
+		radii = new int[locations.length];
+		remaining = new int[locations.length];
+
+		int maxRadius = 0;
+		for (int i = 0; i < locations.length; i++)
+		{
+			final Rectangle rect = locations[i].getRect();
+			radii[i] = rect.width / 2;
+			xs[i] = rect.x + radii[i];
+			ys[i] = rect.y + radii[i];
+			remaining[i] = i;
+			maxRadius = Math.max(maxRadius, radii[i]);
+		}
+		this.maxRadius = maxRadius;
+		remainingCount = locations.length;
 	}
 
 	/**
@@ -69,86 +133,220 @@ public class HotColdSolver
 	{
 		// when the strange device reads a temperature, that means that the center of the final dig location
 		// is a range of squares away from the player's current location (Chebyshev AKA Chess-board distance)
-		int maxSquaresAway = temperature.getMaxDistance();
-		int minSquaresAway = temperature.getMinDistance();
-
-		// maxDistanceArea encompasses all of the points that are within the max possible distance from the player
-		final Rectangle maxDistanceArea = new Rectangle(
-			worldPoint.getX() - maxSquaresAway,
-			worldPoint.getY() - maxSquaresAway,
-			2 * maxSquaresAway + 1,
-			2 * maxSquaresAway + 1);
-		// minDistanceArea encompasses all of the points that are within the min possible distance from the player
-		final Rectangle minDistanceArea = new Rectangle(
-			worldPoint.getX() - minSquaresAway,
-			worldPoint.getY() - minSquaresAway,
-			2 * minSquaresAway + 1,
-			2 * minSquaresAway + 1);
+		final int maxSquaresAway = temperature.getMaxDistance();
+		final int minSquaresAway = temperature.getMinDistance();
+		final int px = worldPoint.getX();
+		final int py = worldPoint.getY();
 
-		// eliminate from consideration dig spots that lie entirely within the min range or entirely outside of the max range
-		possibleLocations.removeIf(entry -> minDistanceArea.contains(entry.getRect()) || !maxDistanceArea.intersects(entry.getRect()));
+		// dig spots outside of this window on the x axis lie entirely outside of the max range
+		final int from = lowerBound(px - maxSquaresAway - maxRadius);
+		final int to = lowerBound(px + maxSquaresAway + maxRadius + 1);
 
-		// if a previous world point has been recorded, we can consider the warmer/colder result from the strange device
-		if (lastWorldPoint != null && temperatureChange != null)
+		final boolean compare = lastWorldPoint != null && temperatureChange != null;
+		final int lx = compare ? lastWorldPoint.getX() : 0;
+		final int ly = compare ? lastWorldPoint.getY() : 0;
+
+		int count = 0;
+		for (int i = 0; i < remainingCount; i++)
 		{
-			switch (temperatureChange)
+			final int idx = remaining[i];
+			if (i >= from && i < to && isPossible(idx, px, py, minSquaresAway, maxSquaresAway, compare ? temperatureChange : null, lx, ly))
+			{
+				remaining[count++] = idx;
+			}
+			else
 			{
-				case COLDER:
-					// eliminate spots that are absolutely warmer
-					possibleLocations.removeIf(entry -> isFirstPointCloserRect(worldPoint, lastWorldPoint, entry.getRect()));
-					break;
-				case WARMER:
-					// eliminate spots that are absolutely colder
-					possibleLocations.removeIf(entry -> isFirstPointCloserRect(lastWorldPoint, worldPoint, entry.getRect()));
-					break;
-				case SAME:
-					// eliminate spots which are absolutely colder or warmer (as they would not yield a SAME temperature change)
-					possibleLocations.removeIf(entry ->
-						isFirstPointCloserRect(worldPoint, lastWorldPoint, entry.getRect())
-						|| isFirstPointCloserRect(lastWorldPoint, worldPoint, entry.getRect()));
+				possibleLocations.remove(locations[idx]);
 			}
 		}
 
+		remainingCount = count;
+		version++;
 		lastWorldPoint = worldPoint;
 		return getPossibleLocations();
 	}
 
-	/**
-	 * Determines whether the first point passed is closer to each corner of the given rectangle than the second point.
-	 *
-	 * @param firstPoint  First point to test. Return result will be relating to this point's location.
-	 * @param secondPoint Second point to test
-	 * @param rect        Rectangle, whose corner points will be compared to the first and second points passed
-	 * @return {@code true} if {@code firstPoint} is closer to each of {@code rect}'s four corner points than
-	 *         {@code secondPoint}, {@code false} otherwise.
-	 * @see WorldPoint#distanceTo2D
-	 */
-	@VisibleForTesting
-	static boolean isFirstPointCloserRect(final WorldPoint firstPoint, final WorldPoint secondPoint, final Rectangle rect)
+	private boolean isPossible(int idx, int px, int py, int minSquaresAway, int maxSquaresAway, @Nullable HotColdTemperatureChange temperatureChange, int lx, int ly)
 	{
-		final WorldPoint nePoint = new WorldPoint((rect.x + rect.width), (rect.y + rect.height), 0);
+		final int r = radii[idx];
+		final int dx = Math.abs(xs[idx] - px);
+		final int dy = Math.abs(ys[idx] - py);
 
-		if (!isFirstPointCloser(firstPoint, secondPoint, nePoint))
+		// eliminate from consideration dig spots that lie entirely within the min range or entirely outside of the max range
+		if ((dx <= minSquaresAway - r && dy <= minSquaresAway - r) || dx > maxSquaresAway + r || dy > maxSquaresAway + r)
 		{
 			return false;
 		}
 
-		final WorldPoint sePoint = new WorldPoint((rect.x + rect.width), rect.y, 0);
+		// if a previous world point has been recorded, we can consider the warmer/colder result from the strange device
+		if (temperatureChange == null)
+		{
+			return true;
+		}
+
+		final int x0 = xs[idx] - r;
+		final int y0 = ys[idx] - r;
+		final int x1 = xs[idx] + r + 1;
+		final int y1 = ys[idx] + r + 1;
 
-		if (!isFirstPointCloser(firstPoint, secondPoint, sePoint))
+		switch (temperatureChange)
 		{
-			return false;
+			case COLDER:
+				// eliminate spots that are absolutely warmer
+				return !isFirstPointCloserRect(px, py, lx, ly, x0, y0, x1, y1);
+			case WARMER:
+				// eliminate spots that are absolutely colder
+				return !isFirstPointCloserRect(lx, ly, px, py, x0, y0, x1, y1);
+			case SAME:
+				// eliminate spots which are absolutely colder or warmer (as they would not yield a SAME temperature change)
+				return !isFirstPointCloserRect(px, py, lx, ly, x0, y0, x1, y1)
+					&& !isFirstPointCloserRect(lx, ly, px, py, x0, y0, x1, y1);
+			default:
+				return true;
 		}
+	}
 
-		final WorldPoint nwPoint = new WorldPoint(rect.x, (rect.y + rect.height), 0);
+	/**
+	 * @return the position in the remaining candidates of the first candidate with an x coordinate of at least x
+	 */
+	private int lowerBound(int x)
+	{
+		int lo = 0;
+		int hi = remainingCount;
+		while (lo < hi)
+		{
+			final int mid = (lo + hi) >>> 1;
+			if (xs[remaining[mid]] < x)
+			{
+				lo = mid + 1;
+			}
+			else
+			{
+				hi = mid;
+			}
+		}
+		return lo;
+	}
 
-		if (!isFirstPointCloser(firstPoint, secondPoint, nwPoint))
+	/**
+	 * Finds the tile near the given point from which the next check is expected to split the remaining candidates the
+	 * most. Each candidate is assumed to give the temperature its center is in at the tested tile, and the tile with
+	 * the smallest expected number of candidates left over after that signal is chosen, preferring tiles closer to the
+	 * given point.
+	 * <p>
+	 * The result is cached until either the point or the possible locations change, so this is cheap to call every
+	 * frame.
+	 *
+	 * @param worldPoint   The point to search around, normally the player's location
+	 * @param temperatures The temperatures the strange device can give for this clue
+	 * @return The suggested point to check from, or {@code null} if there is at most one possible location left
+	 */
+	@Nullable
+	public WorldPoint getBestNextPoint(@Nonnull final WorldPoint worldPoint, @Nonnull final Set<HotColdTemperature> temperatures)
+	{
+		if (suggestionVersion == version && worldPoint.equals(suggestionFrom))
 		{
-			return false;
+			return suggestion;
+		}
+
+		suggestionFrom = worldPoint;
+		suggestionVersion = version;
+		suggestion = remainingCount > 1 ? findBestNextPoint(worldPoint, temperatures) : null;
+		return suggestion;
+	}
+
+	private WorldPoint findBestNextPoint(final WorldPoint worldPoint, final Set<HotColdTemperature> temperatures)
+	{
+		final HotColdTemperature[] bands = temperatures.toArray(new HotColdTemperature[0]);
+		Arrays.sort(bands, Comparator.comparingInt(HotColdTemperature::getMaxDistance));
+		final int[] counts = new int[bands.length];
+		final int[] survivors = new int[bands.length];
+
+		final int cx = worldPoint.getX();
+		final int cy = worldPoint.getY();
+
+		int bestScore = Integer.MAX_VALUE;
+		int bestDistance = Integer.MAX_VALUE;
+		int bestX = cx;
+		int bestY = cy;
+
+		for (int oy = -SUGGESTION_RADIUS; oy <= SUGGESTION_RADIUS; oy += SUGGESTION_STEP)
+		{
+			for (int ox = -SUGGESTION_RADIUS; ox <= SUGGESTION_RADIUS; ox += SUGGESTION_STEP)
+			{
+				final int tx = cx + ox;
+				final int ty = cy + oy;
+
+				Arrays.fill(counts, 0);
+				Arrays.fill(survivors, 0);
+				for (int i = 0; i < remainingCount; i++)
+				{
+					final int idx = remaining[i];
+					final int r = radii[idx];
+					final int d = Math.max(Math.abs(xs[idx] - tx), Math.abs(ys[idx] - ty));
+
+					// the temperature the device would give if this was the dig spot
+					int band = 0;
+					while (band < bands.length - 1 && bands[band].getMaxDistance() < d)
+					{
+						band++;
+					}
+					counts[band]++;
+
+					// the temperatures which would not eliminate this dig spot, matching the filtering in signal()
+					for (int b = 0; b < bands.length; b++)
+					{
+						if (d > bands[b].getMinDistance() - r && d <= bands[b].getMaxDistance() + r)
+						{
+							survivors[b]++;
+						}
+					}
+				}
+
+				// the expected number of possible locations left over after checking from this tile
+				int score = 0;
+				for (int b = 0; b < bands.length; b++)
+				{
+					score += counts[b] * survivors[b];
+				}
+
+				final int distance = Math.max(Math.abs(ox), Math.abs(oy));
+				if (score < bestScore || (score == bestScore && distance < bestDistance))
+				{
+					bestScore = score;
+					bestDistance = distance;
+					bestX = tx;
+					bestY = ty;
+				}
+			}
 		}
 
-		final WorldPoint swPoint = new WorldPoint(rect.x, rect.y, 0);
-		return (isFirstPointCloser(firstPoint, secondPoint, swPoint));
+		return new WorldPoint(bestX, bestY, worldPoint.getPlane());
+	}
+
+	/**
+	 * Determines whether the first point passed is closer to each corner of the given rectangle than the second point.
+	 *
+	 * @param firstPoint  First point to test. Return result will be relating to this point's location.
+	 * @param secondPoint Second point to test
+	 * @param rect        Rectangle, whose corner points will be compared to the first and second points passed
+	 * @return {@code true} if {@code firstPoint} is closer to each of {@code rect}'s four corner points than
+	 *         {@code secondPoint}, {@code false} otherwise.
+	 * @see WorldPoint#distanceTo2D
+	 */
+	@VisibleForTesting
+	static boolean isFirstPointCloserRect(final WorldPoint firstPoint, final WorldPoint secondPoint, final Rectangle rect)
+	{
+		return isFirstPointCloserRect(firstPoint.getX(), firstPoint.getY(), secondPoint.getX(), secondPoint.getY(),
+			rect.x, rect.y, rect.x + rect.width, rect.y + rect.height);
+	}
+
+	private static boolean isFirstPointCloserRect(int fx, int fy, int sx, int sy, int x0, int y0, int x1, int y1)
+	{
+		return isFirstPointCloser(fx, fy, sx, sy, x1, y1)
+			&& isFirstPointCloser(fx, fy, sx, sy, x1, y0)
+			&& isFirstPointCloser(fx, fy, sx, sy, x0, y1)
+			&& isFirstPointCloser(fx, fy, sx, sy, x0, y0);
 	}
 
 	/**
@@ -166,4 +364,9 @@ public class HotColdSolver
 	{
 		return firstPoint.distanceTo2D(worldPoint) < secondPoint.distanceTo2D(worldPoint);
 	}
+
+	private static boolean isFirstPointCloser(int fx, int fy, int sx, int sy, int x, int y)
+	{
+		return Math.max(Math.abs(fx - x), Math.abs(fy - y)) < Math.max(Math.abs(sx - x), Math.abs(sy - y));
+	}
 }
@@ -25,76 +25,27 @@
 
 package net.runelite.client.plugins.crowdsourcing;
 
-import com.google.gson.Gson;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import lombok.extern.slf4j.Slf4j;
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
+import net.runelite.client.submission.SubmissionEndpoint;
+import net.runelite.client.submission.SubmissionQueue;
+import okhttp3.HttpUrl;
 
-@Slf4j
 @Singleton
 public class CrowdsourcingManager
 {
-	private static final String CROWDSOURCING_BASE = "https://crowdsource.runescape.wiki/runelite";
-	private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+	private static final SubmissionEndpoint CROWDSOURCING_ENDPOINT = SubmissionEndpoint.post(HttpUrl.get("https://crowdsource.runescape.wiki/runelite"));
 
 	@Inject
-	private OkHttpClient okHttpClient;
-
-	@Inject
-	private Gson gson;
-
-	private List<Object> data = new ArrayList<>();
+	private SubmissionQueue submissionQueue;
 
 	public void storeEvent(Object event)
 	{
-		synchronized (this)
-		{
-			data.add(event);
-		}
+		submissionQueue.enqueue(CROWDSOURCING_ENDPOINT, event);
 	}
 
 	protected void submitToAPI()
 	{
-		List<Object> temp;
-		synchronized (this)
-		{
-			if (data.isEmpty())
-			{
-				return;
-			}
-			temp = data;
-			data = new ArrayList<>();
-		}
-
-		Request r = new Request.Builder()
-			.url(CROWDSOURCING_BASE)
-			.post(RequestBody.create(JSON, gson.toJson(temp)))
-			.build();
-
-		okHttpClient.newCall(r).enqueue(new Callback()
-		{
-			@Override
-			public void onFailure(Call call, IOException e)
-			{
-				log.debug("Error sending crowdsourcing data", e);
-			}
-
-			@Override
-			public void onResponse(Call call, Response response)
-			{
-				log.debug("Successfully sent crowdsourcing data");
-				response.close();
-			}
-		});
+		submissionQueue.flush(CROWDSOURCING_ENDPOINT);
 	}
 }
@@ -37,6 +37,23 @@ class GpuFloatBuffer
 		buffer.put(texture).put(u).put(v).put(pad);
 	}
 
+	/**
+	 * Append length elements of src starting at offset, ignoring the position and limit of src
+	 */
+	void put(FloatBuffer src, int offset, int length)
+	{
+		if (length == 0)
+		{
+			return;
+		}
+
+		ensureCapacity(length);
+		FloatBuffer slice = src.duplicate();
+		slice.clear();
+		slice.position(offset).limit(offset + length);
+		buffer.put(slice);
+	}
+
 	void flip()
 	{
 		buffer.flip();
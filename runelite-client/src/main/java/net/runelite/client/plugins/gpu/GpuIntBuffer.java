@@ -42,6 +42,23 @@ class GpuIntBuffer
 		buffer.put(x).put(y).put(z).put(c);
 	}
 
+	/**
+	 * Append length elements of src starting at offset, ignoring the position and limit of src
+	 */
+	void put(IntBuffer src, int offset, int length)
+	{
+		if (length == 0)
+		{
+			return;
+		}
+
+		ensureCapacity(length);
+		IntBuffer slice = src.duplicate();
+		slice.clear();
+		slice.position(offset).limit(offset + length);
+		buffer.put(slice);
+	}
+
 	void flip()
 	{
 		buffer.flip();
@@ -24,10 +24,30 @@
  */
 package net.runelite.client.plugins.gpu;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import lombok.Getter;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.Constants;
@@ -48,155 +68,599 @@ import net.runelite.api.WallObject;
 @Slf4j
 class SceneUploader
 {
+	// rows of tiles, one per plane and x, in the order they are uploaded
+	private static final int ROWS = Constants.MAX_Z * Constants.SCENE_SIZE;
+	private static final int STRIPS_PER_THREAD = 4;
+
 	@Inject
 	private Client client;
 
 	int sceneId = (int) System.nanoTime();
-	private int offset;
-	private int uvoffset;
+	// sizes of the strip buffers in the last upload, so the next upload can allocate them at once
+	private int[] stripVertexSizes = new int[0];
+	private int[] stripUvSizes = new int[0];
+
+	/**
+	 * Stats of the last scene upload
+	 */
+	@Getter
+	private UploadStats lastUpload;
+
+	@Value
+	static class UploadStats
+	{
+		/**
+		 * Number of models and tile models uploaded
+		 */
+		int models;
+		/**
+		 * Number of those which share the data of an identical model uploaded before them
+		 */
+		int duplicateModels;
+		/**
+		 * Bytes of vertex and uv buffer saved by sharing data
+		 */
+		long bytesSaved;
+		long uploadNanos;
+	}
 
 	void upload(Scene scene, GpuIntBuffer vertexbuffer, GpuFloatBuffer uvBuffer)
+	{
+		final int parallelism = ForkJoinPool.getCommonPoolParallelism();
+		upload(scene, vertexbuffer, uvBuffer, parallelism > 1 ? ForkJoinPool.commonPool() : null, parallelism * STRIPS_PER_THREAD);
+	}
+
+	/**
+	 * Upload the scene, splitting the tiles into strips of rows which are uploaded into
+	 * buffers of their own on the pool and then concatenated. Models shared between
+	 * strips are kept only where they were first seen, so the result is the same as
+	 * uploading every tile in order on one thread.
+	 * <p>
+	 * Models and tile models with the same vertices and uvs as one uploaded before them
+	 * are not uploaded again, and are given the offsets of the first instead.
+	 *
+	 * @param pool       pool to upload the strips on, or null to upload on this thread
+	 * @param stripCount number of strips to split the scene into
+	 */
+	@VisibleForTesting
+	void upload(Scene scene, GpuIntBuffer vertexbuffer, GpuFloatBuffer uvBuffer, @Nullable ExecutorService pool, int stripCount)
 	{
 		Stopwatch stopwatch = Stopwatch.createStarted();
 
 		++sceneId;
-		offset = 0;
-		uvoffset = 0;
 		vertexbuffer.clear();
 		uvBuffer.clear();
 
-		for (int z = 0; z < Constants.MAX_Z; ++z)
+		final Tile[][][] tiles = scene.getTiles();
+		stripCount = Math.min(stripCount, ROWS);
+
+		if (pool == null || stripCount <= 1)
 		{
-			for (int x = 0; x < Constants.SCENE_SIZE; ++x)
+			// a single strip can write straight into the scene buffers
+			Strip strip = new Strip(vertexbuffer, uvBuffer);
+			strip.upload(tiles, 0, ROWS);
+			for (int i = 0; i < strip.count; ++i)
 			{
-				for (int y = 0; y < Constants.SCENE_SIZE; ++y)
+				assign(strip.objects[i], strip.offsets[i], strip.uvOffsets[i], strip.lengths[i]);
+			}
+
+			stopwatch.stop();
+			lastUpload = new UploadStats(strip.models, strip.duplicateModels, strip.bytesSaved, stopwatch.elapsed(TimeUnit.NANOSECONDS));
+			log.debug("Scene upload time: {}, {}/{} models deduplicated saving {} KiB",
+				stopwatch, lastUpload.duplicateModels, lastUpload.models, lastUpload.bytesSaved / 1024);
+			return;
+		}
+
+		if (stripVertexSizes.length != stripCount)
+		{
+			stripVertexSizes = new int[stripCount];
+			stripUvSizes = new int[stripCount];
+		}
+
+		// the strip buffers are a second copy of the scene, so they only live until they are merged
+		final List<Strip> strips = new ArrayList<>(stripCount);
+		final List<Callable<Void>> tasks = new ArrayList<>(stripCount);
+		for (int i = 0; i < stripCount; ++i)
+		{
+			final Strip strip = new Strip(new GpuIntBuffer(), new GpuFloatBuffer());
+			final int from = ROWS * i / stripCount;
+			final int to = ROWS * (i + 1) / stripCount;
+			final int vertexSize = stripVertexSizes[i];
+			final int uvSize = stripUvSizes[i];
+			strips.add(strip);
+			tasks.add(() ->
+			{
+				strip.vertexBuffer.ensureCapacity(vertexSize);
+				strip.uvBuffer.ensureCapacity(uvSize);
+				strip.upload(tiles, from, to);
+				return null;
+			});
+		}
+
+		try
+		{
+			for (Future<Void> future : pool.invokeAll(tasks))
+			{
+				future.get();
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(ex);
+		}
+		catch (ExecutionException ex)
+		{
+			Throwables.throwIfUnchecked(ex.getCause());
+			throw new RuntimeException(ex.getCause());
+		}
+
+		for (int i = 0; i < stripCount; ++i)
+		{
+			stripVertexSizes[i] = strips.get(i).vertexBuffer.getBuffer().position();
+			stripUvSizes[i] = strips.get(i).uvBuffer.getBuffer().position();
+		}
+
+		merge(strips, vertexbuffer, uvBuffer, stopwatch);
+
+		log.debug("Scene upload time: {} ({} strips), {}/{} models deduplicated saving {} KiB",
+			stopwatch, stripCount, lastUpload.duplicateModels, lastUpload.models, lastUpload.bytesSaved / 1024);
+	}
+
+	/**
+	 * Concatenate the strips into the scene buffers, fixing up the buffer offsets
+	 */
+	private void merge(List<Strip> strips, GpuIntBuffer vertexBuffer, GpuFloatBuffer uvBuffer, Stopwatch stopwatch)
+	{
+		// global offset and uv offset of each model uploaded so far, by identity and by data
+		final Map<Object, int[]> uploaded = new IdentityHashMap<>();
+		final Map<ModelData, int[]> uploadedData = new HashMap<>();
+		int offset = 0;
+		int uvoffset = 0;
+		int models = 0;
+		int duplicateModels = 0;
+		long bytesSaved = 0;
+
+		for (Strip strip : strips)
+		{
+			final IntBuffer vertices = strip.vertexBuffer.getBuffer();
+			final FloatBuffer uvs = strip.uvBuffer.getBuffer();
+
+			models += strip.models;
+			duplicateModels += strip.duplicateModels;
+			bytesSaved += strip.bytesSaved;
+
+			// runs of contiguous data in the strip buffers still to be copied
+			int vertexStart = 0, vertexLen = 0;
+			int uvStart = 0, uvLen = 0;
+
+			for (int i = 0; i < strip.count; ++i)
+			{
+				final Object object = strip.objects[i];
+				final int len = strip.lengths[i];
+
+				int[] existing;
+				if (object instanceof Model && (existing = uploaded.get(object)) != null)
 				{
-					Tile tile = scene.getTiles()[z][x][y];
-					if (tile != null)
+					// already uploaded by an earlier strip, drop this copy
+					if (len > 0)
+					{
+						--models;
+					}
+					if (strip.sources[i] != -1)
 					{
-						upload(tile, vertexbuffer, uvBuffer);
+						--duplicateModels;
+						bytesSaved -= dataSize(len, strip.uvOffsets[i] != -1);
 					}
 				}
+				else if (strip.sources[i] != -1)
+				{
+					// shares the data of a model earlier in this strip, and has none of its own
+					existing = strip.globalOffsets[strip.sources[i]];
+				}
+				else if (strip.data[i] != null && (existing = uploadedData.get(strip.data[i])) != null)
+				{
+					// an identical model was uploaded by an earlier strip
+					++duplicateModels;
+					bytesSaved += dataSize(len, strip.uvOffsets[i] != -1);
+				}
+				else
+				{
+					existing = null;
+				}
+
+				if (existing != null)
+				{
+					if (strip.sources[i] == -1)
+					{
+						vertexBuffer.put(vertices, vertexStart * 4, vertexLen * 4);
+						uvBuffer.put(uvs, uvStart * 4, uvLen * 4);
+						vertexLen = uvLen = 0;
+					}
+
+					strip.globalOffsets[i] = existing;
+					assign(object, existing[0], existing[1], len);
+					continue;
+				}
+
+				if (vertexLen == 0)
+				{
+					vertexStart = strip.offsets[i];
+				}
+				vertexLen += len;
+
+				int uvOffset = -1;
+				if (strip.uvOffsets[i] != -1)
+				{
+					if (uvLen == 0)
+					{
+						uvStart = strip.uvOffsets[i];
+					}
+					uvLen += len;
+					uvOffset = uvoffset;
+					uvoffset += len;
+				}
+
+				final int[] offsets = {offset, uvOffset};
+				strip.globalOffsets[i] = offsets;
+				if (object instanceof Model)
+				{
+					uploaded.put(object, offsets);
+				}
+				if (strip.data[i] != null)
+				{
+					uploadedData.put(strip.data[i], offsets);
+				}
+
+				assign(object, offset, uvOffset, len);
+				offset += len;
 			}
+
+			vertexBuffer.put(vertices, vertexStart * 4, vertexLen * 4);
+			uvBuffer.put(uvs, uvStart * 4, uvLen * 4);
 		}
 
 		stopwatch.stop();
-		log.debug("Scene upload time: {}", stopwatch);
+		lastUpload = new UploadStats(models, duplicateModels, bytesSaved, stopwatch.elapsed(TimeUnit.NANOSECONDS));
+	}
+
+	/**
+	 * Size in bytes of the vertex and uv data of len vertices
+	 */
+	private static long dataSize(int len, boolean textured)
+	{
+		return (long) len * (textured ? 8 : 4) * Integer.BYTES;
 	}
 
-	private void upload(Tile tile, GpuIntBuffer vertexBuffer, GpuFloatBuffer uvBuffer)
+	private void assign(Object object, int offset, int uvOffset, int len)
 	{
-		Tile bridge = tile.getBridge();
-		if (bridge != null)
+		if (object instanceof SceneTilePaint)
 		{
-			upload(bridge, vertexBuffer, uvBuffer);
+			SceneTilePaint sceneTilePaint = (SceneTilePaint) object;
+			sceneTilePaint.setBufferOffset(offset);
+			sceneTilePaint.setUvBufferOffset(uvOffset);
+			sceneTilePaint.setBufferLen(len);
+		}
+		else if (object instanceof SceneTileModel)
+		{
+			SceneTileModel sceneTileModel = (SceneTileModel) object;
+			sceneTileModel.setBufferOffset(offset);
+			sceneTileModel.setUvBufferOffset(uvOffset);
+			sceneTileModel.setBufferLen(len);
 		}
+		else
+		{
+			Model model = (Model) object;
+			model.setBufferOffset(offset);
+			model.setUvBufferOffset(uvOffset);
+			model.setSceneId(sceneId);
+		}
+	}
 
-		SceneTilePaint sceneTilePaint = tile.getSceneTilePaint();
-		if (sceneTilePaint != null)
+	/**
+	 * A run of tile rows uploaded into its own buffers. Each paint, tile model and model
+	 * uploaded is recorded along with where its data is, to be given its offsets once
+	 * the position of the strip in the scene buffers is known.
+	 */
+	private class Strip
+	{
+		private final GpuIntBuffer vertexBuffer;
+		private final GpuFloatBuffer uvBuffer;
+		private final Set<Model> uploadedModels = Collections.newSetFromMap(new IdentityHashMap<>());
+		private final Map<ModelData, Integer> uploadedData = new HashMap<>();
+
+		private int offset;
+		private int uvoffset;
+
+		private int count;
+		private Object[] objects = new Object[1024];
+		private int[] offsets = new int[1024];
+		private int[] uvOffsets = new int[1024];
+		private int[] lengths = new int[1024];
+		// record whose data a duplicate model shares, or -1
+		private int[] sources = new int[1024];
+		// data of models and tile models which have their own
+		private ModelData[] data = new ModelData[1024];
+		// offsets in the scene buffers, filled in when merging
+		private int[][] globalOffsets = new int[1024][];
+
+		private int models;
+		private int duplicateModels;
+		private long bytesSaved;
+
+		private Strip(GpuIntBuffer vertexBuffer, GpuFloatBuffer uvBuffer)
 		{
-			sceneTilePaint.setBufferOffset(offset);
-			if (sceneTilePaint.getTexture() != -1)
+			this.vertexBuffer = vertexBuffer;
+			this.uvBuffer = uvBuffer;
+		}
+
+		private void upload(Tile[][][] tiles, int fromRow, int toRow)
+		{
+			for (int row = fromRow; row < toRow; ++row)
+			{
+				final Tile[] column = tiles[row / Constants.SCENE_SIZE][row % Constants.SCENE_SIZE];
+				for (int y = 0; y < Constants.SCENE_SIZE; ++y)
+				{
+					Tile tile = column[y];
+					if (tile != null)
+					{
+						upload(tile);
+					}
+				}
+			}
+		}
+
+		private void upload(Tile tile)
+		{
+			Tile bridge = tile.getBridge();
+			if (bridge != null)
 			{
-				sceneTilePaint.setUvBufferOffset(uvoffset);
+				upload(bridge);
 			}
-			else
+
+			SceneTilePaint sceneTilePaint = tile.getSceneTilePaint();
+			if (sceneTilePaint != null)
 			{
-				sceneTilePaint.setUvBufferOffset(-1);
+				Point tilePoint = tile.getSceneLocation();
+				int len = SceneUploader.this.upload(sceneTilePaint,
+					tile.getRenderLevel(), tilePoint.getX(), tilePoint.getY(),
+					vertexBuffer, uvBuffer,
+					0, 0, false);
+				record(sceneTilePaint, sceneTilePaint.getTexture() != -1, len);
 			}
-			Point tilePoint = tile.getSceneLocation();
-			int len = upload(sceneTilePaint,
-				tile.getRenderLevel(), tilePoint.getX(), tilePoint.getY(),
-				vertexBuffer, uvBuffer,
-				0, 0, false);
-			sceneTilePaint.setBufferLen(len);
-			offset += len;
-			if (sceneTilePaint.getTexture() != -1)
+
+			SceneTileModel sceneTileModel = tile.getSceneTileModel();
+			if (sceneTileModel != null)
 			{
-				uvoffset += len;
+				Point tilePoint = tile.getSceneLocation();
+				int len = SceneUploader.this.upload(sceneTileModel,
+					tilePoint.getX(), tilePoint.getY(),
+					vertexBuffer, uvBuffer,
+					0, 0, false);
+				record(sceneTileModel, sceneTileModel.getTriangleTextureId() != null, len);
+				deduplicate();
+			}
+
+			WallObject wallObject = tile.getWallObject();
+			if (wallObject != null)
+			{
+				Renderable renderable1 = wallObject.getRenderable1();
+				if (renderable1 instanceof Model)
+				{
+					uploadSceneModel((Model) renderable1);
+				}
+
+				Renderable renderable2 = wallObject.getRenderable2();
+				if (renderable2 instanceof Model)
+				{
+					uploadSceneModel((Model) renderable2);
+				}
+			}
+
+			GroundObject groundObject = tile.getGroundObject();
+			if (groundObject != null)
+			{
+				Renderable renderable = groundObject.getRenderable();
+				if (renderable instanceof Model)
+				{
+					uploadSceneModel((Model) renderable);
+				}
+			}
+
+			DecorativeObject decorativeObject = tile.getDecorativeObject();
+			if (decorativeObject != null)
+			{
+				Renderable renderable = decorativeObject.getRenderable();
+				if (renderable instanceof Model)
+				{
+					uploadSceneModel((Model) renderable);
+				}
+
+				Renderable renderable2 = decorativeObject.getRenderable2();
+				if (renderable2 instanceof Model)
+				{
+					uploadSceneModel((Model) renderable2);
+				}
+			}
+
+			GameObject[] gameObjects = tile.getGameObjects();
+			for (GameObject gameObject : gameObjects)
+			{
+				if (gameObject == null)
+				{
+					continue;
+				}
+
+				Renderable renderable = gameObject.getRenderable();
+				if (renderable instanceof Model)
+				{
+					uploadSceneModel((Model) gameObject.getRenderable());
+				}
 			}
 		}
 
-		SceneTileModel sceneTileModel = tile.getSceneTileModel();
-		if (sceneTileModel != null)
+		private void uploadSceneModel(Model model)
 		{
-			sceneTileModel.setBufferOffset(offset);
-			if (sceneTileModel.getTriangleTextureId() != null)
+			if (!uploadedModels.add(model))
 			{
-				sceneTileModel.setUvBufferOffset(uvoffset);
+				return; // model has already been uploaded
 			}
-			else
+
+			int len = pushModel(model, vertexBuffer, uvBuffer);
+			record(model, model.getFaceTextures() != null, len);
+			deduplicate();
+		}
+
+		private void record(Object object, boolean textured, int len)
+		{
+			if (count == objects.length)
 			{
-				sceneTileModel.setUvBufferOffset(-1);
+				objects = Arrays.copyOf(objects, count * 2);
+				offsets = Arrays.copyOf(offsets, count * 2);
+				uvOffsets = Arrays.copyOf(uvOffsets, count * 2);
+				lengths = Arrays.copyOf(lengths, count * 2);
+				sources = Arrays.copyOf(sources, count * 2);
+				data = Arrays.copyOf(data, count * 2);
+				globalOffsets = Arrays.copyOf(globalOffsets, count * 2);
 			}
-			Point tilePoint = tile.getSceneLocation();
-			int len = upload(sceneTileModel,
-				tilePoint.getX(), tilePoint.getY(),
-				vertexBuffer, uvBuffer,
-				0, 0, false);
-			sceneTileModel.setBufferLen(len);
+
+			objects[count] = object;
+			offsets[count] = offset;
+			uvOffsets[count] = textured ? uvoffset : -1;
+			lengths[count] = len;
+			sources[count] = -1;
+			++count;
+
 			offset += len;
-			if (sceneTileModel.getTriangleTextureId() != null)
+			if (textured)
 			{
 				uvoffset += len;
 			}
 		}
 
-		WallObject wallObject = tile.getWallObject();
-		if (wallObject != null)
+		/**
+		 * Check the data of the model just recorded against the models uploaded before it,
+		 * and if there is an identical one drop the data and share that model's instead
+		 */
+		private void deduplicate()
 		{
-			Renderable renderable1 = wallObject.getRenderable1();
-			if (renderable1 instanceof Model)
+			final int i = count - 1;
+			final int len = lengths[i];
+			if (len == 0)
 			{
-				uploadSceneModel((Model) renderable1, vertexBuffer, uvBuffer);
+				return;
 			}
 
-			Renderable renderable2 = wallObject.getRenderable2();
-			if (renderable2 instanceof Model)
+			++models;
+
+			final ModelData modelData = new ModelData(this, offsets[i], uvOffsets[i], len);
+			final Integer source = uploadedData.putIfAbsent(modelData, i);
+			if (source == null)
 			{
-				uploadSceneModel((Model) renderable2, vertexBuffer, uvBuffer);
+				data[i] = modelData;
+				return;
 			}
+
+			offset -= len;
+			vertexBuffer.getBuffer().position(offset * 4);
+			if (uvOffsets[i] != -1)
+			{
+				uvoffset -= len;
+				uvBuffer.getBuffer().position(uvoffset * 4);
+			}
+
+			offsets[i] = offsets[source];
+			uvOffsets[i] = uvOffsets[source];
+			sources[i] = source;
+
+			++duplicateModels;
+			bytesSaved += dataSize(len, uvOffsets[i] != -1);
 		}
+	}
 
-		GroundObject groundObject = tile.getGroundObject();
-		if (groundObject != null)
+	/**
+	 * The vertices and uvs of a model in the buffers of a strip, compared by value
+	 */
+	private static class ModelData
+	{
+		private final Strip strip;
+		private final int offset;
+		private final int uvOffset;
+		private final int len;
+		private final int hash;
+
+		private ModelData(Strip strip, int offset, int uvOffset, int len)
 		{
-			Renderable renderable = groundObject.getRenderable();
-			if (renderable instanceof Model)
+			this.strip = strip;
+			this.offset = offset;
+			this.uvOffset = uvOffset;
+			this.len = len;
+
+			final IntBuffer vertices = strip.vertexBuffer.getBuffer();
+			int h = len;
+			for (int i = offset * 4, end = (offset + len) * 4; i < end; ++i)
+			{
+				h = 31 * h + vertices.get(i);
+			}
+			if (uvOffset != -1)
 			{
-				uploadSceneModel((Model) renderable, vertexBuffer, uvBuffer);
+				final FloatBuffer uvs = strip.uvBuffer.getBuffer();
+				for (int i = uvOffset * 4, end = (uvOffset + len) * 4; i < end; ++i)
+				{
+					h = 31 * h + Float.floatToIntBits(uvs.get(i));
+				}
 			}
+			else
+			{
+				h = ~h;
+			}
+			hash = h;
 		}
 
-		DecorativeObject decorativeObject = tile.getDecorativeObject();
-		if (decorativeObject != null)
+		@Override
+		public int hashCode()
 		{
-			Renderable renderable = decorativeObject.getRenderable();
-			if (renderable instanceof Model)
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof ModelData))
 			{
-				uploadSceneModel((Model) renderable, vertexBuffer, uvBuffer);
+				return false;
 			}
 
-			Renderable renderable2 = decorativeObject.getRenderable2();
-			if (renderable2 instanceof Model)
+			final ModelData other = (ModelData) obj;
+			if (hash != other.hash || len != other.len || (uvOffset == -1) != (other.uvOffset == -1))
 			{
-				uploadSceneModel((Model) renderable2, vertexBuffer, uvBuffer);
+				return false;
 			}
-		}
 
-		GameObject[] gameObjects = tile.getGameObjects();
-		for (GameObject gameObject : gameObjects)
-		{
-			if (gameObject == null)
+			final IntBuffer vertices = strip.vertexBuffer.getBuffer();
+			final IntBuffer otherVertices = other.strip.vertexBuffer.getBuffer();
+			for (int i = 0, n = len * 4; i < n; ++i)
 			{
-				continue;
+				if (vertices.get(offset * 4 + i) != otherVertices.get(other.offset * 4 + i))
+				{
+					return false;
+				}
 			}
 
-			Renderable renderable = gameObject.getRenderable();
-			if (renderable instanceof Model)
+			if (uvOffset != -1)
 			{
-				uploadSceneModel((Model) gameObject.getRenderable(), vertexBuffer, uvBuffer);
+				final FloatBuffer uvs = strip.uvBuffer.getBuffer();
+				final FloatBuffer otherUvs = other.strip.uvBuffer.getBuffer();
+				for (int i = 0, n = len * 4; i < n; ++i)
+				{
+					if (Float.floatToIntBits(uvs.get(uvOffset * 4 + i)) != Float.floatToIntBits(otherUvs.get(other.uvOffset * 4 + i)))
+					{
+						return false;
+					}
+				}
 			}
+
+			return true;
 		}
 	}
 
@@ -351,33 +815,6 @@ class SceneUploader
 		return cnt;
 	}
 
-	private void uploadSceneModel(Model model, GpuIntBuffer vertexBuffer, GpuFloatBuffer uvBuffer)
-	{
-		if (model.getSceneId() == sceneId)
-		{
-			return; // model has already been uploaded
-		}
-
-		model.setBufferOffset(offset);
-		if (model.getFaceTextures() != null)
-		{
-			model.setUvBufferOffset(uvoffset);
-		}
-		else
-		{
-			model.setUvBufferOffset(-1);
-		}
-		model.setSceneId(sceneId);
-
-		int len = pushModel(model, vertexBuffer, uvBuffer);
-
-		offset += len;
-		if (model.getFaceTextures() != null)
-		{
-			uvoffset += len;
-		}
-	}
-
 	public int pushModel(Model model, GpuIntBuffer vertexBuffer, GpuFloatBuffer uvBuffer)
 	{
 		final int triangleCount = Math.min(model.getFaceCount(), GpuPlugin.MAX_TRIANGLE);
@@ -468,9 +905,8 @@ class SceneUploader
 		return len;
 	}
 
+	// sized for the largest model seen so far, and grown as needed
 	private static int[] distances;
-	private static char[] distanceFaceCount;
-	private static char[][] distanceToFaces;
 
 	private static float[] modelCanvasX;
 	private static float[] modelCanvasY;
@@ -479,40 +915,49 @@ class SceneUploader
 	private static int[] modelLocalY;
 	private static int[] modelLocalZ;
 
+	// visible faces and their distances, in face order, then sorted by distance and then by priority
+	private static int[] visibleFaces;
+	private static int[] visibleDistances;
+	private static int[] depthFaces;
+	private static int[] depthDistances;
+	private static int[] sortedFaces;
+	private static int[] sortedDistances;
+	private static int[] distanceStart;
+
+	private static final int PRIORITIES = 12;
 	private static int[] numOfPriority;
-	private static int[] eq10;
-	private static int[] eq11;
+	private static int[] priorityStart;
 	private static int[] lt10;
-	private static int[][] orderedFaces;
 
 	void initSortingBuffers()
 	{
-		int MAX_VERTEX_COUNT = 6500;
-		int MAX_DIAMETER = 6000;
+		distances = new int[0];
+
+		modelCanvasX = new float[0];
+		modelCanvasY = new float[0];
 
-		distances = new int[MAX_VERTEX_COUNT];
-		distanceFaceCount = new char[MAX_DIAMETER];
-		distanceToFaces = new char[MAX_DIAMETER][512];
+		modelLocalX = new int[0];
+		modelLocalY = new int[0];
+		modelLocalZ = new int[0];
 
-		modelCanvasX = new float[MAX_VERTEX_COUNT];
-		modelCanvasY = new float[MAX_VERTEX_COUNT];
+		visibleFaces = new int[0];
+		visibleDistances = new int[0];
+		depthFaces = new int[0];
+		depthDistances = new int[0];
+		sortedFaces = new int[0];
+		sortedDistances = new int[0];
+		distanceStart = new int[0];
 
-		modelLocalX = new int[MAX_VERTEX_COUNT];
-		modelLocalY = new int[MAX_VERTEX_COUNT];
-		modelLocalZ = new int[MAX_VERTEX_COUNT];
+		numOfPriority = new int[PRIORITIES];
+		priorityStart = new int[PRIORITIES + 1];
+		lt10 = new int[PRIORITIES];
 
-		numOfPriority = new int[12];
-		eq10 = new int[2000];
-		eq11 = new int[2000];
-		lt10 = new int[12];
-		orderedFaces = new int[12][2000];
+		ensureSortingCapacity(6500, 6500, 6000);
 	}
 
 	void releaseSortingBuffers()
 	{
 		distances = null;
-		distanceFaceCount = null;
-		distanceToFaces = null;
 
 		modelCanvasX = null;
 		modelCanvasY = null;
@@ -521,21 +966,60 @@ class SceneUploader
 		modelLocalY = null;
 		modelLocalZ = null;
 
+		visibleFaces = null;
+		visibleDistances = null;
+		depthFaces = null;
+		depthDistances = null;
+		sortedFaces = null;
+		sortedDistances = null;
+		distanceStart = null;
+
 		numOfPriority = null;
-		eq10 = null;
-		eq11 = null;
+		priorityStart = null;
 		lt10 = null;
-		orderedFaces = null;
+	}
+
+	private static void ensureSortingCapacity(int vertexCount, int faceCount, int diameter)
+	{
+		if (distances.length < vertexCount)
+		{
+			distances = new int[vertexCount];
+
+			modelCanvasX = new float[vertexCount];
+			modelCanvasY = new float[vertexCount];
+
+			modelLocalX = new int[vertexCount];
+			modelLocalY = new int[vertexCount];
+			modelLocalZ = new int[vertexCount];
+		}
+
+		if (visibleFaces.length < faceCount)
+		{
+			visibleFaces = new int[faceCount];
+			visibleDistances = new int[faceCount];
+			depthFaces = new int[faceCount];
+			depthDistances = new int[faceCount];
+			sortedFaces = new int[faceCount];
+			sortedDistances = new int[faceCount];
+		}
+
+		if (distanceStart.length < diameter)
+		{
+			distanceStart = new int[diameter];
+		}
 	}
 
 	int pushSortedModel(Model model, int orientation, int pitchSin, int pitchCos, int yawSin, int yawCos, int x, int y, int z, GpuIntBuffer vertexBuffer, GpuFloatBuffer uvBuffer)
 	{
 		final int vertexCount = model.getVerticesCount();
+		final int faceCount = model.getFaceCount();
+		final int diameter = Math.max(model.getDiameter(), 1);
+		ensureSortingCapacity(vertexCount, faceCount, diameter);
+
 		final int[] verticesX = model.getVerticesX();
 		final int[] verticesY = model.getVerticesY();
 		final int[] verticesZ = model.getVerticesZ();
 
-		final int faceCount = model.getFaceCount();
 		final int[] indices1 = model.getFaceIndices1();
 		final int[] indices2 = model.getFaceIndices2();
 		final int[] indices3 = model.getFaceIndices3();
@@ -611,16 +1095,12 @@ class SceneUploader
 			modelCanvasY[v] = var13 * zoom / var12 + centerY;
 		}
 
-		final int diameter = model.getDiameter();
 		final int radius = model.getRadius();
-		if (diameter >= 6000)
-		{
-			return 0;
-		}
-
-		Arrays.fill(distanceFaceCount, 0, diameter, (char) 0);
 
-		for (char i = 0; i < faceCount; ++i)
+		// collect the visible faces, counting the faces at each distance
+		Arrays.fill(distanceStart, 0, diameter, 0);
+		int visible = 0;
+		for (int i = 0; i < faceCount; ++i)
 		{
 			if (faceColors3[i] != -2)
 			{
@@ -639,213 +1119,106 @@ class SceneUploader
 				if ((aX - bX) * (cY - bY) - (cX - bX) * (aY - bY) > 0)
 				{
 					int distance = radius + (distances[v1] + distances[v2] + distances[v3]) / 3;
-					assert distance >= 0 && distance < diameter;
-					distanceToFaces[distance][distanceFaceCount[distance]++] = i;
+					distance = Math.max(0, Math.min(distance, diameter - 1));
+					visibleFaces[visible] = i;
+					visibleDistances[visible] = distance;
+					++visible;
+					++distanceStart[distance];
 				}
 			}
 		}
 
+		// stable counting sort, farthest faces first
+		for (int d = diameter - 1, pos = 0; d >= 0; --d)
+		{
+			final int cnt = distanceStart[d];
+			distanceStart[d] = pos;
+			pos += cnt;
+		}
+
+		for (int i = 0; i < visible; ++i)
+		{
+			final int slot = distanceStart[visibleDistances[i]]++;
+			depthFaces[slot] = visibleFaces[i];
+			depthDistances[slot] = visibleDistances[i];
+		}
+
 		vertexBuffer.ensureCapacity(12 * faceCount);
 		uvBuffer.ensureCapacity(12 * faceCount);
 
 		int len = 0;
 		if (faceRenderPriorities == null)
 		{
-			for (int i = diameter - 1; i >= 0; --i)
+			for (int i = 0; i < visible; ++i)
 			{
-				final int cnt = distanceFaceCount[i];
-				if (cnt > 0)
-				{
-					final char[] faces = distanceToFaces[i];
-
-					for (int faceIdx = 0; faceIdx < cnt; ++faceIdx)
-					{
-						final int face = faces[faceIdx];
-						len += pushFace(model, face, vertexBuffer, uvBuffer);
-					}
-				}
+				len += pushFace(model, depthFaces[i], vertexBuffer, uvBuffer);
 			}
+			return len;
 		}
-		else
-		{
-			Arrays.fill(numOfPriority, 0);
-			Arrays.fill(lt10, 0);
 
-			for (int i = diameter - 1; i >= 0; --i)
-			{
-				final int cnt = distanceFaceCount[i];
-				if (cnt > 0)
-				{
-					final char[] faces = distanceToFaces[i];
-
-					for (int faceIdx = 0; faceIdx < cnt; ++faceIdx)
-					{
-						final int face = faces[faceIdx];
-						final byte pri = faceRenderPriorities[face];
-						final int distIdx = numOfPriority[pri]++;
-
-						orderedFaces[pri][distIdx] = face;
-						if (pri < 10)
-						{
-							lt10[pri] += i;
-						}
-						else if (pri == 10)
-						{
-							eq10[distIdx] = i;
-						}
-						else
-						{
-							eq11[distIdx] = i;
-						}
-					}
-				}
-			}
+		// second stable counting sort by priority, keeping each priority in distance order
+		Arrays.fill(numOfPriority, 0);
+		Arrays.fill(lt10, 0);
 
-			int avg12 = 0;
-			if (numOfPriority[1] > 0 || numOfPriority[2] > 0)
-			{
-				avg12 = (lt10[1] + lt10[2]) / (numOfPriority[1] + numOfPriority[2]);
-			}
-
-			int avg34 = 0;
-			if (numOfPriority[3] > 0 || numOfPriority[4] > 0)
-			{
-				avg34 = (lt10[3] + lt10[4]) / (numOfPriority[3] + numOfPriority[4]);
-			}
-
-			int avg68 = 0;
-			if (numOfPriority[6] > 0 || numOfPriority[8] > 0)
-			{
-				avg68 = (lt10[8] + lt10[6]) / (numOfPriority[8] + numOfPriority[6]);
-			}
-
-			int drawnFaces = 0;
-			int numDynFaces = numOfPriority[10];
-			int[] dynFaces = orderedFaces[10];
-			int[] dynFaceDistances = eq10;
-			if (drawnFaces == numDynFaces)
-			{
-				drawnFaces = 0;
-				numDynFaces = numOfPriority[11];
-				dynFaces = orderedFaces[11];
-				dynFaceDistances = eq11;
-			}
-
-			int currFaceDistance;
-			if (drawnFaces < numDynFaces)
-			{
-				currFaceDistance = dynFaceDistances[drawnFaces];
-			}
-			else
+		for (int i = 0; i < visible; ++i)
+		{
+			final byte pri = faceRenderPriorities[depthFaces[i]];
+			++numOfPriority[pri];
+			if (pri < 10)
 			{
-				currFaceDistance = -1000;
+				lt10[pri] += depthDistances[i];
 			}
+		}
 
-			for (int pri = 0; pri < 10; ++pri)
-			{
-				while (pri == 0 && currFaceDistance > avg12)
-				{
-					final int face = dynFaces[drawnFaces++];
-					len += pushFace(model, face, vertexBuffer, uvBuffer);
-
-					if (drawnFaces == numDynFaces && dynFaces != orderedFaces[11])
-					{
-						drawnFaces = 0;
-						numDynFaces = numOfPriority[11];
-						dynFaces = orderedFaces[11];
-						dynFaceDistances = eq11;
-					}
-
-					if (drawnFaces < numDynFaces)
-					{
-						currFaceDistance = dynFaceDistances[drawnFaces];
-					}
-					else
-					{
-						currFaceDistance = -1000;
-					}
-				}
-
-				while (pri == 3 && currFaceDistance > avg34)
-				{
-					final int face = dynFaces[drawnFaces++];
-					len += pushFace(model, face, vertexBuffer, uvBuffer);
-
-					if (drawnFaces == numDynFaces && dynFaces != orderedFaces[11])
-					{
-						drawnFaces = 0;
-						numDynFaces = numOfPriority[11];
-						dynFaces = orderedFaces[11];
-						dynFaceDistances = eq11;
-					}
+		for (int pri = 0, pos = 0; pri < PRIORITIES; ++pri)
+		{
+			priorityStart[pri] = pos;
+			pos += numOfPriority[pri];
+		}
+		priorityStart[PRIORITIES] = visible;
 
-					if (drawnFaces < numDynFaces)
-					{
-						currFaceDistance = dynFaceDistances[drawnFaces];
-					}
-					else
-					{
-						currFaceDistance = -1000;
-					}
-				}
+		for (int i = 0; i < visible; ++i)
+		{
+			final byte pri = faceRenderPriorities[depthFaces[i]];
+			// numOfPriority counts down to use as the insertion cursor
+			final int slot = priorityStart[pri + 1] - numOfPriority[pri]--;
+			sortedFaces[slot] = depthFaces[i];
+			sortedDistances[slot] = depthDistances[i];
+		}
 
-				while (pri == 5 && currFaceDistance > avg68)
-				{
-					final int face = dynFaces[drawnFaces++];
-					len += pushFace(model, face, vertexBuffer, uvBuffer);
+		final int cnt12 = priorityStart[3] - priorityStart[1];
+		final int avg12 = cnt12 > 0 ? (lt10[1] + lt10[2]) / cnt12 : 0;
 
-					if (drawnFaces == numDynFaces && dynFaces != orderedFaces[11])
-					{
-						drawnFaces = 0;
-						numDynFaces = numOfPriority[11];
-						dynFaces = orderedFaces[11];
-						dynFaceDistances = eq11;
-					}
+		final int cnt34 = priorityStart[5] - priorityStart[3];
+		final int avg34 = cnt34 > 0 ? (lt10[3] + lt10[4]) / cnt34 : 0;
 
-					if (drawnFaces < numDynFaces)
-					{
-						currFaceDistance = dynFaceDistances[drawnFaces];
-					}
-					else
-					{
-						currFaceDistance = -1000;
-					}
-				}
+		final int cnt68 = (priorityStart[7] - priorityStart[6]) + (priorityStart[9] - priorityStart[8]);
+		final int avg68 = cnt68 > 0 ? (lt10[6] + lt10[8]) / cnt68 : 0;
 
-				final int priNum = numOfPriority[pri];
-				final int[] priFaces = orderedFaces[pri];
+		// priority 10 and 11 faces are sorted after each other, and are drawn interleaved with the others by distance
+		int dynFace = priorityStart[10];
+		int currFaceDistance = dynFace < visible ? sortedDistances[dynFace] : -1000;
 
-				for (int faceIdx = 0; faceIdx < priNum; ++faceIdx)
-				{
-					final int face = priFaces[faceIdx];
-					len += pushFace(model, face, vertexBuffer, uvBuffer);
-				}
+		for (int pri = 0; pri < 10; ++pri)
+		{
+			final int avg = pri == 0 ? avg12 : pri == 3 ? avg34 : pri == 5 ? avg68 : Integer.MAX_VALUE;
+			while (currFaceDistance > avg)
+			{
+				len += pushFace(model, sortedFaces[dynFace++], vertexBuffer, uvBuffer);
+				currFaceDistance = dynFace < visible ? sortedDistances[dynFace] : -1000;
 			}
 
-			while (currFaceDistance != -1000)
+			for (int i = priorityStart[pri], end = priorityStart[pri + 1]; i < end; ++i)
 			{
-				final int face = dynFaces[drawnFaces++];
-				len += pushFace(model, face, vertexBuffer, uvBuffer);
-
-				if (drawnFaces == numDynFaces && dynFaces != orderedFaces[11])
-				{
-					drawnFaces = 0;
-					dynFaces = orderedFaces[11];
-					numDynFaces = numOfPriority[11];
-					dynFaceDistances = eq11;
-				}
-
-				if (drawnFaces < numDynFaces)
-				{
-					currFaceDistance = dynFaceDistances[drawnFaces];
-				}
-				else
-				{
-					currFaceDistance = -1000;
-				}
+				len += pushFace(model, sortedFaces[i], vertexBuffer, uvBuffer);
 			}
 		}
 
+		while (dynFace < visible)
+		{
+			len += pushFace(model, sortedFaces[dynFace++], vertexBuffer, uvBuffer);
+		}
+
 		return len;
 	}
 
@@ -0,0 +1,818 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.loottracker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.http.api.loottracker.LootRecordType;
+
+/**
+ * Local store of loot for a single RuneScape profile.
+ * <p>
+ * Loot is appended to a journal of binary records as it is submitted. A per-source aggregate of
+ * the journal is kept in memory and saved to an index file alongside the journal, together with
+ * how much of the journal it covers, so that opening the journal only has to replay records
+ * written since the index was last saved. Saving the index rewrites every aggregate, so it is
+ * saved periodically rather than after every write. The index also holds sparse checkpoints of
+ * journal offsets by time, so that loot received within a time window can be read without scanning
+ * the whole journal.
+ * <p>
+ * The journal is compacted from time to time by folding its older records into one record per
+ * source, which also drops loot which has not been updated for a long time.
+ * <p>
+ * Each record is framed with a marker, its length and a checksum, so that a corrupt record can be
+ * skipped and reading can resume at the next intact record.
+ */
+@Slf4j
+class LootJournal
+{
+	private static final int INDEX_VERSION = 4;
+
+	private static final byte OP_LOOT = 0;
+	private static final byte OP_REMOVE = 1;
+	private static final byte OP_REMOVE_ALL = 2;
+	private static final byte OP_IMPORT = 3;
+
+	/**
+	 * A checkpoint is recorded at most once every this many bytes of journal
+	 */
+	private static final int CHECKPOINT_INTERVAL = 64 * 1024;
+	/**
+	 * Minimum number of bytes that compaction has to save before the journal is rewritten
+	 */
+	private static final int COMPACT_MIN_SAVING = 256 * 1024;
+	/**
+	 * Sanity limit on the length of the drops of a single record
+	 */
+	private static final int MAX_DROPS_LENGTH = 1 << 20;
+
+	private static final int RECORD_MAGIC = 0x4C4A524E;
+	/**
+	 * Length of the marker, length and checksum which precede each record
+	 */
+	private static final int RECORD_HEADER_LENGTH = 12;
+	private static final int MAX_RECORD_LENGTH = (1 << 18) + MAX_DROPS_LENGTH * 4;
+
+	private static class CorruptRecordException extends IOException
+	{
+	}
+
+	private final File journalFile;
+	private final File indexFile;
+
+	private final Map<ConfigLoot, ConfigLoot> aggregates = new HashMap<>();
+	/**
+	 * Checkpoint times are the latest time of any record up to and including the record at the
+	 * checkpoint's offset, so every record before a checkpoint is no newer than the checkpoint
+	 * even if the clock has gone backwards.
+	 */
+	private long[] checkpointTimes = new long[16];
+	private long[] checkpointOffsets = new long[16];
+	private int checkpoints;
+	/**
+	 * Latest time of any record in the journal
+	 */
+	private long maxTime = Long.MIN_VALUE;
+	/**
+	 * Length of the journal which has been applied to the aggregates
+	 */
+	private long length;
+	/**
+	 * Length of the journal covered by the saved index
+	 */
+	private long indexLength;
+
+	private LootJournal(File journalFile, File indexFile)
+	{
+		this.journalFile = journalFile;
+		this.indexFile = indexFile;
+	}
+
+	/**
+	 * Open the journal for a profile, creating it if it doesn't exist
+	 *
+	 * @param directory directory to store journals in
+	 * @param profileKey rs profile key
+	 * @return the journal
+	 * @throws IOException if the journal can't be read
+	 */
+	static LootJournal open(File directory, String profileKey) throws IOException
+	{
+		directory.mkdirs();
+
+		LootJournal journal = new LootJournal(new File(directory, profileKey + ".journal"), new File(directory, profileKey + ".index"));
+		journal.loadIndex();
+		journal.replay();
+		return journal;
+	}
+
+	/**
+	 * @return true if nothing has ever been written to the journal
+	 */
+	synchronized boolean isEmpty()
+	{
+		return length == 0;
+	}
+
+	/**
+	 * Append loot to the journal
+	 *
+	 * @param loots loot to add, combined by source
+	 * @param time time the loot was received
+	 */
+	synchronized void append(Collection<ConfigLoot> loots, Instant time) throws IOException
+	{
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(buffer);
+		for (ConfigLoot loot : loots)
+		{
+			writeRecord(out, record ->
+			{
+				record.writeByte(OP_LOOT);
+				record.writeLong(time.toEpochMilli());
+				writeLoot(record, loot);
+			});
+		}
+		write(buffer.toByteArray(), time.toEpochMilli());
+
+		for (ConfigLoot loot : loots)
+		{
+			applyLoot(aggregates, loot.type, loot.name, loot.kills, loot.drops, time);
+		}
+	}
+
+	/**
+	 * Add existing aggregated loot to the journal, replacing the loot for those sources
+	 */
+	synchronized void importLoot(Collection<ConfigLoot> loots) throws IOException
+	{
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(buffer);
+		for (ConfigLoot loot : loots)
+		{
+			writeImport(out, loot);
+		}
+		write(buffer.toByteArray(), loots.stream().mapToLong(l -> l.last.toEpochMilli()).max().orElse(Long.MIN_VALUE));
+
+		for (ConfigLoot loot : loots)
+		{
+			ConfigLoot copy = copy(loot);
+			aggregates.put(copy, copy);
+		}
+	}
+
+	synchronized void remove(LootRecordType type, String name) throws IOException
+	{
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(buffer);
+		Instant now = Instant.now();
+		writeRecord(out, record ->
+		{
+			record.writeByte(OP_REMOVE);
+			record.writeLong(now.toEpochMilli());
+			record.writeUTF(type.name());
+			record.writeUTF(name);
+		});
+		write(buffer.toByteArray(), now.toEpochMilli());
+
+		aggregates.remove(new ConfigLoot(type, name));
+	}
+
+	synchronized void removeAll() throws IOException
+	{
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(buffer);
+		Instant now = Instant.now();
+		writeRecord(out, record ->
+		{
+			record.writeByte(OP_REMOVE_ALL);
+			record.writeLong(now.toEpochMilli());
+		});
+		write(buffer.toByteArray(), now.toEpochMilli());
+
+		aggregates.clear();
+	}
+
+	/**
+	 * @return a copy of the loot aggregated by source
+	 */
+	synchronized List<ConfigLoot> getAggregates()
+	{
+		List<ConfigLoot> loots = new ArrayList<>(aggregates.size());
+		for (ConfigLoot loot : aggregates.values())
+		{
+			loots.add(copy(loot));
+		}
+		return loots;
+	}
+
+	/**
+	 * Aggregate the loot received at or after the given time. Only the tail of the journal after the
+	 * nearest checkpoint is read. Imported loot counts as having all been received at the time it was
+	 * last updated.
+	 *
+	 * @param since start of the time window
+	 * @return the loot received in the window, aggregated by source
+	 */
+	synchronized Collection<ConfigLoot> query(Instant since) throws IOException
+	{
+		long sinceMillis = since.toEpochMilli();
+		long start = checkpointBefore(sinceMillis);
+		Map<ConfigLoot, ConfigLoot> window = new HashMap<>();
+		read(start, length, (op, time, offset, loot) ->
+		{
+			switch (op)
+			{
+				case OP_REMOVE_ALL:
+					window.clear();
+					return;
+				case OP_REMOVE:
+					window.remove(loot);
+					return;
+			}
+
+			if (time < sinceMillis)
+			{
+				return;
+			}
+
+			ConfigLoot agg = window.get(loot);
+			if (agg == null || op == OP_IMPORT)
+			{
+				window.put(loot, loot);
+			}
+			else
+			{
+				agg.kills += loot.kills;
+				for (int i = 0; i < loot.drops.length; i += 2)
+				{
+					agg.add(loot.drops[i], loot.drops[i + 1]);
+				}
+				agg.last = loot.last;
+			}
+		});
+		return window.values();
+	}
+
+	/**
+	 * Fold the records received before a time into one import record per source, and drop sources
+	 * which haven't been updated since the expiry time. Records after the nearest checkpoint before
+	 * the cutoff are kept as they are, so time-window queries within that period are unaffected. The
+	 * journal is only rewritten if that would remove expired loot or save a significant amount of space.
+	 *
+	 * @param before records older than this are folded
+	 * @param expired sources last updated before this are dropped, must be before {@code before}
+	 * @return true if the journal was rewritten
+	 */
+	synchronized boolean compact(Instant before, Instant expired) throws IOException
+	{
+		long end = checkpointBefore(before.toEpochMilli());
+		boolean expiredLoot = aggregates.values().stream().anyMatch(loot -> loot.last.isBefore(expired));
+		long foldedLength = aggregates.values().stream().mapToLong(LootJournal::importLength).sum();
+		if (end == 0 || (!expiredLoot && end - foldedLength < COMPACT_MIN_SAVING))
+		{
+			return false;
+		}
+
+		Map<ConfigLoot, ConfigLoot> folded = new HashMap<>();
+		read(0, end, (op, time, offset, loot) -> apply(folded, op, loot));
+
+		List<ConfigLoot> kept = new ArrayList<>();
+		for (ConfigLoot loot : folded.values())
+		{
+			// a source that has since been removed or has expired is dropped; its later records, if any,
+			// are kept and replayed on top of the folded record as usual
+			ConfigLoot current = aggregates.get(loot);
+			if (current != null && !current.last.isBefore(expired))
+			{
+				kept.add(loot);
+			}
+		}
+		// keep the folded records in time order so the checkpoints over them stay meaningful
+		kept.sort(Comparator.comparing(ConfigLoot::getLast));
+
+		File tempFile = File.createTempFile("loot", null, journalFile.getParentFile());
+		try
+		{
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+				RandomAccessFile in = new RandomAccessFile(journalFile, "r"))
+			{
+				for (ConfigLoot loot : kept)
+				{
+					writeImport(out, loot);
+				}
+
+				byte[] buf = new byte[8192];
+				in.seek(end);
+				for (long remaining = length - end; remaining > 0; )
+				{
+					int n = in.read(buf, 0, (int) Math.min(buf.length, remaining));
+					if (n == -1)
+					{
+						throw new EOFException();
+					}
+					out.write(buf, 0, n);
+					remaining -= n;
+				}
+			}
+
+			// the index describes the old journal, so it must not outlive it
+			Files.deleteIfExists(indexFile.toPath());
+			move(tempFile, journalFile);
+		}
+		finally
+		{
+			tempFile.delete();
+		}
+
+		log.debug("Compacted loot journal from {} to {} bytes", length, journalFile.length());
+
+		aggregates.clear();
+		checkpoints = 0;
+		maxTime = Long.MIN_VALUE;
+		length = indexLength = 0;
+		replay();
+		saveIndex();
+		return true;
+	}
+
+	/**
+	 * @return the offset of the last checkpoint strictly before the given time, everything prior to
+	 * it is older, or 0 if there is none
+	 */
+	private long checkpointBefore(long time)
+	{
+		int lo = 0, hi = checkpoints - 1, found = -1;
+		while (lo <= hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			if (checkpointTimes[mid] < time)
+			{
+				found = mid;
+				lo = mid + 1;
+			}
+			else
+			{
+				hi = mid - 1;
+			}
+		}
+		return found == -1 ? 0 : checkpointOffsets[found];
+	}
+
+	/**
+	 * Save the aggregates so that the journal does not have to be replayed when it is next opened.
+	 * Does nothing if the journal hasn't been written to since the index was last saved.
+	 */
+	synchronized void saveIndex() throws IOException
+	{
+		if (length == indexLength)
+		{
+			return;
+		}
+
+		File tempFile = File.createTempFile("loot", null, indexFile.getParentFile());
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+		{
+			out.writeInt(INDEX_VERSION);
+			out.writeLong(length);
+
+			out.writeInt(aggregates.size());
+			for (ConfigLoot loot : aggregates.values())
+			{
+				writeLoot(out, loot);
+				out.writeLong(loot.first.toEpochMilli());
+				out.writeLong(loot.last.toEpochMilli());
+			}
+
+			out.writeLong(maxTime);
+			out.writeInt(checkpoints);
+			for (int i = 0; i < checkpoints; ++i)
+			{
+				out.writeLong(checkpointTimes[i]);
+				out.writeLong(checkpointOffsets[i]);
+			}
+		}
+
+		move(tempFile, indexFile);
+		indexLength = length;
+	}
+
+	private static void move(File from, File to) throws IOException
+	{
+		try
+		{
+			Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException ex)
+		{
+			log.debug("atomic move not supported", ex);
+			Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private void loadIndex()
+	{
+		if (!indexFile.exists())
+		{
+			return;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile))))
+		{
+			if (in.readInt() != INDEX_VERSION)
+			{
+				return;
+			}
+
+			long length = in.readLong();
+			if (length > journalFile.length())
+			{
+				log.warn("Loot index is ahead of the journal, rebuilding it");
+				return;
+			}
+
+			int count = in.readInt();
+			for (int i = 0; i < count; ++i)
+			{
+				ConfigLoot loot = readLoot(in);
+				loot.first = Instant.ofEpochMilli(in.readLong());
+				loot.last = Instant.ofEpochMilli(in.readLong());
+				aggregates.put(loot, loot);
+			}
+
+			maxTime = in.readLong();
+			int checkpoints = in.readInt();
+			for (int i = 0; i < checkpoints; ++i)
+			{
+				addCheckpoint(in.readLong(), in.readLong());
+			}
+
+			this.length = indexLength = length;
+		}
+		catch (IOException | IllegalArgumentException ex)
+		{
+			log.warn("Unable to read loot index, rebuilding it", ex);
+			aggregates.clear();
+			checkpoints = 0;
+			maxTime = Long.MIN_VALUE;
+			length = indexLength = 0;
+		}
+	}
+
+	/**
+	 * Apply the records in the journal past the end of the index to the aggregates
+	 */
+	private void replay() throws IOException
+	{
+		if (!journalFile.exists())
+		{
+			return;
+		}
+
+		long end = read(length, journalFile.length(), (op, time, offset, loot) ->
+		{
+			maybeCheckpoint(time, offset);
+			apply(aggregates, op, loot);
+		});
+
+		if (end < journalFile.length())
+		{
+			// the last write was interrupted, nothing intact follows it
+			log.warn("Truncating partial loot journal record at {}", end);
+			try (RandomAccessFile raf = new RandomAccessFile(journalFile, "rw"))
+			{
+				raf.setLength(end);
+			}
+		}
+
+		length = end;
+	}
+
+	/**
+	 * @param time latest time of the records being written
+	 */
+	private void write(byte[] data, long time) throws IOException
+	{
+		try (FileOutputStream out = new FileOutputStream(journalFile, true))
+		{
+			out.write(data);
+		}
+
+		maybeCheckpoint(time, length);
+		length += data.length;
+	}
+
+	private void maybeCheckpoint(long time, long offset)
+	{
+		maxTime = Math.max(maxTime, time);
+		if (checkpoints == 0 || offset - checkpointOffsets[checkpoints - 1] >= CHECKPOINT_INTERVAL)
+		{
+			addCheckpoint(maxTime, offset);
+		}
+	}
+
+	private void addCheckpoint(long time, long offset)
+	{
+		if (checkpoints == checkpointTimes.length)
+		{
+			checkpointTimes = Arrays.copyOf(checkpointTimes, checkpoints * 2);
+			checkpointOffsets = Arrays.copyOf(checkpointOffsets, checkpoints * 2);
+		}
+		checkpointTimes[checkpoints] = time;
+		checkpointOffsets[checkpoints] = offset;
+		++checkpoints;
+	}
+
+	private static void apply(Map<ConfigLoot, ConfigLoot> aggregates, byte op, ConfigLoot loot)
+	{
+		switch (op)
+		{
+			case OP_LOOT:
+				applyLoot(aggregates, loot.type, loot.name, loot.kills, loot.drops, loot.last);
+				break;
+			case OP_IMPORT:
+				aggregates.put(loot, loot);
+				break;
+			case OP_REMOVE:
+				aggregates.remove(loot);
+				break;
+			case OP_REMOVE_ALL:
+				aggregates.clear();
+				break;
+		}
+	}
+
+	private static void applyLoot(Map<ConfigLoot, ConfigLoot> aggregates, LootRecordType type, String name, int kills, int[] drops, Instant time)
+	{
+		ConfigLoot key = new ConfigLoot(type, name);
+		ConfigLoot agg = aggregates.get(key);
+		if (agg == null)
+		{
+			agg = key;
+			agg.first = time;
+			aggregates.put(agg, agg);
+		}
+
+		agg.kills += kills;
+		for (int i = 0; i < drops.length; i += 2)
+		{
+			agg.add(drops[i], drops[i + 1]);
+		}
+		agg.last = time;
+	}
+
+	@FunctionalInterface
+	private interface RecordVisitor
+	{
+		void visit(byte op, long time, long offset, ConfigLoot loot);
+	}
+
+	@FunctionalInterface
+	private interface PayloadWriter
+	{
+		void write(DataOutputStream out) throws IOException;
+	}
+
+	private static void writeImport(DataOutputStream out, ConfigLoot loot) throws IOException
+	{
+		writeRecord(out, record ->
+		{
+			record.writeByte(OP_IMPORT);
+			record.writeLong(loot.last.toEpochMilli());
+			writeLoot(record, loot);
+			record.writeLong(loot.first.toEpochMilli());
+		});
+	}
+
+	/**
+	 * @return the approximate length of the import record for the loot
+	 */
+	private static long importLength(ConfigLoot loot)
+	{
+		return RECORD_HEADER_LENGTH + 1 + 8 + 2 + loot.type.name().length() + 2 + loot.name.length() + 4 + 4 + loot.drops.length * 4L + 8;
+	}
+
+	private static void writeRecord(DataOutputStream out, PayloadWriter writer) throws IOException
+	{
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		writer.write(new DataOutputStream(buffer));
+		byte[] payload = buffer.toByteArray();
+
+		CRC32 crc = new CRC32();
+		crc.update(payload, 0, payload.length);
+
+		out.writeInt(RECORD_MAGIC);
+		out.writeInt(payload.length);
+		out.writeInt((int) crc.getValue());
+		out.write(payload);
+	}
+
+	/**
+	 * Read the records in the journal between start and end. A record which is corrupt is skipped,
+	 * and reading resumes at the next intact record.
+	 *
+	 * @return the offset of the end of the last intact record, which is only before end if the
+	 * journal ends with a partially written record
+	 */
+	private long read(long start, long end, RecordVisitor visitor) throws IOException
+	{
+		if (start >= end)
+		{
+			return start;
+		}
+
+		byte[] data = new byte[(int) (end - start)];
+		try (RandomAccessFile raf = new RandomAccessFile(journalFile, "r"))
+		{
+			raf.seek(start);
+			raf.readFully(data);
+		}
+
+		int pos = 0;
+		while (pos < data.length)
+		{
+			if (!isRecord(data, pos))
+			{
+				int next = nextRecord(data, pos + 1);
+				if (next == -1)
+				{
+					// partially written record
+					log.debug("End of loot journal at {}", start + pos);
+					return start + pos;
+				}
+
+				log.warn("Skipping corrupt loot journal data at {}, resuming at {}", start + pos, start + next);
+				pos = next;
+			}
+
+			long offset = start + pos;
+			int length = getInt(data, pos + 4);
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, pos + RECORD_HEADER_LENGTH, length));
+			pos += RECORD_HEADER_LENGTH + length;
+
+			byte op;
+			long time;
+			ConfigLoot loot = null;
+			try
+			{
+				op = in.readByte();
+				time = in.readLong();
+				switch (op)
+				{
+					case OP_LOOT:
+						loot = readLoot(in);
+						loot.first = loot.last = Instant.ofEpochMilli(time);
+						break;
+					case OP_IMPORT:
+						loot = readLoot(in);
+						loot.first = Instant.ofEpochMilli(in.readLong());
+						loot.last = Instant.ofEpochMilli(time);
+						break;
+					case OP_REMOVE:
+						loot = new ConfigLoot(LootRecordType.valueOf(in.readUTF()), in.readUTF());
+						break;
+					case OP_REMOVE_ALL:
+						break;
+					default:
+						log.warn("Skipping unknown loot journal op {}", op);
+						continue;
+				}
+			}
+			catch (EOFException | CorruptRecordException | IllegalArgumentException ex)
+			{
+				// the checksum matched, so this is a record this version can't read rather than a torn write
+				log.warn("Skipping unreadable loot journal record", ex);
+				continue;
+			}
+
+			visitor.visit(op, time, offset, loot);
+		}
+		return end;
+	}
+
+	/**
+	 * @return true if an intact record starts at the given position
+	 */
+	private static boolean isRecord(byte[] data, int pos)
+	{
+		if (data.length - pos < RECORD_HEADER_LENGTH || getInt(data, pos) != RECORD_MAGIC)
+		{
+			return false;
+		}
+
+		int length = getInt(data, pos + 4);
+		if (length < 0 || length > MAX_RECORD_LENGTH || length > data.length - pos - RECORD_HEADER_LENGTH)
+		{
+			return false;
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(data, pos + RECORD_HEADER_LENGTH, length);
+		return (int) crc.getValue() == getInt(data, pos + 8);
+	}
+
+	/**
+	 * @return the position of the next intact record at or after from, or -1 if there are none
+	 */
+	private static int nextRecord(byte[] data, int from)
+	{
+		for (int pos = from; pos <= data.length - RECORD_HEADER_LENGTH; ++pos)
+		{
+			if (isRecord(data, pos))
+			{
+				return pos;
+			}
+		}
+		return -1;
+	}
+
+	private static int getInt(byte[] data, int pos)
+	{
+		return (data[pos] & 0xff) << 24 | (data[pos + 1] & 0xff) << 16 | (data[pos + 2] & 0xff) << 8 | (data[pos + 3] & 0xff);
+	}
+
+	private static void writeLoot(DataOutputStream out, ConfigLoot loot) throws IOException
+	{
+		out.writeUTF(loot.type.name());
+		out.writeUTF(loot.name);
+		out.writeInt(loot.kills);
+		out.writeInt(loot.drops.length);
+		for (int drop : loot.drops)
+		{
+			out.writeInt(drop);
+		}
+	}
+
+	private static ConfigLoot readLoot(DataInputStream in) throws IOException
+	{
+		ConfigLoot loot = new ConfigLoot(LootRecordType.valueOf(in.readUTF()), in.readUTF());
+		loot.kills = in.readInt();
+		int count = in.readInt();
+		if (count < 0 || (count & 1) != 0 || count > MAX_DROPS_LENGTH)
+		{
+			throw new CorruptRecordException();
+		}
+		int[] drops = new int[count];
+		for (int i = 0; i < drops.length; ++i)
+		{
+			drops[i] = in.readInt();
+		}
+		loot.drops = drops;
+		return loot;
+	}
+
+	private static ConfigLoot copy(ConfigLoot loot)
+	{
+		ConfigLoot copy = new ConfigLoot(loot.type, loot.name);
+		copy.kills = loot.kills;
+		copy.first = loot.first;
+		copy.last = loot.last;
+		copy.drops = loot.drops.clone();
+		return copy;
+	}
+}
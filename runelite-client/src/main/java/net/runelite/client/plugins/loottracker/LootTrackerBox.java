@@ -50,6 +50,7 @@ import javax.swing.SwingConstants;
 import javax.swing.border.EmptyBorder;
 import lombok.AccessLevel;
 import lombok.Getter;
+import net.runelite.api.Item;
 import net.runelite.api.ItemID;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.ui.ColorScheme;
@@ -316,6 +317,16 @@ class LootTrackerBox extends JPanel
 		itemContainer.removeAll();
 		itemContainer.setLayout(new GridLayout(rowSize, ITEMS_PER_ROW, 1, 1));
 
+		// render the icons which aren't cached in one client thread task, rather than one per item
+		final List<Item> singles = new ArrayList<>();
+		final List<Item> stacks = new ArrayList<>();
+		for (LootTrackerItem item : items)
+		{
+			(item.getQuantity() > 1 ? stacks : singles).add(new Item(item.getId(), item.getQuantity()));
+		}
+		itemManager.prefetchImages(singles.toArray(new Item[0]), false);
+		itemManager.prefetchImages(stacks.toArray(new Item[0]), true);
+
 		final EmptyBorder emptyBorder = new EmptyBorder(5, 5, 5, 5);
 		for (int i = 0; i < rowSize * ITEMS_PER_ROW; i++)
 		{
@@ -40,8 +40,9 @@ import javax.inject.Named;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.submission.SubmissionEndpoint;
+import net.runelite.client.submission.SubmissionQueue;
 import net.runelite.http.api.RuneLiteAPI;
-import static net.runelite.http.api.RuneLiteAPI.JSON;
 import net.runelite.http.api.loottracker.LootAggregate;
 import net.runelite.http.api.loottracker.LootRecord;
 import okhttp3.Call;
@@ -49,7 +50,6 @@ import okhttp3.Callback;
 import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
-import okhttp3.RequestBody;
 import okhttp3.Response;
 
 @Slf4j
@@ -58,62 +58,45 @@ public class LootTrackerClient
 	private final OkHttpClient client;
 	private final HttpUrl apiBase;
 	private final Gson gson;
+	private final SubmissionQueue submissionQueue;
 
 	@Getter
 	@Setter
 	private UUID uuid;
 
 	@Inject
-	private LootTrackerClient(OkHttpClient client, @Named("runelite.api.base") HttpUrl apiBase, Gson gson)
+	private LootTrackerClient(OkHttpClient client, @Named("runelite.api.base") HttpUrl apiBase, Gson gson, SubmissionQueue submissionQueue)
 	{
 		this.client = client;
 		this.apiBase = apiBase;
 		this.gson = gson;
+		this.submissionQueue = submissionQueue;
 	}
 
+	/**
+	 * Queue loot records for submission and send everything queued for the current session
+	 *
+	 * @param lootRecords the records to add, may be empty to just send what was queued earlier
+	 * @return a future which completes once the queued loot has been sent
+	 */
 	public CompletableFuture<Void> submit(Collection<LootRecord> lootRecords)
 	{
-		CompletableFuture<Void> future = new CompletableFuture<>();
-
 		HttpUrl url = apiBase.newBuilder()
 			.addPathSegment("loottracker")
 			.build();
 
-		Request.Builder requestBuilder = new Request.Builder();
+		SubmissionEndpoint endpoint = SubmissionEndpoint.post(url).withCompression();
 		if (uuid != null)
 		{
-			requestBuilder.header(RuneLiteAPI.RUNELITE_AUTH, uuid.toString());
+			endpoint = endpoint.withSession(RuneLiteAPI.RUNELITE_AUTH, uuid.toString());
 		}
-		requestBuilder.post(RequestBody.create(JSON, gson.toJson(lootRecords)))
-			.url(url)
-			.build();
 
-		client.newCall(requestBuilder.build()).enqueue(new Callback()
+		for (LootRecord lootRecord : lootRecords)
 		{
-			@Override
-			public void onFailure(Call call, IOException e)
-			{
-				log.warn("unable to submit loot", e);
-				future.completeExceptionally(e);
-			}
-
-			@Override
-			public void onResponse(Call call, Response response)
-			{
-				if (response.isSuccessful())
-				{
-					log.debug("Submitted loot");
-				}
-				else
-				{
-					log.warn("Error submitting loot: {} - {}", response.code(), response.message());
-				}
-				response.close();
-				future.complete(null);
-			}
-		});
+			submissionQueue.enqueue(endpoint, lootRecord);
+		}
 
-		return future;
+		return submissionQueue.flush(endpoint);
 	}
 
 	public Collection<LootAggregate> get() throws IOException
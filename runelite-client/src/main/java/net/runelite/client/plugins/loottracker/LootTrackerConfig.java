@@ -84,13 +84,23 @@ public interface LootTrackerConfig extends Config
 	@ConfigItem(
 		keyName = "syncPanel",
 		name = "Remember loot",
-		description = "Saves loot between client sessions"
+		description = "Saves loot between client sessions. Loot is saved on this computer and is not synced to your RuneLite account"
 	)
 	default boolean syncPanel()
 	{
 		return true;
 	}
 
+	@ConfigItem(
+		keyName = "rememberedPeriod",
+		name = "Remembered loot period",
+		description = "Which remembered loot to show: all of it, loot received since the client was started, or loot received within the last hour, day or week"
+	)
+	default LootTrackerPeriod rememberedPeriod()
+	{
+		return LootTrackerPeriod.ALL;
+	}
+
 	@ConfigItem(
 		keyName = "ignoredEvents",
 		name = "Ignored Loot Sources",
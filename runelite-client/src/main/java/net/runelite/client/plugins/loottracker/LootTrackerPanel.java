@@ -51,7 +51,9 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JRadioButton;
+import javax.swing.JScrollBar;
 import javax.swing.JToggleButton;
+import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
 import javax.swing.plaf.basic.BasicButtonUI;
 import javax.swing.plaf.basic.BasicToggleButtonUI;
@@ -69,6 +71,10 @@ import net.runelite.http.api.loottracker.LootRecordType;
 class LootTrackerPanel extends PluginPanel
 {
 	private static final int MAX_LOOT_BOXES = 500;
+	/**
+	 * Distance in pixels from the bottom of the panel at which older records are loaded
+	 */
+	private static final int LOAD_OLDER_RECORDS_DISTANCE = 200;
 
 	private static final ImageIcon SINGLE_LOOT_VIEW;
 	private static final ImageIcon SINGLE_LOOT_VIEW_FADED;
@@ -127,6 +133,10 @@ class LootTrackerPanel extends PluginPanel
 
 	private boolean groupLoot;
 	private boolean hideIgnoredItems;
+	/**
+	 * Whether a page of older records has been asked for and hasn't arrived yet
+	 */
+	private boolean loadingOlderRecords;
 	private String currentView;
 	private LootRecordType currentType;
 
@@ -189,6 +199,32 @@ class LootTrackerPanel extends PluginPanel
 		// Add error pane
 		errorPanel.setContent("Loot tracker", "You have not received any loot yet.");
 		add(errorPanel);
+
+		getScrollPane().getVerticalScrollBar().addAdjustmentListener(e -> loadOlderRecordsIfVisible());
+	}
+
+	@Override
+	public void onActivate()
+	{
+		loadOlderRecordsIfVisible();
+	}
+
+	/**
+	 * Ask the plugin for the next page of older records once the bottom of the grouped view, where the
+	 * oldest records are, has been scrolled into view
+	 */
+	private void loadOlderRecordsIfVisible()
+	{
+		if (loadingOlderRecords || !groupLoot || !isShowing())
+		{
+			return;
+		}
+
+		JScrollBar scrollBar = getScrollPane().getVerticalScrollBar();
+		if (scrollBar.getValue() + scrollBar.getVisibleAmount() >= scrollBar.getMaximum() - LOAD_OLDER_RECORDS_DISTANCE)
+		{
+			loadingOlderRecords = plugin.loadOlderRecords();
+		}
 	}
 
 	/**
@@ -401,6 +437,7 @@ class LootTrackerPanel extends PluginPanel
 	void clearRecords()
 	{
 		aggregateRecords.clear();
+		loadingOlderRecords = false;
 	}
 
 	/**
@@ -412,6 +449,16 @@ class LootTrackerPanel extends PluginPanel
 		rebuild();
 	}
 
+	/**
+	 * Adds a Collection of records which are older than the records already in the panel
+	 */
+	void addOlderRecords(Collection<LootTrackerRecord> recs)
+	{
+		aggregateRecords.addAll(0, recs);
+		loadingOlderRecords = false;
+		rebuild();
+	}
+
 	/**
 	 * Changes grouping mode of panel
 	 *
@@ -505,6 +552,9 @@ class LootTrackerPanel extends PluginPanel
 		boxes.forEach(LootTrackerBox::rebuild);
 		updateOverall();
 		logsContainer.revalidate();
+
+		// once laid out, the records may not fill the panel
+		SwingUtilities.invokeLater(this::loadOlderRecordsIfVisible);
 	}
 
 	/**
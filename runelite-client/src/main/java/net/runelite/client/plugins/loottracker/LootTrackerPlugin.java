@@ -38,26 +38,28 @@ import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.google.inject.Provides;
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.swing.SwingUtilities;
 import lombok.AccessLevel;
@@ -86,6 +88,7 @@ import net.runelite.api.events.ItemContainerChanged;
 import net.runelite.api.events.MenuOptionClicked;
 import net.runelite.api.events.WidgetLoaded;
 import net.runelite.api.widgets.WidgetID;
+import net.runelite.client.RuneLite;
 import net.runelite.client.account.AccountSession;
 import net.runelite.client.account.SessionManager;
 import net.runelite.client.callback.ClientThread;
@@ -130,7 +133,16 @@ import org.apache.commons.text.WordUtils;
 public class LootTrackerPlugin extends Plugin
 {
 	private static final int MAX_DROPS = 1024;
+	/**
+	 * Number of records sent to the panel at a time when loading saved loot
+	 */
+	private static final int PANEL_PAGE_SIZE = 64;
+	private static final File LOOT_DIR = new File(RuneLite.RUNELITE_DIR, "loottracker");
 	private static final Duration MAX_AGE = Duration.ofDays(365L);
+	/**
+	 * Loot journal records older than this are folded together when the journal is opened. Must be less than MAX_AGE.
+	 */
+	private static final Duration COMPACT_AGE = Duration.ofDays(28L);
 
 	// Activity/Event loot handling
 	private static final Pattern CLUE_SCROLL_PATTERN = Pattern.compile("You have completed [0-9]+ ([a-z]+) Treasure Trails?\\.");
@@ -351,6 +363,12 @@ public class LootTrackerPlugin extends Plugin
 
 	private final List<LootRecord> queuedLoots = new ArrayList<>();
 	private String profileKey;
+	private volatile LootJournal journal;
+	private Instant sessionStart;
+	/**
+	 * Remembered loot which hasn't been sent to the panel yet, most recent first. Replaced whenever the panel is reloaded.
+	 */
+	private volatile Deque<ConfigLoot> unsentLoot = new ArrayDeque<>();
 
 	private static Collection<ItemStack> stack(Collection<ItemStack> items)
 	{
@@ -431,88 +449,217 @@ public class LootTrackerPlugin extends Plugin
 		{
 			// Current queued loot is for the previous profile, so save it first with the current profile key
 			submitLoot();
+			saveLootIndex();
 
 			this.profileKey = profileKey;
 
 			log.debug("Switched to profile {}", profileKey);
 
-			if (!config.syncPanel())
+			LootJournal journal;
+			try
 			{
-				return;
+				journal = LootJournal.open(LOOT_DIR, profileKey);
+				importConfigLoot(journal, profileKey);
 			}
-
-			int drops = 0;
-			List<ConfigLoot> loots = new ArrayList<>();
-			Instant old = Instant.now().minus(MAX_AGE);
-			for (String key : configManager.getRSProfileConfigurationKeys(LootTrackerConfig.GROUP, profileKey, "drops_"))
+			catch (IOException ex)
 			{
-				String json = configManager.getConfiguration(LootTrackerConfig.GROUP, profileKey, key);
-				ConfigLoot configLoot;
+				log.warn("Unable to open loot journal for {}", profileKey, ex);
+				journal = null;
+			}
 
+			if (journal != null)
+			{
+				// fold old records together and drop loot older than MAX_AGE, so the journal doesn't grow forever
+				Instant now = Instant.now();
 				try
 				{
-					configLoot = gson.fromJson(json, ConfigLoot.class);
+					journal.compact(now.minus(COMPACT_AGE), now.minus(MAX_AGE));
 				}
-				catch (JsonSyntaxException ex)
+				catch (IOException ex)
 				{
-					log.warn("Removing loot with malformed json: {}", json, ex);
-					configManager.unsetConfiguration(LootTrackerConfig.GROUP, profileKey, key);
-					continue;
+					log.warn("Unable to compact loot journal for {}", profileKey, ex);
 				}
+			}
+			this.journal = journal;
 
-				if (configLoot.last.isBefore(old))
-				{
-					log.debug("Removing old loot for {} {}", configLoot.type, configLoot.name);
-					configManager.unsetConfiguration(LootTrackerConfig.GROUP, profileKey, key);
-					continue;
-				}
+			loadPanel(journal);
+		});
+	}
 
-				if (drops >= MAX_DROPS && !loots.isEmpty() && loots.get(0).last.isAfter(configLoot.last))
-				{
-					// fast drop
-					continue;
-				}
+	/**
+	 * Send the remembered loot for the configured period to the panel
+	 */
+	private void loadPanel(LootJournal journal)
+	{
+		if (!config.syncPanel() || journal == null)
+		{
+			return;
+		}
+
+		List<ConfigLoot> aggregates;
+		LootTrackerPeriod period = config.rememberedPeriod();
+		if (period == LootTrackerPeriod.ALL)
+		{
+			aggregates = journal.getAggregates();
+		}
+		else
+		{
+			Instant since = period == LootTrackerPeriod.SESSION ? sessionStart : Instant.now().minus(period.getDuration());
+			try
+			{
+				aggregates = new ArrayList<>(journal.query(since));
+			}
+			catch (IOException ex)
+			{
+				log.warn("Unable to read loot since {}", since, ex);
+				return;
+			}
+		}
 
-				sortedInsert(loots, configLoot, Comparator.comparing(ConfigLoot::getLast));
-				drops += configLoot.numDrops();
+		// pick the most recently updated sources, up to MAX_DROPS drops
+		Instant old = Instant.now().minus(MAX_AGE);
+		aggregates.sort(Comparator.comparing(ConfigLoot::getLast).reversed());
 
-				if (drops >= MAX_DROPS)
-				{
-					ConfigLoot top = loots.remove(0);
-					drops -= top.numDrops();
-				}
+		int drops = 0;
+		List<ConfigLoot> loots = new ArrayList<>();
+		for (ConfigLoot configLoot : aggregates)
+		{
+			if (configLoot.last.isBefore(old) || drops + configLoot.numDrops() > MAX_DROPS)
+			{
+				break;
 			}
 
-			log.debug("Loaded {} records", loots.size());
+			loots.add(configLoot);
+			drops += configLoot.numDrops();
+		}
+
+		log.debug("Loaded {} records", loots.size());
 
-			clientThread.invokeLater(() ->
+		// send only the most recent page now; older pages are sent as the panel is scrolled down to them
+		Deque<ConfigLoot> unsent = new ArrayDeque<>(loots);
+		unsentLoot = unsent;
+		sendPanelPage(unsent, true);
+	}
+
+	/**
+	 * Send the next page of remembered loot to the panel, if there is any. Called by the panel when it
+	 * has been scrolled down to the oldest loot it has.
+	 *
+	 * @return true if a page is being sent
+	 */
+	boolean loadOlderRecords()
+	{
+		Deque<ConfigLoot> unsent = unsentLoot;
+		synchronized (unsent)
+		{
+			if (unsent.isEmpty())
 			{
-				// convertToLootTrackerRecord requires item compositions to be available to get the item name,
-				// so it can't be run while the client is starting
-				if (client.getGameState().getState() < GameState.LOGIN_SCREEN.getState())
-				{
-					return false;
-				}
+				return false;
+			}
+		}
+
+		sendPanelPage(unsent, false);
+		return true;
+	}
+
+	private void sendPanelPage(Deque<ConfigLoot> unsent, boolean first)
+	{
+		List<ConfigLoot> page = new ArrayList<>(PANEL_PAGE_SIZE);
+		synchronized (unsent)
+		{
+			while (page.size() < PANEL_PAGE_SIZE && !unsent.isEmpty())
+			{
+				page.add(unsent.poll());
+			}
+		}
+		// the panel lists records oldest first
+		Collections.reverse(page);
+
+		clientThread.invokeLater(() ->
+		{
+			// convertToLootTrackerRecord requires item compositions to be available to get the item name,
+			// so it can't be run while the client is starting
+			if (client.getGameState().getState() < GameState.LOGIN_SCREEN.getState())
+			{
+				return false;
+			}
 
-				// convertToLootTrackerRecord must be called on client thread
-				List<LootTrackerRecord> records = loots.stream()
-					.map(this::convertToLootTrackerRecord)
-					.collect(Collectors.toList());
-				SwingUtilities.invokeLater(() ->
+			// convertToLootTrackerRecord must be called on client thread
+			List<LootTrackerRecord> records = page.stream()
+				.map(this::convertToLootTrackerRecord)
+				.collect(Collectors.toList());
+			SwingUtilities.invokeLater(() ->
+			{
+				if (first)
 				{
 					panel.clearRecords();
 					panel.addRecords(records);
-				});
-
-				return true;
+				}
+				// drop older pages of loot the panel has since been reloaded without
+				else if (unsent == unsentLoot)
+				{
+					panel.addOlderRecords(records);
+				}
 			});
+
+			return true;
 		});
 	}
 
-	private static <T> void sortedInsert(List<T> list, T value, Comparator<? super T> c)
+	/**
+	 * Move loot saved in the profile configuration into the journal. Loot used to be saved in the
+	 * profile configuration, which was synced between computers; it is now only saved locally. The
+	 * configuration is migrated once and then removed, so that it isn't imported again by this or
+	 * any other computer once it is out of date. Loot saved to the configuration later, by an older
+	 * client, is imported if it is newer than the journal's.
+	 */
+	private void importConfigLoot(LootJournal journal, String profileKey) throws IOException
 	{
-		int idx = Collections.binarySearch(list, value, c);
-		list.add(idx < 0 ? -idx - 1 : idx, value);
+		List<String> keys = configManager.getRSProfileConfigurationKeys(LootTrackerConfig.GROUP, profileKey, "drops_");
+		if (keys.isEmpty())
+		{
+			return;
+		}
+
+		Map<ConfigLoot, ConfigLoot> journalLoot = new HashMap<>();
+		for (ConfigLoot loot : journal.getAggregates())
+		{
+			journalLoot.put(loot, loot);
+		}
+
+		List<ConfigLoot> loots = new ArrayList<>();
+		for (String key : keys)
+		{
+			String json = configManager.getConfiguration(LootTrackerConfig.GROUP, profileKey, key);
+			try
+			{
+				ConfigLoot configLoot = gson.fromJson(json, ConfigLoot.class);
+				if (configLoot != null && configLoot.last != null)
+				{
+					ConfigLoot existing = journalLoot.get(configLoot);
+					if (existing == null || existing.last.isBefore(configLoot.last))
+					{
+						loots.add(configLoot);
+					}
+				}
+			}
+			catch (JsonSyntaxException ex)
+			{
+				log.warn("Not importing loot with malformed json: {}", json, ex);
+			}
+		}
+
+		if (!loots.isEmpty())
+		{
+			log.debug("Importing {} loot records from config", loots.size());
+			journal.importLoot(loots);
+			journal.saveIndex();
+		}
+
+		for (String key : keys)
+		{
+			configManager.unsetConfiguration(LootTrackerConfig.GROUP, profileKey, key);
+		}
 	}
 
 	@Subscribe
@@ -526,6 +673,10 @@ public class LootTrackerPlugin extends Plugin
 				ignoredEvents = Text.fromCSV(config.getIgnoredEvents());
 				SwingUtilities.invokeLater(panel::updateIgnoredRecords);
 			}
+			else if ("rememberedPeriod".equals(event.getKey()))
+			{
+				executor.execute(() -> loadPanel(journal));
+			}
 		}
 	}
 
@@ -533,6 +684,7 @@ public class LootTrackerPlugin extends Plugin
 	protected void startUp() throws Exception
 	{
 		profileKey = null;
+		sessionStart = Instant.now();
 		ignoredItems = Text.fromCSV(config.getIgnoredItems());
 		ignoredEvents = Text.fromCSV(config.getIgnoredEvents());
 		panel = new LootTrackerPanel(this, itemManager, config);
@@ -566,6 +718,8 @@ public class LootTrackerPlugin extends Plugin
 	protected void shutDown()
 	{
 		submitLoot();
+		saveLootIndex();
+		journal = null;
 		clientToolbar.removeNavigation(navButton);
 		lootTrackerClient.setUuid(null);
 		chestLooted = false;
@@ -574,11 +728,8 @@ public class LootTrackerPlugin extends Plugin
 	@Subscribe
 	public void onClientShutdown(ClientShutdown event)
 	{
-		Future<Void> future = submitLoot();
-		if (future != null)
-		{
-			event.waitFor(future);
-		}
+		event.waitFor(submitLoot());
+		saveLootIndex();
 	}
 
 	@Subscribe
@@ -1063,7 +1214,38 @@ public class LootTrackerPlugin extends Plugin
 		submitLoot();
 	}
 
-	@Nullable
+	@Schedule(
+		period = 30,
+		unit = ChronoUnit.MINUTES,
+		asynchronous = true
+	)
+	public void saveLootIndexTask()
+	{
+		saveLootIndex();
+	}
+
+	/**
+	 * Save the journal index. This rewrites the aggregate of all of the loot, so it is only done
+	 * periodically and when the journal is closed, and the journal is replayed past the index otherwise.
+	 */
+	private void saveLootIndex()
+	{
+		LootJournal journal = this.journal;
+		if (journal == null)
+		{
+			return;
+		}
+
+		try
+		{
+			journal.saveIndex();
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to save loot index", ex);
+		}
+	}
+
 	private CompletableFuture<Void> submitLoot()
 	{
 		List<LootRecord> copy;
@@ -1071,7 +1253,8 @@ public class LootTrackerPlugin extends Plugin
 		{
 			if (queuedLoots.isEmpty())
 			{
-				return null;
+				// retry anything left over from earlier submissions
+				return lootTrackerClient.submit(Collections.emptyList());
 			}
 
 			copy = new ArrayList<>(queuedLoots);
@@ -1103,25 +1286,20 @@ public class LootTrackerPlugin extends Plugin
 
 	private void saveLoot(List<LootRecord> records)
 	{
-		Instant now = Instant.now();
-		Collection<ConfigLoot> combinedRecords = combine(records);
-		for (ConfigLoot record : combinedRecords)
+		LootJournal journal = this.journal;
+		if (journal == null)
 		{
-			ConfigLoot lootConfig = getLootConfig(record.type, record.name);
-			if (lootConfig == null)
-			{
-				lootConfig = record;
-			}
-			else
-			{
-				lootConfig.kills += record.kills;
-				for (int i = 0; i < record.drops.length; i += 2)
-				{
-					lootConfig.add(record.drops[i], record.drops[i + 1]);
-				}
-			}
-			lootConfig.last = now;
-			setLootConfig(lootConfig.type, lootConfig.name, lootConfig);
+			log.debug("Trying to save loot with no journal!");
+			return;
+		}
+
+		try
+		{
+			journal.append(combine(records), Instant.now());
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to save loot", ex);
 		}
 	}
 
@@ -1354,46 +1532,26 @@ public class LootTrackerPlugin extends Plugin
 				.build());
 	}
 
-	ConfigLoot getLootConfig(LootRecordType type, String name)
+	void removeLootConfig(LootRecordType type, String name)
 	{
 		String profile = profileKey;
-		if (Strings.isNullOrEmpty(profile))
-		{
-			log.debug("Trying to get loot with no profile!");
-			return null;
-		}
-
-		String json = configManager.getConfiguration(LootTrackerConfig.GROUP, profile, "drops_" + type + "_" + name);
-		if (json == null)
+		LootJournal journal = this.journal;
+		if (Strings.isNullOrEmpty(profile) || journal == null)
 		{
-			return null;
+			log.debug("Trying to remove loot with no profile!");
+			return;
 		}
 
-		return gson.fromJson(json, ConfigLoot.class);
-	}
-
-	void setLootConfig(LootRecordType type, String name, ConfigLoot loot)
-	{
-		String profile = profileKey;
-		if (Strings.isNullOrEmpty(profile))
+		try
 		{
-			log.debug("Trying to set loot with no profile!");
-			return;
+			journal.remove(type, name);
 		}
-
-		String json = gson.toJson(loot);
-		configManager.setConfiguration(LootTrackerConfig.GROUP, profile, "drops_" + type + "_" + name, json);
-	}
-
-	void removeLootConfig(LootRecordType type, String name)
-	{
-		String profile = profileKey;
-		if (Strings.isNullOrEmpty(profile))
+		catch (IOException ex)
 		{
-			log.debug("Trying to remove loot with no profile!");
-			return;
+			log.warn("Unable to remove loot", ex);
 		}
 
+		// also remove loot saved prior to the journal, so that it isn't imported again
 		configManager.unsetConfiguration(LootTrackerConfig.GROUP, profile, "drops_" + type + "_" + name);
 	}
 
@@ -1406,6 +1564,19 @@ public class LootTrackerPlugin extends Plugin
 			return;
 		}
 
+		LootJournal journal = this.journal;
+		if (journal != null)
+		{
+			try
+			{
+				journal.removeAll();
+			}
+			catch (IOException ex)
+			{
+				log.warn("Unable to clear loot", ex);
+			}
+		}
+
 		for (String key : configManager.getRSProfileConfigurationKeys(LootTrackerConfig.GROUP, profile, "drops_"))
 		{
 			configManager.unsetConfiguration(LootTrackerConfig.GROUP, profile, key);
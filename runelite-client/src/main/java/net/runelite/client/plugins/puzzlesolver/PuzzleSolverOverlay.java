@@ -34,6 +34,7 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
@@ -51,8 +52,9 @@ import net.runelite.client.game.SpriteManager;
 import net.runelite.client.plugins.puzzlesolver.solver.PuzzleSolver;
 import net.runelite.client.plugins.puzzlesolver.solver.PuzzleState;
 import net.runelite.client.plugins.puzzlesolver.solver.heuristics.ManhattanDistance;
-import net.runelite.client.plugins.puzzlesolver.solver.pathfinding.IDAStar;
+import net.runelite.client.plugins.puzzlesolver.solver.heuristics.PatternDatabase;
 import net.runelite.client.plugins.puzzlesolver.solver.pathfinding.IDAStarMM;
+import net.runelite.client.plugins.puzzlesolver.solver.pathfinding.IDAStarPDB;
 import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayLayer;
 import net.runelite.client.ui.overlay.OverlayPosition;
@@ -439,7 +441,7 @@ public class PuzzleSolverOverlay extends Overlay
 
 		if (useNormalSolver)
 		{
-			solver = new PuzzleSolver(new IDAStar(new ManhattanDistance()), puzzleState);
+			solver = new PuzzleSolver(new IDAStarPDB(new PatternDatabase(), ForkJoinPool.commonPool()), puzzleState);
 		}
 		else
 		{
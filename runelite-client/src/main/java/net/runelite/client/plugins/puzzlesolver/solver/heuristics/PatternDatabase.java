@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.puzzlesolver.solver.heuristics;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import net.runelite.client.plugins.puzzlesolver.solver.PuzzleState;
+import static net.runelite.client.plugins.puzzlesolver.solver.PuzzleSolver.BLANK_TILE_VALUE;
+import static net.runelite.client.plugins.puzzlesolver.solver.PuzzleSolver.DIMENSION;
+
+/**
+ * An additive pattern database heuristic.
+ *
+ * The tiles are split into disjoint patterns of four. For every placement of a
+ * pattern's tiles the database stores the number of moves of those tiles needed
+ * to bring them home, so the values of the patterns can be summed and the result
+ * is still admissible. It dominates the manhattan distance, which only counts
+ * each tile on its own.
+ *
+ * The tables are expensive to build, so they are generated once with
+ * {@link #generate()} and shipped as a resource.
+ *
+ * https://en.wikipedia.org/wiki/Pattern_database
+ */
+public class PatternDatabase implements Heuristic
+{
+	private static final int SIZE = DIMENSION * DIMENSION;
+	private static final int TABLE_SIZE = SIZE * SIZE * SIZE * SIZE;
+	private static final int UNVISITED = 0xFF;
+
+	static final String RESOURCE = "pattern_database.gz";
+
+	/**
+	 * The tiles of each pattern. The patterns cover every tile exactly once.
+	 */
+	public static final int[][] PATTERNS = {
+		{0, 1, 5, 6},
+		{2, 3, 7, 8},
+		{4, 9, 14, 19},
+		{10, 11, 15, 16},
+		{12, 13, 17, 18},
+		{20, 21, 22, 23},
+	};
+
+	private static final int[] TILE_PATTERN = new int[SIZE - 1];
+
+	static
+	{
+		for (int i = 0; i < PATTERNS.length; i++)
+		{
+			for (int tile : PATTERNS[i])
+			{
+				TILE_PATTERN[tile] = i;
+			}
+		}
+	}
+
+	private static class Holder
+	{
+		private static final byte[][] TABLES = load();
+	}
+
+	private final byte[][] tables;
+
+	public PatternDatabase()
+	{
+		this(null);
+	}
+
+	PatternDatabase(byte[][] tables)
+	{
+		this.tables = tables;
+	}
+
+	private byte[][] tables()
+	{
+		return tables != null ? tables : Holder.TABLES;
+	}
+
+	/**
+	 * Get the pattern the given tile belongs to.
+	 */
+	public static int getPattern(int tile)
+	{
+		return TILE_PATTERN[tile];
+	}
+
+	/**
+	 * Get the value of a single pattern.
+	 *
+	 * @param pattern   the pattern index
+	 * @param positions the board position of every tile, indexed by tile
+	 */
+	public int getValue(int pattern, int[] positions)
+	{
+		int[] tiles = PATTERNS[pattern];
+		int index = ((positions[tiles[0]] * SIZE + positions[tiles[1]]) * SIZE + positions[tiles[2]]) * SIZE + positions[tiles[3]];
+		return tables()[pattern][index];
+	}
+
+	@Override
+	public int computeValue(PuzzleState state)
+	{
+		int[] positions = new int[SIZE - 1];
+
+		for (int x = 0; x < DIMENSION; x++)
+		{
+			for (int y = 0; y < DIMENSION; y++)
+			{
+				int piece = state.getPiece(x, y);
+
+				if (piece != BLANK_TILE_VALUE)
+				{
+					positions[piece] = y * DIMENSION + x;
+				}
+			}
+		}
+
+		int value = 0;
+
+		for (int i = 0; i < PATTERNS.length; i++)
+		{
+			value += getValue(i, positions);
+		}
+
+		return value;
+	}
+
+	private static byte[][] load()
+	{
+		try (InputStream in = PatternDatabase.class.getResourceAsStream(RESOURCE))
+		{
+			if (in == null)
+			{
+				throw new IOException("missing " + RESOURCE);
+			}
+
+			return read(in);
+		}
+		catch (IOException ex)
+		{
+			throw new UncheckedIOException("unable to load pattern database", ex);
+		}
+	}
+
+	static byte[][] read(InputStream in) throws IOException
+	{
+		DataInputStream is = new DataInputStream(new GZIPInputStream(in));
+
+		if (is.readUnsignedByte() != PATTERNS.length)
+		{
+			throw new IOException("pattern count mismatch");
+		}
+
+		byte[][] tables = new byte[PATTERNS.length][TABLE_SIZE];
+		for (byte[] table : tables)
+		{
+			is.readFully(table);
+		}
+		return tables;
+	}
+
+	/**
+	 * Write the tables in the format of the bundled resource.
+	 */
+	public void write(OutputStream out) throws IOException
+	{
+		GZIPOutputStream gz = new GZIPOutputStream(out);
+		DataOutputStream os = new DataOutputStream(gz);
+		os.writeByte(PATTERNS.length);
+		for (byte[] table : tables())
+		{
+			os.write(table);
+		}
+		os.flush();
+		gz.finish();
+	}
+
+	/**
+	 * Build the tables from scratch.
+	 */
+	public static PatternDatabase generate()
+	{
+		byte[][] tables = new byte[PATTERNS.length][];
+		for (int i = 0; i < PATTERNS.length; i++)
+		{
+			tables[i] = generate(PATTERNS[i]);
+		}
+		return new PatternDatabase(tables);
+	}
+
+	/**
+	 * Breadth first search backwards from the goal over the placements of the
+	 * pattern tiles and the blank. Moving any other tile is free, so each layer
+	 * is first closed over the free moves before the next layer is started.
+	 */
+	private static byte[] generate(int[] tiles)
+	{
+		final int blankGoal = SIZE - 1;
+
+		byte[] dist = new byte[TABLE_SIZE * SIZE];
+		Arrays.fill(dist, (byte) UNVISITED);
+
+		int start = ((((tiles[0] * SIZE + tiles[1]) * SIZE + tiles[2]) * SIZE + tiles[3]) * SIZE) + blankGoal;
+		dist[start] = 0;
+
+		IntStack current = new IntStack();
+		current.push(start);
+
+		int[] positions = new int[4];
+
+		for (int d = 0; !current.isEmpty(); d++)
+		{
+			IntStack next = new IntStack();
+
+			while (!current.isEmpty())
+			{
+				int state = current.pop();
+				if ((dist[state] & 0xFF) != d)
+				{
+					continue;
+				}
+
+				int blank = state % SIZE;
+				int pattern = state / SIZE;
+				for (int i = 3, p = pattern; i >= 0; i--, p /= SIZE)
+				{
+					positions[i] = p % SIZE;
+				}
+
+				int bx = blank % DIMENSION;
+				int by = blank / DIMENSION;
+
+				for (int dir = 0; dir < 4; dir++)
+				{
+					int nx = bx + (dir == 0 ? -1 : dir == 1 ? 1 : 0);
+					int ny = by + (dir == 2 ? -1 : dir == 3 ? 1 : 0);
+
+					if (nx < 0 || ny < 0 || nx >= DIMENSION || ny >= DIMENSION)
+					{
+						continue;
+					}
+
+					int neighbour = ny * DIMENSION + nx;
+
+					int moved = -1;
+					for (int i = 0; i < 4; i++)
+					{
+						if (positions[i] == neighbour)
+						{
+							moved = i;
+							break;
+						}
+					}
+
+					if (moved == -1)
+					{
+						int t = pattern * SIZE + neighbour;
+						if ((dist[t] & 0xFF) > d)
+						{
+							dist[t] = (byte) d;
+							current.push(t);
+						}
+					}
+					else
+					{
+						positions[moved] = blank;
+						int t = (((positions[0] * SIZE + positions[1]) * SIZE + positions[2]) * SIZE + positions[3]) * SIZE + neighbour;
+						positions[moved] = neighbour;
+
+						if ((dist[t] & 0xFF) > d + 1)
+						{
+							dist[t] = (byte) (d + 1);
+							next.push(t);
+						}
+					}
+				}
+			}
+
+			current = next;
+		}
+
+		// the blank position does not matter for the heuristic, so keep the best case
+		byte[] table = new byte[TABLE_SIZE];
+		for (int pattern = 0; pattern < TABLE_SIZE; pattern++)
+		{
+			int min = UNVISITED;
+			for (int blank = 0; blank < SIZE; blank++)
+			{
+				min = Math.min(min, dist[pattern * SIZE + blank] & 0xFF);
+			}
+			table[pattern] = (byte) (min == UNVISITED ? 0 : min);
+		}
+		return table;
+	}
+
+	private static class IntStack
+	{
+		private int[] values = new int[1024];
+		private int size;
+
+		void push(int value)
+		{
+			if (size == values.length)
+			{
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		int pop()
+		{
+			return values[--size];
+		}
+
+		boolean isEmpty()
+		{
+			return size == 0;
+		}
+	}
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.puzzlesolver.solver.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.runelite.client.plugins.puzzlesolver.solver.PuzzleState;
+import net.runelite.client.plugins.puzzlesolver.solver.heuristics.PatternDatabase;
+import static net.runelite.client.plugins.puzzlesolver.solver.PuzzleSolver.BLANK_TILE_VALUE;
+import static net.runelite.client.plugins.puzzlesolver.solver.PuzzleSolver.DIMENSION;
+
+/**
+ * An implementation of the IDA* algorithm using an additive pattern database.
+ *
+ * Unlike {@link IDAStar} the search works on a single board which is moved and
+ * moved back in place, so no states are allocated while searching. The
+ * heuristic is updated incrementally by only looking up the pattern of the
+ * tile that moved. Optionally the branches below the root are searched in
+ * parallel on a fork join pool.
+ */
+public class IDAStarPDB extends Pathfinder
+{
+	private static final int SIZE = DIMENSION * DIMENSION;
+	private static final int MAX_DEPTH = 256;
+	private static final int CHECK_INTERVAL = 0xFFFF;
+	private static final int[][] NEIGHBOURS = new int[SIZE][];
+
+	static
+	{
+		for (int i = 0; i < SIZE; i++)
+		{
+			int x = i % DIMENSION;
+			int y = i / DIMENSION;
+			int[] n = new int[4];
+			int count = 0;
+			if (x > 0)
+			{
+				n[count++] = i - 1;
+			}
+			if (x < DIMENSION - 1)
+			{
+				n[count++] = i + 1;
+			}
+			if (y > 0)
+			{
+				n[count++] = i - DIMENSION;
+			}
+			if (y < DIMENSION - 1)
+			{
+				n[count++] = i + DIMENSION;
+			}
+			NEIGHBOURS[i] = Arrays.copyOf(n, count);
+		}
+	}
+
+	private final PatternDatabase database;
+	private final ForkJoinPool pool;
+
+	public IDAStarPDB(PatternDatabase database)
+	{
+		this(database, null);
+	}
+
+	/**
+	 * @param pool pool to search the root branches on in parallel, or null to
+	 *             search on the calling thread only
+	 */
+	public IDAStarPDB(PatternDatabase database, ForkJoinPool pool)
+	{
+		super(database);
+		this.database = database;
+		this.pool = pool;
+	}
+
+	@Override
+	public List<PuzzleState> computePath(PuzzleState root)
+	{
+		int[] board = new int[SIZE];
+		for (int i = 0; i < SIZE; i++)
+		{
+			board[i] = root.getPiece(i % DIMENSION, i / DIMENSION);
+		}
+
+		if (!isSolvable(board))
+		{
+			return null;
+		}
+
+		AtomicBoolean stop = new AtomicBoolean();
+		Search search = new Search(board, stop);
+
+		int[] moves = pool == null ? search.run() : searchParallel(search, stop);
+		if (moves == null)
+		{
+			return null;
+		}
+
+		List<PuzzleState> path = new ArrayList<>(moves.length + 1);
+		path.add(root);
+
+		int blank = root.getEmptyPiece();
+		for (int move : moves)
+		{
+			board[blank] = board[move];
+			board[move] = BLANK_TILE_VALUE;
+			blank = move;
+			path.add(new PuzzleState(Arrays.copyOf(board, SIZE)));
+		}
+		return path;
+	}
+
+	private int[] searchParallel(Search root, AtomicBoolean stop)
+	{
+		if (root.h == 0)
+		{
+			return new int[0];
+		}
+
+		int[] rootMoves = NEIGHBOURS[root.blank];
+		int bound = root.h;
+
+		while (true)
+		{
+			List<ForkJoinTask<Search>> tasks = new ArrayList<>(rootMoves.length);
+			for (int move : rootMoves)
+			{
+				final int b = bound;
+				tasks.add(pool.submit(new RecursiveTask<Search>()
+				{
+					@Override
+					protected Search compute()
+					{
+						Search branch = root.copy();
+						int prev = branch.blank;
+						branch.move(move);
+						branch.path[0] = move;
+						branch.nextBound = Integer.MAX_VALUE;
+						branch.found = branch.search(1, b, prev);
+						return branch;
+					}
+				}));
+			}
+
+			int next = Integer.MAX_VALUE;
+			Search solution = null;
+			try
+			{
+				for (ForkJoinTask<Search> task : tasks)
+				{
+					Search branch = task.get();
+					if (branch.aborted)
+					{
+						continue;
+					}
+					if (branch.found && solution == null)
+					{
+						solution = branch;
+						// any solution within the bound is optimal, so stop the others
+						stop.set(true);
+					}
+					next = Math.min(next, branch.nextBound);
+				}
+			}
+			catch (InterruptedException ex)
+			{
+				stop.set(true);
+				Thread.currentThread().interrupt();
+				return null;
+			}
+			catch (ExecutionException ex)
+			{
+				stop.set(true);
+				throw new RuntimeException(ex.getCause());
+			}
+
+			if (solution != null)
+			{
+				return Arrays.copyOf(solution.path, solution.depth);
+			}
+
+			if (stop.get() || next == Integer.MAX_VALUE)
+			{
+				return null;
+			}
+
+			bound = next;
+		}
+	}
+
+	/**
+	 * A board is solvable if the permutation parity of the tiles together with
+	 * the blank's distance from its goal row is even.
+	 */
+	static boolean isSolvable(int[] board)
+	{
+		int inversions = 0;
+		int blankRow = 0;
+		for (int i = 0; i < board.length; i++)
+		{
+			if (board[i] == BLANK_TILE_VALUE)
+			{
+				blankRow = i / DIMENSION;
+				continue;
+			}
+
+			for (int j = i + 1; j < board.length; j++)
+			{
+				if (board[j] != BLANK_TILE_VALUE && board[j] < board[i])
+				{
+					inversions++;
+				}
+			}
+		}
+
+		if (DIMENSION % 2 == 1)
+		{
+			return inversions % 2 == 0;
+		}
+		return (inversions + DIMENSION - 1 - blankRow) % 2 == 0;
+	}
+
+	private class Search
+	{
+		private final int[] board;
+		private final int[] positions = new int[SIZE - 1];
+		private final int[] values = new int[PatternDatabase.PATTERNS.length];
+		private final int[] path = new int[MAX_DEPTH];
+		private final AtomicBoolean stop;
+
+		private int blank;
+		private int h;
+		private int nextBound;
+		private int depth;
+		private int nodes;
+		private boolean found;
+		private boolean aborted;
+
+		Search(int[] board, AtomicBoolean stop)
+		{
+			this.board = Arrays.copyOf(board, SIZE);
+			this.stop = stop;
+
+			for (int i = 0; i < SIZE; i++)
+			{
+				if (board[i] == BLANK_TILE_VALUE)
+				{
+					blank = i;
+				}
+				else
+				{
+					positions[board[i]] = i;
+				}
+			}
+
+			for (int i = 0; i < values.length; i++)
+			{
+				values[i] = database.getValue(i, positions);
+				h += values[i];
+			}
+		}
+
+		Search copy()
+		{
+			return new Search(board, stop);
+		}
+
+		/**
+		 * Run the whole iterative deepening search on this thread.
+		 *
+		 * @return the blank positions after each move, or null if cancelled
+		 */
+		int[] run()
+		{
+			int bound = h;
+
+			while (true)
+			{
+				nextBound = Integer.MAX_VALUE;
+
+				if (search(0, bound, -1))
+				{
+					return Arrays.copyOf(path, depth);
+				}
+
+				if (aborted || nextBound == Integer.MAX_VALUE)
+				{
+					return null;
+				}
+
+				bound = nextBound;
+			}
+		}
+
+		/**
+		 * Move the tile at the given position into the blank.
+		 */
+		void move(int from)
+		{
+			int tile = board[from];
+			board[blank] = tile;
+			board[from] = BLANK_TILE_VALUE;
+			positions[tile] = blank;
+			blank = from;
+
+			int pattern = PatternDatabase.getPattern(tile);
+			int value = database.getValue(pattern, positions);
+			h += value - values[pattern];
+			values[pattern] = value;
+		}
+
+		boolean search(int g, int bound, int prev)
+		{
+			int f = g + h;
+
+			if (f > bound)
+			{
+				if (f < nextBound)
+				{
+					nextBound = f;
+				}
+				return false;
+			}
+
+			if (h == 0)
+			{
+				depth = g;
+				return true;
+			}
+
+			if ((++nodes & CHECK_INTERVAL) == 0 && (stop.get() || Thread.currentThread().isInterrupted()))
+			{
+				stop.set(true);
+				aborted = true;
+			}
+
+			if (aborted || g >= MAX_DEPTH)
+			{
+				return false;
+			}
+
+			int current = blank;
+			for (int next : NEIGHBOURS[current])
+			{
+				if (next == prev)
+				{
+					continue;
+				}
+
+				move(next);
+				path[g] = next;
+
+				if (search(g + 1, bound, current))
+				{
+					return true;
+				}
+
+				move(current);
+			}
+
+			return false;
+		}
+	}
+}
@@ -78,7 +78,9 @@ import net.runelite.client.game.WorldService;
 import net.runelite.client.input.KeyManager;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
+import net.runelite.client.plugins.worldhopper.ping.MultiPing;
 import net.runelite.client.plugins.worldhopper.ping.Ping;
+import net.runelite.client.plugins.worldhopper.ping.PingScheduler;
 import net.runelite.client.ui.ClientToolbar;
 import net.runelite.client.ui.NavigationButton;
 import net.runelite.client.ui.overlay.OverlayManager;
@@ -152,14 +154,16 @@ public class WorldHopperPlugin extends Plugin
 
 	private int favoriteWorld1, favoriteWorld2;
 
+	private static final int MAX_PINGS_PER_BATCH = 50;
+
 	private ScheduledFuture<?> pingFuture, currPingFuture;
-	private int currentWorld;
 	private Instant lastFetch;
 
 	@Getter(AccessLevel.PACKAGE)
 	private int currentPing;
 
 	private final Map<Integer, Integer> storedPings = new HashMap<>();
+	private final PingScheduler pingScheduler = new PingScheduler();
 
 	private final HotkeyListener previousKeyListener = new HotkeyListener(() -> config.previousKey())
 	{
@@ -218,7 +222,7 @@ public class WorldHopperPlugin extends Plugin
 		hopperExecutorService.execute(this::pingInitialWorlds);
 
 		// Give some initial delay - this won't run until after pingInitialWorlds finishes from tick() anyway
-		pingFuture = hopperExecutorService.scheduleWithFixedDelay(this::pingNextWorld, 15, 3, TimeUnit.SECONDS);
+		pingFuture = hopperExecutorService.scheduleWithFixedDelay(this::pingDueWorlds, 15, 3, TimeUnit.SECONDS);
 		currPingFuture = hopperExecutorService.scheduleWithFixedDelay(this::pingCurrentWorld, 15, 1, TimeUnit.SECONDS);
 
 		// populate initial world list
@@ -243,6 +247,8 @@ public class WorldHopperPlugin extends Plugin
 
 		hopperExecutorService.shutdown();
 		hopperExecutorService = null;
+
+		pingScheduler.clear();
 	}
 
 	@Subscribe
@@ -794,7 +800,8 @@ public class WorldHopperPlugin extends Plugin
 	}
 
 	/**
-	 * Ping all worlds. This takes a long time and is only run on first run.
+	 * Ping all worlds. This is only run on first run. The worlds are pinged concurrently
+	 * and the panel is updated as the results arrive.
 	 */
 	private void pingInitialWorlds()
 	{
@@ -806,11 +813,7 @@ public class WorldHopperPlugin extends Plugin
 
 		Stopwatch stopwatch = Stopwatch.createStarted();
 
-		for (World world : worldResult.getWorlds())
-		{
-			int ping = ping(world);
-			SwingUtilities.invokeLater(() -> panel.updatePing(world.getId(), ping));
-		}
+		MultiPing.ping(worldResult.getWorlds(), this::onPing);
 
 		stopwatch.stop();
 
@@ -818,9 +821,9 @@ public class WorldHopperPlugin extends Plugin
 	}
 
 	/**
-	 * Ping the next world
+	 * Ping the worlds which are due to be re-pinged
 	 */
-	private void pingNextWorld()
+	private void pingDueWorlds()
 	{
 		WorldResult worldResult = worldService.getWorlds();
 		if (worldResult == null || !config.showSidebar() || !config.ping())
@@ -828,29 +831,28 @@ public class WorldHopperPlugin extends Plugin
 			return;
 		}
 
-		List<World> worlds = worldResult.getWorlds();
-		if (worlds.isEmpty())
-		{
-			return;
-		}
+		List<World> worlds = pingScheduler.due(worldResult.getWorlds(), System.nanoTime(), MAX_PINGS_PER_BATCH);
 
-		if (currentWorld >= worlds.size())
+		// If we are displaying the ping overlay, there is a separate scheduled task for the current world
+		boolean displayPing = config.displayPing() && client.getGameState() == GameState.LOGGED_IN;
+		if (displayPing)
 		{
-			// Wrap back around
-			currentWorld = 0;
+			worlds.removeIf(world -> world.getId() == client.getWorld());
 		}
 
-		World world = worlds.get(currentWorld++);
-
-		// If we are displaying the ping overlay, there is a separate scheduled task for the current world
-		boolean displayPing = config.displayPing() && client.getGameState() == GameState.LOGGED_IN;
-		if (displayPing && client.getWorld() == world.getId())
+		if (worlds.isEmpty())
 		{
 			return;
 		}
 
-		int ping = ping(world);
+		MultiPing.ping(worlds, this::onPing);
+	}
+
+	private void onPing(World world, int ping)
+	{
 		log.trace("Ping for world {} is: {}", world.getId(), ping);
+		storedPings.put(world.getId(), ping);
+		pingScheduler.record(world.getId(), ping, System.nanoTime());
 		SwingUtilities.invokeLater(() -> panel.updatePing(world.getId(), ping));
 	}
 
@@ -893,6 +895,7 @@ public class WorldHopperPlugin extends Plugin
 	{
 		int ping = Ping.ping(world);
 		storedPings.put(world.getId(), ping);
+		pingScheduler.record(world.getId(), ping, System.nanoTime());
 		return ping;
 	}
 }
@@ -63,6 +63,7 @@ class WorldSwitcherPanel extends PluginPanel
 
 	private WorldOrder orderIndex = WorldOrder.WORLD;
 	private boolean ascendingOrder = true;
+	private boolean pingResortPending;
 
 	private final ArrayList<WorldTableRow> rows = new ArrayList<>();
 	private final WorldHopperPlugin plugin;
@@ -129,10 +130,16 @@ class WorldSwitcherPanel extends PluginPanel
 			{
 				worldTableRow.setPing(ping);
 
-				// If the panel is sorted by ping, re-sort it
-				if (orderIndex == WorldOrder.PING)
+				// If the panel is sorted by ping, re-sort it. Pings arrive in bursts, so
+				// only re-sort once the pending updates have been applied
+				if (orderIndex == WorldOrder.PING && !pingResortPending)
 				{
-					updateList();
+					pingResortPending = true;
+					SwingUtilities.invokeLater(() ->
+					{
+						pingResortPending = false;
+						updateList();
+					});
 				}
 				break;
 			}
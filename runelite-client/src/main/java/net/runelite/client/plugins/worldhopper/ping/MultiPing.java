@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.worldhopper.ping;
+
+import com.google.common.primitives.Bytes;
+import com.sun.jna.Memory;
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.channels.Channel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.util.OSType;
+import net.runelite.http.api.worlds.World;
+
+/**
+ * Pings many worlds at once. On Linux and MacOS echo requests for every world are sent over a single
+ * ICMP socket and the replies are matched back up by sequence number; elsewhere, or if ICMP sockets
+ * are unavailable, TCP connects are timed with a selector. Results are reported as they arrive.
+ */
+@Slf4j
+public class MultiPing
+{
+	/**
+	 * Max number of outstanding TCP connects
+	 */
+	private static final int MAX_TCP_CONNECTS = 32;
+	/**
+	 * recvfrom() timeout for the ICMP socket, so that the overall deadline is checked
+	 */
+	private static final int ICMP_POLL_TIMEOUT = 100; // ms
+
+	public interface PingListener
+	{
+		/**
+		 * Called on the pinging thread when a result for a world is known
+		 *
+		 * @param world the world
+		 * @param ping round trip time in ms, or -1 if the world did not respond
+		 */
+		void onPing(World world, int ping);
+	}
+
+	@RequiredArgsConstructor
+	private static class Probe
+	{
+		private final World world;
+		private final InetAddress address;
+		private long start;
+	}
+
+	private static short seq = (short) ThreadLocalRandom.current().nextInt();
+
+	/**
+	 * Ping the given worlds concurrently. This blocks until every world has either responded or timed out.
+	 *
+	 * @param worlds worlds to ping
+	 * @param listener listener for the results
+	 */
+	public static void ping(Collection<World> worlds, PingListener listener)
+	{
+		List<Probe> probes = new ArrayList<>(worlds.size());
+		for (World world : worlds)
+		{
+			InetAddress inetAddress;
+			try
+			{
+				inetAddress = InetAddress.getByName(world.getAddress());
+			}
+			catch (UnknownHostException ex)
+			{
+				log.warn("error resolving host for world ping", ex);
+				listener.onPing(world, -1);
+				continue;
+			}
+
+			if (!(inetAddress instanceof Inet4Address))
+			{
+				log.debug("Only ipv4 ping is supported");
+				listener.onPing(world, -1);
+				continue;
+			}
+
+			probes.add(new Probe(world, inetAddress));
+		}
+
+		if (probes.isEmpty())
+		{
+			return;
+		}
+
+		switch (OSType.getOSType())
+		{
+			case MacOS:
+			case Linux:
+				try
+				{
+					icmpPing(probes, OSType.getOSType() == OSType.MacOS, listener);
+					return;
+				}
+				catch (Exception | UnsatisfiedLinkError ex)
+				{
+					log.debug("error during icmp ping", ex);
+				}
+				// fall through to tcp for the worlds which haven't been reported yet
+			default:
+				tcpPing(probes, listener);
+		}
+	}
+
+	/**
+	 * Ping over a single ICMP socket. Probes are removed from the list as they are reported.
+	 */
+	private static void icmpPing(List<Probe> probes, boolean includeIpHeader, PingListener listener) throws IOException
+	{
+		RLLibC libc = RLLibC.INSTANCE;
+
+		int sock = libc.socket(libc.AF_INET, libc.SOCK_DGRAM, libc.IPPROTO_ICMP);
+		if (sock < 0)
+		{
+			throw new IOException("failed to open ICMP socket");
+		}
+
+		try
+		{
+			Timeval tv = new Timeval();
+			tv.tv_sec = 0;
+			tv.tv_usec = TimeUnit.MILLISECONDS.toMicros(ICMP_POLL_TIMEOUT);
+			tv.write();
+
+			if (libc.setsockopt(sock, libc.SOL_SOCKET, libc.SO_RCVTIMEO, tv.getPointer(), tv.size()) < 0)
+			{
+				throw new IOException("failed to set SO_RCVTIMEO");
+			}
+
+			Map<Short, Probe> outstanding = new HashMap<>(probes.size() * 2);
+			for (Iterator<Probe> it = probes.iterator(); it.hasNext(); )
+			{
+				Probe probe = it.next();
+				short seqno = seq++;
+
+				// struct icmphdr, see Ping
+				byte[] request = {
+					8, // type 8 - ipv4 echo request
+					0, // code
+					0, 0, // checksum
+					0, 0, // id
+					(byte) (((seqno >> 8) & 0xff)), (byte) (seqno & 0xff)
+				};
+				request = Bytes.concat(request, Ping.RUNELITE_PING);
+
+				final short checksum = Ping.checksum(request);
+				request[2] = (byte) ((checksum >> 8) & 0xff);
+				request[3] = (byte) (checksum & 0xff);
+
+				byte[] address = probe.address.getAddress();
+				// struct sockaddr_in
+				byte[] addr = {
+					(byte) libc.AF_INET, 0, // sin_family
+					0, 0, // sin_port
+					address[0], address[1], address[2], address[3], // sin_addr.s_addr
+					0, 0, 0, 0, 0, 0, 0, 0 // padding
+				};
+
+				probe.start = System.nanoTime();
+				if (libc.sendto(sock, request, request.length, 0, addr, addr.length) != request.length)
+				{
+					it.remove();
+					listener.onPing(probe.world, -1);
+					continue;
+				}
+
+				outstanding.put(seqno, probe);
+			}
+
+			int size = 8 + Ping.RUNELITE_PING.length + (includeIpHeader ? Ping.MAX_IPV4_HEADER_SIZE : 0);
+			Memory response = new Memory(size);
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Ping.TIMEOUT);
+
+			while (!outstanding.isEmpty() && System.nanoTime() < deadline)
+			{
+				int rlen = libc.recvfrom(sock, response, size, 0, null, null);
+				long end = System.nanoTime();
+				if (rlen <= 0)
+				{
+					// timed out, check the deadline
+					continue;
+				}
+
+				int icmpHeaderOffset = 0;
+				if (includeIpHeader)
+				{
+					int ihl = response.getByte(0) & 0xf;
+					icmpHeaderOffset = ihl << 2; // to bytes
+				}
+
+				if (icmpHeaderOffset + 7 >= rlen || response.getByte(icmpHeaderOffset) != 0) // ICMP type - echo reply
+				{
+					continue;
+				}
+
+				short seqno = (short) (((response.getByte(icmpHeaderOffset + 6) & 0xff) << 8) | response.getByte(icmpHeaderOffset + 7) & 0xff);
+				Probe probe = outstanding.remove(seqno);
+				if (probe == null)
+				{
+					log.debug("reply for unknown sequence number {}", seqno);
+					continue;
+				}
+
+				probes.remove(probe);
+				listener.onPing(probe.world, (int) ((end - probe.start) / 1_000_000));
+			}
+
+			for (Probe probe : outstanding.values())
+			{
+				listener.onPing(probe.world, -1);
+			}
+			probes.clear();
+		}
+		finally
+		{
+			libc.close(sock);
+		}
+	}
+
+	/**
+	 * Time TCP connects to the game port, with up to {@link #MAX_TCP_CONNECTS} outstanding at once.
+	 */
+	private static void tcpPing(List<Probe> probes, PingListener listener)
+	{
+		Deque<Probe> queue = new ArrayDeque<>(probes);
+		try (Selector selector = Selector.open())
+		{
+			while (!queue.isEmpty() || !selector.keys().isEmpty())
+			{
+				while (!queue.isEmpty() && selector.keys().size() < MAX_TCP_CONNECTS)
+				{
+					Probe probe = queue.poll();
+					SocketChannel channel = null;
+					try
+					{
+						channel = SocketChannel.open();
+						channel.configureBlocking(false);
+						probe.start = System.nanoTime();
+						if (channel.connect(new InetSocketAddress(probe.address, Ping.PORT)))
+						{
+							channel.close();
+							listener.onPing(probe.world, (int) ((System.nanoTime() - probe.start) / 1_000_000));
+						}
+						else
+						{
+							channel.register(selector, SelectionKey.OP_CONNECT, probe);
+						}
+					}
+					catch (IOException ex)
+					{
+						log.debug("error pinging", ex);
+						if (channel != null)
+						{
+							closeQuietly(channel);
+						}
+						listener.onPing(probe.world, -1);
+					}
+				}
+
+				if (selector.keys().isEmpty())
+				{
+					continue;
+				}
+
+				selector.select(Ping.TIMEOUT / 10);
+				long now = System.nanoTime();
+
+				for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext(); )
+				{
+					SelectionKey key = it.next();
+					it.remove();
+
+					Probe probe = (Probe) key.attachment();
+					SocketChannel channel = (SocketChannel) key.channel();
+					int ping;
+					try
+					{
+						channel.finishConnect();
+						ping = (int) ((now - probe.start) / 1_000_000);
+					}
+					catch (IOException ex)
+					{
+						ping = -1;
+					}
+
+					key.cancel();
+					closeQuietly(channel);
+					listener.onPing(probe.world, ping);
+				}
+
+				// expire connects which have timed out
+				for (SelectionKey key : selector.keys())
+				{
+					Probe probe = (Probe) key.attachment();
+					if (key.isValid() && now - probe.start >= TimeUnit.MILLISECONDS.toNanos(Ping.TIMEOUT))
+					{
+						key.cancel();
+						closeQuietly(key.channel());
+						listener.onPing(probe.world, -1);
+					}
+				}
+
+				// flush the cancelled keys out of the key set
+				selector.selectNow();
+			}
+		}
+		catch (IOException ex)
+		{
+			log.warn("error pinging", ex);
+			for (Probe probe : queue)
+			{
+				listener.onPing(probe.world, -1);
+			}
+		}
+	}
+
+	private static void closeQuietly(Channel channel)
+	{
+		try
+		{
+			channel.close();
+		}
+		catch (IOException ex)
+		{
+			log.debug(null, ex);
+		}
+	}
+}
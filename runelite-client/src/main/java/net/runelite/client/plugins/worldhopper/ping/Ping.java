@@ -41,10 +41,10 @@ import net.runelite.http.api.worlds.World;
 @Slf4j
 public class Ping
 {
-	private static final byte[] RUNELITE_PING = "RuneLitePing".getBytes(Charsets.UTF_8);
-	private static final int TIMEOUT = 2000; // ms
-	private static final int PORT = 43594;
-	private static final int MAX_IPV4_HEADER_SIZE = 60;
+	static final byte[] RUNELITE_PING = "RuneLitePing".getBytes(Charsets.UTF_8);
+	static final int TIMEOUT = 2000; // ms
+	static final int PORT = 43594;
+	static final int MAX_IPV4_HEADER_SIZE = 60;
 
 	private static short seq;
 
@@ -228,7 +228,7 @@ public class Ping
 	}
 
 	// IP checksum
-	private static short checksum(byte[] data)
+	static short checksum(byte[] data)
 	{
 		int a = 0;
 		for (int i = 0; i < data.length - 1; i += 2)
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.worldhopper.ping;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.runelite.http.api.worlds.World;
+
+/**
+ * Decides when each world should next be pinged. A smoothed rtt and rtt variance are kept per world in
+ * the same way as TCP's retransmission timer (RFC 6298), and worlds whose ping is stable are re-pinged
+ * less often than worlds whose ping is varying or which are not responding.
+ */
+public class PingScheduler
+{
+	static final long MIN_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+	static final long MAX_INTERVAL = TimeUnit.MINUTES.toNanos(10);
+	/**
+	 * How strongly the rtt variance, relative to the rtt, shortens the interval
+	 */
+	private static final int VARIANCE_WEIGHT = 8;
+
+	private static class Estimate
+	{
+		private double srtt = -1;
+		private double rttvar;
+		private long due;
+	}
+
+	private final Map<Integer, Estimate> estimates = new HashMap<>();
+
+	/**
+	 * Record the result of a ping and schedule the next one
+	 *
+	 * @param world world id
+	 * @param ping ping in ms, or -1 if the world did not respond
+	 * @param now current time in ns, from {@link System#nanoTime()}
+	 */
+	public synchronized void record(int world, int ping, long now)
+	{
+		Estimate estimate = estimates.computeIfAbsent(world, k -> new Estimate());
+		if (ping < 0)
+		{
+			// retry failed worlds soon, without disturbing the estimate
+			estimate.due = now + MIN_INTERVAL;
+			return;
+		}
+
+		if (estimate.srtt < 0)
+		{
+			estimate.srtt = ping;
+			estimate.rttvar = ping / 2.0;
+		}
+		else
+		{
+			estimate.rttvar = 0.75 * estimate.rttvar + 0.25 * Math.abs(estimate.srtt - ping);
+			estimate.srtt = 0.875 * estimate.srtt + 0.125 * ping;
+		}
+
+		estimate.due = now + interval(estimate.srtt, estimate.rttvar);
+	}
+
+	static long interval(double srtt, double rttvar)
+	{
+		double ratio = rttvar / Math.max(srtt, 1);
+		long interval = (long) (MAX_INTERVAL / (1 + ratio * VARIANCE_WEIGHT));
+		return Math.max(MIN_INTERVAL, Math.min(MAX_INTERVAL, interval));
+	}
+
+	/**
+	 * Get the worlds which are due to be pinged, most overdue first. Worlds which
+	 * have never been pinged are always due.
+	 *
+	 * @param worlds all worlds
+	 * @param now current time in ns, from {@link System#nanoTime()}
+	 * @param max maximum number of worlds to return
+	 * @return worlds to ping
+	 */
+	public synchronized List<World> due(List<World> worlds, long now, int max)
+	{
+		List<World> due = new ArrayList<>();
+		for (World world : worlds)
+		{
+			Estimate estimate = estimates.get(world.getId());
+			if (estimate == null || estimate.due - now <= 0)
+			{
+				due.add(world);
+			}
+		}
+
+		due.sort((w1, w2) -> Long.compare(dueTime(w1, now), dueTime(w2, now)));
+		return due.size() > max ? new ArrayList<>(due.subList(0, max)) : due;
+	}
+
+	private long dueTime(World world, long now)
+	{
+		Estimate estimate = estimates.get(world.getId());
+		// relative to now to be overflow safe
+		return estimate == null ? Long.MIN_VALUE : estimate.due - now;
+	}
+
+	public synchronized void clear()
+	{
+		estimates.clear();
+	}
+}
@@ -24,28 +24,24 @@
  */
 package net.runelite.client.plugins.xptracker;
 
-import java.io.IOException;
 import javax.inject.Inject;
 import javax.inject.Named;
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.Call;
-import okhttp3.Callback;
+import net.runelite.client.submission.SubmissionEndpoint;
+import net.runelite.client.submission.SubmissionQueue;
 import okhttp3.HttpUrl;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
 
 @Slf4j
 public class XpClient
 {
-	private final OkHttpClient client;
 	private final HttpUrl apiBase;
+	private final SubmissionQueue submissionQueue;
 
 	@Inject
-	private XpClient(OkHttpClient client, @Named("runelite.api.base") HttpUrl apiBase)
+	private XpClient(@Named("runelite.api.base") HttpUrl apiBase, SubmissionQueue submissionQueue)
 	{
-		this.client = client;
 		this.apiBase = apiBase;
+		this.submissionQueue = submissionQueue;
 	}
 
 	public void update(String username)
@@ -56,24 +52,10 @@ public class XpClient
 			.addQueryParameter("username", username)
 			.build();
 
-		Request request = new Request.Builder()
-			.url(url)
-			.build();
-
-		client.newCall(request).enqueue(new Callback()
-		{
-			@Override
-			public void onFailure(Call call, IOException e)
-			{
-				log.warn("Error submitting xp track", e);
-			}
-
-			@Override
-			public void onResponse(Call call, Response response)
-			{
-				response.close();
-				log.debug("Submitted xp track for {}", username);
-			}
-		});
+		// repeated updates for the same player are coalesced while one is pending
+		SubmissionEndpoint endpoint = SubmissionEndpoint.get(url);
+		submissionQueue.enqueue(endpoint, null);
+		submissionQueue.flush(endpoint);
+		log.debug("Queued xp track for {}", username);
 	}
 }
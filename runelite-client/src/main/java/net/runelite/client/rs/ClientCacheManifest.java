@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.rs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Records what is known about the jars in the client cache, keyed on their size and mtime and checked
+ * against their hash, so that unchanged jars do not have to be verified or indexed again on the next launch.
+ */
+@Slf4j
+class ClientCacheManifest
+{
+	private static final int VERSION = 1;
+
+	@Getter
+	@Setter
+	static class Artifact
+	{
+		private final long length;
+		private final long lastModified;
+		/**
+		 * sha-512 of the file, or null if it has not been hashed
+		 */
+		private byte[] sha512;
+		/**
+		 * whether the sha-512 has been checked against the file during this launch. This is not saved.
+		 */
+		private boolean hashed;
+		/**
+		 * whether the jar entries have been verified against the jagex certificate chains
+		 */
+		private boolean verified;
+		/**
+		 * class index of the jar, or null if it has not been indexed
+		 */
+		private Map<String, JarImage.ClassEntry> classes;
+
+		Artifact(long length, long lastModified)
+		{
+			this.length = length;
+			this.lastModified = lastModified;
+		}
+	}
+
+	private final File file;
+	private final Map<String, Artifact> artifacts = new HashMap<>();
+
+	private ClientCacheManifest(File file)
+	{
+		this.file = file;
+	}
+
+	/**
+	 * Get the artifact for a file. If the file has changed since it was last recorded, the old
+	 * artifact is discarded and a new empty one is returned.
+	 */
+	Artifact get(File jar)
+	{
+		long length = jar.length();
+		long lastModified = jar.lastModified();
+		Artifact artifact = artifacts.get(jar.getName());
+		if (artifact == null || artifact.length != length || artifact.lastModified != lastModified)
+		{
+			artifact = new Artifact(length, lastModified);
+			artifacts.put(jar.getName(), artifact);
+		}
+		return artifact;
+	}
+
+	void invalidate(File jar)
+	{
+		artifacts.remove(jar.getName());
+	}
+
+	static ClientCacheManifest load(File file)
+	{
+		ClientCacheManifest manifest = new ClientCacheManifest(file);
+		if (!file.exists())
+		{
+			return manifest;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+		{
+			if (in.readInt() != VERSION)
+			{
+				log.debug("Ignoring client cache manifest with a different version");
+				return manifest;
+			}
+
+			int artifactCount = in.readInt();
+			for (int i = 0; i < artifactCount; ++i)
+			{
+				String name = in.readUTF();
+				Artifact artifact = new Artifact(in.readLong(), in.readLong());
+				artifact.verified = in.readBoolean();
+
+				int hashLength = in.readUnsignedShort();
+				if (hashLength > 0)
+				{
+					artifact.sha512 = new byte[hashLength];
+					in.readFully(artifact.sha512);
+				}
+
+				int classCount = in.readInt();
+				if (classCount >= 0)
+				{
+					Map<String, JarImage.ClassEntry> classes = new LinkedHashMap<>(classCount * 2);
+					for (int j = 0; j < classCount; ++j)
+					{
+						classes.put(in.readUTF(), new JarImage.ClassEntry(in.readInt(), in.readInt(), in.readInt(), in.readUnsignedByte(), in.readInt()));
+					}
+					artifact.classes = classes;
+				}
+
+				manifest.artifacts.put(name, artifact);
+			}
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to read client cache manifest", ex);
+			manifest.artifacts.clear();
+		}
+
+		return manifest;
+	}
+
+	void save()
+	{
+		File tempFile = null;
+		try
+		{
+			tempFile = File.createTempFile("manifest", null, file.getParentFile());
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+			{
+				out.writeInt(VERSION);
+				out.writeInt(artifacts.size());
+				for (Map.Entry<String, Artifact> e : artifacts.entrySet())
+				{
+					Artifact artifact = e.getValue();
+					out.writeUTF(e.getKey());
+					out.writeLong(artifact.length);
+					out.writeLong(artifact.lastModified);
+					out.writeBoolean(artifact.verified);
+
+					if (artifact.sha512 != null)
+					{
+						out.writeShort(artifact.sha512.length);
+						out.write(artifact.sha512);
+					}
+					else
+					{
+						out.writeShort(0);
+					}
+
+					if (artifact.classes != null)
+					{
+						out.writeInt(artifact.classes.size());
+						for (Map.Entry<String, JarImage.ClassEntry> c : artifact.classes.entrySet())
+						{
+							JarImage.ClassEntry entry = c.getValue();
+							out.writeUTF(c.getKey());
+							out.writeInt(entry.getOffset());
+							out.writeInt(entry.getCompressedSize());
+							out.writeInt(entry.getSize());
+							out.writeByte(entry.getMethod());
+							out.writeInt(entry.getCrc());
+						}
+					}
+					else
+					{
+						out.writeInt(-1);
+					}
+				}
+			}
+
+			try
+			{
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex)
+			{
+				log.debug("atomic move not supported", ex);
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to save client cache manifest", ex);
+			if (tempFile != null)
+			{
+				tempFile.delete();
+			}
+		}
+	}
+}
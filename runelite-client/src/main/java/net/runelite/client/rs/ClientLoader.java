@@ -50,6 +50,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Enumeration;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -83,6 +84,7 @@ public class ClientLoader implements Supplier<Applet>
 	private static File LOCK_FILE = new File(RuneLite.CACHE_DIR, "cache.lock");
 	private static File VANILLA_CACHE = new File(RuneLite.CACHE_DIR, "vanilla.cache");
 	private static File PATCHED_CACHE = new File(RuneLite.CACHE_DIR, "patched.cache");
+	private static File MANIFEST_FILE = new File(RuneLite.CACHE_DIR, "cache.manifest");
 
 	private final OkHttpClient okHttpClient;
 	private final ClientConfigLoader clientConfigLoader;
@@ -92,6 +94,7 @@ public class ClientLoader implements Supplier<Applet>
 	private final String javConfigUrl;
 
 	private Object client;
+	private ClientCacheManifest manifest;
 
 	public ClientLoader(OkHttpClient okHttpClient, ClientUpdateCheckMode updateCheckMode, RuntimeConfigLoader runtimeConfigLoader, String javConfigUrl)
 	{
@@ -138,6 +141,9 @@ public class ClientLoader implements Supplier<Applet>
 				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
 				FileLock flock = lockfile.lock())
 			{
+				final long start = System.nanoTime();
+				manifest = ClientCacheManifest.load(MANIFEST_FILE);
+
 				SplashScreen.stage(.05, null, "Downloading Old School RuneScape");
 				try
 				{
@@ -169,6 +175,9 @@ public class ClientLoader implements Supplier<Applet>
 				// create the classloader for the jar while we hold the lock, and eagerly load and link all classes
 				// in the jar. Otherwise the jar can change on disk and can break future classloads.
 				classLoader = createJarClassLoader(jarFile);
+
+				manifest.save();
+				log.info("Client prepared in {}ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
 			}
 
 			SplashScreen.stage(.465, "Starting", "Starting Old School RuneScape");
@@ -390,22 +399,35 @@ public class ClientLoader implements Supplier<Applet>
 					// intact before closing the server connection
 					if (!vanillaCacheIsInvalid)
 					{
-						try
+						// skip verifying the jar again if it hasn't changed since the last time it was verified. The
+						// jar is hashed first, which discards what is known about it if it was modified in place.
+						hash(VANILLA_CACHE);
+						ClientCacheManifest.Artifact artifact = manifest.get(VANILLA_CACHE);
+						if (artifact.isVerified())
 						{
-							// as with the request stream, its important to not early close vanilla too
-							JarInputStream vanillaCacheTest = new JarInputStream(Channels.newInputStream(vanilla));
-							verifyWholeJar(vanillaCacheTest, jagexCertificateChains);
+							log.debug("Vanilla cache is unchanged since it was last verified");
 						}
-						catch (Exception e)
+						else
 						{
-							log.warn("Failed to verify the vanilla cache", e);
-							vanillaCacheIsInvalid = true;
+							try
+							{
+								// as with the request stream, its important to not early close vanilla too
+								JarInputStream vanillaCacheTest = new JarInputStream(Channels.newInputStream(vanilla));
+								verifyWholeJar(vanillaCacheTest, jagexCertificateChains);
+								artifact.setVerified(true);
+							}
+							catch (Exception e)
+							{
+								log.warn("Failed to verify the vanilla cache", e);
+								vanillaCacheIsInvalid = true;
+							}
 						}
 					}
 
 					if (vanillaCacheIsInvalid)
 					{
 						// the cache is not up to date, commit our peek to the file and write the rest of it, while verifying
+						manifest.invalidate(VANILLA_CACHE);
 						vanilla.position(0);
 						OutputStream out = Channels.newOutputStream(vanilla);
 						out.write(preRead.toByteArray());
@@ -464,7 +486,7 @@ public class ClientLoader implements Supplier<Applet>
 			dis.readFully(appliedPatchHash);
 		}
 
-		byte[] vanillaCacheHash = Files.asByteSource(VANILLA_CACHE).hash(Hashing.sha512()).asBytes();
+		byte[] vanillaCacheHash = hash(VANILLA_CACHE);
 		if (!Arrays.equals(vanillaHash, vanillaCacheHash))
 		{
 			log.info("Client is outdated!");
@@ -474,7 +496,7 @@ public class ClientLoader implements Supplier<Applet>
 
 		if (PATCHED_CACHE.exists())
 		{
-			byte[] diskBytes = Files.asByteSource(PATCHED_CACHE).hash(Hashing.sha512()).asBytes();
+			byte[] diskBytes = hash(PATCHED_CACHE);
 			if (!Arrays.equals(diskBytes, appliedPatchHash))
 			{
 				log.warn("Cached patch hash mismatches, regenerating patch");
@@ -486,6 +508,7 @@ public class ClientLoader implements Supplier<Applet>
 			}
 		}
 
+		manifest.invalidate(PATCHED_CACHE);
 		try (HashingOutputStream hos = new HashingOutputStream(Hashing.sha512(), java.nio.file.Files.newOutputStream(PATCHED_CACHE.toPath()));
 			InputStream patch = ClientLoader.class.getResourceAsStream("/client.patch"))
 		{
@@ -504,9 +527,123 @@ public class ClientLoader implements Supplier<Applet>
 			updateCheckMode = VANILLA;
 			return;
 		}
+
+		// the patched client is known to match the patch hash, so it doesn't need to be hashed again this launch
+		ClientCacheManifest.Artifact artifact = manifest.get(PATCHED_CACHE);
+		artifact.setSha512(appliedPatchHash);
+		artifact.setHashed(true);
+	}
+
+	/**
+	 * Get the sha-512 of a file in the cache. The file is hashed once per launch, since its size and mtime
+	 * alone don't show that it is unchanged. If the file was recorded without a hash, or no longer matches
+	 * the recorded hash, everything recorded about it is discarded, including whether it was verified.
+	 */
+	private byte[] hash(File file) throws IOException
+	{
+		ClientCacheManifest.Artifact artifact = manifest.get(file);
+		if (!artifact.isHashed())
+		{
+			byte[] sha512 = Files.asByteSource(file).hash(Hashing.sha512()).asBytes();
+			if (!Arrays.equals(artifact.getSha512(), sha512))
+			{
+				if (artifact.getSha512() != null)
+				{
+					log.warn("{} has changed since it was last hashed", file.getName());
+				}
+				manifest.invalidate(file);
+				artifact = manifest.get(file);
+				artifact.setSha512(sha512);
+			}
+			artifact.setHashed(true);
+		}
+		return artifact.getSha512();
 	}
 
 	private ClassLoader createJarClassLoader(File jar) throws IOException, ClassNotFoundException
+	{
+		ClientCacheManifest.Artifact artifact = manifest.get(jar);
+
+		// The image is read onto the heap instead of being mapped, since a mapping can't be released
+		// until it is collected, and would keep the cache from being rewritten by other clients on
+		// some platforms. It is only referenced until all of the classes have been defined.
+		byte[] image = java.nio.file.Files.readAllBytes(jar.toPath());
+		if (image.length == artifact.getLength())
+		{
+			if (artifact.getClasses() != null)
+			{
+				try
+				{
+					return createIndexedClassLoader(new JarImage(image, artifact.getClasses()));
+				}
+				catch (IOException | ClassNotFoundException | LinkageError e)
+				{
+					log.warn("Unable to load client from the jar index, reindexing the jar", e);
+					artifact.setClasses(null);
+				}
+			}
+
+			try
+			{
+				Map<String, JarImage.ClassEntry> classes = JarImage.index(image);
+				ClassLoader classLoader = createIndexedClassLoader(new JarImage(image, classes));
+				artifact.setClasses(classes);
+				return classLoader;
+			}
+			catch (IOException | ClassNotFoundException | LinkageError e)
+			{
+				log.warn("Unable to index client jar, falling back to the jar", e);
+			}
+		}
+
+		return createVerifiedJarClassLoader(jar);
+	}
+
+	/**
+	 * Create a classloader which reads classes out of an in-memory image of the jar, without going
+	 * through {@link JarFile}. All of the classes are defined up front, and the image is closed
+	 * afterward so the jar contents aren't kept alive by the classloader.
+	 */
+	private ClassLoader createIndexedClassLoader(JarImage jarImage) throws IOException, ClassNotFoundException
+	{
+		try (JarImage image = jarImage)
+		{
+			ClassLoader classLoader = new ClassLoader(ClientLoader.class.getClassLoader())
+			{
+				@Override
+				protected Class<?> findClass(String name) throws ClassNotFoundException
+				{
+					byte[] bytes;
+					try
+					{
+						bytes = image.read(name);
+					}
+					catch (IOException e)
+					{
+						throw new ClassNotFoundException(name, e);
+					}
+
+					if (bytes == null)
+					{
+						throw new ClassNotFoundException(name);
+					}
+
+					return defineClass(name, bytes, 0, bytes.length);
+				}
+			};
+
+			// as with the jar classloader, load all of the classes up front; after the image is closed
+			// the classloader will no longer be able to look up classes
+			for (String name : image.getClasses().keySet())
+			{
+				classLoader.loadClass(name);
+			}
+
+			return classLoader;
+		}
+	}
+
+	private ClassLoader createVerifiedJarClassLoader(File jar) throws IOException, ClassNotFoundException
 	{
 		try (JarFile jarFile = new JarFile(jar))
 		{
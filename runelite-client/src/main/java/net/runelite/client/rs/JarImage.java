@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.rs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import lombok.Value;
+
+/**
+ * An in-memory image of a jar with an index of where each class is stored within it.
+ * Classes are read directly out of the image without going through {@link java.util.jar.JarFile}.
+ * Closing the image releases it, after which no more classes can be read.
+ */
+class JarImage implements Closeable
+{
+	private static final int LOCAL_HEADER_SIG = 0x04034b50;
+	private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+	private static final int END_HEADER_SIG = 0x06054b50;
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int END_HEADER_SIZE = 22;
+
+	@Value
+	static class ClassEntry
+	{
+		/**
+		 * offset of the entry data within the jar
+		 */
+		int offset;
+		int compressedSize;
+		int size;
+		int method;
+		int crc;
+	}
+
+	private byte[] image;
+	private final Map<String, ClassEntry> classes;
+
+	JarImage(byte[] image, Map<String, ClassEntry> classes)
+	{
+		this.image = image;
+		this.classes = classes;
+	}
+
+	Map<String, ClassEntry> getClasses()
+	{
+		return Collections.unmodifiableMap(classes);
+	}
+
+	/**
+	 * Read a class from the image
+	 *
+	 * @param name binary name of the class
+	 * @return the class bytes, or null if the class is not in the index
+	 * @throws IOException if the entry does not match the index
+	 */
+	byte[] read(String name) throws IOException
+	{
+		ClassEntry entry = classes.get(name);
+		if (entry == null)
+		{
+			return null;
+		}
+
+		byte[] image = this.image;
+		if (image == null)
+		{
+			throw new IOException("jar image is closed");
+		}
+
+		if (entry.getOffset() < 0 || entry.getCompressedSize() < 0
+			|| (long) entry.getOffset() + entry.getCompressedSize() > image.length)
+		{
+			throw new IOException("entry out of bounds: " + name);
+		}
+
+		byte[] data = new byte[entry.getSize()];
+		switch (entry.getMethod())
+		{
+			case ZipEntry.STORED:
+				if (entry.getCompressedSize() != entry.getSize())
+				{
+					throw new IOException("stored entry size mismatch: " + name);
+				}
+				System.arraycopy(image, entry.getOffset(), data, 0, data.length);
+				break;
+			case ZipEntry.DEFLATED:
+				Inflater inflater = new Inflater(true);
+				try
+				{
+					inflater.setInput(image, entry.getOffset(), entry.getCompressedSize());
+					int n = 0;
+					while (n < data.length)
+					{
+						int read = inflater.inflate(data, n, data.length - n);
+						if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+						{
+							break;
+						}
+						n += read;
+					}
+					if (n != data.length)
+					{
+						throw new IOException("short entry: " + name);
+					}
+				}
+				catch (DataFormatException ex)
+				{
+					throw new IOException("malformed entry: " + name, ex);
+				}
+				finally
+				{
+					inflater.end();
+				}
+				break;
+			default:
+				throw new IOException("unsupported compression method " + entry.getMethod() + ": " + name);
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length);
+		if ((int) crc.getValue() != entry.getCrc())
+		{
+			throw new IOException("crc mismatch: " + name);
+		}
+
+		return data;
+	}
+
+	@Override
+	public void close()
+	{
+		image = null;
+	}
+
+	/**
+	 * Build the class index of a jar from its central directory
+	 *
+	 * @param image jar file contents
+	 * @return the classes in the jar by binary name, in central directory order
+	 * @throws IOException if the jar is malformed or uses zip64
+	 */
+	static Map<String, ClassEntry> index(byte[] image) throws IOException
+	{
+		int end = -1;
+		for (int i = image.length - END_HEADER_SIZE; i >= Math.max(0, image.length - END_HEADER_SIZE - 0xFFFF); --i)
+		{
+			if (readInt(image, i) == END_HEADER_SIG)
+			{
+				end = i;
+				break;
+			}
+		}
+
+		if (end == -1)
+		{
+			throw new IOException("unable to find end of central directory");
+		}
+
+		int count = readShort(image, end + 10);
+		long cdOffset = readInt(image, end + 16) & 0xFFFFFFFFL;
+		if (count == 0xFFFF || cdOffset == 0xFFFFFFFFL)
+		{
+			throw new IOException("zip64 jars are not supported");
+		}
+
+		Map<String, ClassEntry> classes = new LinkedHashMap<>(count * 2);
+		int pos = (int) cdOffset;
+		for (int i = 0; i < count; ++i)
+		{
+			checkBounds(image, pos, CENTRAL_HEADER_SIZE);
+			if (readInt(image, pos) != CENTRAL_HEADER_SIG)
+			{
+				throw new IOException("bad central directory header at " + pos);
+			}
+
+			int method = readShort(image, pos + 10);
+			int crc = readInt(image, pos + 16);
+			int compressedSize = readInt(image, pos + 20);
+			int size = readInt(image, pos + 24);
+			int nameLength = readShort(image, pos + 28);
+			int extraLength = readShort(image, pos + 30);
+			int commentLength = readShort(image, pos + 32);
+			int localOffset = readInt(image, pos + 42);
+
+			checkBounds(image, pos + CENTRAL_HEADER_SIZE, nameLength);
+			String name = new String(image, pos + CENTRAL_HEADER_SIZE, nameLength, StandardCharsets.UTF_8);
+			pos += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+
+			if (!name.endsWith(".class"))
+			{
+				continue;
+			}
+
+			checkBounds(image, localOffset, LOCAL_HEADER_SIZE);
+			if (readInt(image, localOffset) != LOCAL_HEADER_SIG)
+			{
+				throw new IOException("bad local header for " + name);
+			}
+
+			int dataOffset = localOffset + LOCAL_HEADER_SIZE + readShort(image, localOffset + 26) + readShort(image, localOffset + 28);
+			checkBounds(image, dataOffset, compressedSize);
+
+			String className = name.substring(0, name.length() - 6).replace('/', '.');
+			classes.put(className, new ClassEntry(dataOffset, compressedSize, size, method, crc));
+		}
+
+		return classes;
+	}
+
+	private static void checkBounds(byte[] image, int offset, int length) throws IOException
+	{
+		if (offset < 0 || length < 0 || (long) offset + length > image.length)
+		{
+			throw new IOException("jar entry out of bounds");
+		}
+	}
+
+	private static int readShort(byte[] b, int off)
+	{
+		return (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8;
+	}
+
+	private static int readInt(byte[] b, int off)
+	{
+		return (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8 | (b[off + 2] & 0xFF) << 16 | (b[off + 3] & 0xFF) << 24;
+	}
+}
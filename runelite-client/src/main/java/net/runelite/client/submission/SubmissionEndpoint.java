@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.submission;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import lombok.Value;
+import okhttp3.HttpUrl;
+
+/**
+ * A destination for queued submissions. Submissions queued to equal endpoints are
+ * coalesced: POST endpoints send everything pending as a single JSON array, and GET
+ * endpoints collapse any number of pending requests into one.
+ * <p>
+ * Endpoints are spooled to disk with their submissions, so credentials are never part
+ * of the endpoint itself. An endpoint with a session only carries a fingerprint of it,
+ * and the credential is attached as a header when the request is sent.
+ */
+@Value
+public class SubmissionEndpoint
+{
+	static final String POST = "POST";
+	static final String GET = "GET";
+
+	String method;
+	String url;
+	/**
+	 * Whether batches are sent gzip compressed. Only for servers known to accept compressed
+	 * request bodies, others may fail the request in ways which look like a server error.
+	 */
+	boolean compressed;
+	/**
+	 * Fingerprint of the session the submissions belong to, or null if they are sent without one
+	 */
+	String session;
+	/**
+	 * Headers which carry the session credential. These are kept in memory only.
+	 */
+	transient Map<String, String> headers;
+
+	public static SubmissionEndpoint post(HttpUrl url)
+	{
+		return new SubmissionEndpoint(POST, url.toString(), false, null, ImmutableMap.of());
+	}
+
+	public static SubmissionEndpoint get(HttpUrl url)
+	{
+		return new SubmissionEndpoint(GET, url.toString(), false, null, ImmutableMap.of());
+	}
+
+	/**
+	 * Returns a copy of this endpoint which sends batches gzip compressed
+	 */
+	public SubmissionEndpoint withCompression()
+	{
+		return new SubmissionEndpoint(method, url, true, session, headers);
+	}
+
+	/**
+	 * Returns a copy of this endpoint which sends its submissions under a session. The
+	 * credential is sent in the given header. Submissions queued under a different session
+	 * are dropped once this endpoint is used, rather than being sent with this credential.
+	 */
+	public SubmissionEndpoint withSession(String header, String credential)
+	{
+		String session = Hashing.sha256().hashString(credential, StandardCharsets.UTF_8).toString();
+		return new SubmissionEndpoint(method, url, compressed, session, ImmutableMap.of(header, credential));
+	}
+
+	boolean isBatched()
+	{
+		return POST.equals(method);
+	}
+
+	/**
+	 * Whether this endpoint is the same destination as another, regardless of session
+	 */
+	boolean isSameDestination(SubmissionEndpoint other)
+	{
+		return method.equals(other.method) && url.equals(other.url);
+	}
+}
@@ -0,0 +1,702 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.submission;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * Durable outbound queue for fire-and-forget uploads such as crowdsourcing data, loot
+ * and xp tracker updates.
+ * <p>
+ * Submissions are journaled to a bounded spool on disk as they are queued, so they
+ * survive failed requests and client restarts. Nothing is sent until the owner of an
+ * endpoint calls {@link #flush(SubmissionEndpoint)}, at which point everything pending
+ * for that endpoint is sent in batches. Failed batches are retried with exponential
+ * backoff until they are accepted, or rejected outright by the server.
+ * <p>
+ * Session credentials are only held in memory, and are taken from the endpoint each time
+ * it is queued to or flushed. Using an endpoint drops anything pending for the same
+ * destination under another session, so nothing is sent with a credential it wasn't
+ * queued under.
+ */
+@Slf4j
+@Singleton
+public class SubmissionQueue
+{
+	private static final File SPOOL_DIR = new File(RuneLite.RUNELITE_DIR, "submissions");
+	private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+	static final long MAX_SPOOL_BYTES = 4 << 20;
+	static final long MAX_BATCH_BYTES = 256 << 10;
+	private static final long MIN_BACKOFF_MILLIS = 5_000;
+	private static final long MAX_BACKOFF_MILLIS = 10 * 60_000;
+
+	private final OkHttpClient client;
+	private final ScheduledExecutorService executor;
+	private final Gson gson;
+	private final SubmissionSpool spool;
+	private final long maxSpoolBytes;
+	private final long minBackoffMillis;
+
+	private final Map<SubmissionEndpoint, EndpointQueue> queues = new LinkedHashMap<>();
+	private final List<String> unsyncedLines = new ArrayList<>();
+	private boolean loaded;
+	private boolean rewriteSpool;
+	private boolean syncScheduled;
+	private long nextSeq;
+
+	private int queueDepth;
+	private long spoolBytes;
+	private long sent;
+	private long dropped;
+	private long failedRequests;
+	private long lastLatencyMillis;
+	private long lastRequestMillis;
+
+	@Inject
+	private SubmissionQueue(OkHttpClient client, ScheduledExecutorService executor, Gson gson)
+	{
+		this(client, executor, gson, SPOOL_DIR, MAX_SPOOL_BYTES, MIN_BACKOFF_MILLIS);
+	}
+
+	SubmissionQueue(OkHttpClient client, ScheduledExecutorService executor, Gson gson, File spoolDir, long maxSpoolBytes, long minBackoffMillis)
+	{
+		this.client = client;
+		this.executor = executor;
+		this.gson = gson;
+		this.spool = new SubmissionSpool(spoolDir);
+		this.maxSpoolBytes = maxSpoolBytes;
+		this.minBackoffMillis = minBackoffMillis;
+	}
+
+	/**
+	 * Queue a submission. The submission is sent on the next flush of its endpoint.
+	 *
+	 * @param endpoint where to send the submission
+	 * @param item     the object to send as an element of the batch, ignored for GET endpoints
+	 */
+	public void enqueue(SubmissionEndpoint endpoint, @Nullable Object item)
+	{
+		final JsonElement json = item == null || !endpoint.isBatched() ? JsonNull.INSTANCE : gson.toJsonTree(item);
+		final Entry entry = new Entry(endpoint, System.currentTimeMillis(), json);
+		final String line = gson.toJson(entry);
+
+		synchronized (this)
+		{
+			load();
+
+			EndpointQueue queue = use(endpoint);
+			if (!endpoint.isBatched() && !queue.pending.isEmpty())
+			{
+				// a pending request for this url already covers this one
+				return;
+			}
+
+			add(queue, entry, line);
+			unsyncedLines.add(line);
+			trim();
+			scheduleSync();
+		}
+	}
+
+	/**
+	 * Send everything pending for an endpoint.
+	 *
+	 * @return a future which completes once the endpoint has nothing pending, or
+	 * completes exceptionally if a request fails. Failed submissions stay queued and
+	 * are retried in the background.
+	 */
+	public CompletableFuture<Void> flush(SubmissionEndpoint endpoint)
+	{
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		synchronized (this)
+		{
+			load();
+
+			EndpointQueue queue = use(endpoint);
+			if (queue.pending.isEmpty() && queue.inFlight == null)
+			{
+				future.complete(null);
+				return future;
+			}
+
+			queue.waiters.add(future);
+			if (queue.inFlight == null)
+			{
+				if (queue.retry != null)
+				{
+					queue.retry.cancel(false);
+					queue.retry = null;
+				}
+				send(queue);
+			}
+		}
+		return future;
+	}
+
+	/**
+	 * Number of submissions pending for an endpoint, including any in flight
+	 */
+	public synchronized int getQueueDepth(SubmissionEndpoint endpoint)
+	{
+		load();
+
+		EndpointQueue queue = queues.get(endpoint);
+		if (queue == null)
+		{
+			return 0;
+		}
+		return queue.pending.size() + (queue.inFlight != null ? queue.inFlight.size() : 0);
+	}
+
+	public synchronized SubmissionMetrics getMetrics()
+	{
+		load();
+		return new SubmissionMetrics(queueDepth, spoolBytes, sent, dropped, failedRequests, lastLatencyMillis, lastRequestMillis);
+	}
+
+	void close()
+	{
+		synchronized (spool)
+		{
+			spool.close();
+		}
+	}
+
+	private void load()
+	{
+		if (loaded)
+		{
+			return;
+		}
+		loaded = true;
+
+		// nothing can be syncing the spool before it has been loaded
+		List<String> lines = spool.open();
+
+		int skipped = 0;
+		for (String line : lines)
+		{
+			Entry entry;
+			try
+			{
+				JsonObject json = gson.fromJson(line, JsonObject.class);
+				if (json != null && hasHeaders(json))
+				{
+					// spooled by an older client along with its credentials, which must not be kept or resent
+					++skipped;
+					continue;
+				}
+
+				entry = gson.fromJson(json, Entry.class);
+			}
+			catch (JsonParseException | IllegalStateException | ClassCastException ex)
+			{
+				entry = null;
+			}
+
+			if (entry == null || entry.endpoint == null || entry.endpoint.getUrl() == null || entry.endpoint.getMethod() == null)
+			{
+				// most likely a line cut short by the client exiting part way through a write
+				++skipped;
+				continue;
+			}
+
+			add(queue(entry.endpoint), entry, line);
+		}
+
+		if (skipped > 0)
+		{
+			log.warn("Skipped {} unreadable entries in the submission spool", skipped);
+			rewriteSpool = true;
+		}
+		if (queueDepth > 0)
+		{
+			log.debug("Restored {} pending submissions", queueDepth);
+		}
+		trim();
+		if (rewriteSpool)
+		{
+			scheduleSync();
+		}
+	}
+
+	private static boolean hasHeaders(JsonObject entry)
+	{
+		JsonElement endpoint = entry.get("endpoint");
+		if (endpoint == null || !endpoint.isJsonObject())
+		{
+			return false;
+		}
+
+		JsonElement headers = endpoint.getAsJsonObject().get("headers");
+		return headers != null && headers.isJsonObject() && headers.getAsJsonObject().size() > 0;
+	}
+
+	private EndpointQueue queue(SubmissionEndpoint endpoint)
+	{
+		return queues.computeIfAbsent(endpoint, EndpointQueue::new);
+	}
+
+	/**
+	 * Get the queue for an endpoint being queued to or flushed by its owner. This takes the
+	 * session credentials from the endpoint, and drops what is pending for the same destination
+	 * under any other session.
+	 */
+	private EndpointQueue use(SubmissionEndpoint endpoint)
+	{
+		for (Iterator<EndpointQueue> it = queues.values().iterator(); it.hasNext(); )
+		{
+			EndpointQueue other = it.next();
+			if (other.endpoint.equals(endpoint) || !other.endpoint.isSameDestination(endpoint) || other.pending.isEmpty())
+			{
+				continue;
+			}
+
+			log.debug("Dropping {} submissions to {} queued under another session", other.pending.size(), endpoint.getUrl());
+			dropped += other.pending.size();
+			for (Entry entry : other.pending)
+			{
+				remove(entry);
+			}
+			other.pending.clear();
+			scheduleSync();
+
+			if (other.retry != null)
+			{
+				other.retry.cancel(false);
+				other.retry = null;
+			}
+
+			if (other.inFlight == null)
+			{
+				for (CompletableFuture<Void> waiter : other.waiters)
+				{
+					waiter.complete(null);
+				}
+				it.remove();
+			}
+		}
+
+		EndpointQueue queue = queue(endpoint);
+		if (endpoint.getHeaders() != null)
+		{
+			queue.headers = endpoint.getHeaders();
+		}
+		return queue;
+	}
+
+	private void add(EndpointQueue queue, Entry entry, String line)
+	{
+		entry.seq = nextSeq++;
+		entry.line = line;
+		entry.bytes = line.getBytes(StandardCharsets.UTF_8).length + 1;
+		queue.pending.add(entry);
+		++queueDepth;
+		spoolBytes += entry.bytes;
+	}
+
+	private void remove(Entry entry)
+	{
+		--queueDepth;
+		spoolBytes -= entry.bytes;
+		rewriteSpool = true;
+	}
+
+	/**
+	 * Drop the oldest pending submissions until the spool fits in its size limit
+	 */
+	private void trim()
+	{
+		if (spoolBytes <= maxSpoolBytes)
+		{
+			return;
+		}
+
+		List<Entry> candidates = new ArrayList<>();
+		for (EndpointQueue queue : queues.values())
+		{
+			candidates.addAll(queue.pending);
+		}
+		candidates.sort(Comparator.comparingLong(e -> e.seq));
+
+		int count = 0;
+		for (Iterator<Entry> it = candidates.iterator(); spoolBytes > maxSpoolBytes && it.hasNext(); )
+		{
+			Entry entry = it.next();
+			queues.get(entry.endpoint).pending.remove(entry);
+			remove(entry);
+			++count;
+		}
+
+		if (count > 0)
+		{
+			dropped += count;
+			log.warn("Submission spool is full, dropped {} oldest submissions", count);
+		}
+	}
+
+	private void scheduleSync()
+	{
+		if (!syncScheduled && spool.isOpen())
+		{
+			syncScheduled = true;
+			executor.execute(this::sync);
+		}
+	}
+
+	private void sync()
+	{
+		// the spool lock orders writes from concurrent syncs, the snapshot is taken under it
+		synchronized (spool)
+		{
+			List<String> lines;
+			boolean rewrite;
+			synchronized (this)
+			{
+				syncScheduled = false;
+				rewrite = rewriteSpool;
+				rewriteSpool = false;
+				if (rewrite)
+				{
+					lines = new ArrayList<>(queueDepth);
+					for (EndpointQueue queue : queues.values())
+					{
+						if (queue.inFlight != null)
+						{
+							for (Entry entry : queue.inFlight)
+							{
+								lines.add(entry.line);
+							}
+						}
+						for (Entry entry : queue.pending)
+						{
+							lines.add(entry.line);
+						}
+					}
+				}
+				else
+				{
+					lines = new ArrayList<>(unsyncedLines);
+				}
+				unsyncedLines.clear();
+			}
+
+			try
+			{
+				if (rewrite)
+				{
+					spool.rewrite(lines);
+				}
+				else
+				{
+					spool.append(lines);
+				}
+			}
+			catch (IOException ex)
+			{
+				log.warn("unable to write submission spool", ex);
+			}
+		}
+	}
+
+	private void send(EndpointQueue queue)
+	{
+		assert queue.inFlight == null && !queue.pending.isEmpty();
+
+		final List<Entry> batch = new ArrayList<>();
+		long bytes = 0;
+		do
+		{
+			Entry entry = queue.pending.poll();
+			batch.add(entry);
+			bytes += entry.bytes;
+		}
+		while (queue.endpoint.isBatched() && !queue.pending.isEmpty() && bytes + queue.pending.peek().bytes <= MAX_BATCH_BYTES);
+		queue.inFlight = batch;
+
+		final boolean compressed = queue.endpoint.isBatched() && queue.endpoint.isCompressed() && !queue.uncompressed;
+		final Request request;
+		try
+		{
+			request = buildRequest(queue, batch, compressed);
+		}
+		catch (IOException | IllegalArgumentException ex)
+		{
+			log.warn("unable to build submission request for {}", queue.endpoint.getUrl(), ex);
+			finish(queue, false);
+			return;
+		}
+
+		final long start = System.nanoTime();
+		client.newCall(request).enqueue(new Callback()
+		{
+			@Override
+			public void onFailure(Call call, IOException e)
+			{
+				log.debug("Error sending submissions to {}", queue.endpoint.getUrl(), e);
+				retry(queue, e);
+			}
+
+			@Override
+			public void onResponse(Call call, Response response)
+			{
+				final int code = response.code();
+				response.close();
+
+				if (response.isSuccessful())
+				{
+					accepted(queue, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+				}
+				else if (compressed && (code == 400 || code == 415))
+				{
+					log.debug("{} rejected compressed submissions, resending uncompressed", queue.endpoint.getUrl());
+					synchronized (SubmissionQueue.this)
+					{
+						queue.uncompressed = true;
+						requeue(queue);
+						send(queue);
+					}
+				}
+				else if (code == 408 || code == 429 || code >= 500)
+				{
+					retry(queue, new IOException("HTTP " + code + " - " + response.message()));
+				}
+				else
+				{
+					log.warn("Submissions to {} rejected: {} - {}", queue.endpoint.getUrl(), code, response.message());
+					synchronized (SubmissionQueue.this)
+					{
+						finish(queue, false);
+					}
+				}
+			}
+		});
+	}
+
+	private Request buildRequest(EndpointQueue queue, List<Entry> batch, boolean compressed) throws IOException
+	{
+		SubmissionEndpoint endpoint = queue.endpoint;
+		Request.Builder builder = new Request.Builder()
+			.url(endpoint.getUrl());
+		if (queue.headers != null)
+		{
+			queue.headers.forEach(builder::header);
+		}
+
+		if (!endpoint.isBatched())
+		{
+			return builder.get().build();
+		}
+
+		JsonArray items = new JsonArray();
+		for (Entry entry : batch)
+		{
+			items.add(entry.item);
+		}
+		byte[] body = gson.toJson(items).getBytes(StandardCharsets.UTF_8);
+
+		if (compressed)
+		{
+			ByteArrayOutputStream bout = new ByteArrayOutputStream(body.length / 4);
+			try (OutputStream out = new GZIPOutputStream(bout))
+			{
+				out.write(body);
+			}
+			body = bout.toByteArray();
+			builder.header("Content-Encoding", "gzip");
+		}
+
+		return builder.post(RequestBody.create(JSON, body)).build();
+	}
+
+	private synchronized void accepted(EndpointQueue queue, long requestMillis)
+	{
+		long oldest = Long.MAX_VALUE;
+		for (Entry entry : queue.inFlight)
+		{
+			oldest = Math.min(oldest, entry.time);
+		}
+
+		sent += queue.inFlight.size();
+		lastRequestMillis = requestMillis;
+		lastLatencyMillis = Math.max(0, System.currentTimeMillis() - oldest);
+		queue.failures = 0;
+
+		log.debug("Sent {} submissions to {} in {}ms, {} still queued", queue.inFlight.size(), queue.endpoint.getUrl(),
+			requestMillis, queueDepth - queue.inFlight.size());
+
+		finish(queue, true);
+	}
+
+	/**
+	 * Complete the in flight batch, which has either been accepted or is being dropped,
+	 * and carry on with anything that was queued in the meantime.
+	 */
+	private void finish(EndpointQueue queue, boolean accepted)
+	{
+		for (Entry entry : queue.inFlight)
+		{
+			remove(entry);
+		}
+		if (!accepted)
+		{
+			dropped += queue.inFlight.size();
+		}
+		queue.inFlight = null;
+		scheduleSync();
+
+		if (!queue.pending.isEmpty())
+		{
+			send(queue);
+			return;
+		}
+
+		for (CompletableFuture<Void> waiter : queue.waiters)
+		{
+			waiter.complete(null);
+		}
+		queue.waiters.clear();
+	}
+
+	private synchronized void retry(EndpointQueue queue, IOException cause)
+	{
+		++failedRequests;
+		requeue(queue);
+
+		final long delay = Math.min(MAX_BACKOFF_MILLIS, minBackoffMillis << Math.min(queue.failures++, 16));
+		final long jittered = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+		log.debug("Retrying {} submissions to {} in {}ms", queue.pending.size(), queue.endpoint.getUrl(), jittered);
+		queue.retry = executor.schedule(() ->
+		{
+			synchronized (SubmissionQueue.this)
+			{
+				queue.retry = null;
+				if (queue.inFlight == null && !queue.pending.isEmpty())
+				{
+					send(queue);
+				}
+			}
+		}, jittered, TimeUnit.MILLISECONDS);
+
+		for (CompletableFuture<Void> waiter : queue.waiters)
+		{
+			waiter.completeExceptionally(cause);
+		}
+		queue.waiters.clear();
+	}
+
+	private void requeue(EndpointQueue queue)
+	{
+		List<Entry> batch = queue.inFlight;
+		queue.inFlight = null;
+		for (int i = batch.size() - 1; i >= 0; --i)
+		{
+			Entry entry = batch.get(i);
+			if (!queue.endpoint.isBatched() && !queue.pending.isEmpty())
+			{
+				// coalesce with the request queued while this one was in flight
+				remove(entry);
+				scheduleSync();
+				continue;
+			}
+			queue.pending.addFirst(entry);
+		}
+	}
+
+	private static class EndpointQueue
+	{
+		private final SubmissionEndpoint endpoint;
+		private final Deque<Entry> pending = new ArrayDeque<>();
+		private final List<CompletableFuture<Void>> waiters = new ArrayList<>();
+		/**
+		 * Session credentials, taken from the endpoint when its owner last used it
+		 */
+		private Map<String, String> headers;
+		private List<Entry> inFlight;
+		private ScheduledFuture<?> retry;
+		private int failures;
+		private boolean uncompressed;
+
+		private EndpointQueue(SubmissionEndpoint endpoint)
+		{
+			this.endpoint = endpoint;
+		}
+	}
+
+	private static class Entry
+	{
+		private final SubmissionEndpoint endpoint;
+		private final long time;
+		private final JsonElement item;
+
+		private transient long seq;
+		private transient String line;
+		private transient int bytes;
+
+		private Entry(SubmissionEndpoint endpoint, long time, JsonElement item)
+		{
+			this.endpoint = endpoint;
+			this.time = time;
+			this.item = item;
+		}
+	}
+}
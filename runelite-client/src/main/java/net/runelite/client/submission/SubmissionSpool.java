@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.submission;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Line oriented journal of pending submissions. Lines are appended as submissions are
+ * queued and the file is rewritten once submissions leave the queue. The spool is
+ * locked while open so that concurrently running clients sharing a RuneLite
+ * directory don't clobber each other; a client which can't get the lock keeps its
+ * submissions in memory only.
+ */
+@Slf4j
+class SubmissionSpool
+{
+	private static final String SPOOL_FILE = "spool.jsonl";
+	private static final String LOCK_FILE = "spool.lock";
+
+	private final File dir;
+	private final File file;
+	private FileChannel lockChannel;
+	private FileLock lock;
+
+	SubmissionSpool(File dir)
+	{
+		this.dir = dir;
+		this.file = new File(dir, SPOOL_FILE);
+	}
+
+	/**
+	 * Lock the spool and read the lines left by a previous session.
+	 *
+	 * @return the spooled lines, empty if the spool is in use by another client
+	 */
+	List<String> open()
+	{
+		dir.mkdirs();
+
+		try
+		{
+			lockChannel = new RandomAccessFile(new File(dir, LOCK_FILE), "rw").getChannel();
+			lock = lockChannel.tryLock();
+		}
+		catch (IOException | OverlappingFileLockException ex)
+		{
+			log.debug("unable to lock submission spool", ex);
+		}
+
+		if (lock == null)
+		{
+			log.info("Submission spool is in use by another client, submissions will not be persisted");
+			close();
+			return Collections.emptyList();
+		}
+
+		if (!file.exists())
+		{
+			return Collections.emptyList();
+		}
+
+		List<String> lines = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+		{
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				if (!line.isEmpty())
+				{
+					lines.add(line);
+				}
+			}
+		}
+		catch (IOException ex)
+		{
+			log.warn("unable to read submission spool", ex);
+		}
+		return lines;
+	}
+
+	boolean isOpen()
+	{
+		return lock != null;
+	}
+
+	void append(List<String> lines) throws IOException
+	{
+		if (lock == null || lines.isEmpty())
+		{
+			return;
+		}
+
+		try (OutputStream out = new FileOutputStream(file, true))
+		{
+			write(out, lines);
+		}
+	}
+
+	void rewrite(List<String> lines) throws IOException
+	{
+		if (lock == null)
+		{
+			return;
+		}
+
+		if (lines.isEmpty())
+		{
+			Files.deleteIfExists(file.toPath());
+			return;
+		}
+
+		File tmp = new File(dir, SPOOL_FILE + ".tmp");
+		try (OutputStream out = new FileOutputStream(tmp))
+		{
+			write(out, lines);
+		}
+
+		try
+		{
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException ex)
+		{
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	void close()
+	{
+		try
+		{
+			if (lock != null)
+			{
+				lock.release();
+			}
+			if (lockChannel != null)
+			{
+				lockChannel.close();
+			}
+		}
+		catch (IOException ex)
+		{
+			log.debug("unable to release submission spool", ex);
+		}
+		lock = null;
+		lockChannel = null;
+	}
+
+	private static void write(OutputStream out, List<String> lines) throws IOException
+	{
+		StringBuilder sb = new StringBuilder();
+		for (String line : lines)
+		{
+			sb.append(line).append('\n');
+		}
+		out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+}
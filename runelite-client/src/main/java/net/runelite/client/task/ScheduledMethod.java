@@ -25,14 +25,12 @@
 package net.runelite.client.task;
 
 import java.lang.reflect.Method;
-import java.time.Instant;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 
-@RequiredArgsConstructor
 @ToString
 @Getter
 public class ScheduledMethod
@@ -42,6 +40,63 @@ public class ScheduledMethod
 	private final Object object;
 	@EqualsAndHashCode.Exclude
 	private final Runnable lambda;
-	@Setter
-	private Instant last = Instant.now();
+
+	/**
+	 * Period of the schedule, in nanoseconds
+	 */
+	@ToString.Exclude
+	private final long periodNanos;
+	/**
+	 * {@link System#nanoTime()} after which the method is next due
+	 */
+	@ToString.Exclude
+	@Setter(AccessLevel.PACKAGE)
+	private long nextRunNanos;
+
+	@ToString.Exclude
+	private long runCount;
+	@ToString.Exclude
+	private long totalRunNanos;
+	@ToString.Exclude
+	private long maxRunNanos;
+	@ToString.Exclude
+	private long lastRunNanos;
+
+	public ScheduledMethod(Schedule schedule, Method method, Object object, Runnable lambda)
+	{
+		this.schedule = schedule;
+		this.method = method;
+		this.object = object;
+		this.lambda = lambda;
+		this.periodNanos = schedule.unit().getDuration().multipliedBy(schedule.period()).toNanos();
+		this.nextRunNanos = System.nanoTime() + periodNanos;
+	}
+
+	synchronized void recordRun(long nanos)
+	{
+		++runCount;
+		totalRunNanos += nanos;
+		maxRunNanos = Math.max(maxRunNanos, nanos);
+		lastRunNanos = nanos;
+	}
+
+	public synchronized long getRunCount()
+	{
+		return runCount;
+	}
+
+	public synchronized long getTotalRunNanos()
+	{
+		return totalRunNanos;
+	}
+
+	public synchronized long getMaxRunNanos()
+	{
+		return maxRunNanos;
+	}
+
+	public synchronized long getLastRunNanos()
+	{
+		return lastRunNanos;
+	}
 }
@@ -24,12 +24,12 @@
  */
 package net.runelite.client.task;
 
+import com.google.common.annotations.VisibleForTesting;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.time.Duration;
-import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
@@ -41,6 +41,8 @@ import lombok.extern.slf4j.Slf4j;
 public class Scheduler
 {
 	private final List<ScheduledMethod> scheduledMethods = new CopyOnWriteArrayList<>();
+	// ordered by deadline, so a tick only has to look at the methods which are due
+	private final PriorityQueue<ScheduledMethod> queue = new PriorityQueue<>((a, b) -> Long.signum(a.getNextRunNanos() - b.getNextRunNanos()));
 
 	@Inject
 	ScheduledExecutorService executor;
@@ -48,11 +50,19 @@ public class Scheduler
 	public void addScheduledMethod(ScheduledMethod method)
 	{
 		scheduledMethods.add(method);
+		synchronized (queue)
+		{
+			queue.add(method);
+		}
 	}
 
 	public void removeScheduledMethod(ScheduledMethod method)
 	{
 		scheduledMethods.remove(method);
+		synchronized (queue)
+		{
+			queue.remove(method);
+		}
 	}
 
 	public List<ScheduledMethod> getScheduledMethods()
@@ -62,37 +72,44 @@ public class Scheduler
 
 	public void tick()
 	{
-		Instant now = Instant.now();
+		tick(System.nanoTime());
+	}
 
-		for (ScheduledMethod scheduledMethod : scheduledMethods)
+	@VisibleForTesting
+	void tick(long now)
+	{
+		for (;;)
 		{
-			Instant last = scheduledMethod.getLast();
+			final ScheduledMethod scheduledMethod;
+			synchronized (queue)
+			{
+				ScheduledMethod next = queue.peek();
+				if (next == null || now - next.getNextRunNanos() <= 0)
+				{
+					return;
+				}
 
-			Duration difference = Duration.between(last, now);
+				scheduledMethod = queue.poll();
+				scheduledMethod.setNextRunNanos(now + scheduledMethod.getPeriodNanos());
+				queue.add(scheduledMethod);
+			}
 
-			Schedule schedule = scheduledMethod.getSchedule();
-			Duration timeSinceRun = Duration.of(schedule.period(), schedule.unit());
+			log.trace("Scheduled task triggered: {}", scheduledMethod);
 
-			if (difference.compareTo(timeSinceRun) > 0)
+			if (scheduledMethod.getSchedule().asynchronous())
 			{
-				log.trace("Scheduled task triggered: {}", scheduledMethod);
-
-				scheduledMethod.setLast(now);
-
-				if (schedule.asynchronous())
-				{
-					executor.submit(() -> run(scheduledMethod));
-				}
-				else
-				{
-					run(scheduledMethod);
-				}
+				executor.submit(() -> run(scheduledMethod));
+			}
+			else
+			{
+				run(scheduledMethod);
 			}
 		}
 	}
 
 	private void run(ScheduledMethod scheduledMethod)
 	{
+		final long start = System.nanoTime();
 		try
 		{
 			Runnable lambda = scheduledMethod.getLambda();
@@ -114,5 +131,9 @@ public class Scheduler
 		{
 			log.warn("error during scheduled task", ex);
 		}
+		finally
+		{
+			scheduledMethod.recordRun(System.nanoTime() - start);
+		}
 	}
 }
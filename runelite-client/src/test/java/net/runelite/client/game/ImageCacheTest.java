@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.game;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.client.util.AsyncBufferedImage;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ImageCacheTest
+{
+	// 36x32 argb plus overhead
+	private static final int ICON_WEIGHT = 36 * 32 * 4 + 256;
+
+	private static BufferedImage icon(int seed)
+	{
+		AsyncBufferedImage image = new AsyncBufferedImage(36, 32, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < 32; ++y)
+		{
+			for (int x = 0; x < 36; ++x)
+			{
+				image.setRGB(x, y, (x * 7 + y * 13 + seed) % 5 == 0 ? 0xFF000000 | seed * 0x10101 : 0);
+			}
+		}
+		image.loaded();
+		return image;
+	}
+
+	private static void assertPixelsEqual(BufferedImage expected, BufferedImage actual)
+	{
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		for (int y = 0; y < expected.getHeight(); ++y)
+		{
+			for (int x = 0; x < expected.getWidth(); ++x)
+			{
+				assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void testWeightedByBytes()
+	{
+		// room for about four icons, or a single larger sprite
+		ImageCache cache = new ImageCache(Runnable::run, ICON_WEIGHT * 4 + 100, 0);
+		for (int i = 0; i < 4; ++i)
+		{
+			cache.put(i, icon(i));
+		}
+		for (int i = 0; i < 4; ++i)
+		{
+			assertNotNull(cache.getIfPresent(i));
+		}
+
+		cache.put("sprite", new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB));
+		ImageCache.Stats stats = cache.getStats();
+		assertTrue(stats.getEvictionCount() >= 3);
+		assertTrue(stats.getHotBytes() <= ICON_WEIGHT * 4 + 100);
+		assertEquals(0, stats.getColdSize());
+	}
+
+	@Test
+	public void testColdTier()
+	{
+		ImageCache cache = new ImageCache(Runnable::run, ICON_WEIGHT * 2 + 100, 1 << 20);
+		BufferedImage[] icons = new BufferedImage[8];
+		for (int i = 0; i < icons.length; ++i)
+		{
+			icons[i] = icon(i);
+			cache.put(i, icons[i]);
+		}
+
+		ImageCache.Stats stats = cache.getStats();
+		assertEquals(6, stats.getColdSize());
+		assertTrue(stats.getColdBytes() < 6 * 36 * 32 * 4);
+
+		// comes back from the cold tier without calling the loader
+		AtomicInteger loads = new AtomicInteger();
+		BufferedImage restored = cache.get(0, () ->
+		{
+			loads.incrementAndGet();
+			return null;
+		});
+		assertEquals(0, loads.get());
+		assertNotSame(icons[0], restored);
+		assertTrue(restored instanceof AsyncBufferedImage);
+		assertTrue(((AsyncBufferedImage) restored).isLoaded());
+		assertPixelsEqual(icons[0], restored);
+
+		BufferedImage restored1 = cache.getIfPresent(1);
+		assertPixelsEqual(icons[1], restored1);
+		assertEquals(2, cache.getStats().getColdHitCount());
+	}
+
+	@Test
+	public void testDemotedOnExecutor()
+	{
+		Queue<Runnable> tasks = new ArrayDeque<>();
+		ImageCache cache = new ImageCache(tasks::add, ICON_WEIGHT + 100, 1 << 20);
+		BufferedImage icon = icon(0);
+		cache.put(0, icon);
+		cache.put(1, icon(1));
+
+		// the evicting thread only queues the compression
+		assertEquals(1, tasks.size());
+		assertEquals(0, cache.getStats().getColdSize());
+
+		tasks.remove().run();
+		assertEquals(1, cache.getStats().getColdSize());
+		assertPixelsEqual(icon, cache.getIfPresent(0));
+	}
+
+	@Test
+	public void testColdTierBounded()
+	{
+		ImageCache cache = new ImageCache(Runnable::run, ICON_WEIGHT + 100, 1024);
+		for (int i = 0; i < 50; ++i)
+		{
+			cache.put(i, icon(i));
+		}
+
+		ImageCache.Stats stats = cache.getStats();
+		assertTrue(stats.getColdBytes() <= 1024);
+		assertTrue(stats.getColdEvictionCount() > 0);
+		assertNull(cache.getIfPresent(0));
+	}
+
+	@Test
+	public void testUnloadedNotDemoted()
+	{
+		ImageCache cache = new ImageCache(Runnable::run, ICON_WEIGHT + 100, 1 << 20);
+		cache.put(0, new AsyncBufferedImage(36, 32, BufferedImage.TYPE_INT_ARGB));
+		cache.put(1, icon(1));
+		assertEquals(0, cache.getStats().getColdSize());
+	}
+
+	@Test
+	public void testLoader()
+	{
+		ImageCache cache = new ImageCache(Runnable::run, 1 << 20, 0);
+		BufferedImage image = icon(3);
+		assertSame(image, cache.get("a", () -> image));
+		assertSame(image, cache.get("a", () -> null));
+
+		ImageCache.Stats stats = cache.getStats();
+		assertEquals(1, stats.getHitCount());
+		assertEquals(1, stats.getMissCount());
+	}
+}
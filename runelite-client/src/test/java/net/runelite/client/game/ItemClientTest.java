@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.game;
+
+import com.google.gson.Gson;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import net.runelite.http.api.item.ItemPrice;
+import net.runelite.http.api.item.ItemStats;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ItemClientTest
+{
+	private static final String PRICES = "[{\"id\":4151,\"name\":\"Abyssal whip\",\"price\":1500000,\"wikiPrice\":1450000},"
+		+ "{\"id\":13576,\"name\":\"Dragon warhammer\",\"price\":30000000,\"wikiPrice\":0}]";
+	private static final String STATS = "{\"4151\":{\"quest\":false,\"equipable\":true,\"weight\":0.453}}";
+
+	@Rule
+	public MockWebServer server = new MockWebServer();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File snapshotDir;
+
+	@Before
+	public void before() throws IOException
+	{
+		snapshotDir = folder.newFolder();
+	}
+
+	private ItemClient createClient()
+	{
+		HttpUrl url = server.url("/");
+		return new ItemClient(new OkHttpClient(), url, url, new Gson(), snapshotDir);
+	}
+
+	@Test
+	public void testPricesSnapshot() throws Exception
+	{
+		server.enqueue(new MockResponse().setBody(PRICES).setHeader("ETag", "\"v1\""));
+
+		ItemClient itemClient = createClient();
+		assertNull(itemClient.getCachedPrices());
+
+		ItemPrice[] prices = itemClient.getPrices();
+		assertEquals(2, prices.length);
+		assertNull(server.takeRequest().getHeader("If-None-Match"));
+
+		// a fresh client, as at startup, gets the prices without the network
+		itemClient = createClient();
+		ItemPrice[] cached = itemClient.getCachedPrices();
+		assertNotNull(cached);
+		assertEquals(2, cached.length);
+		assertEquals(prices[0], cached[0]);
+		assertEquals(prices[1], cached[1]);
+		assertEquals(1, server.getRequestCount());
+
+		// and revalidates them on refresh
+		server.enqueue(new MockResponse().setResponseCode(304));
+		assertSame(cached, itemClient.getPrices());
+		RecordedRequest request = server.takeRequest();
+		assertEquals("\"v1\"", request.getHeader("If-None-Match"));
+
+		// a changed document replaces the snapshot
+		server.enqueue(new MockResponse().setBody("[{\"id\":995,\"name\":\"Coins\",\"price\":1,\"wikiPrice\":1}]").setHeader("ETag", "\"v2\""));
+		assertEquals(1, itemClient.getPrices().length);
+		assertEquals(995, createClient().getCachedPrices()[0].getId());
+	}
+
+	@Test
+	public void testStatsSnapshot() throws Exception
+	{
+		server.enqueue(new MockResponse().setBody(STATS).setHeader("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT"));
+
+		ItemClient itemClient = createClient();
+		Map<Integer, ItemStats> stats = itemClient.getStats();
+		assertEquals(1, stats.size());
+
+		itemClient = createClient();
+		assertEquals(stats, itemClient.getCachedStats());
+
+		server.enqueue(new MockResponse().setResponseCode(304));
+		assertEquals(stats, itemClient.getStats());
+		server.takeRequest();
+		assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", server.takeRequest().getHeader("If-Modified-Since"));
+	}
+
+	@Test
+	public void testErrorKeepsSnapshot() throws Exception
+	{
+		server.enqueue(new MockResponse().setBody(PRICES));
+		createClient().getPrices();
+
+		server.enqueue(new MockResponse().setResponseCode(500));
+		ItemClient itemClient = createClient();
+		assertNull(itemClient.getPrices());
+		assertEquals(2, itemClient.getCachedPrices().length);
+	}
+
+	@Test
+	public void testCorruptSnapshot() throws Exception
+	{
+		server.enqueue(new MockResponse().setBody(PRICES));
+		createClient().getPrices();
+
+		File file = new File(snapshotDir, "prices.snapshot");
+		byte[] data = Files.readAllBytes(file.toPath());
+		Files.write(file.toPath(), Arrays.copyOf(data, data.length - 5));
+
+		assertNull(createClient().getCachedPrices());
+	}
+}
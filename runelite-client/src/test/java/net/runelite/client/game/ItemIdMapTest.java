@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.game;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.ItemID;
+import net.runelite.http.api.item.ItemPrice;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Ignore;
+import org.junit.Test;
+
+@Slf4j
+public class ItemIdMapTest
+{
+	@Test
+	public void testGet()
+	{
+		ItemPrice yewSeed = price(ItemID.YEW_SEED, 47_975);
+		ItemPrice coal = price(ItemID.COAL, 150);
+
+		List<ItemPrice> prices = new ArrayList<>();
+		prices.add(yewSeed);
+		prices.add(coal);
+
+		ItemIdMap<ItemPrice> map = ItemIdMap.of(prices, ItemPrice::getId);
+		assertEquals(2, map.size());
+		assertSame(yewSeed, map.get(ItemID.YEW_SEED));
+		assertSame(coal, map.get(ItemID.COAL));
+		assertNull(map.get(ItemID.COAL + 1));
+		assertNull(map.get(-1));
+		assertNull(map.get(ItemID.YEW_SEED + 1));
+		assertEquals(prices, new ArrayList<>(map.values()));
+
+		assertEquals(map, ItemIdMap.copyOf(ImmutableMap.of(ItemID.YEW_SEED, yewSeed, ItemID.COAL, coal)));
+		assertTrue(ItemIdMap.empty().isEmpty());
+		assertNull(ItemIdMap.empty().get(0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicateId()
+	{
+		List<ItemPrice> prices = new ArrayList<>();
+		prices.add(price(ItemID.COAL, 150));
+		prices.add(price(ItemID.COAL, 160));
+		ItemIdMap.of(prices, ItemPrice::getId);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIdOutOfRange()
+	{
+		ItemIdMap.copyOf(ImmutableMap.of(ItemIdMap.MAX_ID, "x"));
+	}
+
+	@Test
+	public void testIntMap()
+	{
+		ItemIdIntMap map = ItemIdIntMap.copyOf(ImmutableMap.of(ItemID.GRACEFUL_HOOD_11851, ItemID.GRACEFUL_HOOD, 0, 0));
+		assertEquals(2, map.size());
+		assertEquals(ItemID.GRACEFUL_HOOD, map.getOrDefault(ItemID.GRACEFUL_HOOD_11851, -1));
+		assertEquals(0, map.getOrDefault(0, -1));
+		assertEquals(-1, map.getOrDefault(1, -1));
+		assertEquals(-1, map.getOrDefault(ItemID.GRACEFUL_HOOD_11851 + 1, -1));
+		assertEquals(-1, map.getOrDefault(-5, -1));
+		assertTrue(map.containsKey(0));
+		assertFalse(map.containsKey(1));
+	}
+
+	/**
+	 * Values a bank's worth of items repeatedly, as the bank value and ground item overlays do
+	 */
+	@Test
+	@Ignore
+	public void benchmark()
+	{
+		final Random random = new Random(42);
+		final List<ItemPrice> prices = new ArrayList<>();
+		for (int id = 0; id < 30_000; id += 1 + random.nextInt(3))
+		{
+			prices.add(price(id, random.nextInt(1_000_000)));
+		}
+
+		final ImmutableMap.Builder<Integer, ItemPrice> builder = ImmutableMap.builder();
+		prices.forEach(p -> builder.put(p.getId(), p));
+		final Map<Integer, ItemPrice> boxed = builder.build();
+		final ItemIdMap<ItemPrice> dense = ItemIdMap.of(prices, ItemPrice::getId);
+
+		final int[] bank = new int[800];
+		for (int i = 0; i < bank.length; i++)
+		{
+			bank[i] = prices.get(random.nextInt(prices.size())).getId();
+		}
+
+		for (int round = 0; round < 3; round++)
+		{
+			long total = 0;
+			long start = System.nanoTime();
+			for (int i = 0; i < 10_000; i++)
+			{
+				for (int id : bank)
+				{
+					ItemPrice p = boxed.get(id);
+					total += p == null ? 0 : p.getPrice();
+				}
+			}
+			long boxedTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < 10_000; i++)
+			{
+				for (int id : bank)
+				{
+					ItemPrice p = dense.get(id);
+					total -= p == null ? 0 : p.getPrice();
+				}
+			}
+			long denseTime = System.nanoTime() - start;
+
+			assertEquals(0, total);
+			log.info("valued 10000 banks: map {}ms, dense table {}ms", boxedTime / 1_000_000, denseTime / 1_000_000);
+		}
+	}
+
+	private static ItemPrice price(int id, int price)
+	{
+		ItemPrice itemPrice = new ItemPrice();
+		itemPrice.setId(id);
+		itemPrice.setPrice(price);
+		return itemPrice;
+	}
+}
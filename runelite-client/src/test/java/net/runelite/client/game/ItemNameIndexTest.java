@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import lombok.extern.slf4j.Slf4j;
+import static org.junit.Assert.assertArrayEquals;
+import org.junit.Ignore;
+import org.junit.Test;
+
+@Slf4j
+public class ItemNameIndexTest
+{
+	private static ItemNameIndex createIndex()
+	{
+		ItemNameIndex index = new ItemNameIndex();
+		index.add(4151, "Abyssal whip");
+		index.add(12006, "Abyssal tentacle");
+		index.add(4587, "Dragon scimitar");
+		index.add(11840, "Dragon boots");
+		index.add(995, "Coins");
+		index.add(20997, "Twisted bow");
+		return index;
+	}
+
+	@Test
+	public void testSearch()
+	{
+		ItemNameIndex index = createIndex();
+
+		assertArrayEquals(new int[]{4151, 12006}, index.search("abyssal", 10));
+		assertArrayEquals(new int[]{4151, 12006}, index.search("ABYSS", 10));
+		assertArrayEquals(new int[]{4587}, index.search("scim", 10));
+		assertArrayEquals(new int[]{4587, 11840}, index.search("dragon ", 10));
+		assertArrayEquals(new int[]{4587}, index.search("dragon", 1));
+		assertArrayEquals(new int[]{20997}, index.search("twisted bow", 10));
+		assertArrayEquals(new int[0], index.search("zzz", 10));
+		assertArrayEquals(new int[0], index.search("", 10));
+
+		// short queries
+		assertArrayEquals(new int[]{4151, 12006, 4587, 11840}, index.search("a", 10));
+		assertArrayEquals(new int[]{995}, index.search("oi", 10));
+	}
+
+	@Test
+	public void testSearchPrefix()
+	{
+		ItemNameIndex index = createIndex();
+
+		assertArrayEquals(new int[]{4587, 11840}, index.searchPrefix("drag", 10));
+		assertArrayEquals(new int[0], index.searchPrefix("whip", 10));
+		assertArrayEquals(new int[]{995}, index.searchPrefix("c", 10));
+	}
+
+	@Test
+	public void testAppend()
+	{
+		ItemNameIndex index = createIndex();
+		index.add(22324, "Ghrazi rapier");
+		index.add(22325, "Ghrazi rapier (or)");
+
+		assertArrayEquals(new int[]{22324, 22325}, index.search("rapier", 10));
+	}
+
+	@Test
+	public void testMatchesScan()
+	{
+		Random random = new Random(42);
+		List<String> names = randomNames(random, 5000);
+
+		ItemNameIndex index = new ItemNameIndex();
+		for (int i = 0; i < names.size(); i++)
+		{
+			index.add(i, names.get(i));
+		}
+
+		for (int q = 0; q < 200; q++)
+		{
+			String name = names.get(random.nextInt(names.size()));
+			int start = random.nextInt(name.length());
+			String query = name.substring(start, Math.min(name.length(), start + 1 + random.nextInt(6)));
+
+			assertArrayEquals(query, scan(names, query), index.search(query, Integer.MAX_VALUE));
+		}
+	}
+
+	@Test
+	@Ignore
+	public void benchmark()
+	{
+		Random random = new Random(42);
+		List<String> names = randomNames(random, 30_000);
+
+		long start = System.nanoTime();
+		ItemNameIndex index = new ItemNameIndex();
+		for (int i = 0; i < names.size(); i++)
+		{
+			index.add(i, names.get(i));
+		}
+		log.info("indexed {} names in {}ms", names.size(), (System.nanoTime() - start) / 1_000_000);
+
+		String[] queries = {"dra", "dragon", "rune pl", "ring of", "xyz", "pot", "a"};
+		for (String query : queries)
+		{
+			start = System.nanoTime();
+			for (int i = 0; i < 1000; i++)
+			{
+				index.search(query, 40);
+			}
+			long indexed = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < 1000; i++)
+			{
+				scan(names, query);
+			}
+			long scanned = System.nanoTime() - start;
+
+			log.info("{}: index {}us, scan {}us", query, indexed / 1000 / 1000, scanned / 1000 / 1000);
+		}
+	}
+
+	private static int[] scan(List<String> names, String query)
+	{
+		List<Integer> results = new ArrayList<>();
+		for (int i = 0; i < names.size(); i++)
+		{
+			if (names.get(i).toLowerCase().contains(query.toLowerCase()))
+			{
+				results.add(i);
+			}
+		}
+		return results.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	private static List<String> randomNames(Random random, int count)
+	{
+		String[] words = {"Dragon", "Rune", "Adamant", "platebody", "scimitar", "Ring of", "wealth", "potion", "(4)",
+			"Super", "attack", "Amulet", "of", "glory", "Mithril", "bar", "ore", "seed", "Yew", "logs", "Abyssal", "whip"};
+		List<String> names = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+		{
+			StringBuilder sb = new StringBuilder(words[random.nextInt(words.length)]);
+			for (int w = random.nextInt(3); w >= 0; w--)
+			{
+				sb.append(' ').append(words[random.nextInt(words.length)]);
+			}
+			names.add(sb.toString());
+		}
+		return names;
+	}
+}
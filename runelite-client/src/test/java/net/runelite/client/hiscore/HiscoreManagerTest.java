@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.hiscore;
+
+import com.google.gson.Gson;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HiscoreManagerTest
+{
+	private static final String PLAYER = "Zezima";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private HiscoreClient hiscoreClient;
+	private ScheduledExecutorService executor;
+	private File cacheFile;
+
+	@Before
+	public void before() throws IOException
+	{
+		hiscoreClient = mock(HiscoreClient.class);
+		executor = Executors.newSingleThreadScheduledExecutor();
+		cacheFile = new File(folder.newFolder(), "hiscores.json");
+	}
+
+	@After
+	public void after()
+	{
+		executor.shutdownNow();
+	}
+
+	private HiscoreManager createManager()
+	{
+		return new HiscoreManager(hiscoreClient, executor, new Gson(), cacheFile, new HiscoreManager.TokenBucket(5, 2, TimeUnit.SECONDS.toNanos(1)));
+	}
+
+	private static HiscoreResult result(int level)
+	{
+		HiscoreResult result = new HiscoreResult();
+		result.setPlayer(PLAYER);
+		result.setOverall(new Skill(1, level, 4_600_000_000L));
+		return result;
+	}
+
+	private void writeCache(long fetched, HiscoreResult result) throws IOException
+	{
+		String json = "[{\"username\":\"" + PLAYER + "\",\"type\":\"NORMAL\",\"fetched\":" + fetched + ",\"result\":" + new Gson().toJson(result) + "}]";
+		Files.write(cacheFile.toPath(), json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testSingleFlight() throws Exception
+	{
+		CompletableFuture<HiscoreResult> response = new CompletableFuture<>();
+		when(hiscoreClient.lookupAsync(PLAYER, HiscoreEndpoint.NORMAL)).thenReturn(response);
+
+		HiscoreManager hiscoreManager = createManager();
+		CompletableFuture<HiscoreResult> first = hiscoreManager.refresh(PLAYER, HiscoreEndpoint.NORMAL);
+		CompletableFuture<HiscoreResult> second = hiscoreManager.refresh(PLAYER, HiscoreEndpoint.NORMAL);
+		assertSame(first, second);
+		// the background lookup joins the interactive one rather than sending another request
+		assertNull(hiscoreManager.lookupAsync(PLAYER, HiscoreEndpoint.NORMAL));
+
+		HiscoreResult result = result(2277);
+		response.complete(result);
+		assertSame(result, first.get());
+		verify(hiscoreClient, times(1)).lookupAsync(anyString(), any(HiscoreEndpoint.class));
+
+		// now cached and fresh
+		assertSame(result, hiscoreManager.lookup(PLAYER, HiscoreEndpoint.NORMAL));
+		assertSame(result, hiscoreManager.lookupAsync(PLAYER, HiscoreEndpoint.NORMAL));
+		verify(hiscoreClient, times(1)).lookupAsync(anyString(), any(HiscoreEndpoint.class));
+	}
+
+	@Test
+	public void testNotFound() throws Exception
+	{
+		when(hiscoreClient.lookupAsync(PLAYER, HiscoreEndpoint.NORMAL)).thenReturn(CompletableFuture.completedFuture(null));
+
+		HiscoreManager hiscoreManager = createManager();
+		assertNull(hiscoreManager.lookup(PLAYER, HiscoreEndpoint.NORMAL));
+		assertNull(hiscoreManager.lookup(PLAYER, HiscoreEndpoint.NORMAL));
+		verify(hiscoreClient, times(1)).lookupAsync(anyString(), any(HiscoreEndpoint.class));
+	}
+
+	@Test
+	public void testStaleWhileRevalidate() throws Exception
+	{
+		HiscoreResult stale = result(2000);
+		writeCache(System.currentTimeMillis() - HiscoreManager.FRESH_MILLIS - 1000, stale);
+
+		CompletableFuture<HiscoreResult> response = new CompletableFuture<>();
+		when(hiscoreClient.lookupAsync(PLAYER, HiscoreEndpoint.NORMAL)).thenReturn(response);
+
+		HiscoreManager hiscoreManager = createManager();
+		assertEquals(stale, hiscoreManager.lookupAsync(PLAYER, HiscoreEndpoint.NORMAL));
+		assertEquals(stale, hiscoreManager.lookupAsync(PLAYER, HiscoreEndpoint.NORMAL));
+		verify(hiscoreClient, times(1)).lookupAsync(PLAYER, HiscoreEndpoint.NORMAL);
+
+		HiscoreResult fresh = result(2277);
+		response.complete(fresh);
+		assertSame(fresh, hiscoreManager.lookupAsync(PLAYER, HiscoreEndpoint.NORMAL));
+	}
+
+	@Test
+	public void testExpiredCacheIgnored() throws Exception
+	{
+		writeCache(System.currentTimeMillis() - HiscoreManager.STALE_MILLIS - 1000, result(2000));
+		when(hiscoreClient.lookupAsync(PLAYER, HiscoreEndpoint.NORMAL)).thenReturn(new CompletableFuture<>());
+
+		assertNull(createManager().lookupAsync(PLAYER, HiscoreEndpoint.NORMAL));
+	}
+
+	@Test
+	public void testStaleOnFailure() throws Exception
+	{
+		HiscoreResult stale = result(2000);
+		writeCache(System.currentTimeMillis() - HiscoreManager.FRESH_MILLIS - 1000, stale);
+
+		CompletableFuture<HiscoreResult> response = new CompletableFuture<>();
+		response.completeExceptionally(new IOException("down"));
+		when(hiscoreClient.lookupAsync(PLAYER, HiscoreEndpoint.NORMAL)).thenReturn(response);
+
+		HiscoreManager hiscoreManager = createManager();
+		assertEquals(stale, hiscoreManager.lookup(PLAYER, HiscoreEndpoint.NORMAL));
+
+		// without anything to fall back on the error is thrown
+		when(hiscoreClient.lookupAsync(PLAYER, HiscoreEndpoint.IRONMAN)).thenReturn(response);
+		try
+		{
+			hiscoreManager.lookup(PLAYER, HiscoreEndpoint.IRONMAN);
+			fail();
+		}
+		catch (IOException ex)
+		{
+			assertEquals("down", ex.getMessage());
+		}
+
+		// background lookups back off after a failure
+		assertNull(hiscoreManager.lookupAsync(PLAYER, HiscoreEndpoint.IRONMAN));
+		verify(hiscoreClient, times(1)).lookupAsync(PLAYER, HiscoreEndpoint.IRONMAN);
+	}
+
+	@Test
+	public void testLookupLatest() throws Exception
+	{
+		HiscoreResult cached = result(2000);
+		writeCache(System.currentTimeMillis(), cached);
+
+		HiscoreResult latest = result(2001);
+		when(hiscoreClient.lookupAsync(PLAYER, HiscoreEndpoint.NORMAL)).thenReturn(CompletableFuture.completedFuture(latest));
+
+		// a fresh cached result is not used
+		HiscoreManager hiscoreManager = createManager();
+		assertSame(latest, hiscoreManager.lookupLatest(PLAYER, HiscoreEndpoint.NORMAL));
+
+		// but is still the fallback if the lookup fails
+		CompletableFuture<HiscoreResult> response = new CompletableFuture<>();
+		response.completeExceptionally(new IOException("down"));
+		when(hiscoreClient.lookupAsync(PLAYER, HiscoreEndpoint.NORMAL)).thenReturn(response);
+		assertEquals(latest, hiscoreManager.lookupLatest(PLAYER, HiscoreEndpoint.NORMAL));
+		verify(hiscoreClient, times(2)).lookupAsync(PLAYER, HiscoreEndpoint.NORMAL);
+	}
+
+	@Test(timeout = 10_000)
+	public void testRateLimitedLookupOnExecutor() throws Exception
+	{
+		HiscoreResult result = result(2277);
+		when(hiscoreClient.lookupAsync(anyString(), any(HiscoreEndpoint.class))).thenReturn(CompletableFuture.completedFuture(result));
+
+		HiscoreManager hiscoreManager = new HiscoreManager(hiscoreClient, executor, new Gson(), null,
+			new HiscoreManager.TokenBucket(1, 0, TimeUnit.MILLISECONDS.toNanos(100)));
+		assertSame(result, hiscoreManager.lookupLatest(PLAYER, HiscoreEndpoint.NORMAL));
+
+		// the bucket is empty, so this lookup has to wait while it blocks the executor, as chat commands do
+		assertSame(result, executor.submit(() -> hiscoreManager.lookupLatest(PLAYER, HiscoreEndpoint.IRONMAN)).get());
+		verify(hiscoreClient, times(2)).lookupAsync(anyString(), any(HiscoreEndpoint.class));
+	}
+
+	@Test
+	public void testDiskCache() throws Exception
+	{
+		HiscoreResult result = result(2277);
+		when(hiscoreClient.lookupAsync(PLAYER, HiscoreEndpoint.NORMAL)).thenReturn(CompletableFuture.completedFuture(result));
+
+		HiscoreManager hiscoreManager = createManager();
+		assertSame(result, hiscoreManager.lookup(PLAYER, HiscoreEndpoint.NORMAL));
+		hiscoreManager.save();
+
+		HiscoreClient otherClient = mock(HiscoreClient.class);
+		HiscoreManager restored = new HiscoreManager(otherClient, executor, new Gson(), cacheFile, new HiscoreManager.TokenBucket(5, 2, 1));
+		assertEquals(result, restored.lookup(PLAYER, HiscoreEndpoint.NORMAL));
+		verify(otherClient, never()).lookupAsync(anyString(), any(HiscoreEndpoint.class));
+	}
+
+	@Test
+	public void testTokenBucket()
+	{
+		HiscoreManager.TokenBucket bucket = new HiscoreManager.TokenBucket(5, 2, 100);
+
+		// background requests stop while the reserve is left
+		assertEquals(0, bucket.reserve(false, 0));
+		assertEquals(0, bucket.reserve(false, 0));
+		assertEquals(0, bucket.reserve(false, 0));
+		assertEquals(-1, bucket.reserve(false, 0));
+
+		// interactive requests use the reserve, and then queue up
+		assertEquals(0, bucket.reserve(true, 0));
+		assertEquals(0, bucket.reserve(true, 0));
+		assertEquals(100, bucket.reserve(true, 0));
+		assertEquals(200, bucket.reserve(true, 0));
+		assertEquals(-1, bucket.reserve(false, 0));
+
+		// refilled
+		assertEquals(0, bucket.reserve(true, 300));
+		assertEquals(-1, bucket.reserve(false, 300));
+		assertEquals(0, bucket.reserve(false, 1000));
+		assertEquals(0, bucket.reserve(false, 1000));
+		assertEquals(0, bucket.reserve(false, 1000));
+		assertEquals(-1, bucket.reserve(false, 1000));
+	}
+}
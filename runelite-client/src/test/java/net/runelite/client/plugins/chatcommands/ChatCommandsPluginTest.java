@@ -65,8 +65,8 @@ import net.runelite.client.config.ChatColorConfig;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.config.RuneLiteConfig;
 import net.runelite.client.game.ItemManager;
-import net.runelite.client.hiscore.HiscoreClient;
 import net.runelite.client.hiscore.HiscoreEndpoint;
+import net.runelite.client.hiscore.HiscoreManager;
 import net.runelite.client.hiscore.HiscoreResult;
 import net.runelite.client.hiscore.Skill;
 import net.runelite.client.util.AsyncBufferedImage;
@@ -122,7 +122,7 @@ public class ChatCommandsPluginTest
 
 	@Mock
 	@Bind
-	HiscoreClient hiscoreClient;
+	HiscoreManager hiscoreManager;
 
 	@Mock
 	@Bind
@@ -673,7 +673,7 @@ public class ChatCommandsPluginTest
 		hiscoreResult.setPlayer(PLAYER_NAME);
 		hiscoreResult.setChambersOfXericChallengeMode(new Skill(10, 1000, -1));
 
-		when(hiscoreClient.lookup(eq(PLAYER_NAME), nullable(HiscoreEndpoint.class))).thenReturn(hiscoreResult);
+		when(hiscoreManager.lookupLatest(eq(PLAYER_NAME), nullable(HiscoreEndpoint.class))).thenReturn(hiscoreResult);
 
 		MessageNode messageNode = mock(MessageNode.class);
 
@@ -26,18 +26,26 @@ package net.runelite.client.plugins.cluescrolls.clues.hotcold;
 
 import com.google.common.collect.Sets;
 import java.awt.Rectangle;
+import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
 import static junit.framework.TestCase.assertTrue;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.coords.WorldPoint;
 import static net.runelite.client.plugins.cluescrolls.clues.hotcold.HotColdSolver.isFirstPointCloser;
 import static net.runelite.client.plugins.cluescrolls.clues.hotcold.HotColdSolver.isFirstPointCloserRect;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Ignore;
 import org.junit.Test;
 
+@Slf4j
 public class HotColdSolverTest
 {
 	private static final String RESPONSE_TEXT_ICE_COLD_COLDER = "The device is ice cold, but colder than last time.";
@@ -211,6 +219,159 @@ public class HotColdSolverTest
 		assertTrue(isFirstPointCloser(new WorldPoint(1, 1, 1), new WorldPoint(0, 1, 0), new WorldPoint(1, 1, 0)));
 	}
 
+	@Test
+	public void testSignalMatchesRectangleFiltering()
+	{
+		testSignalMatchesRectangleFiltering(true, HotColdTemperature.BEGINNER_HOT_COLD_TEMPERATURES);
+		testSignalMatchesRectangleFiltering(false, HotColdTemperature.MASTER_HOT_COLD_TEMPERATURES);
+	}
+
+	@Test
+	public void testBestNextPoint()
+	{
+		HotColdSolver solver = new HotColdSolver(EnumSet.of(
+			HotColdLocation.ZEAH_SULPHR_MINE,
+			HotColdLocation.ZEAH_FARMING_GUILD_W
+		));
+
+		final WorldPoint player = new WorldPoint(1348, 3740, 0);
+		solver.signal(player, HotColdTemperature.WARM, null);
+
+		final WorldPoint next = solver.getBestNextPoint(player, HotColdTemperature.MASTER_HOT_COLD_TEMPERATURES);
+		assertNotNull(next);
+		assertSame(next, solver.getBestNextPoint(player, HotColdTemperature.MASTER_HOT_COLD_TEMPERATURES));
+
+		// a check from the suggested point tells the two locations apart
+		assertNotEquals(
+			temperatureAt(next, HotColdLocation.ZEAH_SULPHR_MINE, HotColdTemperature.MASTER_HOT_COLD_TEMPERATURES),
+			temperatureAt(next, HotColdLocation.ZEAH_FARMING_GUILD_W, HotColdTemperature.MASTER_HOT_COLD_TEMPERATURES));
+
+		solver.signal(next, temperatureAt(next, HotColdLocation.ZEAH_SULPHR_MINE, HotColdTemperature.MASTER_HOT_COLD_TEMPERATURES), null);
+		assertEquals(Sets.immutableEnumSet(HotColdLocation.ZEAH_SULPHR_MINE), solver.getPossibleLocations());
+		assertEquals(null, solver.getBestNextPoint(next, HotColdTemperature.MASTER_HOT_COLD_TEMPERATURES));
+	}
+
+	@Test
+	@Ignore
+	public void benchmark()
+	{
+		benchmark("beginner", true, HotColdTemperature.BEGINNER_HOT_COLD_TEMPERATURES);
+		benchmark("master", false, HotColdTemperature.MASTER_HOT_COLD_TEMPERATURES);
+	}
+
+	private static void benchmark(String name, boolean beginner, Set<HotColdTemperature> temperatures)
+	{
+		final int runs = 1000;
+		final Random random = new Random(42);
+		final HotColdLocation[] all = locations(beginner).toArray(new HotColdLocation[0]);
+
+		long signalTime = 0;
+		long suggestTime = 0;
+		for (int run = 0; run < runs; run++)
+		{
+			final HotColdLocation target = all[random.nextInt(all.length)];
+			final HotColdSolver solver = new HotColdSolver(locations(beginner));
+			WorldPoint player = target.getWorldPoint().dx(random.nextInt(2001) - 1000).dy(random.nextInt(2001) - 1000);
+
+			for (int step = 0; step < 8 && solver.getPossibleLocations().size() > 1; step++)
+			{
+				long start = System.nanoTime();
+				solver.signal(player, temperatureAt(player, target, temperatures), null);
+				signalTime += System.nanoTime() - start;
+
+				start = System.nanoTime();
+				WorldPoint next = solver.getBestNextPoint(player, temperatures);
+				suggestTime += System.nanoTime() - start;
+
+				if (next == null)
+				{
+					break;
+				}
+				// walk towards the suggestion, or towards the target if there is no better spot nearby
+				player = next.equals(player) ? player.dx(Integer.signum(target.getWorldPoint().getX() - player.getX()) * 40)
+					.dy(Integer.signum(target.getWorldPoint().getY() - player.getY()) * 40) : next;
+			}
+		}
+
+		log.info("{}: signal {}us, best next point {}us per solve", name, signalTime / runs / 1000, suggestTime / runs / 1000);
+	}
+
+	private static void testSignalMatchesRectangleFiltering(boolean beginner, Set<HotColdTemperature> temperatures)
+	{
+		final Random random = new Random(42);
+		final HotColdTemperatureChange[] changes = HotColdTemperatureChange.values();
+		final HotColdTemperature[] temps = temperatures.toArray(new HotColdTemperature[0]);
+
+		for (int run = 0; run < 200; run++)
+		{
+			final HotColdSolver solver = new HotColdSolver(locations(beginner));
+			final Set<HotColdLocation> expected = locations(beginner);
+			WorldPoint last = null;
+
+			for (int step = 0; step < 4; step++)
+			{
+				final HotColdLocation target = expected.isEmpty() ? HotColdLocation.values()[0] : expected.iterator().next();
+				final WorldPoint point = target.getWorldPoint().dx(random.nextInt(401) - 200).dy(random.nextInt(401) - 200);
+				final HotColdTemperature temperature = random.nextBoolean() ? temperatureAt(point, target, temperatures) : temps[random.nextInt(temps.length)];
+				final HotColdTemperatureChange change = random.nextBoolean() ? null : changes[random.nextInt(changes.length)];
+
+				referenceSignal(expected, last, point, temperature, change);
+				assertEquals(expected, solver.signal(point, temperature, change));
+				last = point;
+			}
+		}
+	}
+
+	/**
+	 * The rectangle based filtering the solver used originally.
+	 */
+	private static void referenceSignal(Set<HotColdLocation> possibleLocations, WorldPoint lastWorldPoint, WorldPoint worldPoint, HotColdTemperature temperature, HotColdTemperatureChange temperatureChange)
+	{
+		final int max = temperature.getMaxDistance();
+		final int min = temperature.getMinDistance();
+		final Rectangle maxDistanceArea = new Rectangle(worldPoint.getX() - max, worldPoint.getY() - max, 2 * max + 1, 2 * max + 1);
+		final Rectangle minDistanceArea = new Rectangle(worldPoint.getX() - min, worldPoint.getY() - min, 2 * min + 1, 2 * min + 1);
+
+		possibleLocations.removeIf(entry -> minDistanceArea.contains(entry.getRect()) || !maxDistanceArea.intersects(entry.getRect()));
+
+		if (lastWorldPoint != null && temperatureChange != null)
+		{
+			switch (temperatureChange)
+			{
+				case COLDER:
+					possibleLocations.removeIf(entry -> isFirstPointCloserRect(worldPoint, lastWorldPoint, entry.getRect()));
+					break;
+				case WARMER:
+					possibleLocations.removeIf(entry -> isFirstPointCloserRect(lastWorldPoint, worldPoint, entry.getRect()));
+					break;
+				case SAME:
+					possibleLocations.removeIf(entry ->
+						isFirstPointCloserRect(worldPoint, lastWorldPoint, entry.getRect())
+						|| isFirstPointCloserRect(lastWorldPoint, worldPoint, entry.getRect()));
+			}
+		}
+	}
+
+	private static Set<HotColdLocation> locations(boolean beginner)
+	{
+		return Arrays.stream(HotColdLocation.values())
+			.filter(l -> l.isBeginnerClue() == beginner)
+			.collect(Collectors.toCollection(HashSet::new));
+	}
+
+	private static HotColdTemperature temperatureAt(WorldPoint point, HotColdLocation location, Set<HotColdTemperature> temperatures)
+	{
+		final int distance = point.distanceTo2D(location.getWorldPoint());
+		for (HotColdTemperature temperature : temperatures)
+		{
+			if (distance >= temperature.getMinDistance() && distance <= temperature.getMaxDistance())
+			{
+				return temperature;
+			}
+		}
+		return HotColdTemperature.ICE_COLD;
+	}
+
 	/**
 	 * Tests a hot-cold solver by signalling a test point, temperature, and temperature change to it and asserting the
 	 * resulting possible location set is equal to that of a given set of expected locations.
@@ -0,0 +1,519 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.gpu;
+
+import com.google.inject.Guice;
+import com.google.inject.testing.fieldbinder.Bind;
+import com.google.inject.testing.fieldbinder.BoundFieldModule;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.inject.Inject;
+import net.runelite.api.Client;
+import net.runelite.api.Constants;
+import net.runelite.api.GameObject;
+import net.runelite.api.Model;
+import net.runelite.api.Point;
+import net.runelite.api.Scene;
+import net.runelite.api.SceneTileModel;
+import net.runelite.api.SceneTilePaint;
+import net.runelite.api.Tile;
+import net.runelite.api.WallObject;
+import org.junit.After;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SceneUploaderTest
+{
+	@Inject
+	private SceneUploader sceneUploader;
+
+	@Bind
+	private Client client = mock(Client.class);
+
+	private ExecutorService executor;
+
+	// buffer offset, uv buffer offset, buffer length and scene id set on each uploaded object
+	private final Map<Object, int[]> state = new IdentityHashMap<>();
+
+	@Before
+	public void before()
+	{
+		Guice.createInjector(BoundFieldModule.of(this)).injectMembers(this);
+		executor = Executors.newFixedThreadPool(4);
+
+		Random random = new Random(7);
+		int[][][] tileHeights = new int[Constants.MAX_Z][Constants.SCENE_SIZE + 1][Constants.SCENE_SIZE + 1];
+		for (int[][] plane : tileHeights)
+		{
+			for (int[] column : plane)
+			{
+				for (int y = 0; y < column.length; ++y)
+				{
+					column[y] = -random.nextInt(1024);
+				}
+			}
+		}
+		when(client.getTileHeights()).thenReturn(tileHeights);
+	}
+
+	@After
+	public void after()
+	{
+		executor.shutdown();
+	}
+
+	@Test
+	public void testParallelUploadMatchesSequential()
+	{
+		List<Object> sequentialObjects = new ArrayList<>();
+		Scene sequentialScene = createScene(42, sequentialObjects);
+		GpuIntBuffer sequentialVertices = new GpuIntBuffer();
+		GpuFloatBuffer sequentialUvs = new GpuFloatBuffer();
+		sceneUploader.upload(sequentialScene, sequentialVertices, sequentialUvs, null, 1);
+		final int sequentialSceneId = sceneUploader.sceneId;
+		final SceneUploader.UploadStats sequentialStats = sceneUploader.getLastUpload();
+		assertTrue(sequentialStats.getDuplicateModels() > 0);
+
+		for (int strips : new int[]{2, 7, 1000})
+		{
+			List<Object> objects = new ArrayList<>();
+			Scene scene = createScene(42, objects);
+			GpuIntBuffer vertices = new GpuIntBuffer();
+			GpuFloatBuffer uvs = new GpuFloatBuffer();
+			sceneUploader.upload(scene, vertices, uvs, executor, strips);
+
+			assertArrayEquals(toArray(sequentialVertices), toArray(vertices));
+			assertArrayEquals(toArray(sequentialUvs), toArray(uvs), 0f);
+
+			assertEquals(sequentialStats.getModels(), sceneUploader.getLastUpload().getModels());
+			assertEquals(sequentialStats.getDuplicateModels(), sceneUploader.getLastUpload().getDuplicateModels());
+			assertEquals(sequentialStats.getBytesSaved(), sceneUploader.getLastUpload().getBytesSaved());
+
+			assertEquals(sequentialObjects.size(), objects.size());
+			for (int i = 0; i < objects.size(); ++i)
+			{
+				int[] expected = state.get(sequentialObjects.get(i));
+				int[] actual = state.get(objects.get(i));
+				assertArrayEquals(Arrays.copyOf(expected, 3), Arrays.copyOf(actual, 3));
+				assertEquals(expected[3] == sequentialSceneId, actual[3] == sceneUploader.sceneId);
+			}
+		}
+	}
+
+	@Test
+	public void testSharedModelUploadedOnce()
+	{
+		Random random = new Random(1);
+		Model model = createModel(random);
+		int len = Math.min(model.getFaceCount(), GpuPlugin.MAX_TRIANGLE) * 3;
+
+		Tile[][][] tiles = new Tile[Constants.MAX_Z][Constants.SCENE_SIZE][Constants.SCENE_SIZE];
+		tiles[0][0][0] = createTile(0, 0, 0);
+		tiles[3][103][103] = createTile(3, 103, 103);
+		for (Tile tile : new Tile[]{tiles[0][0][0], tiles[3][103][103]})
+		{
+			GameObject gameObject = mock(GameObject.class);
+			when(gameObject.getRenderable()).thenReturn(model);
+			when(tile.getGameObjects()).thenReturn(new GameObject[]{gameObject});
+		}
+
+		Scene scene = mock(Scene.class);
+		when(scene.getTiles()).thenReturn(tiles);
+
+		GpuIntBuffer vertices = new GpuIntBuffer();
+		GpuFloatBuffer uvs = new GpuFloatBuffer();
+		sceneUploader.upload(scene, vertices, uvs, executor, 8);
+
+		assertEquals(len * 4, vertices.getBuffer().position());
+		assertEquals(0, state.get(model)[0]);
+		assertEquals(sceneUploader.sceneId, state.get(model)[3]);
+	}
+
+	@Test
+	public void testIdenticalModelsShareData()
+	{
+		Model first = createModel(new Random(3));
+		Model second = createModel(new Random(3));
+		int len = Math.min(first.getFaceCount(), GpuPlugin.MAX_TRIANGLE) * 3;
+		boolean textured = first.getFaceTextures() != null;
+
+		Tile[][][] tiles = new Tile[Constants.MAX_Z][Constants.SCENE_SIZE][Constants.SCENE_SIZE];
+		tiles[0][0][0] = createTile(0, 0, 0);
+		tiles[3][103][103] = createTile(3, 103, 103);
+		GameObject firstObject = mock(GameObject.class);
+		when(firstObject.getRenderable()).thenReturn(first);
+		when(tiles[0][0][0].getGameObjects()).thenReturn(new GameObject[]{firstObject});
+		GameObject secondObject = mock(GameObject.class);
+		when(secondObject.getRenderable()).thenReturn(second);
+		when(tiles[3][103][103].getGameObjects()).thenReturn(new GameObject[]{secondObject});
+
+		Scene scene = mock(Scene.class);
+		when(scene.getTiles()).thenReturn(tiles);
+
+		for (ExecutorService pool : new ExecutorService[]{null, executor})
+		{
+			GpuIntBuffer vertices = new GpuIntBuffer();
+			GpuFloatBuffer uvs = new GpuFloatBuffer();
+			sceneUploader.upload(scene, vertices, uvs, pool, 8);
+
+			assertEquals(len * 4, vertices.getBuffer().position());
+			assertEquals(textured ? len * 4 : 0, uvs.getBuffer().position());
+			assertArrayEquals(state.get(first), state.get(second));
+
+			SceneUploader.UploadStats stats = sceneUploader.getLastUpload();
+			assertEquals(2, stats.getModels());
+			assertEquals(1, stats.getDuplicateModels());
+			assertEquals(len * (textured ? 32 : 16), stats.getBytesSaved());
+		}
+	}
+
+	@Test
+	public void testSortedModelOrder()
+	{
+		// more faces at one distance and of one priority, and a larger diameter, than fit the old fixed size buffers
+		final int faceCount = 3000;
+		Model model = mock(Model.class);
+		int[] verticesX = new int[faceCount * 3];
+		int[] verticesY = new int[faceCount * 3];
+		int[] verticesZ = new int[faceCount * 3];
+		int[] indices1 = new int[faceCount];
+		int[] indices2 = new int[faceCount];
+		int[] indices3 = new int[faceCount];
+		int[] colors1 = new int[faceCount];
+		int[] colors3 = new int[faceCount];
+		byte[] priorities = new byte[faceCount];
+		int[] faceDistances = new int[faceCount];
+		Random random = new Random(11);
+		for (int face = 0; face < faceCount; ++face)
+		{
+			// a triangle facing the camera, unless it is wound the other way
+			boolean visible = face % 10 != 0;
+			int depth = random.nextInt(3) * 1000 - 1000;
+			int v = face * 3;
+			verticesX[v + 1] = visible ? 0 : 100;
+			verticesY[v + 1] = visible ? 100 : 0;
+			verticesX[v + 2] = visible ? 100 : 0;
+			verticesY[v + 2] = visible ? 0 : 100;
+			verticesZ[v] = verticesZ[v + 1] = verticesZ[v + 2] = depth;
+			indices1[face] = v;
+			indices2[face] = v + 1;
+			indices3[face] = v + 2;
+			colors1[face] = face;
+			colors3[face] = face % 13 == 0 ? -2 : -1;
+			priorities[face] = (byte) random.nextInt(10);
+			faceDistances[face] = visible && colors3[face] != -2 ? 4000 + depth : -1;
+		}
+		when(model.getVerticesCount()).thenReturn(faceCount * 3);
+		when(model.getVerticesX()).thenReturn(verticesX);
+		when(model.getVerticesY()).thenReturn(verticesY);
+		when(model.getVerticesZ()).thenReturn(verticesZ);
+		when(model.getFaceCount()).thenReturn(faceCount);
+		when(model.getFaceIndices1()).thenReturn(indices1);
+		when(model.getFaceIndices2()).thenReturn(indices2);
+		when(model.getFaceIndices3()).thenReturn(indices3);
+		when(model.getFaceColors1()).thenReturn(colors1);
+		when(model.getFaceColors2()).thenReturn(colors1);
+		when(model.getFaceColors3()).thenReturn(colors3);
+		when(model.getDiameter()).thenReturn(8000);
+		when(model.getRadius()).thenReturn(4000);
+		when(client.get3dZoom()).thenReturn(512);
+
+		List<Integer> expected = new ArrayList<>();
+		for (int face = 0; face < faceCount; ++face)
+		{
+			if (faceDistances[face] != -1)
+			{
+				expected.add(face);
+			}
+		}
+		// farthest first, and in face order at the same distance
+		expected.sort(Comparator.comparingInt(face -> -faceDistances[face]));
+
+		sceneUploader.initSortingBuffers();
+		try
+		{
+			assertEquals(expected, pushSortedModel(model));
+
+			when(model.getFaceRenderPriorities()).thenReturn(priorities);
+			expected.sort(Comparator.comparingInt(face -> priorities[face]));
+			assertEquals(expected, pushSortedModel(model));
+		}
+		finally
+		{
+			sceneUploader.releaseSortingBuffers();
+		}
+	}
+
+	/**
+	 * Push a model seen straight on from in front of it, returning the pushed faces in order
+	 */
+	private List<Integer> pushSortedModel(Model model)
+	{
+		GpuIntBuffer vertices = new GpuIntBuffer();
+		int len = sceneUploader.pushSortedModel(model, 0, 0, 65536, 0, 65536, 0, 0, 5000, vertices, new GpuFloatBuffer());
+
+		int[] data = toArray(vertices);
+		assertEquals(len * 4, data.length);
+
+		List<Integer> faces = new ArrayList<>();
+		for (int i = 0; i < data.length; i += 12)
+		{
+			faces.add(data[i + 3] & 0xffff);
+		}
+		return faces;
+	}
+
+	private Scene createScene(long seed, List<Object> objects)
+	{
+		Random random = new Random(seed);
+
+		List<Model> shared = new ArrayList<>();
+		for (int i = 0; i < 16; ++i)
+		{
+			shared.add(createModel(random));
+		}
+		objects.addAll(shared);
+
+		Tile[][][] tiles = new Tile[Constants.MAX_Z][Constants.SCENE_SIZE][Constants.SCENE_SIZE];
+		for (int z = 0; z < Constants.MAX_Z; ++z)
+		{
+			for (int x = 0; x < Constants.SCENE_SIZE; ++x)
+			{
+				for (int y = 0; y < Constants.SCENE_SIZE; ++y)
+				{
+					if (random.nextInt(40) != 0)
+					{
+						continue;
+					}
+
+					Tile tile = createTile(z, x, y);
+					populate(tile, x, y, random, shared, objects);
+
+					if (random.nextInt(10) == 0)
+					{
+						Tile bridge = createTile(z + 1, x, y);
+						populate(bridge, x, y, random, shared, objects);
+						when(tile.getBridge()).thenReturn(bridge);
+					}
+
+					tiles[z][x][y] = tile;
+				}
+			}
+		}
+
+		Scene scene = mock(Scene.class);
+		when(scene.getTiles()).thenReturn(tiles);
+		return scene;
+	}
+
+	private Tile createTile(int z, int x, int y)
+	{
+		Tile tile = mock(Tile.class);
+		when(tile.getSceneLocation()).thenReturn(new Point(x, y));
+		when(tile.getRenderLevel()).thenReturn(Math.min(z, Constants.MAX_Z - 1));
+		when(tile.getGameObjects()).thenReturn(new GameObject[5]);
+		return tile;
+	}
+
+	private void populate(Tile tile, int x, int y, Random random, List<Model> shared, List<Object> objects)
+	{
+		if (random.nextInt(4) != 0)
+		{
+			SceneTilePaint paint = mock(SceneTilePaint.class);
+			when(paint.getNeColor()).thenReturn(random.nextInt(10) == 0 ? 12345678 : random.nextInt(65536));
+			when(paint.getNwColor()).thenReturn(random.nextInt(65536));
+			when(paint.getSeColor()).thenReturn(random.nextInt(65536));
+			when(paint.getSwColor()).thenReturn(random.nextInt(65536));
+			when(paint.getTexture()).thenReturn(random.nextBoolean() ? -1 : random.nextInt(100));
+			track(paint);
+			doAnswer(i -> state.get(paint)[0] = i.getArgument(0)).when(paint).setBufferOffset(anyInt());
+			doAnswer(i -> state.get(paint)[1] = i.getArgument(0)).when(paint).setUvBufferOffset(anyInt());
+			doAnswer(i -> state.get(paint)[2] = i.getArgument(0)).when(paint).setBufferLen(anyInt());
+			when(tile.getSceneTilePaint()).thenReturn(paint);
+			objects.add(paint);
+		}
+		else
+		{
+			SceneTileModel tileModel = mock(SceneTileModel.class);
+			Random tileRandom = random;
+			if (random.nextBoolean())
+			{
+				tileRandom = new Random(random.nextInt(4));
+			}
+			int faces = 1 + tileRandom.nextInt(6);
+			when(tileModel.getFaceX()).thenReturn(randomInts(tileRandom, faces, 4));
+			when(tileModel.getFaceY()).thenReturn(randomInts(tileRandom, faces, 4));
+			when(tileModel.getFaceZ()).thenReturn(randomInts(tileRandom, faces, 4));
+			when(tileModel.getVertexX()).thenReturn(offset(randomInts(tileRandom, 4, 128), x * 128));
+			when(tileModel.getVertexY()).thenReturn(randomInts(tileRandom, 4, 1024));
+			when(tileModel.getVertexZ()).thenReturn(offset(randomInts(tileRandom, 4, 128), y * 128));
+			int[] colorA = randomInts(tileRandom, faces, 65536);
+			colorA[0] = tileRandom.nextBoolean() ? 12345678 : colorA[0];
+			when(tileModel.getTriangleColorA()).thenReturn(colorA);
+			when(tileModel.getTriangleColorB()).thenReturn(randomInts(tileRandom, faces, 65536));
+			when(tileModel.getTriangleColorC()).thenReturn(randomInts(tileRandom, faces, 65536));
+			when(tileModel.getTriangleTextureId()).thenReturn(tileRandom.nextBoolean() ? null : offset(randomInts(tileRandom, faces, 50), -1));
+			track(tileModel);
+			doAnswer(i -> state.get(tileModel)[0] = i.getArgument(0)).when(tileModel).setBufferOffset(anyInt());
+			doAnswer(i -> state.get(tileModel)[1] = i.getArgument(0)).when(tileModel).setUvBufferOffset(anyInt());
+			doAnswer(i -> state.get(tileModel)[2] = i.getArgument(0)).when(tileModel).setBufferLen(anyInt());
+			when(tile.getSceneTileModel()).thenReturn(tileModel);
+			objects.add(tileModel);
+		}
+
+		if (random.nextInt(3) == 0)
+		{
+			Model renderable1 = pickModel(random, shared, objects);
+			Model renderable2 = random.nextBoolean() ? pickModel(random, shared, objects) : null;
+			WallObject wallObject = mock(WallObject.class);
+			when(wallObject.getRenderable1()).thenReturn(renderable1);
+			when(wallObject.getRenderable2()).thenReturn(renderable2);
+			when(tile.getWallObject()).thenReturn(wallObject);
+		}
+
+		GameObject[] gameObjects = new GameObject[5];
+		for (int i = random.nextInt(3); i < 2; ++i)
+		{
+			Model model = pickModel(random, shared, objects);
+			GameObject gameObject = mock(GameObject.class);
+			when(gameObject.getRenderable()).thenReturn(model);
+			gameObjects[i * 2] = gameObject;
+		}
+		when(tile.getGameObjects()).thenReturn(gameObjects);
+	}
+
+	private Model pickModel(Random random, List<Model> shared, List<Object> objects)
+	{
+		final int pick = random.nextInt(3);
+		if (pick == 0)
+		{
+			return shared.get(random.nextInt(shared.size()));
+		}
+
+		// models made from the same seed have the same data
+		Model model = createModel(pick == 1 ? new Random(random.nextInt(8)) : random);
+		objects.add(model);
+		return model;
+	}
+
+	private Model createModel(Random random)
+	{
+		Model model = mock(Model.class);
+		int faces = 1 + random.nextInt(8);
+		int vertices = 6;
+		when(model.getFaceCount()).thenReturn(faces);
+		when(model.getVerticesX()).thenReturn(randomInts(random, vertices, 512));
+		when(model.getVerticesY()).thenReturn(randomInts(random, vertices, 512));
+		when(model.getVerticesZ()).thenReturn(randomInts(random, vertices, 512));
+		when(model.getFaceIndices1()).thenReturn(randomInts(random, faces, vertices));
+		when(model.getFaceIndices2()).thenReturn(randomInts(random, faces, vertices));
+		when(model.getFaceIndices3()).thenReturn(randomInts(random, faces, vertices));
+		when(model.getFaceColors1()).thenReturn(randomInts(random, faces, 65536));
+		when(model.getFaceColors2()).thenReturn(randomInts(random, faces, 65536));
+		int[] colors3 = randomInts(random, faces, 65536);
+		colors3[0] = -1 - random.nextInt(3);
+		when(model.getFaceColors3()).thenReturn(colors3);
+
+		if (random.nextBoolean())
+		{
+			short[] textures = new short[faces];
+			float[] uv = new float[faces * 6];
+			for (int i = 0; i < faces; ++i)
+			{
+				textures[i] = (short) (random.nextInt(50) - 1);
+			}
+			for (int i = 0; i < uv.length; ++i)
+			{
+				uv[i] = random.nextFloat();
+			}
+			when(model.getFaceTextures()).thenReturn(textures);
+			when(model.getFaceTextureUVCoordinates()).thenReturn(uv);
+		}
+
+		track(model);
+		doAnswer(i -> state.get(model)[0] = i.getArgument(0)).when(model).setBufferOffset(anyInt());
+		doAnswer(i -> state.get(model)[1] = i.getArgument(0)).when(model).setUvBufferOffset(anyInt());
+		doAnswer(i -> state.get(model)[3] = i.getArgument(0)).when(model).setSceneId(anyInt());
+		return model;
+	}
+
+	private void track(Object object)
+	{
+		state.put(object, new int[]{-2, -2, -2, -2});
+	}
+
+	private static int[] randomInts(Random random, int count, int bound)
+	{
+		int[] ints = new int[count];
+		for (int i = 0; i < count; ++i)
+		{
+			ints[i] = random.nextInt(bound);
+		}
+		return ints;
+	}
+
+	private static int[] offset(int[] ints, int offset)
+	{
+		for (int i = 0; i < ints.length; ++i)
+		{
+			ints[i] += offset;
+		}
+		return ints;
+	}
+
+	private static int[] toArray(GpuIntBuffer buffer)
+	{
+		IntBuffer b = buffer.getBuffer().duplicate();
+		b.flip();
+		int[] ints = new int[b.remaining()];
+		b.get(ints);
+		return ints;
+	}
+
+	private static float[] toArray(GpuFloatBuffer buffer)
+	{
+		FloatBuffer b = buffer.getBuffer().duplicate();
+		b.flip();
+		float[] floats = new float[b.remaining()];
+		b.get(floats);
+		return floats;
+	}
+}
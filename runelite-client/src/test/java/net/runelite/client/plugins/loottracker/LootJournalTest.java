@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.loottracker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import net.runelite.http.api.loottracker.LootRecordType;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LootJournalTest
+{
+	private static final String PROFILE = "rsprofile.test";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static ConfigLoot loot(String name, int kills, int... drops)
+	{
+		ConfigLoot loot = new ConfigLoot(LootRecordType.NPC, name);
+		loot.kills = kills;
+		for (int i = 0; i < drops.length; i += 2)
+		{
+			loot.add(drops[i], drops[i + 1]);
+		}
+		return loot;
+	}
+
+	private static ConfigLoot find(Collection<ConfigLoot> loots, String name)
+	{
+		return loots.stream().filter(l -> l.name.equals(name)).findFirst().orElse(null);
+	}
+
+	@Test
+	public void testAggregate() throws IOException
+	{
+		File dir = folder.getRoot();
+		LootJournal journal = LootJournal.open(dir, PROFILE);
+		assertTrue(journal.isEmpty());
+
+		journal.append(Collections.singletonList(loot("Goblin", 1, 526, 1)), Instant.ofEpochMilli(1000));
+		journal.saveIndex();
+		journal.append(Collections.singletonList(loot("Goblin", 2, 526, 2, 995, 10)), Instant.ofEpochMilli(2000));
+
+		// the second append is not in the index and has to be replayed
+		for (LootJournal j : new LootJournal[]{journal, LootJournal.open(dir, PROFILE)})
+		{
+			ConfigLoot goblin = find(j.getAggregates(), "Goblin");
+			assertEquals(3, goblin.kills);
+			assertArrayEquals(new int[]{526, 3, 995, 10}, goblin.drops);
+			assertEquals(Instant.ofEpochMilli(1000), goblin.first);
+			assertEquals(Instant.ofEpochMilli(2000), goblin.last);
+		}
+	}
+
+	@Test
+	public void testRemove() throws IOException
+	{
+		File dir = folder.getRoot();
+		LootJournal journal = LootJournal.open(dir, PROFILE);
+		journal.append(Arrays.asList(loot("Goblin", 1, 526, 1), loot("Cow", 1, 1739, 1)), Instant.now());
+		journal.remove(LootRecordType.NPC, "Goblin");
+
+		List<ConfigLoot> loots = LootJournal.open(dir, PROFILE).getAggregates();
+		assertEquals(1, loots.size());
+		assertEquals("Cow", loots.get(0).name);
+
+		journal.removeAll();
+		assertTrue(LootJournal.open(dir, PROFILE).getAggregates().isEmpty());
+	}
+
+	@Test
+	public void testQuery() throws IOException
+	{
+		File dir = folder.getRoot();
+		LootJournal journal = LootJournal.open(dir, PROFILE);
+		// enough records to span several checkpoints
+		for (int i = 0; i < 5000; ++i)
+		{
+			journal.append(Collections.singletonList(loot("Goblin", 1, 526, 1)), Instant.ofEpochMilli(i * 1000L));
+		}
+		journal.saveIndex();
+
+		// the checkpoints are restored from the index
+		for (LootJournal j : new LootJournal[]{journal, LootJournal.open(dir, PROFILE)})
+		{
+			ConfigLoot goblin = find(j.query(Instant.ofEpochMilli(4000 * 1000L)), "Goblin");
+			assertEquals(1000, goblin.kills);
+			assertArrayEquals(new int[]{526, 1000}, goblin.drops);
+			assertEquals(Instant.ofEpochMilli(4000 * 1000L), goblin.first);
+
+			assertEquals(5000, find(j.query(Instant.EPOCH), "Goblin").kills);
+			assertTrue(j.query(Instant.ofEpochMilli(5000 * 1000L)).isEmpty());
+		}
+	}
+
+	@Test
+	public void testCompact() throws IOException
+	{
+		File dir = folder.getRoot();
+		File journalFile = new File(dir, PROFILE + ".journal");
+		LootJournal journal = LootJournal.open(dir, PROFILE);
+		journal.append(Collections.singletonList(loot("Cow", 1, 1739, 1)), Instant.ofEpochMilli(0));
+		for (int i = 1; i <= 10000; ++i)
+		{
+			journal.append(Collections.singletonList(loot("Goblin", 1, 526, 1)), Instant.ofEpochMilli(i * 1000L));
+		}
+
+		// nothing is old enough to fold
+		assertFalse(journal.compact(Instant.EPOCH, Instant.EPOCH));
+
+		long length = journalFile.length();
+		assertTrue(journal.compact(Instant.ofEpochMilli(9000 * 1000L), Instant.ofEpochMilli(1)));
+		assertTrue(journalFile.length() < length / 2);
+
+		for (LootJournal j : new LootJournal[]{journal, LootJournal.open(dir, PROFILE)})
+		{
+			// the cow was last updated before the expiry time
+			assertEquals(1, j.getAggregates().size());
+			ConfigLoot goblin = find(j.getAggregates(), "Goblin");
+			assertEquals(10000, goblin.kills);
+			assertArrayEquals(new int[]{526, 10000}, goblin.drops);
+			assertEquals(Instant.ofEpochMilli(1000), goblin.first);
+			assertEquals(Instant.ofEpochMilli(10000 * 1000L), goblin.last);
+
+			// recent records are still read individually
+			assertEquals(500, find(j.query(Instant.ofEpochMilli(9501 * 1000L)), "Goblin").kills);
+		}
+
+		// everything old has already been folded
+		assertFalse(journal.compact(Instant.ofEpochMilli(9000 * 1000L), Instant.ofEpochMilli(1)));
+	}
+
+	@Test
+	public void testSaveIndexUnchanged() throws IOException
+	{
+		File dir = folder.getRoot();
+		LootJournal journal = LootJournal.open(dir, PROFILE);
+		journal.append(Collections.singletonList(loot("Goblin", 1, 526, 1)), Instant.now());
+		journal.saveIndex();
+
+		File indexFile = new File(dir, PROFILE + ".index");
+		assertTrue(indexFile.delete());
+
+		// nothing has been written since the index was saved
+		journal.saveIndex();
+		assertFalse(indexFile.exists());
+
+		journal.append(Collections.singletonList(loot("Goblin", 1, 526, 1)), Instant.now());
+		journal.saveIndex();
+		assertTrue(indexFile.exists());
+	}
+
+	@Test
+	public void testPartialRecord() throws IOException
+	{
+		File dir = folder.getRoot();
+		LootJournal journal = LootJournal.open(dir, PROFILE);
+		journal.append(Collections.singletonList(loot("Goblin", 1, 526, 1)), Instant.now());
+		journal.append(Collections.singletonList(loot("Goblin", 1, 526, 1)), Instant.now());
+
+		File journalFile = new File(dir, PROFILE + ".journal");
+		try (RandomAccessFile raf = new RandomAccessFile(journalFile, "rw"))
+		{
+			raf.setLength(raf.length() - 3);
+		}
+
+		assertEquals(1, find(LootJournal.open(dir, PROFILE).getAggregates(), "Goblin").kills);
+	}
+
+	@Test
+	public void testCorruptRecord() throws IOException
+	{
+		File dir = folder.getRoot();
+		LootJournal journal = LootJournal.open(dir, PROFILE);
+		for (int i = 0; i < 3; ++i)
+		{
+			journal.append(Collections.singletonList(loot("Goblin", 1, 526, 1)), Instant.now());
+		}
+
+		// damage the middle record, the records after it are still read
+		File journalFile = new File(dir, PROFILE + ".journal");
+		try (RandomAccessFile raf = new RandomAccessFile(journalFile, "rw"))
+		{
+			long recordLength = raf.length() / 3;
+			raf.seek(recordLength + recordLength / 2);
+			raf.write(0xff);
+		}
+
+		journal = LootJournal.open(dir, PROFILE);
+		assertEquals(2, find(journal.getAggregates(), "Goblin").kills);
+
+		journal.append(Collections.singletonList(loot("Goblin", 1, 526, 1)), Instant.now());
+		assertEquals(3, find(LootJournal.open(dir, PROFILE).getAggregates(), "Goblin").kills);
+	}
+}
@@ -25,15 +25,25 @@
  */
 package net.runelite.client.plugins.puzzlesolver;
 
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.plugins.puzzlesolver.solver.PuzzleSolver;
 import net.runelite.client.plugins.puzzlesolver.solver.PuzzleState;
+import static net.runelite.client.plugins.puzzlesolver.solver.PuzzleSolver.DIMENSION;
 import net.runelite.client.plugins.puzzlesolver.solver.heuristics.ManhattanDistance;
+import net.runelite.client.plugins.puzzlesolver.solver.heuristics.PatternDatabase;
 import net.runelite.client.plugins.puzzlesolver.solver.pathfinding.IDAStar;
 import net.runelite.client.plugins.puzzlesolver.solver.pathfinding.IDAStarMM;
+import net.runelite.client.plugins.puzzlesolver.solver.pathfinding.IDAStarPDB;
+import net.runelite.client.plugins.puzzlesolver.solver.pathfinding.Pathfinder;
+import org.junit.Ignore;
 import org.junit.Test;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+@Slf4j
 public class PuzzleSolverTest
 {
 	private static final PuzzleState[] START_STATES =
@@ -163,4 +173,147 @@ public class PuzzleSolverTest
 			assertTrue(solver.getStep(solver.getStepCount() - 1).hasPieces(FINISHED_STATE));
 		}
 	}
+
+	@Test
+	public void testSolverPDB()
+	{
+		for (PuzzleState state : START_STATES)
+		{
+			PuzzleSolver reference = new PuzzleSolver(new IDAStar(new ManhattanDistance()), state);
+			reference.run();
+
+			PuzzleSolver solver = new PuzzleSolver(new IDAStarPDB(new PatternDatabase()), state);
+			solver.run();
+
+			assertTrue(solver.hasSolution());
+			assertFalse(solver.hasFailed());
+			assertTrue(solver.getStep(solver.getStepCount() - 1).hasPieces(FINISHED_STATE));
+			// both searches are optimal
+			assertEquals(reference.getStepCount(), solver.getStepCount());
+			assertValidPath(solver);
+		}
+	}
+
+	@Test
+	public void testSolverPDBParallel()
+	{
+		for (PuzzleState state : scrambledStates(10, 60))
+		{
+			PuzzleSolver sequential = new PuzzleSolver(new IDAStarPDB(new PatternDatabase()), state);
+			sequential.run();
+
+			PuzzleSolver solver = new PuzzleSolver(new IDAStarPDB(new PatternDatabase(), ForkJoinPool.commonPool()), state);
+			solver.run();
+
+			assertTrue(solver.hasSolution());
+			assertTrue(solver.getStep(solver.getStepCount() - 1).hasPieces(FINISHED_STATE));
+			assertEquals(sequential.getStepCount(), solver.getStepCount());
+			assertValidPath(solver);
+		}
+	}
+
+	@Test
+	public void testSolverPDBUnsolvable()
+	{
+		int[] pieces = FINISHED_STATE.clone();
+		pieces[0] = 1;
+		pieces[1] = 0;
+
+		PuzzleSolver solver = new PuzzleSolver(new IDAStarPDB(new PatternDatabase()), new PuzzleState(pieces));
+		solver.run();
+
+		assertTrue(solver.hasFailed());
+	}
+
+	@Test
+	@Ignore
+	public void benchmark()
+	{
+		PuzzleState[] scrambled = scrambledStates(20, 80);
+		new IDAStarPDB(new PatternDatabase()).computePath(START_STATES[0]); // load the database
+
+		benchmark("IDA* manhattan", new IDAStar(new ManhattanDistance()), START_STATES);
+		benchmark("IDA* pdb", new IDAStarPDB(new PatternDatabase()), START_STATES);
+		benchmark("IDA* pdb parallel", new IDAStarPDB(new PatternDatabase(), ForkJoinPool.commonPool()), START_STATES);
+		benchmark("IDA* pdb scrambled", new IDAStarPDB(new PatternDatabase()), scrambled);
+		benchmark("IDA* pdb parallel scrambled", new IDAStarPDB(new PatternDatabase(), ForkJoinPool.commonPool()), scrambled);
+	}
+
+	private static void benchmark(String name, Pathfinder pathfinder, PuzzleState[] states)
+	{
+		long worst = 0;
+		long start = System.nanoTime();
+		for (PuzzleState state : states)
+		{
+			long begin = System.nanoTime();
+			pathfinder.computePath(state);
+			worst = Math.max(worst, System.nanoTime() - begin);
+		}
+		log.info("{}: {} boards in {}ms, worst {}ms", name, states.length, (System.nanoTime() - start) / 1_000_000, worst / 1_000_000);
+	}
+
+	/**
+	 * Boards scrambled by a seeded random walk of the blank, so they are
+	 * always solvable and reproducible.
+	 */
+	private static PuzzleState[] scrambledStates(int count, int moves)
+	{
+		Random random = new Random(42);
+		PuzzleState[] states = new PuzzleState[count];
+
+		for (int i = 0; i < count; i++)
+		{
+			int[] pieces = FINISHED_STATE.clone();
+			int blank = pieces.length - 1;
+			int prev = -1;
+
+			for (int m = 0; m < moves; m++)
+			{
+				int next;
+				do
+				{
+					int x = blank % DIMENSION;
+					int y = blank / DIMENSION;
+					switch (random.nextInt(4))
+					{
+						case 0:
+							x--;
+							break;
+						case 1:
+							x++;
+							break;
+						case 2:
+							y--;
+							break;
+						default:
+							y++;
+							break;
+					}
+					next = x < 0 || y < 0 || x >= DIMENSION || y >= DIMENSION ? -1 : y * DIMENSION + x;
+				}
+				while (next == -1 || next == prev);
+
+				pieces[blank] = pieces[next];
+				pieces[next] = -1;
+				prev = blank;
+				blank = next;
+			}
+
+			states[i] = new PuzzleState(pieces);
+		}
+
+		return states;
+	}
+
+	private static void assertValidPath(PuzzleSolver solver)
+	{
+		for (int i = 1; i < solver.getStepCount(); i++)
+		{
+			int from = solver.getStep(i - 1).getEmptyPiece();
+			int to = solver.getStep(i).getEmptyPiece();
+			int dx = Math.abs(from % DIMENSION - to % DIMENSION);
+			int dy = Math.abs(from / DIMENSION - to / DIMENSION);
+			assertEquals(1, dx + dy);
+		}
+	}
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.puzzlesolver.solver.heuristics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import net.runelite.client.plugins.puzzlesolver.solver.PuzzleState;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Ignore;
+import org.junit.Test;
+
+public class PatternDatabaseTest
+{
+	private static final int[] FINISHED_STATE = new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, -1};
+
+	@Test
+	public void testResourceMatchesGenerated() throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PatternDatabase.generate().write(out);
+
+		byte[][] generated = PatternDatabase.read(new ByteArrayInputStream(out.toByteArray()));
+		byte[][] bundled;
+		try (InputStream in = PatternDatabase.class.getResourceAsStream(PatternDatabase.RESOURCE))
+		{
+			bundled = PatternDatabase.read(in);
+		}
+
+		assertEquals(generated.length, bundled.length);
+		for (int i = 0; i < generated.length; i++)
+		{
+			assertArrayEquals(generated[i], bundled[i]);
+		}
+	}
+
+	@Test
+	public void testDominatesManhattanDistance()
+	{
+		PatternDatabase database = new PatternDatabase();
+		ManhattanDistance manhattan = new ManhattanDistance();
+
+		assertEquals(0, database.computeValue(new PuzzleState(FINISHED_STATE.clone())));
+
+		PuzzleState state = new PuzzleState(new int[]{1, 0, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, -1});
+		// swapping two tiles of one pattern is a linear conflict, which manhattan distance misses
+		assertEquals(2, manhattan.computeValue(state));
+		assertTrue(database.computeValue(state) > 2);
+
+		state = new PuzzleState(new int[]{23, 22, 21, 20, 19, 18, 17, 16, 15, 14, 13, 12, 11, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1, 0, -1});
+		assertTrue(database.computeValue(state) >= manhattan.computeValue(state));
+	}
+
+	@Test
+	@Ignore
+	public void generate() throws IOException
+	{
+		File file = new File("src/main/resources/net/runelite/client/plugins/puzzlesolver/solver/heuristics/" + PatternDatabase.RESOURCE);
+		try (OutputStream out = new FileOutputStream(file))
+		{
+			PatternDatabase.generate().write(out);
+		}
+	}
+}
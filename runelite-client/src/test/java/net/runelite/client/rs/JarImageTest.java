@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.rs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JarImageTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final byte[] DEFLATED = "deflated class contents deflated class contents".getBytes();
+	private static final byte[] STORED = "stored class contents".getBytes();
+
+	private static byte[] createJar() throws IOException
+	{
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		try (JarOutputStream out = new JarOutputStream(bout))
+		{
+			out.putNextEntry(new JarEntry("a/Deflated.class"));
+			out.write(DEFLATED);
+			out.closeEntry();
+
+			JarEntry stored = new JarEntry("Stored.class");
+			stored.setMethod(ZipEntry.STORED);
+			stored.setSize(STORED.length);
+			CRC32 crc = new CRC32();
+			crc.update(STORED);
+			stored.setCrc(crc.getValue());
+			out.putNextEntry(stored);
+			out.write(STORED);
+			out.closeEntry();
+
+			out.putNextEntry(new JarEntry("resource.txt"));
+			out.write(1);
+			out.closeEntry();
+		}
+		return bout.toByteArray();
+	}
+
+	@Test
+	public void testIndex() throws IOException
+	{
+		byte[] jar = createJar();
+		Map<String, JarImage.ClassEntry> classes = JarImage.index(jar);
+		assertEquals(2, classes.size());
+
+		JarImage image = new JarImage(jar, classes);
+		assertArrayEquals(DEFLATED, image.read("a.Deflated"));
+		assertArrayEquals(STORED, image.read("Stored"));
+		assertNull(image.read("resource"));
+	}
+
+	@Test(expected = IOException.class)
+	public void testClosed() throws IOException
+	{
+		byte[] jar = createJar();
+		JarImage image = new JarImage(jar, JarImage.index(jar));
+		image.close();
+
+		image.read("Stored");
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorrupt() throws IOException
+	{
+		byte[] jar = createJar();
+		Map<String, JarImage.ClassEntry> classes = JarImage.index(jar);
+		JarImage.ClassEntry entry = classes.get("Stored");
+		jar[entry.getOffset()] ^= 1;
+
+		new JarImage(jar, classes).read("Stored");
+	}
+
+	@Test
+	public void testManifest() throws IOException
+	{
+		File jar = folder.newFile("vanilla.cache");
+		Files.write(jar.toPath(), createJar());
+		File manifestFile = new File(folder.getRoot(), "cache.manifest");
+
+		ClientCacheManifest manifest = ClientCacheManifest.load(manifestFile);
+		ClientCacheManifest.Artifact artifact = manifest.get(jar);
+		artifact.setVerified(true);
+		artifact.setSha512(new byte[]{1, 2, 3});
+		artifact.setClasses(JarImage.index(Files.readAllBytes(jar.toPath())));
+		manifest.save();
+
+		artifact = ClientCacheManifest.load(manifestFile).get(jar);
+		assertTrue(artifact.isVerified());
+		assertArrayEquals(new byte[]{1, 2, 3}, artifact.getSha512());
+		assertEquals(JarImage.index(Files.readAllBytes(jar.toPath())), artifact.getClasses());
+
+		// a modified jar must not reuse the old artifact
+		Files.write(jar.toPath(), new byte[]{0});
+		artifact = ClientCacheManifest.load(manifestFile).get(jar);
+		assertFalse(artifact.isVerified());
+		assertNull(artifact.getSha512());
+		assertNull(artifact.getClasses());
+	}
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.submission;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SubmissionQueueTest
+{
+	@Rule
+	public MockWebServer server = new MockWebServer();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ScheduledExecutorService executor;
+	private File spoolDir;
+
+	@Before
+	public void before() throws IOException
+	{
+		executor = Executors.newSingleThreadScheduledExecutor();
+		spoolDir = folder.newFolder();
+	}
+
+	@After
+	public void after()
+	{
+		executor.shutdownNow();
+	}
+
+	private SubmissionQueue createQueue(long maxSpoolBytes)
+	{
+		return new SubmissionQueue(new OkHttpClient(), executor, new Gson(), spoolDir, maxSpoolBytes, 10);
+	}
+
+	private SubmissionEndpoint endpoint()
+	{
+		return SubmissionEndpoint.post(server.url("/submit"));
+	}
+
+	private static JsonArray readBody(RecordedRequest request) throws IOException
+	{
+		if ("gzip".equals(request.getHeader("Content-Encoding")))
+		{
+			return new JsonParser().parse(new InputStreamReader(new GZIPInputStream(request.getBody().inputStream()), StandardCharsets.UTF_8)).getAsJsonArray();
+		}
+		return new JsonParser().parse(request.getBody().readUtf8()).getAsJsonArray();
+	}
+
+	private String spoolContents() throws IOException
+	{
+		File file = new File(spoolDir, "spool.jsonl");
+		return file.exists() ? new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8) : "";
+	}
+
+	private void waitForSync() throws Exception
+	{
+		executor.submit(() ->
+		{
+		}).get();
+	}
+
+	@Test
+	public void testBatchedCompressed() throws Exception
+	{
+		server.enqueue(new MockResponse());
+
+		SubmissionQueue queue = createQueue(SubmissionQueue.MAX_SPOOL_BYTES);
+		SubmissionEndpoint endpoint = endpoint().withCompression().withSession("RUNELITE-AUTH", "abc");
+		queue.enqueue(endpoint, "one");
+		queue.enqueue(endpoint, "two");
+		queue.enqueue(endpoint, "three");
+		assertEquals(3, queue.getQueueDepth(endpoint));
+
+		queue.flush(endpoint).get(5, TimeUnit.SECONDS);
+
+		assertEquals(1, server.getRequestCount());
+		RecordedRequest request = server.takeRequest();
+		assertEquals("POST", request.getMethod());
+		assertEquals("gzip", request.getHeader("Content-Encoding"));
+		assertEquals("abc", request.getHeader("RUNELITE-AUTH"));
+		assertEquals(new JsonParser().parse("[\"one\",\"two\",\"three\"]"), readBody(request));
+
+		assertEquals(0, queue.getQueueDepth(endpoint));
+		SubmissionMetrics metrics = queue.getMetrics();
+		assertEquals(0, metrics.getQueueDepth());
+		assertEquals(0, metrics.getSpoolBytes());
+		assertEquals(3, metrics.getSent());
+	}
+
+	@Test
+	public void testRetry() throws Exception
+	{
+		server.enqueue(new MockResponse().setResponseCode(503));
+		server.enqueue(new MockResponse());
+
+		// long enough a backoff for the second submission to be queued before the retry
+		SubmissionQueue queue = new SubmissionQueue(new OkHttpClient(), executor, new Gson(), spoolDir, SubmissionQueue.MAX_SPOOL_BYTES, 500);
+		SubmissionEndpoint endpoint = endpoint();
+		queue.enqueue(endpoint, 1);
+
+		try
+		{
+			queue.flush(endpoint).get(5, TimeUnit.SECONDS);
+			fail();
+		}
+		catch (ExecutionException ex)
+		{
+			assertTrue(ex.getCause() instanceof IOException);
+		}
+
+		// queued again while the first attempt is backing off
+		queue.enqueue(endpoint, 2);
+
+		server.takeRequest(5, TimeUnit.SECONDS);
+		RecordedRequest retried = server.takeRequest(5, TimeUnit.SECONDS);
+		assertEquals(new JsonParser().parse("[1,2]"), readBody(retried));
+
+		queue.flush(endpoint).get(5, TimeUnit.SECONDS);
+		assertEquals(0, queue.getQueueDepth(endpoint));
+		assertEquals(1, queue.getMetrics().getFailedRequests());
+		assertEquals(2, queue.getMetrics().getSent());
+	}
+
+	@Test
+	public void testUncompressedByDefault() throws Exception
+	{
+		server.enqueue(new MockResponse());
+
+		SubmissionQueue queue = createQueue(SubmissionQueue.MAX_SPOOL_BYTES);
+		SubmissionEndpoint endpoint = endpoint();
+		queue.enqueue(endpoint, "a");
+		queue.flush(endpoint).get(5, TimeUnit.SECONDS);
+
+		RecordedRequest request = server.takeRequest();
+		assertNull(request.getHeader("Content-Encoding"));
+		assertEquals(new JsonParser().parse("[\"a\"]"), readBody(request));
+	}
+
+	@Test
+	public void testUncompressedFallback() throws Exception
+	{
+		server.enqueue(new MockResponse().setResponseCode(415));
+		server.enqueue(new MockResponse());
+		server.enqueue(new MockResponse());
+
+		SubmissionQueue queue = createQueue(SubmissionQueue.MAX_SPOOL_BYTES);
+		SubmissionEndpoint endpoint = endpoint().withCompression();
+		queue.enqueue(endpoint, "a");
+		queue.flush(endpoint).get(5, TimeUnit.SECONDS);
+
+		assertEquals("gzip", server.takeRequest().getHeader("Content-Encoding"));
+		RecordedRequest resent = server.takeRequest();
+		assertNull(resent.getHeader("Content-Encoding"));
+		assertEquals(new JsonParser().parse("[\"a\"]"), readBody(resent));
+
+		queue.enqueue(endpoint, "b");
+		queue.flush(endpoint).get(5, TimeUnit.SECONDS);
+		assertNull(server.takeRequest().getHeader("Content-Encoding"));
+		assertEquals(3, server.getRequestCount());
+	}
+
+	@Test
+	public void testRejectedBatchDropped() throws Exception
+	{
+		server.enqueue(new MockResponse().setResponseCode(403));
+
+		SubmissionQueue queue = createQueue(SubmissionQueue.MAX_SPOOL_BYTES);
+		SubmissionEndpoint endpoint = endpoint();
+		queue.enqueue(endpoint, "a");
+		queue.flush(endpoint).get(5, TimeUnit.SECONDS);
+
+		assertEquals(1, server.getRequestCount());
+		assertEquals(0, queue.getQueueDepth(endpoint));
+		assertEquals(1, queue.getMetrics().getDropped());
+	}
+
+	@Test
+	public void testSpoolRestored() throws Exception
+	{
+		server.enqueue(new MockResponse());
+
+		SubmissionEndpoint endpoint = endpoint().withSession("RUNELITE-AUTH", "abc");
+		SubmissionQueue queue = createQueue(SubmissionQueue.MAX_SPOOL_BYTES);
+		queue.enqueue(endpoint, "one");
+		queue.enqueue(endpoint, "two");
+		waitForSync();
+		queue.close();
+
+		// the credential itself is never written to the spool
+		assertFalse(spoolContents().contains("abc"));
+
+		SubmissionQueue restored = createQueue(SubmissionQueue.MAX_SPOOL_BYTES);
+		assertEquals(2, restored.getQueueDepth(endpoint));
+		restored.flush(endpoint).get(5, TimeUnit.SECONDS);
+		RecordedRequest request = server.takeRequest();
+		assertEquals("abc", request.getHeader("RUNELITE-AUTH"));
+		assertEquals(new JsonParser().parse("[\"one\",\"two\"]"), readBody(request));
+		waitForSync();
+		restored.close();
+
+		assertEquals(0, createQueue(SubmissionQueue.MAX_SPOOL_BYTES).getQueueDepth(endpoint));
+	}
+
+	@Test
+	public void testSessionChangeDropsPending() throws Exception
+	{
+		server.enqueue(new MockResponse());
+
+		SubmissionEndpoint previous = endpoint().withSession("RUNELITE-AUTH", "abc");
+		SubmissionQueue queue = createQueue(SubmissionQueue.MAX_SPOOL_BYTES);
+		queue.enqueue(previous, "one");
+		waitForSync();
+		queue.close();
+
+		// a different session must not send what was queued under the previous one
+		SubmissionEndpoint endpoint = endpoint().withSession("RUNELITE-AUTH", "def");
+		SubmissionQueue restored = createQueue(SubmissionQueue.MAX_SPOOL_BYTES);
+		restored.enqueue(endpoint, "two");
+		assertEquals(0, restored.getQueueDepth(previous));
+		restored.flush(endpoint).get(5, TimeUnit.SECONDS);
+
+		RecordedRequest request = server.takeRequest();
+		assertEquals("def", request.getHeader("RUNELITE-AUTH"));
+		assertEquals(new JsonParser().parse("[\"two\"]"), readBody(request));
+		assertEquals(1, restored.getMetrics().getDropped());
+	}
+
+	@Test
+	public void testSpooledCredentialsDropped() throws Exception
+	{
+		String line = "{\"endpoint\":{\"method\":\"POST\",\"url\":\"" + server.url("/submit")
+			+ "\",\"headers\":{\"RUNELITE-AUTH\":\"abc\"}},\"time\":0,\"item\":\"one\"}\n";
+		Files.write(new File(spoolDir, "spool.jsonl").toPath(), line.getBytes(StandardCharsets.UTF_8));
+
+		SubmissionQueue queue = createQueue(SubmissionQueue.MAX_SPOOL_BYTES);
+		assertEquals(0, queue.getQueueDepth(endpoint()));
+		waitForSync();
+		queue.close();
+
+		assertFalse(spoolContents().contains("abc"));
+	}
+
+	@Test
+	public void testSpoolLockedByAnotherQueue() throws Exception
+	{
+		SubmissionEndpoint endpoint = endpoint();
+		SubmissionQueue queue = createQueue(SubmissionQueue.MAX_SPOOL_BYTES);
+		queue.enqueue(endpoint, "one");
+
+		// the second queue can't lock the spool, it works from memory only
+		SubmissionQueue other = createQueue(SubmissionQueue.MAX_SPOOL_BYTES);
+		assertEquals(0, other.getQueueDepth(endpoint));
+		other.enqueue(endpoint, "two");
+		waitForSync();
+		queue.close();
+
+		assertEquals(1, createQueue(SubmissionQueue.MAX_SPOOL_BYTES).getQueueDepth(endpoint));
+	}
+
+	@Test
+	public void testSpoolBounded() throws Exception
+	{
+		server.enqueue(new MockResponse());
+
+		SubmissionQueue queue = createQueue(1024);
+		SubmissionEndpoint endpoint = endpoint();
+		for (int i = 0; i < 100; ++i)
+		{
+			queue.enqueue(endpoint, i);
+		}
+
+		SubmissionMetrics metrics = queue.getMetrics();
+		assertTrue(metrics.getSpoolBytes() <= 1024);
+		assertEquals(100, metrics.getQueueDepth() + metrics.getDropped());
+		assertTrue(metrics.getDropped() > 0);
+		waitForSync();
+		assertTrue(new File(spoolDir, "spool.jsonl").length() <= 1024);
+
+		queue.flush(endpoint).get(5, TimeUnit.SECONDS);
+		JsonArray body = readBody(server.takeRequest());
+		// the oldest submissions are the ones dropped
+		assertEquals(99, body.get(body.size() - 1).getAsInt());
+		assertEquals(100 - body.size(), body.get(0).getAsInt());
+	}
+
+	@Test
+	public void testGetCoalesced() throws Exception
+	{
+		server.enqueue(new MockResponse());
+
+		SubmissionQueue queue = createQueue(SubmissionQueue.MAX_SPOOL_BYTES);
+		SubmissionEndpoint endpoint = SubmissionEndpoint.get(server.url("/xp/update?username=zezima"));
+		queue.enqueue(endpoint, null);
+		queue.enqueue(endpoint, null);
+		assertEquals(1, queue.getQueueDepth(endpoint));
+
+		CompletableFuture<Void> future = queue.flush(endpoint);
+		future.get(5, TimeUnit.SECONDS);
+
+		RecordedRequest request = server.takeRequest();
+		assertEquals("GET", request.getMethod());
+		assertEquals("/xp/update?username=zezima", request.getPath());
+		assertEquals(1, server.getRequestCount());
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.task;
+
+import java.lang.reflect.Method;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SchedulerTest
+{
+	private Scheduler scheduler;
+	private ScheduledExecutorService executor;
+
+	@Schedule(period = 1, unit = ChronoUnit.SECONDS)
+	public void everySecond()
+	{
+	}
+
+	@Schedule(period = 1, unit = ChronoUnit.MINUTES, asynchronous = true)
+	public void everyMinute()
+	{
+	}
+
+	@Before
+	public void before()
+	{
+		executor = mock(ScheduledExecutorService.class);
+		scheduler = new Scheduler();
+		scheduler.executor = executor;
+	}
+
+	private ScheduledMethod schedule(String name, Runnable runnable) throws NoSuchMethodException
+	{
+		Method method = SchedulerTest.class.getMethod(name);
+		ScheduledMethod scheduledMethod = new ScheduledMethod(method.getAnnotation(Schedule.class), method, this, runnable);
+		scheduler.addScheduledMethod(scheduledMethod);
+		return scheduledMethod;
+	}
+
+	@Test
+	public void testOnlyDueMethodsRun() throws Exception
+	{
+		AtomicInteger seconds = new AtomicInteger();
+		ScheduledMethod second = schedule("everySecond", seconds::incrementAndGet);
+		ScheduledMethod minute = schedule("everyMinute", () ->
+		{
+		});
+		assertEquals(TimeUnit.SECONDS.toNanos(1), second.getPeriodNanos());
+
+		long start = second.getNextRunNanos() - second.getPeriodNanos();
+
+		scheduler.tick(start + TimeUnit.MILLISECONDS.toNanos(500));
+		assertEquals(0, seconds.get());
+
+		scheduler.tick(start + TimeUnit.MILLISECONDS.toNanos(1001));
+		assertEquals(1, seconds.get());
+		assertEquals(1, second.getRunCount());
+
+		// the next run is a period after the tick it ran on
+		scheduler.tick(start + TimeUnit.MILLISECONDS.toNanos(1500));
+		assertEquals(1, seconds.get());
+		scheduler.tick(start + TimeUnit.MILLISECONDS.toNanos(2002));
+		assertEquals(2, seconds.get());
+
+		// a long gap runs the method once, not once per missed period
+		scheduler.tick(start + TimeUnit.SECONDS.toNanos(30));
+		assertEquals(3, seconds.get());
+		verify(executor, never()).submit(any(Runnable.class));
+
+		scheduler.tick(start + TimeUnit.SECONDS.toNanos(61));
+		assertEquals(4, seconds.get());
+		verify(executor, times(1)).submit(any(Runnable.class));
+		assertEquals(0, minute.getRunCount());
+	}
+
+	@Test
+	public void testRemove() throws Exception
+	{
+		AtomicInteger seconds = new AtomicInteger();
+		ScheduledMethod second = schedule("everySecond", seconds::incrementAndGet);
+		long start = second.getNextRunNanos() - second.getPeriodNanos();
+
+		scheduler.removeScheduledMethod(second);
+		assertEquals(0, scheduler.getScheduledMethods().size());
+
+		scheduler.tick(start + TimeUnit.SECONDS.toNanos(5));
+		assertEquals(0, seconds.get());
+	}
+
+	@Test
+	public void testMetrics() throws Exception
+	{
+		ScheduledMethod second = schedule("everySecond", () ->
+		{
+			throw new IllegalStateException();
+		});
+		long start = second.getNextRunNanos() - second.getPeriodNanos();
+
+		scheduler.tick(start + TimeUnit.SECONDS.toNanos(2));
+		scheduler.tick(start + TimeUnit.SECONDS.toNanos(4));
+
+		assertEquals(2, second.getRunCount());
+		assertTrue(second.getTotalRunNanos() >= second.getMaxRunNanos());
+	}
+}
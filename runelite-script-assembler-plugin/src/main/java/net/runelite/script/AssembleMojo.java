@@ -24,13 +24,34 @@
  */
 package net.runelite.script;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.io.Files;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.definitions.ScriptDefinition;
 import net.runelite.cache.definitions.savers.ScriptSaver;
+import net.runelite.cache.script.Instruction;
 import net.runelite.cache.script.RuneLiteInstructions;
 import net.runelite.cache.script.assembler.Assembler;
 import org.apache.maven.plugin.AbstractMojo;
@@ -43,63 +64,298 @@ import org.apache.maven.plugins.annotations.Parameter;
 
 @Mojo(
 	name = "assemble",
-	defaultPhase = LifecyclePhase.GENERATE_RESOURCES
+	defaultPhase = LifecyclePhase.GENERATE_RESOURCES,
+	threadSafe = true
 )
 public class AssembleMojo extends AbstractMojo
 {
+	/**
+	 * Manifest key of the fingerprint of the plugin and instruction table which
+	 * assembled the scripts in the manifest. Script keys all end in .rs2asm.
+	 */
+	private static final String FINGERPRINT = "fingerprint";
+
+	private static RuneLiteInstructions instructions;
+
 	@Parameter(required = true)
 	private File scriptDirectory;
 
 	@Parameter(required = true)
 	private File outputDirectory;
 
+	/**
+	 * Records the content hash and script id of every assembled script, so
+	 * scripts which have not changed since the last build can be skipped.
+	 */
+	@Parameter(defaultValue = "${project.build.directory}/script-assembler/assemble.manifest")
+	private File manifestFile;
+
+	/**
+	 * Number of scripts to assemble concurrently, or 0 for one per processor.
+	 */
+	@Parameter(property = "scriptAssembler.threads", defaultValue = "0")
+	private int threads;
+
+	@Parameter(defaultValue = "${plugin.version}", readonly = true)
+	private String pluginVersion;
+
 	private final Log log = getLog();
 
 	@Override
 	public void execute() throws MojoExecutionException, MojoFailureException
 	{
-		RuneLiteInstructions instructions = new RuneLiteInstructions();
-		instructions.init();
-
-		Assembler assembler = new Assembler(instructions);
+		Assembler assembler = new Assembler(getInstructions());
 		ScriptSaver saver = new ScriptSaver();
 
-		int count = 0;
 		File scriptOut = new File(outputDirectory, Integer.toString(IndexType.CLIENTSCRIPT.getNumber()));
 		scriptOut.mkdirs();
 
-		for (File scriptFile : scriptDirectory.listFiles((dir, name) -> name.endsWith(".rs2asm")))
+		File[] scriptFiles = scriptDirectory.listFiles((dir, name) -> name.endsWith(".rs2asm"));
+		Arrays.sort(scriptFiles, Comparator.comparing(File::getName));
+
+		Map<String, String> previous = loadManifest();
+		Map<String, String> manifest = new TreeMap<>();
+
+		// Scripts assembled by another version of the plugin or instruction table
+		// may not match what this one would produce, so assemble them all again
+		String fingerprint = fingerprint();
+		String previousFingerprint = previous.remove(FINGERPRINT);
+		boolean fingerprintMatches = fingerprint.equals(previousFingerprint);
+		if (!fingerprintMatches && previousFingerprint != null)
+		{
+			log.info("Script assembler has changed since the last build, assembling all scripts");
+		}
+
+		int nThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(nThreads, Math.max(scriptFiles.length, 1)));
+		AtomicInteger count = new AtomicInteger();
+		try
+		{
+			List<Future<String>> futures = new ArrayList<>(scriptFiles.length);
+			for (File scriptFile : scriptFiles)
+			{
+				String entry = fingerprintMatches ? previous.get(scriptFile.getName()) : null;
+				futures.add(executor.submit(() -> assemble(assembler, saver, scriptFile, scriptOut, entry, count)));
+			}
+
+			for (int i = 0; i < scriptFiles.length; ++i)
+			{
+				manifest.put(scriptFiles[i].getName(), futures.get(i).get());
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new MojoFailureException("interrupted assembling scripts", ex);
+		}
+		catch (ExecutionException ex)
+		{
+			Throwable cause = ex.getCause();
+			if (cause instanceof MojoExecutionException)
+			{
+				throw (MojoExecutionException) cause;
+			}
+			if (cause instanceof MojoFailureException)
+			{
+				throw (MojoFailureException) cause;
+			}
+			throw new MojoExecutionException("unable to assemble scripts", cause);
+		}
+		finally
 		{
-			log.debug("Assembling " + scriptFile);
+			executor.shutdownNow();
+		}
 
-			try (FileInputStream fin = new FileInputStream(scriptFile))
+		// Remove the output of scripts which have been deleted or have had their id
+		// changed since the last build, unless another script now has the old id
+		Set<String> ids = manifest.values().stream()
+			.map(AssembleMojo::scriptId)
+			.collect(Collectors.toSet());
+		for (Map.Entry<String, String> entry : previous.entrySet())
+		{
+			String id = scriptId(entry.getValue());
+			if (!ids.contains(id))
 			{
-				ScriptDefinition script = assembler.assemble(fin);
-				byte[] packedScript = saver.save(script);
+				log.debug("Removing output of script " + id + " previously assembled from " + entry.getKey());
+				new File(scriptOut, id).delete();
+				new File(scriptOut, id + ".hash").delete();
+			}
+		}
 
-				File targetFile = new File(scriptOut, Integer.toString(script.getId()));
-				Files.write(packedScript, targetFile);
+		if (!fingerprintMatches || !manifest.equals(previous))
+		{
+			manifest.put(FINGERPRINT, fingerprint);
+			saveManifest(manifest);
+		}
 
-				// Copy hash file
+		log.info("Assembled " + count.get() + " scripts (" + (scriptFiles.length - count.get()) + " up to date)");
+	}
 
-				File hashFile = new File(scriptDirectory, Files.getNameWithoutExtension(scriptFile.getName()) + ".hash");
-				if (hashFile.exists())
-				{
-					Files.copy(hashFile, new File(scriptOut, Integer.toString(script.getId()) + ".hash"));
-				}
-				else if (script.getId() < 10000) // Scripts >=10000 are RuneLite scripts, so they shouldn't have a .hash
+	/**
+	 * The instruction table is only read once initialized, so one instance is
+	 * shared by every worker and by every execution of the mojo in the build.
+	 */
+	private static synchronized RuneLiteInstructions getInstructions()
+	{
+		if (instructions == null)
+		{
+			RuneLiteInstructions i = new RuneLiteInstructions();
+			i.init();
+			instructions = i;
+		}
+		return instructions;
+	}
+
+	/**
+	 * Hash of the plugin version and of every opcode and its name, which changes
+	 * whenever the assembler may produce different output for the same source.
+	 */
+	private String fingerprint()
+	{
+		Hasher hasher = Hashing.sha256().newHasher();
+		if (pluginVersion != null)
+		{
+			hasher.putString(pluginVersion, StandardCharsets.UTF_8);
+		}
+
+		RuneLiteInstructions instructions = getInstructions();
+		// opcodes are saved as unsigned shorts
+		for (int opcode = 0; opcode <= 0xFFFF; ++opcode)
+		{
+			Instruction instruction = instructions.find(opcode);
+			if (instruction != null)
+			{
+				hasher.putInt(opcode);
+				if (instruction.getName() != null)
 				{
-					throw new MojoExecutionException("Unable to find hash file for " + scriptFile);
+					hasher.putString(instruction.getName(), StandardCharsets.UTF_8);
 				}
-
-				++count;
+				hasher.putByte((byte) 0);
 			}
-			catch (IOException ex)
+		}
+		return hasher.hash().toString();
+	}
+
+	/**
+	 * Assembles a script unless its hash matches its manifest entry and its
+	 * output is still present.
+	 *
+	 * @return the manifest entry for the script
+	 */
+	private String assemble(Assembler assembler, ScriptSaver saver, File scriptFile, File scriptOut, String previous,
+		AtomicInteger count) throws MojoExecutionException, MojoFailureException
+	{
+		try
+		{
+			return assembleScript(assembler, saver, scriptFile, scriptOut, previous, count);
+		}
+		catch (IOException ex)
+		{
+			throw new MojoExecutionException("Unable to read or write " + scriptFile + ": " + ex.getMessage(), ex);
+		}
+		catch (RuntimeException ex)
+		{
+			throw new MojoFailureException("Unable to assemble " + scriptFile + ": " + ex.getMessage(), ex);
+		}
+	}
+
+	private String assembleScript(Assembler assembler, ScriptSaver saver, File scriptFile, File scriptOut, String previous,
+		AtomicInteger count) throws IOException, MojoExecutionException
+	{
+		File hashFile = new File(scriptDirectory, Files.getNameWithoutExtension(scriptFile.getName()) + ".hash");
+		byte[] source = Files.toByteArray(scriptFile);
+		byte[] hash = hashFile.exists() ? Files.toByteArray(hashFile) : null;
+
+		Hasher hasher = Hashing.sha256().newHasher()
+			.putInt(source.length)
+			.putBytes(source);
+		if (hash != null)
+		{
+			hasher.putInt(hash.length).putBytes(hash);
+		}
+		String digest = hasher.hash().toString();
+
+		if (previous != null && previous.startsWith(digest + ':'))
+		{
+			String id = scriptId(previous);
+			if (new File(scriptOut, id).exists() && (hash == null || new File(scriptOut, id + ".hash").exists()))
 			{
-				throw new MojoFailureException("unable to open file", ex);
+				log.debug("Skipping up to date " + scriptFile);
+				return previous;
 			}
 		}
 
-		log.info("Assembled " + count + " scripts");
+		log.debug("Assembling " + scriptFile);
+
+		ScriptDefinition script;
+		try (FileInputStream fin = new FileInputStream(scriptFile))
+		{
+			script = assembler.assemble(fin);
+		}
+		byte[] packedScript = saver.save(script);
+
+		File targetFile = new File(scriptOut, Integer.toString(script.getId()));
+		Files.write(packedScript, targetFile);
+
+		// Copy hash file
+
+		if (hash != null)
+		{
+			Files.write(hash, new File(scriptOut, Integer.toString(script.getId()) + ".hash"));
+		}
+		else if (script.getId() < 10000) // Scripts >=10000 are RuneLite scripts, so they shouldn't have a .hash
+		{
+			throw new MojoExecutionException("Unable to find hash file for " + scriptFile);
+		}
+
+		count.incrementAndGet();
+		return digest + ':' + script.getId();
+	}
+
+	private static String scriptId(String entry)
+	{
+		return entry.substring(entry.indexOf(':') + 1);
+	}
+
+	private Map<String, String> loadManifest()
+	{
+		Map<String, String> manifest = new TreeMap<>();
+		if (!manifestFile.exists())
+		{
+			return manifest;
+		}
+
+		Properties properties = new Properties();
+		try (InputStream in = new FileInputStream(manifestFile))
+		{
+			properties.load(in);
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to read " + manifestFile + ", assembling all scripts", ex);
+			return manifest;
+		}
+
+		for (String name : properties.stringPropertyNames())
+		{
+			manifest.put(name, properties.getProperty(name));
+		}
+		return manifest;
+	}
+
+	private void saveManifest(Map<String, String> manifest) throws MojoFailureException
+	{
+		Properties properties = new Properties();
+		properties.putAll(manifest);
+
+		manifestFile.getParentFile().mkdirs();
+		try (OutputStream out = new FileOutputStream(manifestFile))
+		{
+			properties.store(out, "script-assembler-plugin manifest");
+		}
+		catch (IOException ex)
+		{
+			throw new MojoFailureException("unable to write manifest", ex);
+		}
 	}
 }
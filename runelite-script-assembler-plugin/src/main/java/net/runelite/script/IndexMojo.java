@@ -24,11 +24,13 @@
  */
 package net.runelite.script;
 
+import com.google.common.io.Files;
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import static java.lang.Integer.parseInt;
+import java.util.Arrays;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -51,28 +53,12 @@ public class IndexMojo extends AbstractMojo
 	@Override
 	public void execute() throws MojoExecutionException, MojoFailureException
 	{
-		try (DataOutputStream fout = new DataOutputStream(new FileOutputStream(indexFile)))
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		try (DataOutputStream fout = new DataOutputStream(bout))
 		{
-			for (File indexFolder : archiveOverlayDirectory.listFiles())
+			for (int entry : buildIndex())
 			{
-				if (indexFolder.isDirectory())
-				{
-					int indexId = parseInt(indexFolder.getName());
-					for (File archiveFile : indexFolder.listFiles())
-					{
-						int archiveId;
-						try
-						{
-							archiveId = parseInt(archiveFile.getName());
-						}
-						catch (NumberFormatException ex)
-						{
-							continue;
-						}
-
-						fout.writeInt(indexId << 16 | archiveId);
-					}
-				}
+				fout.writeInt(entry);
 			}
 
 			fout.writeInt(-1);
@@ -81,6 +67,61 @@ public class IndexMojo extends AbstractMojo
 		{
 			throw new MojoExecutionException("error build index file", ex);
 		}
+
+		try
+		{
+			// Leave an unchanged index alone so it doesn't invalidate the rest of the build
+			byte[] index = bout.toByteArray();
+			if (indexFile.exists() && Arrays.equals(index, Files.toByteArray(indexFile)))
+			{
+				getLog().debug("Index " + indexFile + " is up to date");
+				return;
+			}
+
+			Files.write(index, indexFile);
+		}
+		catch (IOException ex)
+		{
+			throw new MojoExecutionException("error build index file", ex);
+		}
 	}
 
+	/**
+	 * Lists the overlaid archives as {@code indexId << 16 | archiveId}, sorted
+	 * so the index is the same from build to build.
+	 */
+	private int[] buildIndex()
+	{
+		int[] entries = new int[16];
+		int count = 0;
+		for (File indexFolder : archiveOverlayDirectory.listFiles())
+		{
+			if (indexFolder.isDirectory())
+			{
+				int indexId = parseInt(indexFolder.getName());
+				for (File archiveFile : indexFolder.listFiles())
+				{
+					int archiveId;
+					try
+					{
+						archiveId = parseInt(archiveFile.getName());
+					}
+					catch (NumberFormatException ex)
+					{
+						continue;
+					}
+
+					if (count == entries.length)
+					{
+						entries = Arrays.copyOf(entries, count * 2);
+					}
+					entries[count++] = indexId << 16 | archiveId;
+				}
+			}
+		}
+
+		entries = Arrays.copyOf(entries, count);
+		Arrays.sort(entries);
+		return entries;
+	}
 }
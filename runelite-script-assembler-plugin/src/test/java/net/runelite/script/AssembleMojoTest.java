@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2022, MarkHarms <https://github.com/MarkHarms>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.script;
+
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.maven.plugin.MojoFailureException;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AssembleMojoTest
+{
+	private static final long MODIFIED = 1_000_000_000L;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File scriptDirectory;
+	private File outputDirectory;
+	private File scriptOut;
+	private File manifestFile;
+
+	@Before
+	public void before() throws IOException
+	{
+		scriptDirectory = folder.newFolder("scripts");
+		outputDirectory = folder.newFolder("out");
+		scriptOut = new File(outputDirectory, "12");
+		manifestFile = new File(folder.getRoot(), "assemble.manifest");
+
+		write("Test.rs2asm", script(300));
+		write("Test.hash", "ABCDEF");
+		write("RuneLite.rs2asm", script(10000));
+	}
+
+	@Test
+	public void testUpToDate() throws Exception
+	{
+		assemble();
+		Map<String, byte[]> output = output();
+		byte[] manifest = Files.toByteArray(manifestFile);
+		assertEquals(3, output.size());
+
+		touch();
+		assemble();
+
+		// nothing was written again
+		for (File file : scriptOut.listFiles())
+		{
+			assertEquals(file.getName(), MODIFIED, file.lastModified());
+		}
+		assertEquals(MODIFIED, manifestFile.lastModified());
+		assertOutputEquals(output, output());
+		assertArrayEquals(manifest, Files.toByteArray(manifestFile));
+	}
+
+	@Test
+	public void testChangedScript() throws Exception
+	{
+		assemble();
+		touch();
+
+		write("RuneLite.rs2asm", script(10000).replace("iconst 1", "iconst 2"));
+		assemble();
+
+		assertEquals(MODIFIED, new File(scriptOut, "300").lastModified());
+		assertNotEquals(MODIFIED, new File(scriptOut, "10000").lastModified());
+	}
+
+	@Test
+	public void testFingerprintChanged() throws Exception
+	{
+		assemble();
+		Map<String, byte[]> output = output();
+
+		String manifest = new String(Files.toByteArray(manifestFile), StandardCharsets.UTF_8);
+		assertTrue(manifest.contains("fingerprint="));
+		Files.asCharSink(manifestFile, StandardCharsets.UTF_8).write(manifest.replace("fingerprint=", "fingerprint=0"));
+		touch();
+
+		assemble();
+
+		for (File file : scriptOut.listFiles())
+		{
+			assertNotEquals(file.getName(), MODIFIED, file.lastModified());
+		}
+		assertOutputEquals(output, output());
+	}
+
+	@Test
+	public void testIdChanged() throws Exception
+	{
+		assemble();
+
+		write("Test.rs2asm", script(301));
+		assemble();
+
+		assertFalse(new File(scriptOut, "300").exists());
+		assertFalse(new File(scriptOut, "300.hash").exists());
+		assertTrue(new File(scriptOut, "301").exists());
+		assertTrue(new File(scriptOut, "301.hash").exists());
+		assertTrue(new File(scriptOut, "10000").exists());
+	}
+
+	@Test
+	public void testDeleted() throws Exception
+	{
+		assemble();
+
+		new File(scriptDirectory, "Test.rs2asm").delete();
+		new File(scriptDirectory, "Test.hash").delete();
+		assemble();
+
+		assertEquals(1, output().size());
+		assertTrue(new File(scriptOut, "10000").exists());
+	}
+
+	@Test
+	public void testSyntaxError() throws Exception
+	{
+		write("Broken.rs2asm", ".id 10001\n   iconst \"\n");
+
+		try
+		{
+			assemble();
+			fail();
+		}
+		catch (MojoFailureException ex)
+		{
+			assertTrue(ex.getMessage(), ex.getMessage().contains("Broken.rs2asm"));
+			assertTrue(ex.getMessage(), ex.getMessage().contains("syntax error"));
+		}
+	}
+
+	private void assemble() throws Exception
+	{
+		AssembleMojo mojo = new AssembleMojo();
+		set(mojo, "scriptDirectory", scriptDirectory);
+		set(mojo, "outputDirectory", outputDirectory);
+		set(mojo, "manifestFile", manifestFile);
+		set(mojo, "threads", 2);
+		set(mojo, "pluginVersion", "1.0");
+		mojo.execute();
+	}
+
+	private static void set(AssembleMojo mojo, String name, Object value) throws ReflectiveOperationException
+	{
+		Field field = AssembleMojo.class.getDeclaredField(name);
+		field.setAccessible(true);
+		field.set(mojo, value);
+	}
+
+	private static String script(int id)
+	{
+		return ".id                 " + id + "\n" +
+			".int_stack_count    0\n" +
+			".string_stack_count 0\n" +
+			".int_var_count      0\n" +
+			".string_var_count   0\n" +
+			"   iconst 1\n" +
+			"   pop_int\n" +
+			"   return\n";
+	}
+
+	private void write(String name, String contents) throws IOException
+	{
+		Files.asCharSink(new File(scriptDirectory, name), StandardCharsets.UTF_8).write(contents);
+	}
+
+	private void touch()
+	{
+		for (File file : scriptOut.listFiles())
+		{
+			assertTrue(file.setLastModified(MODIFIED));
+		}
+		assertTrue(manifestFile.setLastModified(MODIFIED));
+	}
+
+	private Map<String, byte[]> output() throws IOException
+	{
+		Map<String, byte[]> output = new HashMap<>();
+		for (File file : scriptOut.listFiles())
+		{
+			output.put(file.getName(), Files.toByteArray(file));
+		}
+		return output;
+	}
+
+	private static void assertOutputEquals(Map<String, byte[]> expected, Map<String, byte[]> actual)
+	{
+		assertEquals(expected.keySet(), actual.keySet());
+		for (Map.Entry<String, byte[]> entry : expected.entrySet())
+		{
+			assertArrayEquals(entry.getKey(), entry.getValue(), actual.get(entry.getKey()));
+		}
+	}
+}